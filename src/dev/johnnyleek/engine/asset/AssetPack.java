@@ -0,0 +1,172 @@
+package dev.johnnyleek.engine.asset;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only archive of asset files (images, audio, scenes...), written by the AssetPacker.
+ *
+ * The whole pack is memory mapped when it is opened, so loading any number of assets
+ * from it only ever opens one file. Entries are given out as ByteBuffers that point straight
+ * into the mapped file (see "get"), so nothing is copied until the asset is decoded.
+ *
+ * A pack starts with a header and an index, followed by the data of every entry:
+ * 	- Header: magic number, version, and the number of entries
+ * 	- Index: for every entry, the hash of its name, and the offset and length of its data
+ * 		(sorted by hash, so an entry is found with a binary search, without reading every name)
+ * 	- Data: the contents of every file, one after another
+ *
+ * Entry names are the paths of the files relative to the packed directory, with "/" between
+ * directories (for example "images/player.png"). Names are hashed with 64-bit FNV-1a.
+ *
+ * Images and AudioClips can be loaded straight from a pack (see their AssetPack constructors).
+ *
+ * A pack can be shared by any number of threads.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class AssetPack {
+
+	static final int MAGIC = 0x4A47504B; // "JGPK"
+	static final short VERSION = 1;
+	static final int HEADER_SIZE = 12;
+	static final int INDEX_ENTRY_SIZE = 24;
+
+	private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+	private static final long FNV_PRIME = 0x100000001B3L;
+
+	private final String path;
+	private final MappedByteBuffer buffer;
+	private final int entryCount;
+
+	/**
+	 * Opens (and maps) an asset pack
+	 * @param path the path of the pack
+	 * @throws IOException if the file could not be read, or is not an asset pack
+	 */
+	public AssetPack(String path) throws IOException {
+		this.path = path;
+		try(FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			if(channel.size() > Integer.MAX_VALUE) throw new IOException("Asset pack is too large to map (over 2GB): " + path);
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if(buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not an asset pack: " + path);
+		}
+		short version = buffer.getShort(4);
+		if(version != VERSION) {
+			throw new IOException("Unsupported asset pack version " + version + ": " + path);
+		}
+		this.entryCount = buffer.getInt(8);
+		if(entryCount < 0 || HEADER_SIZE + (long) entryCount * INDEX_ENTRY_SIZE > buffer.limit()) {
+			throw new IOException("Damaged asset pack (bad index): " + path);
+		}
+	}
+
+	/**
+	 * Hashes an entry name (64-bit FNV-1a of its UTF-8 bytes)
+	 * @param name the entry name
+	 * @return the hash of the name
+	 */
+	public static long hash(String name) {
+		long hash = FNV_OFFSET;
+		for(byte b : normalize(name).getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xFF;
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+
+	/**
+	 * Converts a file path into an entry name ("/" between directories, and no leading "/")
+	 */
+	static String normalize(String name) {
+		name = name.replace('\\', '/');
+		while(name.startsWith("/")) name = name.substring(1);
+		return name;
+	}
+
+	/**
+	 * Finds the index of an entry (a binary search of the sorted hashes)
+	 * @return the index of the entry, or -1 if the pack does not contain it
+	 */
+	private int find(String name) {
+		long hash = hash(name);
+		int low = 0, high = entryCount - 1;
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			long found = buffer.getLong(HEADER_SIZE + middle * INDEX_ENTRY_SIZE);
+			if(found < hash) low = middle + 1;
+			else if(found > hash) high = middle - 1;
+			else return middle;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns whether or not the pack contains an entry
+	 * @param name the name of the entry
+	 * @return true/false depending on if the entry exists
+	 */
+	public boolean contains(String name) {
+		return find(name) >= 0;
+	}
+
+	/**
+	 * Gets the data of an entry, without copying it
+	 * @param name the name of the entry (for example "images/player.png")
+	 * @return a read-only ByteBuffer of the entry's data (or null if the pack does not contain it)
+	 * @throws IOException if the entry's data is not inside the pack
+	 */
+	public ByteBuffer get(String name) throws IOException {
+		int index = find(name);
+		if(index < 0) return null;
+
+		int position = HEADER_SIZE + index * INDEX_ENTRY_SIZE;
+		long offset = buffer.getLong(position + 8), length = buffer.getLong(position + 16);
+		if(offset < 0 || length < 0 || offset + length > buffer.limit()) {
+			throw new IOException("Damaged asset pack (bad entry \"" + name + "\"): " + path);
+		}
+		ByteBuffer entry = buffer.duplicate();
+		entry.position((int) offset).limit((int) (offset + length));
+		return entry.slice();
+	}
+
+	/**
+	 * Opens a stream of an entry's data (read straight from the mapped pack)
+	 * @param name the name of the entry
+	 * @return a stream of the entry's data
+	 * @throws FileNotFoundException if the pack does not contain the entry
+	 * @throws IOException if the entry's data is not inside the pack
+	 */
+	public ByteBufferInputStream open(String name) throws IOException {
+		ByteBuffer entry = get(name);
+		if(entry == null) throw new FileNotFoundException("\"" + name + "\" is not in asset pack: " + path);
+		return new ByteBufferInputStream(entry);
+	}
+
+	/**
+	 * Gets the number of entries in the pack
+	 * @return the number of entries
+	 */
+	public int getEntryCount() {
+		return this.entryCount;
+	}
+
+	/**
+	 * Gets the path of the pack file
+	 * @return the path of the pack
+	 */
+	public String getPath() {
+		return this.path;
+	}
+
+}
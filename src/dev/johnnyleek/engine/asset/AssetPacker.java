@@ -0,0 +1,114 @@
+package dev.johnnyleek.engine.asset;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes every file in a directory into an AssetPack.
+ *
+ * This is meant to be run once (for example, when the game is built), not while the game
+ * is running. It can be run from the command line:
+ *
+ * 	java dev.johnnyleek.engine.asset.AssetPacker assets.pack assets/
+ *
+ * Each file is stored under its path relative to the directory (for example "images/player.png").
+ * Files are packed in order of their names, so packing the same directory always gives the same pack.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class AssetPacker {
+
+	private static final int ALIGNMENT = 8;
+
+	/**
+	 * Packs a directory from the command line
+	 * @param args the path of the pack to write, and the directory to pack
+	 */
+	public static void main(String[] args) throws IOException {
+		if(args.length != 2) {
+			System.err.println("Usage: AssetPacker <pack file> <asset directory>");
+			System.exit(1);
+		}
+		int count = pack(Paths.get(args[1]), Paths.get(args[0]));
+		System.out.println("Packed " + count + " files into " + args[0]);
+	}
+
+	/**
+	 * Writes every file in a directory (and its subdirectories) into a pack
+	 * @param directory the directory to pack
+	 * @param pack the path of the pack to write (replaced if it exists)
+	 * @return the number of files packed
+	 * @throws IOException if a file could not be read, the pack could not be written,
+	 * 		or two file names have the same hash
+	 */
+	public static int pack(Path directory, Path pack) throws IOException {
+		List<Path> files;
+		try(Stream<Path> walk = Files.walk(directory)) {
+			Path absolutePack = pack.toAbsolutePath().normalize();
+			files = walk.filter(Files::isRegularFile)
+					.filter(file -> !file.toAbsolutePath().normalize().equals(absolutePack))
+					.sorted()
+					.collect(Collectors.toList());
+		}
+
+		int count = files.size();
+		long[] hashes = new long[count];
+		long[] offsets = new long[count];
+		long[] lengths = new long[count];
+		HashMap<Long, String> names = new HashMap<Long, String>();
+
+		long offset = AssetPack.HEADER_SIZE + (long) count * AssetPack.INDEX_ENTRY_SIZE;
+		for(int i = 0; i < count; i++) {
+			String name = AssetPack.normalize(directory.relativize(files.get(i)).toString());
+			hashes[i] = AssetPack.hash(name);
+			String other = names.put(hashes[i], name);
+			if(other != null) throw new IOException("Asset names \"" + other + "\" and \"" + name + "\" have the same hash");
+
+			offset = (offset + ALIGNMENT - 1) & -ALIGNMENT;
+			offsets[i] = offset;
+			lengths[i] = Files.size(files.get(i));
+			offset += lengths[i];
+		}
+		if(offset > Integer.MAX_VALUE) throw new IOException("Assets are too large for one pack (over 2GB)");
+
+		// The index is sorted by hash, so entries can be found with a binary search
+		Integer[] order = new Integer[count];
+		for(int i = 0; i < count; i++) order[i] = i;
+		Arrays.sort(order, (a, b) -> Long.compare(hashes[a], hashes[b]));
+
+		try(FileChannel channel = FileChannel.open(pack, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer index = ByteBuffer.allocate(AssetPack.HEADER_SIZE + count * AssetPack.INDEX_ENTRY_SIZE);
+			index.putInt(AssetPack.MAGIC).putShort(AssetPack.VERSION).putShort((short) 0).putInt(count);
+			for(int i : order) {
+				index.putLong(hashes[i]).putLong(offsets[i]).putLong(lengths[i]);
+			}
+			index.flip();
+			while(index.hasRemaining()) channel.write(index);
+
+			for(int i = 0; i < count; i++) {
+				try(FileChannel file = FileChannel.open(files.get(i), StandardOpenOption.READ)) {
+					long position = 0;
+					while(position < lengths[i]) {
+						long copied = file.transferTo(position, lengths[i] - position, channel.position(offsets[i] + position));
+						if(copied <= 0) throw new IOException("File changed while it was being packed: " + files.get(i));
+						position += copied;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,77 @@
+package dev.johnnyleek.engine.asset;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An InputStream that reads straight from a ByteBuffer (such as an entry of an AssetPack),
+ * without copying it first.
+ *
+ * The stream supports mark/reset, so it can be given directly to ImageIO and the AudioSystem.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class ByteBufferInputStream extends InputStream {
+
+	private final ByteBuffer buffer;
+
+	/**
+	 * Creates a stream over the remaining bytes of a buffer
+	 * @param buffer the buffer to read (its position is not changed)
+	 */
+	public ByteBufferInputStream(ByteBuffer buffer) {
+		this.buffer = buffer.slice();
+	}
+
+	@Override
+	public int read() {
+		return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int length) {
+		if(length == 0) return 0;
+		if(!buffer.hasRemaining()) return -1;
+		int count = Math.min(length, buffer.remaining());
+		buffer.get(bytes, offset, count);
+		return count;
+	}
+
+	@Override
+	public long skip(long count) {
+		int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+		buffer.position(buffer.position() + skipped);
+		return skipped;
+	}
+
+	@Override
+	public int available() {
+		return buffer.remaining();
+	}
+
+	@Override
+	public boolean markSupported() {
+		return true;
+	}
+
+	@Override
+	public synchronized void mark(int readLimit) {
+		buffer.mark();
+	}
+
+	@Override
+	public synchronized void reset() {
+		buffer.reset();
+	}
+
+	/**
+	 * Gets the number of bytes read so far
+	 * @return the position of the stream
+	 */
+	public int getPosition() {
+		return buffer.position();
+	}
+
+}
@@ -1,6 +1,7 @@
 package dev.johnnyleek.engine.audio;
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -8,6 +9,7 @@ import java.util.UUID;
 
 import javax.sound.sampled.Clip;
 
+import dev.johnnyleek.engine.asset.AssetPack;
 import dev.johnnyleek.engine.util.Logger;
 
 /**
@@ -25,9 +27,18 @@ import dev.johnnyleek.engine.util.Logger;
  * changed until it is stopped and started again (using the AudioPlayer's
  * "stopAudio" and "playAudio" methods.
  * 
+ * Each clip has a volume (gain) and a priority. When too many sounds are playing
+ * at once, lower priority sounds are stopped to make room for higher priority ones.
+ * 
+ * Long clips (such as music) can be streamed from the file as they play, rather than
+ * being decoded into memory all at once (see "setStreaming").
+ * 
  * The constructor for AudioClip throws a FileNotFoundException which must be
  * handled. This is thrown in the event that the provided file path does not exist.
  * 
+ * Clips can also be loaded from an entry of an AssetPack, in which case the audio is
+ * decoded (or streamed) straight from the mapped pack, and no file is opened.
+ * 
  * @author Johnny Leek
  * @version 1.0
  *
@@ -35,11 +46,15 @@ import dev.johnnyleek.engine.util.Logger;
 public class AudioClip {
 
 	private UUID clipId;
-	private BufferedInputStream file;
 	private String path;
+	private AssetPack pack;
 	
 	private boolean shouldLoop = false;
 	private int loopCount = Clip.LOOP_CONTINUOUSLY;
+	
+	private float gain = 1f;
+	private int priority = 0;
+	private boolean streaming = false;
 
 	/**
 	 * Provides a constructor for instantiating an AudioClip that does not loop.
@@ -48,7 +63,7 @@ public class AudioClip {
 	 */
 	public AudioClip(String path) throws FileNotFoundException {
 		this.path = path;
-		this.file = new BufferedInputStream(new FileInputStream(path));
+		checkExists(path);
 		this.clipId = UUID.randomUUID();
 	}
 	
@@ -60,7 +75,7 @@ public class AudioClip {
 	 */
 	public AudioClip(String path, boolean shouldLoop) throws FileNotFoundException {
 		this.path = path;
-		this.file = new BufferedInputStream(new FileInputStream(path));
+		checkExists(path);
 		this.shouldLoop = true;
 		this.clipId = UUID.randomUUID();
 	}
@@ -74,12 +89,25 @@ public class AudioClip {
 	 */
 	public AudioClip(String path, boolean shouldLoop, int loopCount) throws FileNotFoundException {
 		this.path = path;
-		this.file = new BufferedInputStream(new FileInputStream(path));
+		checkExists(path);
 		this.shouldLoop = true;
 		this.loopCount = loopCount;
 		this.clipId = UUID.randomUUID();
 	}
 
+	/**
+	 * Provides a constructor for instantiating an AudioClip from an entry of an AssetPack that does not loop.
+	 * @param pack the AssetPack containing the clip
+	 * @param name the name of the entry (for example "audio/jump.wav")
+	 * @throws FileNotFoundException if the pack does not contain the entry
+	 */
+	public AudioClip(AssetPack pack, String name) throws FileNotFoundException {
+		if(!pack.contains(name)) throw new FileNotFoundException("\"" + name + "\" is not in asset pack: " + pack.getPath());
+		this.path = name;
+		this.pack = pack;
+		this.clipId = UUID.randomUUID();
+	}
+
 	/**
 	 * Gets the UUID of the clip
 	 * @return the UUID of the clip
@@ -99,8 +127,9 @@ public class AudioClip {
 	 */
 	public BufferedInputStream getFile() {	
 		try {
+			if(this.pack != null) return new BufferedInputStream(this.pack.open(this.path));
 			return new BufferedInputStream(new FileInputStream(this.path));
-		} catch (FileNotFoundException e) {
+		} catch (IOException e) {
 			Logger.error("File not found: \"" + this.path + "\"");
 			e.printStackTrace();
 		}
@@ -108,20 +137,37 @@ public class AudioClip {
 	}
 	
 	/**
-	 * Closes the current audio file
-	 * @throws IOException if the file cannot be closed
+	 * Makes sure a clip's file exists (the file is only opened when the clip is played)
+	 * @throws FileNotFoundException if the file cannot be found
+	 */
+	private static void checkExists(String path) throws FileNotFoundException {
+		if(!new File(path).isFile()) throw new FileNotFoundException(path);
+	}
+
+	/**
+	 * Does nothing: clips no longer keep their file open (it is opened each time the clip is played)
+	 * @throws IOException never
+	 * @deprecated there is no file to close
 	 */
+	@Deprecated
 	public void closeFile() throws IOException {
-		this.file.close();
 	}
 	
 	/**
 	 * Returns the file path of the AudioClip
-	 * @return the current file path of the AudioClip
+	 * @return the current file path of the AudioClip (or its entry name, if it is in an AssetPack)
 	 */
 	public String getPath() {
 		return this.path;
 	}
+	
+	/**
+	 * Gets the AssetPack the clip is loaded from
+	 * @return the clip's AssetPack (or null if the clip is loaded from a file)
+	 */
+	public AssetPack getPack() {
+		return this.pack;
+	}
 
 	/**
 	 * Returns whether or not the clip should loop
@@ -153,6 +199,58 @@ public class AudioClip {
 	 */
 	public void setLoopCount(int loopCount) {
 		this.loopCount = loopCount;
-	}	
+	}
+	
+	/**
+	 * Gets the volume the clip is played at
+	 * @return the gain of the clip (1 is full volume)
+	 */
+	public float getGain() {
+		return gain;
+	}
+	
+	/**
+	 * Sets the volume the clip is played at. This only affects future plays of the clip
+	 * (use the AudioPlayer's "setGain" method to change clips that are already playing)
+	 * @param gain the gain of the clip (1 is full volume)
+	 */
+	public void setGain(float gain) {
+		this.gain = gain;
+	}
+	
+	/**
+	 * Gets the priority of the clip
+	 * @return the priority of the clip (higher is more important)
+	 */
+	public int getPriority() {
+		return priority;
+	}
+	
+	/**
+	 * Sets the priority of the clip. When too many sounds are playing, a new sound stops
+	 * the lowest priority sound that is not more important than itself (or is not played at all)
+	 * @param priority the priority of the clip (higher is more important, 0 by default)
+	 */
+	public void setPriority(int priority) {
+		this.priority = priority;
+	}
+	
+	/**
+	 * Returns whether or not the clip is streamed from the file as it plays
+	 * @return true/false depending on if the clip is streamed
+	 */
+	public boolean isStreaming() {
+		return streaming;
+	}
+	
+	/**
+	 * Enables/disables streaming the clip. A streamed clip is read from the file a little at a time
+	 * as it plays, so it uses very little memory no matter how long it is. Streamed clips must be
+	 * 16-bit 44.1kHz .wav files.
+	 * @param streaming whether or not the clip should be streamed
+	 */
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
 	
 }
@@ -0,0 +1,44 @@
+package dev.johnnyleek.engine.audio;
+
+/**
+ * Represents a queued AudioPlayer operation.
+ *
+ * Commands are queued by any thread (usually the game thread), and carried
+ * out in order by the AudioCommandThread.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+final class AudioCommand {
+
+	enum Action {
+		PLAY,
+		PLAY_MUSIC,
+		STOP_CLIP,
+		SET_CLIP_GAIN,
+		STOP_VOICE,
+		SET_VOICE_GAIN,
+		SET_VOICE_LOOPS,
+		STOP_MUSIC
+	}
+
+	final Action action;
+	final AudioClip audioClip;
+	final Voice voice;
+	final long handle;
+	final float gain;
+	final int value; // The number of loops, or the number of frames to fade over
+	final long queued;
+
+	AudioCommand(Action action, AudioClip audioClip, Voice voice, long handle, float gain, int value) {
+		this.action = action;
+		this.audioClip = audioClip;
+		this.voice = voice;
+		this.handle = handle;
+		this.gain = gain;
+		this.value = value;
+		this.queued = System.nanoTime();
+	}
+
+}
@@ -0,0 +1,159 @@
+package dev.johnnyleek.engine.audio;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import dev.johnnyleek.engine.util.Logger;
+
+/**
+ * The thread that carries out AudioPlayer operations, so the thread that plays
+ * a sound (usually the game thread) never waits on the disk.
+ *
+ * Commands are queued without locking, and carried out in the order they were
+ * queued. Everything slow about starting a sound (reading and decoding the file,
+ * or opening it for streaming) happens here, before the voice is handed to the mixer.
+ * Stops and changes go through the same queue, so they are never applied to a voice
+ * before the voice has started.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+final class AudioCommandThread implements Runnable {
+
+	private final ConcurrentLinkedQueue<AudioCommand> commands = new ConcurrentLinkedQueue<AudioCommand>();
+	private final PcmCache cache;
+	private final AudioMixer mixer;
+	private final Thread thread;
+
+	private volatile long commandsRun;
+	private volatile long maxWait;
+
+	AudioCommandThread(PcmCache cache, AudioMixer mixer) {
+		this.cache = cache;
+		this.mixer = mixer;
+		this.thread = new Thread(this, "Audio Commands");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Queues a command, waking the thread if it is sleeping
+	 */
+	void queue(AudioCommand command) {
+		commands.add(command);
+		LockSupport.unpark(thread);
+	}
+
+	@Override
+	public void run() {
+		while(true) {
+			AudioCommand command = commands.poll();
+			if(command == null) {
+				LockSupport.park(this);
+				continue;
+			}
+
+			long wait = System.nanoTime() - command.queued;
+			if(wait > maxWait) maxWait = wait;
+			try {
+				execute(command);
+			} catch(RuntimeException e) {
+				Logger.error("Audio command " + command.action + " failed!");
+				e.printStackTrace();
+			}
+			commandsRun++;
+		}
+	}
+
+	private void execute(AudioCommand command) {
+		switch(command.action) {
+			case PLAY:
+				play(command, 0);
+				break;
+			case PLAY_MUSIC:
+				play(command, command.value);
+				break;
+			case STOP_CLIP:
+				mixer.stopClip(command.audioClip.getClipID());
+				break;
+			case SET_CLIP_GAIN:
+				mixer.setGain(command.audioClip.getClipID(), command.gain);
+				break;
+			case STOP_VOICE:
+				mixer.stopVoice(command.handle);
+				break;
+			case SET_VOICE_GAIN:
+				mixer.setVoiceGain(command.handle, command.gain);
+				break;
+			case SET_VOICE_LOOPS:
+				mixer.setVoiceLoops(command.handle, command.value);
+				break;
+			case STOP_MUSIC:
+				mixer.fadeOutMusic(command.value);
+				break;
+		}
+	}
+
+	/**
+	 * Loads the audio of a clip into the voice that was taken for it, and hands the voice to the mixer.
+	 * If the audio cannot be loaded, the voice is returned to the pool (ending its handle).
+	 */
+	private void play(AudioCommand command, int fadeFrames) {
+		AudioClip audioClip = command.audioClip;
+		Voice voice = command.voice;
+		int loops = audioClip.shouldLoop() ? audioClip.getLoopCount() : 0;
+		PcmData pcm = null;
+		AudioStream stream = null;
+
+		try {
+			if(audioClip.isStreaming()) {
+				stream = audioClip.getPack() != null
+						? mixer.openStream(audioClip.getPath(), audioClip.getPack().get(audioClip.getPath()), loops)
+						: mixer.openStream(audioClip.getPath(), loops);
+				loops = 0;
+			} else {
+				pcm = cache.get(audioClip);
+			}
+		} catch (UnsupportedAudioFileException e) {
+			Logger.error("Unsupported Audio File!");
+			e.printStackTrace();
+			mixer.releaseVoice(voice);
+			return;
+		} catch (IOException e) {
+			Logger.error("IO Exception occurred trying to play audio file");
+			e.printStackTrace();
+			mixer.releaseVoice(voice);
+			return;
+		}
+
+		voice.init(audioClip.getClipID(), pcm, stream, audioClip.getPriority(), loops, AudioMixer.toFixed(command.gain), command.action == AudioCommand.Action.PLAY_MUSIC);
+		voice.requested = command.queued;
+		mixer.start(voice, fadeFrames);
+	}
+
+	/**
+	 * Gets the number of commands that have been carried out
+	 */
+	long getCommandsRun() {
+		return this.commandsRun;
+	}
+
+	/**
+	 * Gets the number of commands waiting to be carried out
+	 */
+	int getPendingCommands() {
+		return this.commands.size();
+	}
+
+	/**
+	 * Gets the longest time (in nanoseconds) a command waited in the queue
+	 */
+	long getMaxWait() {
+		return this.maxWait;
+	}
+
+}
@@ -0,0 +1,823 @@
+package dev.johnnyleek.engine.audio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import dev.johnnyleek.engine.util.Logger;
+
+/**
+ * Mixes every playing sound into a single stream of audio, on its own thread.
+ *
+ * The mixer sums the voices (playbacks of AudioClips) in fixed size blocks of
+ * BLOCK_FRAMES frames, into buffers that are allocated once and reused, and writes
+ * each block to an AudioSink (normally a LineSink, which is the one line the whole
+ * game plays through). Looping voices simply jump back to the start of their audio.
+ *
+ * Voices can play decoded audio from memory (PcmData), or stream long files
+ * (such as music) through a small ring buffer that an AudioStreamer thread keeps full.
+ * Music voices can crossfade: starting a new music voice fades out the current one
+ * while the new one fades in.
+ *
+ * At most "maxVoices" voices can play at once. When the mixer is full, a new voice
+ * steals the place of the lowest priority voice (the oldest one if there is a tie),
+ * as long as that voice's priority is not higher than its own. Otherwise, the new
+ * voice is dropped.
+ *
+ * Voices are started, stopped, and changed through a queue of commands, so any thread
+ * can use the mixer without blocking. Commands are applied before each block is mixed.
+ *
+ * Voices are pooled (there are 4 times as many voices in the pool as can play at once).
+ * Playing a voice returns a handle to it, which can be used to stop or change that one
+ * playback. As soon as a voice ends (by finishing, or being stopped or stolen), it is
+ * returned to the pool, and its handle no longer does anything. A VoiceListener can be
+ * told whenever a voice ends (see "setVoiceListener").
+ * When nothing is playing, the mixer thread sleeps until a command is queued.
+ *
+ * The mixer can also be run without its thread (for tests and benchmarks), by calling
+ * "processBlock" directly.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class AudioMixer implements Runnable {
+
+	/**
+	 * The number of frames mixed at a time (about 11.6ms of audio)
+	 */
+	public static final int BLOCK_FRAMES = 512;
+
+	/**
+	 * The default maximum number of voices that can play at once
+	 */
+	public static final int DEFAULT_MAX_VOICES = 32;
+
+	private static final int GAIN_BITS = 12;
+	private static final float GAIN_ONE = 1 << GAIN_BITS;
+	static final int FADE_BITS = 16;
+	static final int FADE_ONE = 1 << FADE_BITS;
+
+	private final AudioFormat format = PcmCache.OUTPUT_FORMAT;
+	private final long blockNanos = (long) (BLOCK_FRAMES * 1000000000L / PcmCache.OUTPUT_FORMAT.getFrameRate());
+
+	private final ConcurrentLinkedQueue<MixerCommand> commands = new ConcurrentLinkedQueue<MixerCommand>();
+	private final AudioStreamer streamer = new AudioStreamer();
+
+	// The pool of voices. Free voices form a lock-free stack (by index), and the head of the
+	// stack is stored with a counter (in the upper 32 bits) so a stale head can never be swapped in.
+	private final Voice[] pool;
+	private final int[] nextFree;
+	private final AtomicLong freeHead = new AtomicLong();
+	private final AtomicInteger voicesInUse = new AtomicInteger();
+	private volatile VoiceListener voiceListener;
+
+	// Only touched by the mixer thread
+	private final Voice[] voices;
+	private int voiceCount;
+	private long voiceStamp;
+	private final int[] mixBuffer = new int[BLOCK_FRAMES * 2];
+	private final byte[] outBuffer = new byte[BLOCK_FRAMES * 4];
+
+	private AudioSink sink;
+	private volatile Thread thread;
+	private volatile boolean running;
+	private volatile int masterGain = (int) GAIN_ONE;
+
+	private volatile int activeVoices;
+	private volatile long voicesStolen;
+	private volatile long voicesDropped;
+	private volatile long blocksMixed;
+	private volatile long streamUnderruns;
+	private volatile int peakActiveVoices;
+	private volatile long voicesReclaimed;
+	private final AtomicLong voicesUnavailable = new AtomicLong(); // Counted by the threads that play sounds
+	private volatile long startLatencyCount;
+	private volatile long startLatencyTotal;
+	private volatile long startLatencyMax;
+	private volatile long startLatencyLast;
+
+	/**
+	 * Creates a mixer with the default maximum number of voices
+	 * @param sink the AudioSink to write the mixed audio to
+	 */
+	public AudioMixer(AudioSink sink) {
+		this(sink, DEFAULT_MAX_VOICES);
+	}
+
+	/**
+	 * Creates a mixer with a custom maximum number of voices
+	 * @param sink the AudioSink to write the mixed audio to
+	 * @param maxVoices the maximum number of voices that can play at once
+	 */
+	public AudioMixer(AudioSink sink, int maxVoices) {
+		this.sink = sink;
+		this.voices = new Voice[Math.max(1, maxVoices)];
+		this.pool = new Voice[voices.length * 4];
+		this.nextFree = new int[pool.length];
+		for(int i = pool.length - 1; i >= 0; i--) {
+			pool[i] = new Voice(i);
+			push(i);
+		}
+	}
+
+	/**
+	 * Opens the sink and starts the mixer thread
+	 * @throws LineUnavailableException if the sink could not be opened
+	 */
+	public synchronized void start() throws LineUnavailableException {
+		if(this.running) return;
+		sink.open(format, outBuffer.length);
+		this.running = true;
+		this.thread = new Thread(this, "Audio Mixer");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Stops the mixer thread and closes the sink. Voices that are playing are kept,
+	 * and continue playing if the mixer is started again.
+	 */
+	public synchronized void stop() {
+		if(!this.running) return;
+		this.running = false;
+		LockSupport.unpark(thread);
+		try {
+			this.thread.join();
+		} catch(InterruptedException e) {
+			Logger.error("Audio mixer thread was interrupted!");
+			e.printStackTrace();
+		}
+		sink.close();
+	}
+
+	/**
+	 * Changes the sink the mixed audio is written to (restarting the mixer if it is running)
+	 * @param sink the new AudioSink
+	 * @throws LineUnavailableException if the new sink could not be opened
+	 */
+	public synchronized void setSink(AudioSink sink) throws LineUnavailableException {
+		boolean wasRunning = this.running;
+		stop();
+		this.sink = sink;
+		if(wasRunning) start();
+	}
+
+	/**
+	 * Gets the sink the mixed audio is written to
+	 * @return the mixer's AudioSink
+	 */
+	public synchronized AudioSink getSink() {
+		return this.sink;
+	}
+
+	/**
+	 * Mixes blocks until the mixer is stopped, sleeping while nothing is playing
+	 */
+	@Override
+	public void run() {
+		while(running) {
+			if(voiceCount == 0 && commands.isEmpty()) {
+				LockSupport.parkNanos(this, blockNanos);
+				continue;
+			}
+			processBlock();
+		}
+	}
+
+	/**
+	 * Applies queued commands, mixes one block, and writes it to the sink.
+	 * This is called by the mixer thread, and must not be called while the mixer is running.
+	 */
+	public void processBlock() {
+		applyCommands();
+		mixBlock();
+		sink.write(outBuffer, 0, outBuffer.length);
+	}
+
+	/**
+	 * Queues a command, waking the mixer thread if it is sleeping
+	 */
+	private void queue(MixerCommand command) {
+		commands.add(command);
+		Thread mixerThread = thread;
+		if(mixerThread != null) LockSupport.unpark(mixerThread);
+	}
+
+	/**
+	 * Starts a new voice
+	 * @param clipId the ID of the AudioClip being played (used to stop or change the voice)
+	 * @param pcm the decoded audio to play (in PcmCache.OUTPUT_FORMAT)
+	 * @param priority the priority of the voice (higher priority voices steal from lower ones)
+	 * @param loops how many more times to play the audio once it ends (negative to loop forever)
+	 * @param gain the volume of the voice (1 is full volume)
+	 * @return the handle of the voice (or 0 if the pool is out of voices)
+	 */
+	public long play(UUID clipId, PcmData pcm, int priority, int loops, float gain) {
+		Voice voice = acquireVoice();
+		if(voice == null) return 0;
+		voice.init(clipId, pcm, null, priority, loops, toFixed(gain), false);
+		return start(voice, 0);
+	}
+
+	/**
+	 * Starts a new voice that streams a WAV file (16-bit 44.1kHz PCM), instead of decoding the
+	 * whole file. Streaming voices use the same small amount of memory no matter how long the file is.
+	 * @param clipId the ID of the AudioClip being played (used to stop or change the voice)
+	 * @param path the path of the WAV file
+	 * @param priority the priority of the voice (higher priority voices steal from lower ones)
+	 * @param loops how many more times to play the audio once it ends (negative to loop forever)
+	 * @param gain the volume of the voice (1 is full volume)
+	 * @return the handle of the voice (or 0 if the pool is out of voices)
+	 * @throws IOException if the file could not be read
+	 * @throws UnsupportedAudioFileException if the file is not a WAV file that can be streamed
+	 */
+	public long stream(UUID clipId, String path, int priority, int loops, float gain) throws IOException, UnsupportedAudioFileException {
+		Voice voice = acquireVoice();
+		if(voice == null) return 0;
+		try {
+			voice.init(clipId, null, openStream(path, loops), priority, 0, toFixed(gain), false);
+		} catch(IOException | UnsupportedAudioFileException e) {
+			releaseVoice(voice);
+			throw e;
+		}
+		return start(voice, 0);
+	}
+
+	/**
+	 * Opens a WAV file for streaming, and starts filling its ring buffer
+	 */
+	AudioStream openStream(String path, int loops) throws IOException, UnsupportedAudioFileException {
+		return openStream(path, AudioStream.map(path), loops);
+	}
+
+	/**
+	 * Opens a WAV file that is already in memory (such as an AssetPack entry) for streaming,
+	 * and starts filling its ring buffer
+	 * @param name the path or name of the WAV file
+	 * @param wav the whole WAV file
+	 * @param loops how many more times to play the audio once it ends (negative to loop forever)
+	 */
+	AudioStream openStream(String name, ByteBuffer wav, int loops) throws UnsupportedAudioFileException {
+		byte[] ring = streamer.acquireRing();
+		AudioStream stream;
+		try {
+			stream = new AudioStream(name, wav, loops, ring);
+		} catch(UnsupportedAudioFileException e) {
+			streamer.releaseRing(ring);
+			throw e;
+		}
+		streamer.add(stream);
+		return stream;
+	}
+
+	/**
+	 * Queues a voice to start playing. If the voice is music, the music that is
+	 * already playing fades out while the new voice fades in.
+	 * @param voice the voice to start
+	 * @param fadeFrames the number of frames to crossfade over (music only)
+	 */
+	long start(Voice voice, int fadeFrames) {
+		if(voice.requested == 0) voice.requested = System.nanoTime();
+		long handle = voice.handle();
+		queue(new MixerCommand(MixerCommand.Action.PLAY, voice.clipId, voice, handle, 0, fadeFrames));
+		return handle;
+	}
+
+	/**
+	 * Takes a voice from the pool
+	 * @return a free voice (or null if every voice in the pool is in use)
+	 */
+	Voice acquireVoice() {
+		long head;
+		int index;
+		do {
+			head = freeHead.get();
+			index = (int) head - 1;
+			if(index < 0) {
+				voicesUnavailable.incrementAndGet();
+				return null;
+			}
+		} while(!freeHead.compareAndSet(head, (((head >>> 32) + 1) << 32) | (nextFree[index] + 1)));
+		voicesInUse.incrementAndGet();
+		return pool[index];
+	}
+
+	/**
+	 * Returns a voice to the pool, invalidating its handle
+	 */
+	void releaseVoice(Voice voice) {
+		voice.pcm = null;
+		voice.stream = null;
+		voice.generation = voice.generation == Integer.MAX_VALUE ? 1 : voice.generation + 1;
+		voicesInUse.decrementAndGet();
+		push(voice.index);
+	}
+
+	private void push(int index) {
+		long head;
+		do {
+			head = freeHead.get();
+			nextFree[index] = (int) head - 1;
+		} while(!freeHead.compareAndSet(head, (((head >>> 32) + 1) << 32) | (index + 1)));
+	}
+
+	/**
+	 * Finds the voice a handle refers to
+	 * @return the voice (or null if the voice has ended)
+	 */
+	private Voice resolve(long handle) {
+		int index = (int) handle;
+		if(index < 0 || index >= pool.length) return null;
+		Voice voice = pool[index];
+		return voice.generation == (int) (handle >>> 32) ? voice : null;
+	}
+
+	/**
+	 * Returns whether or not a voice is still playing (or waiting to play)
+	 * @param handle the handle of the voice
+	 * @return true/false depending on if the voice has not ended yet
+	 */
+	public boolean isPlaying(long handle) {
+		return handle != 0 && resolve(handle) != null;
+	}
+
+	/**
+	 * Stops a single voice
+	 * @param handle the handle of the voice to stop
+	 */
+	public void stopVoice(long handle) {
+		queue(new MixerCommand(MixerCommand.Action.STOP_VOICE, null, null, handle, 0, 0));
+	}
+
+	/**
+	 * Changes the volume of a single voice
+	 * @param handle the handle of the voice to change
+	 * @param gain the new volume (1 is full volume)
+	 */
+	public void setVoiceGain(long handle, float gain) {
+		queue(new MixerCommand(MixerCommand.Action.SET_VOICE_GAIN, null, null, handle, gain, 0));
+	}
+
+	/**
+	 * Changes how many more times a single voice plays once it reaches the end of its audio
+	 * @param handle the handle of the voice to change
+	 * @param loops the number of loops (0 to stop at the end, negative to loop forever)
+	 */
+	public void setVoiceLoops(long handle, int loops) {
+		queue(new MixerCommand(MixerCommand.Action.SET_VOICE_LOOPS, null, null, handle, 0, loops));
+	}
+
+	/**
+	 * Sets the listener that is told whenever a voice ends (called on the mixer thread)
+	 * @param voiceListener the VoiceListener (or null for no listener)
+	 */
+	public void setVoiceListener(VoiceListener voiceListener) {
+		this.voiceListener = voiceListener;
+	}
+
+	/**
+	 * Fades out (and then stops) every music voice
+	 * @param fadeFrames the number of frames to fade out over (0 to stop right away)
+	 */
+	public void fadeOutMusic(int fadeFrames) {
+		queue(new MixerCommand(MixerCommand.Action.FADE_MUSIC, null, null, 0, 0, fadeFrames));
+	}
+
+	/**
+	 * Stops every voice of an AudioClip
+	 * @param clipId the ID of the AudioClip to stop
+	 */
+	public void stopClip(UUID clipId) {
+		queue(new MixerCommand(MixerCommand.Action.STOP, clipId, null, 0, 0, 0));
+	}
+
+	/**
+	 * Stops every voice
+	 */
+	public void stopAllVoices() {
+		queue(new MixerCommand(MixerCommand.Action.STOP_ALL, null, null, 0, 0, 0));
+	}
+
+	/**
+	 * Changes the volume of every voice of an AudioClip
+	 * @param clipId the ID of the AudioClip to change
+	 * @param gain the new volume (1 is full volume)
+	 */
+	public void setGain(UUID clipId, float gain) {
+		queue(new MixerCommand(MixerCommand.Action.SET_GAIN, clipId, null, 0, gain, 0));
+	}
+
+	/**
+	 * Changes the volume of the whole mix
+	 * @param gain the new volume (1 is full volume)
+	 */
+	public void setMasterGain(float gain) {
+		this.masterGain = toFixed(gain);
+	}
+
+	/**
+	 * Gets the volume of the whole mix
+	 * @return the master volume (1 is full volume)
+	 */
+	public float getMasterGain() {
+		return this.masterGain / GAIN_ONE;
+	}
+
+	static int toFixed(float gain) {
+		return Math.max(0, Math.round(gain * GAIN_ONE));
+	}
+
+	/**
+	 * Applies every queued command, in the order they were queued
+	 */
+	private void applyCommands() {
+		MixerCommand command;
+		while((command = commands.poll()) != null) {
+			switch(command.action) {
+				case PLAY:
+					Voice voice = command.voice;
+					if(voice.cancelled) {
+						reclaim(voice, false);
+						break;
+					}
+					if(voice.pcm != null && voice.pcm.getFrameCount() == 0) {
+						reclaim(voice, true);
+						break;
+					}
+					voice.started = voiceStamp++;
+					if(voice.music) {
+						fadeMusic(command.fadeFrames);
+						if(command.fadeFrames > 0) {
+							voice.fade = 0;
+							voice.fadeStep = Math.max(1, FADE_ONE / command.fadeFrames);
+						}
+					}
+					addVoice(voice);
+					break;
+				case STOP:
+					for(int i = voiceCount - 1; i >= 0; i--) {
+						if(voices[i].clipId.equals(command.clipId)) removeVoice(i, false);
+					}
+					break;
+				case STOP_ALL:
+					while(voiceCount > 0) removeVoice(voiceCount - 1, false);
+					break;
+				case STOP_VOICE:
+					Voice stopped = resolve(command.handle);
+					if(stopped == null) break;
+					if(stopped.slot >= 0) removeVoice(stopped.slot, false);
+					else stopped.cancelled = true; // It has not started yet
+					break;
+				case SET_VOICE_GAIN:
+					Voice changed = resolve(command.handle);
+					if(changed != null) changed.gain = toFixed(command.gain);
+					break;
+				case SET_VOICE_LOOPS:
+					Voice looped = resolve(command.handle);
+					if(looped == null) break;
+					if(looped.stream != null) looped.stream.setLoops(command.fadeFrames);
+					else looped.loopsRemaining = command.fadeFrames;
+					break;
+				case SET_GAIN:
+					int gain = toFixed(command.gain);
+					for(int i = 0; i < voiceCount; i++) {
+						if(voices[i].clipId.equals(command.clipId)) voices[i].gain = gain;
+					}
+					break;
+				case FADE_MUSIC:
+					fadeMusic(command.fadeFrames);
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Fades out every music voice, stopping them once they are silent
+	 */
+	private void fadeMusic(int fadeFrames) {
+		for(int i = voiceCount - 1; i >= 0; i--) {
+			Voice voice = voices[i];
+			if(!voice.music) continue;
+			if(fadeFrames <= 0) {
+				removeVoice(i, false);
+			} else {
+				voice.fadeStep = -Math.max(1, FADE_ONE / fadeFrames);
+				voice.stopWhenSilent = true;
+			}
+		}
+	}
+
+	/**
+	 * Adds a voice, stealing the place of a lower priority voice if the mixer is full
+	 */
+	private void addVoice(Voice voice) {
+		if(voiceCount < voices.length) {
+			voice.slot = voiceCount;
+			voices[voiceCount++] = voice;
+			return;
+		}
+
+		int victim = -1;
+		for(int i = 0; i < voiceCount; i++) {
+			Voice candidate = voices[i];
+			if(candidate.priority > voice.priority) continue;
+			if(victim < 0 || candidate.priority < voices[victim].priority
+					|| (candidate.priority == voices[victim].priority && candidate.started < voices[victim].started)) {
+				victim = i;
+			}
+		}
+
+		if(victim < 0) {
+			reclaim(voice, false);
+			voicesDropped++;
+			return;
+		}
+		reclaim(voices[victim], false);
+		voice.slot = victim;
+		voices[victim] = voice;
+		voicesStolen++;
+	}
+
+	/**
+	 * Removes a playing voice from the mixer, and returns it to the pool
+	 */
+	private void removeVoice(int index, boolean finished) {
+		Voice voice = voices[index];
+		voices[index] = voices[--voiceCount];
+		voices[index].slot = index;
+		voices[voiceCount] = null;
+		reclaim(voice, finished);
+	}
+
+	/**
+	 * Stops a voice's stream (if it has one), tells the listener the voice has ended, and returns it to the pool
+	 */
+	private void reclaim(Voice voice, boolean finished) {
+		if(voice.stream != null) voice.stream.close();
+		voice.slot = -1;
+		VoiceListener listener = voiceListener;
+		if(listener != null) listener.onVoiceEnded(voice.handle(), voice.clipId, finished);
+		voicesReclaimed++;
+		releaseVoice(voice);
+	}
+
+	/**
+	 * Sums every voice into the mix buffer, and converts the mix into 16-bit samples
+	 */
+	private void mixBlock() {
+		int[] mix = mixBuffer;
+		Arrays.fill(mix, 0);
+		long heardAt = 0;
+
+		for(int v = voiceCount - 1; v >= 0; v--) {
+			Voice voice = voices[v];
+			boolean playing = voice.stream != null ? mixStream(voice, mix) : mixVoice(voice, mix);
+			if(voice.requested != 0 && (voice.stream == null || voice.primed)) {
+				if(heardAt == 0) heardAt = System.nanoTime() + (long) (sink.getBufferedFrames() * 1000000000L / format.getFrameRate());
+				recordStartLatency(heardAt - voice.requested);
+				voice.requested = 0;
+			}
+			if(!playing) removeVoice(v, true);
+			else if(voice.stopWhenSilent && voice.fade == 0) removeVoice(v, false);
+		}
+
+		int master = masterGain;
+		byte[] out = outBuffer;
+		for(int i = 0, b = 0; i < mix.length; i++, b += 2) {
+			int sample = (int) (((long) mix[i] * master) >> GAIN_BITS);
+			if(sample > Short.MAX_VALUE) sample = Short.MAX_VALUE;
+			else if(sample < Short.MIN_VALUE) sample = Short.MIN_VALUE;
+			out[b] = (byte) sample;
+			out[b + 1] = (byte) (sample >> 8);
+		}
+
+		activeVoices = voiceCount;
+		if(voiceCount > peakActiveVoices) peakActiveVoices = voiceCount;
+		blocksMixed++;
+	}
+
+	/**
+	 * Records the time between a voice being played, and the first block of it being heard
+	 */
+	private void recordStartLatency(long nanos) {
+		startLatencyCount++;
+		startLatencyTotal += nanos;
+		startLatencyLast = nanos;
+		if(nanos > startLatencyMax) startLatencyMax = nanos;
+	}
+
+	/**
+	 * Adds one block of a voice (playing from memory) to the mix
+	 * @return false if the voice has finished
+	 */
+	private static boolean mixVoice(Voice voice, int[] mix) {
+		byte[] data = voice.pcm.getData();
+		int frames = voice.pcm.getFrameCount();
+		int written = 0;
+
+		while(written < BLOCK_FRAMES) {
+			int count = Math.min(BLOCK_FRAMES - written, frames - voice.position);
+			mixFrames(voice, data, voice.position << 2, -1, count, mix, written << 1);
+			written += count;
+			voice.position += count;
+
+			if(voice.position >= frames) {
+				if(voice.loopsRemaining == 0) return false;
+				if(voice.loopsRemaining > 0) voice.loopsRemaining--;
+				voice.position = 0;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds one block of a streaming voice to the mix (as much of it as has been streamed)
+	 * @return false if the voice has finished
+	 */
+	private boolean mixStream(Voice voice, int[] mix) {
+		AudioStream stream = voice.stream;
+		boolean ended = stream.hasEnded();
+		int count = Math.min(stream.available(), BLOCK_FRAMES);
+
+		if(count == 0) {
+			if(ended) return false;
+			if(voice.primed) streamUnderruns++; // Otherwise, the stream has not started yet
+			return true;
+		}
+		voice.primed = true;
+
+		mixFrames(voice, stream.ring, stream.readIndex(), AudioStream.RING_MASK, count, mix, 0);
+		stream.consume(count);
+		if(count < BLOCK_FRAMES && !ended) streamUnderruns++;
+		return true;
+	}
+
+	/**
+	 * Adds frames of 16-bit stereo audio to the mix, applying the voice's gain and fade
+	 * @param voice the voice being mixed
+	 * @param data the audio
+	 * @param src the index in the audio of the first byte
+	 * @param mask a mask applied to every index (to wrap around ring buffers), or -1
+	 * @param count the number of frames to mix
+	 * @param mix the mix buffer
+	 * @param dst the index in the mix buffer of the first sample
+	 */
+	private static void mixFrames(Voice voice, byte[] data, int src, int mask, int count, int[] mix, int dst) {
+		int fade = voice.fade;
+		int step = voice.fadeStep;
+
+		if(step == 0) {
+			int gain = (int) (((long) voice.gain * fade) >> FADE_BITS);
+			for(int i = 0; i < count; i++, src += 4, dst += 2) {
+				int left = (data[(src + 1) & mask] << 8) | (data[src & mask] & 0xFF);
+				int right = (data[(src + 3) & mask] << 8) | (data[(src + 2) & mask] & 0xFF);
+				mix[dst] += (left * gain) >> GAIN_BITS;
+				mix[dst + 1] += (right * gain) >> GAIN_BITS;
+			}
+			return;
+		}
+
+		for(int i = 0; i < count; i++, src += 4, dst += 2) {
+			fade += step;
+			if(fade >= FADE_ONE) {
+				fade = FADE_ONE;
+				step = 0;
+			} else if(fade <= 0) {
+				fade = 0;
+				step = 0;
+			}
+			int gain = (int) (((long) voice.gain * fade) >> FADE_BITS);
+			int left = (data[(src + 1) & mask] << 8) | (data[src & mask] & 0xFF);
+			int right = (data[(src + 3) & mask] << 8) | (data[(src + 2) & mask] & 0xFF);
+			mix[dst] += (left * gain) >> GAIN_BITS;
+			mix[dst + 1] += (right * gain) >> GAIN_BITS;
+		}
+		voice.fade = fade;
+		voice.fadeStep = step;
+	}
+
+	/**
+	 * Gets the number of voices that were playing in the last block
+	 * @return the number of active voices
+	 */
+	public int getActiveVoiceCount() {
+		return this.activeVoices;
+	}
+
+	/**
+	 * Gets the most voices that have played at once
+	 * @return the peak number of active voices
+	 */
+	public int getPeakActiveVoiceCount() {
+		return this.peakActiveVoices;
+	}
+
+	/**
+	 * Gets the number of voices taken from the pool (playing, or waiting to play)
+	 * @return the number of voices in use
+	 */
+	public int getVoicesInUse() {
+		return this.voicesInUse.get();
+	}
+
+	/**
+	 * Gets the number of voices that have ended and been returned to the pool
+	 * @return the number of reclaimed voices
+	 */
+	public long getVoicesReclaimed() {
+		return this.voicesReclaimed;
+	}
+
+	/**
+	 * Gets the number of plays that were ignored because every voice in the pool was in use
+	 * @return the number of plays with no voice available
+	 */
+	public long getVoicesUnavailable() {
+		return this.voicesUnavailable.get();
+	}
+
+	/**
+	 * Gets the number of voices whose start latency has been measured
+	 * @return the number of measured voices
+	 */
+	public long getStartLatencyCount() {
+		return this.startLatencyCount;
+	}
+
+	/**
+	 * Gets the average time between a voice being played (or a play being queued on
+	 * the AudioPlayer), and the first of its audio reaching the speakers
+	 * @return the average start latency in nanoseconds (0 if nothing has been measured)
+	 */
+	public long getAverageStartLatency() {
+		long count = this.startLatencyCount;
+		return count == 0 ? 0 : this.startLatencyTotal / count;
+	}
+
+	/**
+	 * Gets the longest time between a voice being played, and the first of its audio reaching the speakers
+	 * @return the maximum start latency in nanoseconds
+	 */
+	public long getMaxStartLatency() {
+		return this.startLatencyMax;
+	}
+
+	/**
+	 * Gets the start latency of the most recently started voice
+	 * @return the last start latency in nanoseconds
+	 */
+	public long getLastStartLatency() {
+		return this.startLatencyLast;
+	}
+
+	/**
+	 * Gets the maximum number of voices that can play at once
+	 * @return the maximum number of voices
+	 */
+	public int getMaxVoices() {
+		return this.voices.length;
+	}
+
+	/**
+	 * Gets the number of voices that were stopped to make room for new voices
+	 * @return the number of stolen voices
+	 */
+	public long getVoicesStolen() {
+		return this.voicesStolen;
+	}
+
+	/**
+	 * Gets the number of voices that were never played, because every playing voice had a higher priority
+	 * @return the number of dropped voices
+	 */
+	public long getVoicesDropped() {
+		return this.voicesDropped;
+	}
+
+	/**
+	 * Gets the number of times a streaming voice ran out of audio (the streamer fell behind)
+	 * @return the number of stream underruns
+	 */
+	public long getStreamUnderruns() {
+		return this.streamUnderruns;
+	}
+
+	/**
+	 * Gets the number of blocks mixed
+	 * @return the number of blocks mixed since the mixer was created
+	 */
+	public long getBlocksMixed() {
+		return this.blocksMixed;
+	}
+
+}
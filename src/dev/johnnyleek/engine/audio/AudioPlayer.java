@@ -1,113 +1,229 @@
 package dev.johnnyleek.engine.audio;
 
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.UUID;
-
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
 import javax.sound.sampled.LineUnavailableException;
-import javax.sound.sampled.UnsupportedAudioFileException;
 
+import dev.johnnyleek.engine.profiling.AudioEvent;
 import dev.johnnyleek.engine.util.Logger;
 
 /**
  * Represents the AudioPlayer. This system can be used to play AudioClips.
  * Only one instance of the AudioPlayer can be active at any given time; however,
  * it will not be instantiated until it is called upon (it is loaded lazily).
- * 
+ *
  * It must be accessed in a static context: "AudioPlayer.getAudioPlayer()"
- * 
- * Every AudioClip that is being played is stored in a HashMap, keyed by
- * the clips UUID.
- * 
- * In it's current state, ALL clips that have the same ID are stopped together.
- * This means that if you play multiple versions of the same AudioClip, you must
- * stop all of them or none of them.
- * 
- * This can be avoided by creating a NEW AudioClip with the same audio source. This
- * will generate a new UUID for this separate clip so that they can be stopped
- * independently.
- * 
- * 
+ *
+ * Every sound is played through a single AudioMixer, which mixes every playing
+ * clip into one line (so there is no limit on lines to run out of). By default
+ * the mixer plays through the speakers; if there is no sound device, a NullSink
+ * is used instead (see "setSink").
+ *
+ * Every play returns a handle to that one playback (a voice), which can be used to
+ * stop it or change its volume on its own (see "stopVoice" and "setVoiceGain").
+ * "stopAudio" still stops every playing instance of a clip at once. Voices are
+ * reused, and are reclaimed automatically as soon as they finish, so clips that
+ * are never stopped do not leak anything.
+ *
+ * Audio files are only read and decoded the first time they are played. After that,
+ * they are played from memory (see "PcmCache", and "getCache"). Clips that are set to
+ * stream (see "AudioClip.setStreaming") are instead read from the file as they play.
+ *
+ * Every operation (playing, stopping, and changing clips) is queued, and carried
+ * out in order on a separate audio thread, so it returns right away. Playing a clip
+ * never waits for the file to be read; see "AudioMixer.getAverageStartLatency" for
+ * how long plays take to be heard.
+ *
+ * One clip at a time can be played as music (see "playMusic"). Playing new music
+ * crossfades from the music that is already playing.
+ *
+ *
  * @author Johnny Leek
  * @version 1.0
  *
  */
 public class AudioPlayer {
 
-	private AudioInputStream audioIn;
 	private static AudioPlayer audioPlayer;
-	
-	private HashMap<UUID, List<Clip>> currentClips;
-	
+
+	private final PcmCache cache = new PcmCache();
+	private final AudioMixer mixer = new AudioMixer(new LineSink());
+	private final AudioCommandThread commands = new AudioCommandThread(cache, mixer);
+
 	/**
-	 * Instantiates the Audio Player
+	 * Instantiates the Audio Player, and starts the mixer
 	 */
 	private AudioPlayer() {
-		currentClips = new HashMap<UUID, List<Clip>>();
+		try {
+			mixer.start();
+		} catch(LineUnavailableException | IllegalArgumentException e) {
+			Logger.error("Audio line unavailable! Audio will not be heard");
+			try {
+				mixer.setSink(new NullSink(true));
+				mixer.start();
+			} catch(LineUnavailableException ignored) {
+				// A NullSink can always be opened
+			}
+		}
 		Logger.info("Audio player initialized!");
 	}
-	
+
 	/**
 	 * Gets the current instance of the AudioPlayer if one exists,
 	 * otherwise instantiate a new AudioPlayer
 	 * @return the instance of the AudioPlayer
 	 */
-	public static AudioPlayer getAudioPlayer() {
+	public static synchronized AudioPlayer getAudioPlayer() {
 		if(audioPlayer == null) {
 			audioPlayer = new AudioPlayer();
 		}
 		return audioPlayer;
 	}
-	
+
+	/**
+	 * Gets the cache of decoded audio used by the AudioPlayer
+	 * @return the AudioPlayer's PcmCache
+	 */
+	public PcmCache getCache() {
+		return this.cache;
+	}
+
 	/**
-	 * Plays the audio file from the provided AudioClip, and adds the UUID of the clip
-	 * to the list of current clips.
-	 * 
+	 * Gets the mixer that every clip is played through
+	 * @return the AudioPlayer's AudioMixer
+	 */
+	public AudioMixer getMixer() {
+		return this.mixer;
+	}
+
+	/**
+	 * Changes where the mixed audio goes (for example, a NullSink for a headless game)
+	 * @param sink the AudioSink to write the mixed audio to
+	 */
+	public void setSink(AudioSink sink) {
+		try {
+			mixer.setSink(sink);
+		} catch(LineUnavailableException | IllegalArgumentException e) {
+			Logger.error("Audio line unavailable!");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Plays the audio file from the provided AudioClip.
+	 *
 	 * If the AudioClip has it's "shouldLoop" field set to true, then the clip will loop
 	 * for the number of times specified in the AudioClip's "loopCount" field.
+	 *
+	 * This returns right away; the file is read on the audio command thread.
+	 * Use "playVoice" instead to control this one playback of the clip.
 	 * @param audioClip the AudioClip to play
 	 */
 	public void playAudio(AudioClip audioClip) {
-		Logger.debug("Playing audio clip: \"" + audioClip.getPath() + "\". ID: \"" + audioClip.getClipID() + "\"");
-		
-		try {
-			this.audioIn = AudioSystem.getAudioInputStream(audioClip.getFile());
-			Clip clip = AudioSystem.getClip();
-			clip.open(audioIn);
-			clip.start();
-			
-			if(currentClips.containsKey(audioClip.getClipID())) {
-				List<Clip> playingClips = currentClips.get(audioClip.getClipID());
-				playingClips.add(clip);
-				currentClips.put(audioClip.getClipID(), playingClips);
-			} else {
-				List<Clip> playingClips = new ArrayList<Clip>();
-				playingClips.add(clip);
-				currentClips.put(audioClip.getClipID(), playingClips);
-			}
-			
-			if(audioClip.shouldLoop()) {
-				Logger.debug("Looping audio clip: \"" + audioClip.getPath() + "\". ID: \"" + audioClip.getClipID() + "\"");
-				clip.loop(audioClip.getLoopCount());
-			}
-			
-		} catch (UnsupportedAudioFileException e) {
-			Logger.error("Unsupported Audio File!");
-			e.printStackTrace();
-		} catch (IOException e) {
-			Logger.error("IO Exception occurred trying to play audio file");
-			e.printStackTrace();
-		} catch (LineUnavailableException e) {
-			Logger.error("Audio line unavailable!");
-			e.printStackTrace();
+		playVoice(audioClip);
+	}
+
+	/**
+	 * Plays the audio file from the provided AudioClip (see "playAudio"), and returns a handle
+	 * to this one playback, which can be stopped or changed on its own (see "stopVoice").
+	 * @param audioClip the AudioClip to play
+	 * @return the handle of the voice playing the clip (or 0 if every voice is in use)
+	 */
+	public long playVoice(AudioClip audioClip) {
+		Logger.debug("Playing audio clip: \"{}\". ID: \"{}\"", audioClip.getPath(), audioClip.getClipID());
+		if(audioClip.shouldLoop()) {
+			Logger.debug("Looping audio clip: \"{}\". ID: \"{}\"", audioClip.getPath(), audioClip.getClipID());
 		}
+		return play(AudioCommand.Action.PLAY, audioClip, 0);
+	}
+
+	/**
+	 * Plays an AudioClip as music, crossfading from the music that is already playing
+	 * (which is stopped once it has faded out).
+	 * @param audioClip the AudioClip to play
+	 * @param crossfadeSeconds how long the crossfade should take (0 to switch right away)
+	 * @return the handle of the voice playing the music (or 0 if every voice is in use)
+	 */
+	public long playMusic(AudioClip audioClip, float crossfadeSeconds) {
+		Logger.debug("Playing music: \"{}\". ID: \"{}\"", audioClip.getPath(), audioClip.getClipID());
+		return play(AudioCommand.Action.PLAY_MUSIC, audioClip, toFrames(crossfadeSeconds));
 	}
-	
+
+	/**
+	 * Takes a voice from the mixer's pool for an AudioClip, and queues the clip to be loaded into it
+	 * @return the handle of the voice (or 0 if every voice is in use)
+	 */
+	private long play(AudioCommand.Action action, AudioClip audioClip, int fadeFrames) {
+		Voice voice = mixer.acquireVoice();
+		if(voice == null) {
+			Logger.warn("No free voices! Not playing audio clip: \"" + audioClip.getPath() + "\"");
+			return 0;
+		}
+		long handle = voice.handle();
+		commands.queue(new AudioCommand(action, audioClip, voice, handle, audioClip.getGain(), fadeFrames));
+		recordEvent(action, audioClip, handle);
+		return handle;
+	}
+
+	/**
+	 * Records a play or stop as an AudioEvent (when Java Flight Recorder is recording it)
+	 */
+	private static void recordEvent(AudioCommand.Action action, AudioClip audioClip, long handle) {
+		AudioEvent event = new AudioEvent();
+		if(!event.shouldCommit()) return;
+		event.action = action.name();
+		event.path = audioClip != null ? audioClip.getPath() : null;
+		event.handle = handle;
+		event.commit();
+	}
+
+	/**
+	 * Fades out (and then stops) the music that is playing
+	 * @param fadeSeconds how long the fade should take (0 to stop right away)
+	 */
+	public void stopMusic(float fadeSeconds) {
+		commands.queue(new AudioCommand(AudioCommand.Action.STOP_MUSIC, null, null, 0, 0, toFrames(fadeSeconds)));
+		recordEvent(AudioCommand.Action.STOP_MUSIC, null, 0);
+	}
+
+	private static int toFrames(float seconds) {
+		return Math.max(0, Math.round(seconds * PcmCache.OUTPUT_FORMAT.getFrameRate()));
+	}
+
+	/**
+	 * Stops a single playback of a clip
+	 * @param handle the handle returned when the clip was played
+	 */
+	public void stopVoice(long handle) {
+		commands.queue(new AudioCommand(AudioCommand.Action.STOP_VOICE, null, null, handle, 0, 0));
+		recordEvent(AudioCommand.Action.STOP_VOICE, null, handle);
+	}
+
+	/**
+	 * Changes the volume of a single playback of a clip
+	 * @param handle the handle returned when the clip was played
+	 * @param gain the new volume (1 is full volume)
+	 */
+	public void setVoiceGain(long handle, float gain) {
+		commands.queue(new AudioCommand(AudioCommand.Action.SET_VOICE_GAIN, null, null, handle, gain, 0));
+	}
+
+	/**
+	 * Changes how many more times a single playback of a clip loops
+	 * @param handle the handle returned when the clip was played
+	 * @param loops the number of loops (0 to stop at the end, negative to loop forever)
+	 */
+	public void setVoiceLoops(long handle, int loops) {
+		commands.queue(new AudioCommand(AudioCommand.Action.SET_VOICE_LOOPS, null, null, handle, 0, loops));
+	}
+
+	/**
+	 * Returns whether or not a single playback of a clip is still playing (or waiting to play)
+	 * @param handle the handle returned when the clip was played
+	 * @return true/false depending on if the playback has not ended yet
+	 */
+	public boolean isPlaying(long handle) {
+		return mixer.isPlaying(handle);
+	}
+
 	/**
 	 * Stops ALL instances of provided audio clip from playing.
 	 * That is, it shall stop every clip that matches the UUID of the
@@ -115,18 +231,44 @@ public class AudioPlayer {
 	 * @param audioClip the AudioClip to stop
 	 */
 	public void stopAudio(AudioClip audioClip) {
-		List<Clip> clips = currentClips.get(audioClip.getClipID());
-		for(Clip clip : clips) {
-			clip.stop();
-			clip.flush();
-			clip.close();
-			try {
-				audioClip.closeFile();
-			} catch (IOException e) {
-				Logger.error("Failed to close audio input stream for clip \"" + audioClip.getPath() + "\". ID: \"" + audioClip.getClipID() + "\"");
-				e.printStackTrace();
-			}
-		}
+		commands.queue(new AudioCommand(AudioCommand.Action.STOP_CLIP, audioClip, null, 0, 0, 0));
+		recordEvent(AudioCommand.Action.STOP_CLIP, audioClip, 0);
+	}
+
+	/**
+	 * Changes the volume of every playing instance of an AudioClip, and of future plays of the clip
+	 * @param audioClip the AudioClip to change
+	 * @param gain the new volume (1 is full volume)
+	 */
+	public void setGain(AudioClip audioClip, float gain) {
+		audioClip.setGain(gain);
+		commands.queue(new AudioCommand(AudioCommand.Action.SET_CLIP_GAIN, audioClip, null, 0, gain, 0));
 	}
-	
+
+	/**
+	 * Gets the number of AudioPlayer operations waiting to be carried out by the audio command thread
+	 * @return the number of queued commands
+	 */
+	public int getPendingCommands() {
+		return commands.getPendingCommands();
+	}
+
+	/**
+	 * Gets the number of AudioPlayer operations the audio command thread has carried out
+	 * @return the number of commands run
+	 */
+	public long getCommandsRun() {
+		return commands.getCommandsRun();
+	}
+
+	/**
+	 * Gets the longest time an operation waited for the audio command thread (for example,
+	 * behind the decoding of a large file). How long plays take to be heard is measured
+	 * by the mixer (see "AudioMixer.getAverageStartLatency").
+	 * @return the maximum wait in nanoseconds
+	 */
+	public long getMaxCommandWait() {
+		return commands.getMaxWait();
+	}
+
 }
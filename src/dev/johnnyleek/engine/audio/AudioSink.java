@@ -0,0 +1,52 @@
+package dev.johnnyleek.engine.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.LineUnavailableException;
+
+/**
+ * Receives the mixed audio from the AudioMixer.
+ *
+ * The sink used by default is a LineSink, which plays the audio through the speakers.
+ * A NullSink (which throws the audio away) or a MemorySink (which keeps it in memory)
+ * can be used instead for headless games, tests, and benchmarks.
+ *
+ * All methods are called from the mixer thread.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public interface AudioSink {
+
+	/**
+	 * Prepares the sink to receive audio
+	 * @param format the format of the audio that will be written
+	 * @param blockSize the number of bytes in each block of audio that will be written
+	 * @throws LineUnavailableException if the sink cannot be opened
+	 */
+	void open(AudioFormat format, int blockSize) throws LineUnavailableException;
+
+	/**
+	 * Writes a block of mixed audio. This may block until the sink has room for the audio
+	 * (which is what keeps the mixer running in time with playback).
+	 * @param data the mixed audio
+	 * @param offset the index of the first byte to write
+	 * @param length the number of bytes to write
+	 */
+	void write(byte[] data, int offset, int length);
+
+	/**
+	 * Gets the number of frames that have been written, but not yet played. This is how far
+	 * behind the mixer the audio that is heard is (used to measure audio latency).
+	 * @return the number of buffered frames (0 if the sink does not buffer)
+	 */
+	default int getBufferedFrames() {
+		return 0;
+	}
+
+	/**
+	 * Closes the sink (after the remaining audio has been played)
+	 */
+	void close();
+
+}
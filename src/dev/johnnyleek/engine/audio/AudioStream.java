@@ -0,0 +1,236 @@
+package dev.johnnyleek.engine.audio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import dev.johnnyleek.engine.profiling.AssetLoadEvent;
+
+/**
+ * Streams the audio of a WAV file, a little at a time, instead of decoding the whole file.
+ *
+ * The audio data of the file is memory mapped, and copied by the AudioStreamer thread
+ * into a small ring buffer (about a third of a second of audio), which the mixer plays from.
+ * The ring buffer has a single producer (the streamer) and a single consumer (the mixer),
+ * so neither side ever locks. No matter how long the file is, a stream only ever uses the
+ * memory of its ring buffer (and ring buffers are reused once a stream is closed,
+ * see "AudioStreamer.acquireRing").
+ *
+ * Looping is handled by the streamer, which jumps back to the start of the audio
+ * data as it fills the ring buffer, so there is no gap between loops.
+ *
+ * Streamed files must be 16-bit PCM at 44.1kHz (mono or stereo).
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+final class AudioStream {
+
+	static final int RING_SIZE = 1 << 16;
+	static final int RING_MASK = RING_SIZE - 1;
+	private static final int FILL_SIZE = 8192;
+	private static final int KEEP_LOOPS = Integer.MIN_VALUE;
+
+	final String path;
+	final byte[] ring;
+
+	// Written by the streamer, read by the mixer
+	private final AtomicLong writePosition = new AtomicLong();
+	private volatile boolean ended;
+
+	// Written by the mixer, read by the streamer
+	private final AtomicLong readPosition = new AtomicLong();
+	private final AtomicInteger newLoops = new AtomicInteger(KEEP_LOOPS);
+	private volatile boolean closed;
+
+	// Only touched by the streamer
+	private final ByteBuffer data;
+	private final boolean mono;
+	private int loopsRemaining;
+	private long written;
+
+	// Only touched by the mixer
+	private long read;
+
+	/**
+	 * Opens a WAV file for streaming
+	 * @param path the path of the WAV file (or its name, if it is in an AssetPack)
+	 * @param wav the whole WAV file (mapped from the disk)
+	 * @param loops how many more times to play the audio once it ends (negative to loop forever)
+	 * @param ring the ring buffer to fill (RING_SIZE bytes)
+	 * @throws UnsupportedAudioFileException if the file is not a WAV file that can be streamed
+	 */
+	AudioStream(String path, ByteBuffer wav, int loops, byte[] ring) throws UnsupportedAudioFileException {
+		this.path = path;
+		this.ring = ring;
+		AssetLoadEvent loadEvent = new AssetLoadEvent();
+		loadEvent.begin();
+		this.loopsRemaining = loops;
+
+		ByteBuffer file = wav.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		int start = file.position();
+		int size = file.remaining();
+		if(size < 12 || file.getInt(start) != 0x46464952 || file.getInt(start + 8) != 0x45564157) { // "RIFF", "WAVE"
+			throw new UnsupportedAudioFileException("Not a WAV file: \"" + path + "\"");
+		}
+
+		int channels = 0, sampleRate = 0, bits = 0, encoding = 0;
+		long dataStart = -1, dataSize = 0;
+		long position = 12;
+
+		while(position + 8 <= size) {
+			int id = file.getInt(start + (int) position);
+			long chunkSize = file.getInt(start + (int) position + 4) & 0xFFFFFFFFL;
+
+			if(id == 0x20746D66 && position + 24 <= size) { // "fmt "
+				int fmt = start + (int) position + 8;
+				encoding = file.getShort(fmt) & 0xFFFF;
+				channels = file.getShort(fmt + 2);
+				sampleRate = file.getInt(fmt + 4);
+				bits = file.getShort(fmt + 14);
+			} else if(id == 0x61746164) { // "data"
+				dataStart = position + 8;
+				dataSize = Math.min(chunkSize, size - dataStart);
+				break;
+			}
+			position += 8 + chunkSize + (chunkSize & 1);
+		}
+
+		if(dataStart < 0 || (encoding != 1 && encoding != 0xFFFE) || bits != 16 || sampleRate != 44100 || channels < 1 || channels > 2) {
+			throw new UnsupportedAudioFileException("Only 16-bit 44.1kHz PCM WAV files can be streamed: \"" + path + "\"");
+		}
+
+		file.limit(start + (int) (dataStart + dataSize - dataSize % (channels * 2)));
+		file.position(start + (int) dataStart);
+		this.mono = channels == 1;
+		this.data = file.slice();
+		
+		if(loadEvent.shouldCommit()) {
+			loadEvent.path = path;
+			loadEvent.assetType = "audio stream";
+			loadEvent.bytes = data.limit();
+			loadEvent.commit();
+		}
+	}
+
+	/**
+	 * Maps a whole WAV file from the disk, for streaming
+	 * @throws IOException if the file could not be read
+	 * @throws UnsupportedAudioFileException if the file is too large to stream
+	 */
+	static ByteBuffer map(String path) throws IOException, UnsupportedAudioFileException {
+		try(FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			if(channel.size() > Integer.MAX_VALUE) {
+				throw new UnsupportedAudioFileException("WAV file is too large to stream: \"" + path + "\"");
+			}
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/**
+	 * Copies audio into the ring buffer, if there is enough room. Called by the streamer thread.
+	 * @return true if any audio was copied
+	 */
+	boolean fill() {
+		if(ended || data.limit() == 0) {
+			ended = true;
+			return false;
+		}
+		if(newLoops.get() != KEEP_LOOPS) loopsRemaining = newLoops.getAndSet(KEEP_LOOPS);
+		long free = RING_SIZE - (written - readPosition.get());
+		if(free < FILL_SIZE) return false;
+
+		int room = (int) free;
+		while(room >= 4) {
+			if(!data.hasRemaining()) {
+				if(loopsRemaining == 0) {
+					writePosition.lazySet(written);
+					ended = true;
+					return true;
+				}
+				if(loopsRemaining > 0) loopsRemaining--;
+				data.position(0);
+			}
+
+			int offset = (int) (written & RING_MASK);
+			if(mono) {
+				int frames = Math.min(room >> 2, data.remaining() >> 1);
+				for(int i = 0; i < frames; i++) {
+					byte low = data.get(), high = data.get();
+					ring[offset] = low;
+					ring[offset + 1] = high;
+					ring[offset + 2] = low;
+					ring[offset + 3] = high;
+					offset = (offset + 4) & RING_MASK;
+				}
+				written += frames << 2;
+				room -= frames << 2;
+			} else {
+				int count = Math.min(Math.min(room, data.remaining()), RING_SIZE - offset);
+				data.get(ring, offset, count);
+				written += count;
+				room -= count;
+			}
+		}
+		writePosition.lazySet(written);
+		return true;
+	}
+
+	/**
+	 * Gets the number of frames in the ring buffer that have not been played. Called by the mixer thread.
+	 */
+	int available() {
+		return (int) ((writePosition.get() - read) >> 2);
+	}
+
+	/**
+	 * Gets the index in the ring buffer of the next frame to play. Called by the mixer thread.
+	 */
+	int readIndex() {
+		return (int) (read & RING_MASK);
+	}
+
+	/**
+	 * Marks frames as played, making room for the streamer. Called by the mixer thread.
+	 */
+	void consume(int frames) {
+		read += frames << 2;
+		readPosition.lazySet(read);
+	}
+
+	/**
+	 * Changes how many more times the audio is played once it ends. This has no effect once
+	 * the end of the audio has already been streamed. Called by the mixer thread.
+	 * @param loops the number of loops (negative to loop forever)
+	 */
+	void setLoops(int loops) {
+		newLoops.set(loops);
+	}
+
+	/**
+	 * Returns whether or not every frame of the audio has been copied into the ring buffer
+	 */
+	boolean hasEnded() {
+		return ended;
+	}
+
+	/**
+	 * Stops streaming (the streamer forgets about the stream)
+	 */
+	void close() {
+		closed = true;
+	}
+
+	boolean isClosed() {
+		return closed;
+	}
+
+}
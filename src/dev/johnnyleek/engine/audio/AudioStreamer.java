@@ -0,0 +1,88 @@
+package dev.johnnyleek.engine.audio;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A background thread that keeps the ring buffer of every playing AudioStream full.
+ *
+ * New streams are handed to the streamer through a queue, and forgotten once
+ * they have been closed (at which point their ring buffer is kept for the next
+ * stream). The thread is started with the first stream, and sleeps briefly
+ * whenever every ring buffer is full.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+final class AudioStreamer implements Runnable {
+
+	private static final long IDLE_NANOS = 2000000L;
+
+	private final ConcurrentLinkedQueue<AudioStream> added = new ConcurrentLinkedQueue<AudioStream>();
+	private final ConcurrentLinkedQueue<byte[]> freeRings = new ConcurrentLinkedQueue<byte[]>();
+
+	// Only touched by the streamer thread
+	private final ArrayList<AudioStream> streams = new ArrayList<AudioStream>();
+
+	private Thread thread;
+
+	/**
+	 * Starts keeping a stream's ring buffer full, and fills it right away
+	 * @param stream the stream to fill
+	 */
+	synchronized void add(AudioStream stream) {
+		added.add(stream);
+		if(thread == null) {
+			thread = new Thread(this, "Audio Streamer");
+			thread.setDaemon(true);
+			thread.start();
+		} else {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	/**
+	 * Gets a ring buffer for a new stream, reusing the ring of a closed stream if there is one
+	 * @return a ring buffer of AudioStream.RING_SIZE bytes
+	 */
+	byte[] acquireRing() {
+		byte[] ring = freeRings.poll();
+		return ring != null ? ring : new byte[AudioStream.RING_SIZE];
+	}
+
+	/**
+	 * Returns a ring buffer that is no longer used by any stream
+	 * @param ring the ring buffer to reuse
+	 */
+	void releaseRing(byte[] ring) {
+		freeRings.add(ring);
+	}
+
+	@Override
+	public void run() {
+		while(true) {
+			AudioStream stream;
+			while((stream = added.poll()) != null) {
+				streams.add(stream);
+			}
+
+			boolean filled = false;
+			for(int i = streams.size() - 1; i >= 0; i--) {
+				stream = streams.get(i);
+				if(stream.isClosed()) {
+					// The mixer has stopped reading the stream, so its ring can be reused
+					streams.set(i, streams.get(streams.size() - 1));
+					streams.remove(streams.size() - 1);
+					releaseRing(stream.ring);
+					continue;
+				}
+				if(!stream.hasEnded()) filled |= stream.fill();
+			}
+
+			if(!filled) LockSupport.parkNanos(this, IDLE_NANOS);
+		}
+	}
+
+}
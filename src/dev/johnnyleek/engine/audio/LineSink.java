@@ -0,0 +1,62 @@
+package dev.johnnyleek.engine.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Plays mixed audio through a single SourceDataLine (the speakers).
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class LineSink implements AudioSink {
+
+	private final int bufferBlocks;
+	private SourceDataLine line;
+
+	/**
+	 * Creates a sink that buffers 4 blocks of audio
+	 */
+	public LineSink() {
+		this(4);
+	}
+
+	/**
+	 * Creates a sink with a custom buffer size. A smaller buffer means lower latency
+	 * (sounds start sooner), but too small a buffer will cause the audio to stutter.
+	 * @param bufferBlocks how many blocks of audio the line can buffer
+	 */
+	public LineSink(int bufferBlocks) {
+		this.bufferBlocks = Math.max(2, bufferBlocks);
+	}
+
+	@Override
+	public void open(AudioFormat format, int blockSize) throws LineUnavailableException {
+		line = AudioSystem.getSourceDataLine(format);
+		line.open(format, blockSize * bufferBlocks);
+		line.start();
+	}
+
+	@Override
+	public void write(byte[] data, int offset, int length) {
+		line.write(data, offset, length);
+	}
+
+	@Override
+	public int getBufferedFrames() {
+		if(line == null) return 0;
+		return (line.getBufferSize() - line.available()) / line.getFormat().getFrameSize();
+	}
+
+	@Override
+	public void close() {
+		if(line == null) return;
+		line.drain();
+		line.close();
+		line = null;
+	}
+
+}
@@ -0,0 +1,64 @@
+package dev.johnnyleek.engine.audio;
+
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Keeps mixed audio in memory, so it can be checked by tests.
+ * Once the sink is full, any more audio is thrown away.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class MemorySink implements AudioSink {
+
+	private final byte[] data;
+	private volatile int size;
+
+	/**
+	 * Creates a sink that keeps up to a given amount of audio
+	 * @param capacity the maximum number of bytes to keep
+	 */
+	public MemorySink(int capacity) {
+		this.data = new byte[capacity];
+	}
+
+	@Override
+	public void open(AudioFormat format, int blockSize) {}
+
+	@Override
+	public void write(byte[] block, int offset, int length) {
+		int count = Math.min(length, data.length - size);
+		System.arraycopy(block, offset, data, size, count);
+		size += count;
+	}
+
+	@Override
+	public void close() {}
+
+	/**
+	 * Gets a copy of the audio kept so far
+	 * @return the audio written to the sink
+	 */
+	public byte[] getData() {
+		return Arrays.copyOf(data, size);
+	}
+
+	/**
+	 * Gets the amount of audio kept so far
+	 * @return the number of bytes written to the sink
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Throws away the audio kept so far
+	 */
+	public void reset() {
+		size = 0;
+	}
+
+}
@@ -0,0 +1,44 @@
+package dev.johnnyleek.engine.audio;
+
+import java.util.UUID;
+
+/**
+ * Represents a queued change to the voices playing in the AudioMixer.
+ *
+ * Commands are queued by any thread, and applied by the mixer thread
+ * before it mixes each block.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+final class MixerCommand {
+
+	enum Action {
+		PLAY,
+		STOP,
+		STOP_ALL,
+		SET_GAIN,
+		STOP_VOICE,
+		SET_VOICE_GAIN,
+		SET_VOICE_LOOPS,
+		FADE_MUSIC
+	}
+
+	final Action action;
+	final UUID clipId;
+	final Voice voice;
+	final long handle;
+	final float gain;
+	final int fadeFrames; // Also the number of loops for SET_VOICE_LOOPS
+
+	MixerCommand(Action action, UUID clipId, Voice voice, long handle, float gain, int fadeFrames) {
+		this.action = action;
+		this.clipId = clipId;
+		this.voice = voice;
+		this.handle = handle;
+		this.gain = gain;
+		this.fadeFrames = fadeFrames;
+	}
+
+}
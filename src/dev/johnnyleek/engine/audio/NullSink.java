@@ -0,0 +1,73 @@
+package dev.johnnyleek.engine.audio;
+
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Throws away mixed audio. Used when there is no sound device, or for benchmarks.
+ *
+ * By default writing never blocks, so the mixer runs as fast as it can. A real time
+ * NullSink instead waits as long as the audio would have taken to play, so sounds
+ * last as long as they would with a real sound device.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class NullSink implements AudioSink {
+
+	private final boolean realTime;
+	private double nanosPerByte;
+	private long openedAt;
+	private volatile long bytesWritten;
+
+	/**
+	 * Creates a sink that never blocks
+	 */
+	public NullSink() {
+		this(false);
+	}
+
+	/**
+	 * Creates a sink that can wait as long as the audio would have taken to play
+	 * @param realTime whether or not writing should take as long as playing the audio
+	 */
+	public NullSink(boolean realTime) {
+		this.realTime = realTime;
+	}
+
+	@Override
+	public void open(AudioFormat format, int blockSize) {
+		this.nanosPerByte = 1000000000.0 / (format.getFrameRate() * format.getFrameSize());
+		this.openedAt = System.nanoTime();
+		this.bytesWritten = 0;
+	}
+
+	@Override
+	public void write(byte[] data, int offset, int length) {
+		bytesWritten += length;
+		if(!realTime) return;
+
+		long playedUntil = openedAt + (long) (bytesWritten * nanosPerByte);
+		long wait = playedUntil - System.nanoTime();
+		if(wait > 0) {
+			LockSupport.parkNanos(this, wait);
+		} else if(wait < -100000000L) {
+			// The mixer was idle (nothing was playing), so start counting from now
+			openedAt -= wait;
+		}
+	}
+
+	@Override
+	public void close() {}
+
+	/**
+	 * Gets the amount of audio thrown away
+	 * @return the number of bytes written to the sink
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+}
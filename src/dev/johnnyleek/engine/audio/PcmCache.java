@@ -0,0 +1,301 @@
+package dev.johnnyleek.engine.audio;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import dev.johnnyleek.engine.asset.AssetPack;
+import dev.johnnyleek.engine.asset.ByteBufferInputStream;
+import dev.johnnyleek.engine.profiling.AssetLoadEvent;
+import dev.johnnyleek.engine.util.Logger;
+
+/**
+ * Caches the decoded audio (PcmData) of audio files, so each file is only
+ * read from disk and decoded once, no matter how many times it is played.
+ *
+ * Audio is converted once (when it is decoded) to a single output format:
+ * 44.1kHz, 16-bit signed, little endian stereo.
+ *
+ * The cache has a memory budget (in bytes of decoded audio). When adding a file
+ * would go over the budget, the least recently played files are evicted. Audio that
+ * is still playing when it is evicted keeps playing (it is simply decoded again the
+ * next time it is played). A file that is larger than the whole budget is never cached.
+ *
+ * The cache keeps track of hits (plays served from memory), misses (plays that had to
+ * decode the file), and evictions.
+ *
+ * Files are cached by their path. Clips loaded from an AssetPack are cached as
+ * "[pack path]![entry name]" (see "getKey").
+ *
+ * The cache is safe to use from any thread. Files are decoded outside of the lock,
+ * so a slow decode never blocks plays of files that are already cached.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class PcmCache {
+
+	/**
+	 * The format every cached file is converted to
+	 */
+	public static final AudioFormat OUTPUT_FORMAT = new AudioFormat(44100f, 16, 2, true, false);
+
+	/**
+	 * The default memory budget (64MB, about 6 minutes of audio)
+	 */
+	public static final long DEFAULT_BUDGET = 64L * 1024 * 1024;
+
+	private final LinkedHashMap<String, PcmData> entries = new LinkedHashMap<String, PcmData>(16, 0.75f, true);
+	private long budget;
+	private long bytesUsed;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Creates a cache with the default memory budget
+	 */
+	public PcmCache() {
+		this(DEFAULT_BUDGET);
+	}
+
+	/**
+	 * Creates a cache with a custom memory budget
+	 * @param budget the maximum number of bytes of decoded audio to keep in memory
+	 */
+	public PcmCache(long budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * Gets the decoded audio of an AudioClip, decoding the clip's file if it is not cached
+	 * @param audioClip the AudioClip to get the audio of
+	 * @return the decoded audio
+	 * @throws IOException if the file could not be read
+	 * @throws UnsupportedAudioFileException if the file is not a supported audio file
+	 */
+	public PcmData get(AudioClip audioClip) throws IOException, UnsupportedAudioFileException {
+		return get(getKey(audioClip), audioClip.getPack(), audioClip.getPath());
+	}
+
+	/**
+	 * Gets the key an AudioClip's decoded audio is cached under
+	 * @param audioClip the AudioClip
+	 * @return the clip's path (or "[pack path]![entry name]" for a clip in an AssetPack)
+	 */
+	public static String getKey(AudioClip audioClip) {
+		AssetPack pack = audioClip.getPack();
+		return pack == null ? audioClip.getPath() : pack.getPath() + "!" + audioClip.getPath();
+	}
+
+	/**
+	 * Gets the decoded audio of a file, decoding the file if it is not cached
+	 * @param path the path of the audio file
+	 * @return the decoded audio
+	 * @throws IOException if the file could not be read
+	 * @throws UnsupportedAudioFileException if the file is not a supported audio file
+	 */
+	public PcmData get(String path) throws IOException, UnsupportedAudioFileException {
+		return get(path, null, path);
+	}
+
+	/**
+	 * Gets decoded audio, decoding it (from a file, or an AssetPack entry) if it is not cached
+	 */
+	private PcmData get(String key, AssetPack pack, String path) throws IOException, UnsupportedAudioFileException {
+		synchronized(this) {
+			PcmData cached = entries.get(key);
+			if(cached != null) {
+				hits++;
+				return cached;
+			}
+			misses++;
+		}
+
+		PcmData decoded = pack != null ? decode(key, pack.open(path)) : decode(path);
+
+		synchronized(this) {
+			PcmData cached = entries.get(key);
+			if(cached != null) return cached; // Another thread decoded it first
+			if(decoded.getSize() > budget) return decoded;
+
+			entries.put(key, decoded);
+			bytesUsed += decoded.getSize();
+			evict();
+		}
+		return decoded;
+	}
+
+	/**
+	 * Decodes an AudioClip ahead of time (such as while a level is loading), so its
+	 * first play is served from memory
+	 * @param audioClip the AudioClip to decode
+	 * @throws IOException if the file could not be read
+	 * @throws UnsupportedAudioFileException if the file is not a supported audio file
+	 */
+	public void preload(AudioClip audioClip) throws IOException, UnsupportedAudioFileException {
+		get(audioClip);
+	}
+
+	/**
+	 * Removes a file from the cache (for example, if the file has changed)
+	 * @param path the path of the audio file (or the key of a clip in an AssetPack, see "getKey")
+	 */
+	public synchronized void invalidate(String path) {
+		PcmData removed = entries.remove(path);
+		if(removed != null) bytesUsed -= removed.getSize();
+	}
+
+	/**
+	 * Removes every file from the cache
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		bytesUsed = 0;
+	}
+
+	/**
+	 * Evicts the least recently played files until the cache is within its budget
+	 */
+	private void evict() {
+		Iterator<Map.Entry<String, PcmData>> iterator = entries.entrySet().iterator();
+		while(bytesUsed > budget && iterator.hasNext()) {
+			PcmData eldest = iterator.next().getValue();
+			iterator.remove();
+			bytesUsed -= eldest.getSize();
+			evictions++;
+			Logger.debug("Evicted decoded audio: \"" + eldest.getPath() + "\"");
+		}
+	}
+
+	/**
+	 * Reads and decodes an audio file, converting it to the output format
+	 */
+	private static PcmData decode(String path) throws IOException, UnsupportedAudioFileException {
+		try(FileInputStream input = new FileInputStream(path)) {
+			return decode(path, new BufferedInputStream(input), input.getChannel().size());
+		}
+	}
+
+	/**
+	 * Decodes an AssetPack entry (straight from the mapped pack), converting it to the output format
+	 */
+	private static PcmData decode(String key, ByteBufferInputStream entry) throws IOException, UnsupportedAudioFileException {
+		return decode(key, entry, entry.available());
+	}
+
+	/**
+	 * Decodes a stream of an audio file, converting it to the output format
+	 * @param key the key the audio is cached under
+	 * @param file the stream (which must support mark/reset)
+	 * @param bytes the size of the audio file
+	 */
+	private static PcmData decode(String key, InputStream file, long bytes) throws IOException, UnsupportedAudioFileException {
+		AssetLoadEvent loadEvent = new AssetLoadEvent();
+		loadEvent.begin();
+		try(AudioInputStream source = AudioSystem.getAudioInputStream(file);
+				AudioInputStream converted = convert(source)) {
+			byte[] data = converted.readAllBytes();
+			Logger.debug("Decoded audio: \"{}\" ({} bytes)", key, data.length);
+			
+			if(loadEvent.shouldCommit()) {
+				loadEvent.path = key;
+				loadEvent.assetType = "audio";
+				loadEvent.bytes = bytes;
+				loadEvent.commit();
+			}
+			return new PcmData(key, OUTPUT_FORMAT, data);
+		}
+	}
+
+	/**
+	 * Converts a stream to the output format. Not every conversion can be done in one
+	 * step, so the stream is first converted to 16-bit signed samples (at its own sample rate).
+	 */
+	private static AudioInputStream convert(AudioInputStream source) throws UnsupportedAudioFileException {
+		AudioFormat format = source.getFormat();
+		if(format.matches(OUTPUT_FORMAT)) return source;
+
+		if(!format.getEncoding().equals(AudioFormat.Encoding.PCM_SIGNED) || format.getSampleSizeInBits() != 16 || format.isBigEndian()) {
+			AudioFormat signed = new AudioFormat(format.getSampleRate(), 16, format.getChannels(), true, false);
+			if(!AudioSystem.isConversionSupported(signed, format)) {
+				throw new UnsupportedAudioFileException("Cannot convert audio from " + format);
+			}
+			source = AudioSystem.getAudioInputStream(signed, source);
+		}
+
+		if(!AudioSystem.isConversionSupported(OUTPUT_FORMAT, source.getFormat())) {
+			throw new UnsupportedAudioFileException("Cannot convert audio from " + format);
+		}
+		return AudioSystem.getAudioInputStream(OUTPUT_FORMAT, source);
+	}
+
+	/**
+	 * Gets the number of plays that were served from memory
+	 * @return the number of cache hits
+	 */
+	public synchronized long getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * Gets the number of plays that had to read and decode the file
+	 * @return the number of cache misses
+	 */
+	public synchronized long getMisses() {
+		return this.misses;
+	}
+
+	/**
+	 * Gets the number of files evicted to stay within the memory budget
+	 * @return the number of evictions
+	 */
+	public synchronized long getEvictions() {
+		return this.evictions;
+	}
+
+	/**
+	 * Gets the number of bytes of decoded audio currently cached
+	 * @return the memory used by the cache
+	 */
+	public synchronized long getBytesUsed() {
+		return this.bytesUsed;
+	}
+
+	/**
+	 * Gets the number of files currently cached
+	 * @return the number of cached files
+	 */
+	public synchronized int getEntryCount() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Gets the memory budget of the cache
+	 * @return the maximum number of bytes of decoded audio kept in memory
+	 */
+	public synchronized long getBudget() {
+		return this.budget;
+	}
+
+	/**
+	 * Sets the memory budget of the cache, evicting files if the cache is now over budget
+	 * @param budget the maximum number of bytes of decoded audio to keep in memory
+	 */
+	public synchronized void setBudget(long budget) {
+		this.budget = budget;
+		evict();
+	}
+
+}
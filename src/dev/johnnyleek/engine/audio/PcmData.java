@@ -0,0 +1,68 @@
+package dev.johnnyleek.engine.audio;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Holds the decoded audio (PCM samples) of a single audio file.
+ *
+ * The samples are stored in the PcmCache's output format (see "PcmCache.OUTPUT_FORMAT"),
+ * so they can be played without any further conversion. The data is shared between
+ * every playback of the file, and must never be modified.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public final class PcmData {
+
+	private final String path;
+	private final AudioFormat format;
+	private final byte[] data;
+
+	PcmData(String path, AudioFormat format, byte[] data) {
+		this.path = path;
+		this.format = format;
+		this.data = data;
+	}
+
+	/**
+	 * Gets the path of the file the audio was decoded from
+	 * @return the file path of the audio
+	 */
+	public String getPath() {
+		return this.path;
+	}
+
+	/**
+	 * Gets the format of the decoded samples
+	 * @return the AudioFormat of the samples
+	 */
+	public AudioFormat getFormat() {
+		return this.format;
+	}
+
+	/**
+	 * Gets the decoded samples. This array is shared, and must not be modified.
+	 * @return the decoded samples (interleaved, in the format's byte order)
+	 */
+	public byte[] getData() {
+		return this.data;
+	}
+
+	/**
+	 * Gets the number of sample frames (one sample for each channel)
+	 * @return the length of the audio in frames
+	 */
+	public int getFrameCount() {
+		return this.data.length / this.format.getFrameSize();
+	}
+
+	/**
+	 * Gets the size of the decoded samples
+	 * @return the number of bytes of decoded audio
+	 */
+	public int getSize() {
+		return this.data.length;
+	}
+
+}
@@ -0,0 +1,79 @@
+package dev.johnnyleek.engine.audio;
+
+import java.util.UUID;
+
+/**
+ * A single playback of an AudioClip inside the AudioMixer.
+ *
+ * A voice either plays decoded audio from memory (PcmData), or streams it
+ * from a file (AudioStream). Voices are pooled by the mixer: a voice is taken
+ * from the pool by the thread that plays the clip, only touched by the mixer
+ * thread once it is queued, and returned to the pool as soon as it ends.
+ *
+ * Each time a voice is returned to the pool its generation goes up, so a
+ * handle (the voice's index and generation, see "handle") to a voice that
+ * has ended never affects the next playback that reuses it.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+final class Voice {
+
+	final int index;
+	volatile int generation = 1;
+
+	UUID clipId;
+	PcmData pcm;
+	AudioStream stream;
+	int priority;
+	boolean music;
+
+	long started;
+	long requested; // When the play was requested (System.nanoTime), until the voice is first heard
+	int slot = -1;
+	int position;
+	int loopsRemaining;
+	int gain;
+	boolean cancelled;
+
+	// Fades are in 1/65536ths of the voice's gain, changing by "fadeStep" every frame
+	int fade;
+	int fadeStep;
+	boolean stopWhenSilent;
+	boolean primed;
+
+	Voice(int index) {
+		this.index = index;
+	}
+
+	/**
+	 * Prepares the voice for a new playback
+	 */
+	void init(UUID clipId, PcmData pcm, AudioStream stream, int priority, int loops, int gain, boolean music) {
+		this.clipId = clipId;
+		this.pcm = pcm;
+		this.stream = stream;
+		this.priority = priority;
+		this.loopsRemaining = loops;
+		this.gain = gain;
+		this.music = music;
+		this.started = 0;
+		this.requested = 0;
+		this.slot = -1;
+		this.position = 0;
+		this.cancelled = false;
+		this.fade = AudioMixer.FADE_ONE;
+		this.fadeStep = 0;
+		this.stopWhenSilent = false;
+		this.primed = false;
+	}
+
+	/**
+	 * Gets the handle of the current playback of this voice
+	 */
+	long handle() {
+		return ((long) generation << 32) | index;
+	}
+
+}
@@ -0,0 +1,25 @@
+package dev.johnnyleek.engine.audio;
+
+import java.util.UUID;
+
+/**
+ * Listens for voices (playbacks of AudioClips) ending in the AudioMixer.
+ *
+ * The listener is called on the mixer thread, right before the voice is returned to
+ * the pool, so it must return quickly (hand any game logic off to the game thread).
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public interface VoiceListener {
+
+	/**
+	 * Called whenever a voice ends
+	 * @param handle the handle of the voice (as returned when it was played)
+	 * @param clipId the ID of the AudioClip the voice was playing
+	 * @param finished true if the voice played to the end, false if it was stopped, stolen, or dropped
+	 */
+	void onVoiceEnded(long handle, UUID clipId, boolean finished);
+
+}
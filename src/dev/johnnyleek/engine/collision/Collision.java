@@ -0,0 +1,61 @@
+package dev.johnnyleek.engine.collision;
+
+import dev.johnnyleek.engine.sprite.Image;
+import dev.johnnyleek.engine.sprite.Sprite;
+
+/**
+ * Provides collision checks between sprites.
+ *
+ * Collision checks happen in two phases:
+ * 	- A broad phase ("intersects"), which compares the bounding boxes of two sprites
+ * 	- A narrow phase ("collides"), which compares the solid pixels of two sprites
+ *
+ * Images are compared using their CollisionMask (built once from the alpha channel
+ * of the image, and scaled to the size the image is drawn at). Any other Sprite is treated
+ * as a solid rectangle of its size.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public final class Collision {
+
+	private Collision() {}
+
+	/**
+	 * Returns whether or not the bounding boxes of two sprites overlap
+	 * @param a the first sprite
+	 * @param b the second sprite
+	 * @return true/false depending on if the bounding boxes overlap
+	 */
+	public static boolean intersects(Sprite a, Sprite b) {
+		return a.getPosX() < b.getPosX() + b.getWidth()
+				&& b.getPosX() < a.getPosX() + a.getWidth()
+				&& a.getPosY() < b.getPosY() + b.getHeight()
+				&& b.getPosY() < a.getPosY() + a.getHeight();
+	}
+
+	/**
+	 * Returns whether or not two sprites share at least one solid pixel.
+	 * The bounding boxes are checked first, so this is cheap for sprites that are far apart.
+	 * @param a the first sprite
+	 * @param b the second sprite
+	 * @return true/false depending on if the sprites collide
+	 */
+	public static boolean collides(Sprite a, Sprite b) {
+		if(!intersects(a, b)) return false;
+
+		boolean maskA = a instanceof Image;
+		boolean maskB = b instanceof Image;
+		if(!maskA && !maskB) return true;
+
+		if(maskA && maskB) {
+			return ((Image) a).getCollisionMask().overlaps(a.getPosX(), a.getPosY(), ((Image) b).getCollisionMask(), b.getPosX(), b.getPosY());
+		} else if(maskA) {
+			return ((Image) a).getCollisionMask().overlapsRect(a.getPosX(), a.getPosY(), b.getPosX(), b.getPosY(), b.getWidth(), b.getHeight());
+		} else {
+			return ((Image) b).getCollisionMask().overlapsRect(b.getPosX(), b.getPosY(), a.getPosX(), a.getPosY(), a.getWidth(), a.getHeight());
+		}
+	}
+
+}
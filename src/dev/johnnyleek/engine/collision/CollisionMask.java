@@ -0,0 +1,263 @@
+package dev.johnnyleek.engine.collision;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Represents the solid pixels of an image as a packed bitmask.
+ *
+ * Each row of the image is packed into "wordsPerRow" longs, where bit (x % 64)
+ * of word (x / 64) is set if the pixel at column x is solid. A pixel is solid
+ * if its alpha value is greater than or equal to the alpha threshold.
+ *
+ * Masks are computed once per BufferedImage and cached, so every Image that
+ * shares the same BufferedImage also shares the same mask. Masks are immutable
+ * once built, so they can safely be shared across threads.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public final class CollisionMask {
+
+	/**
+	 * The default alpha value (0-255) a pixel must reach to be considered solid
+	 */
+	public static final int DEFAULT_ALPHA_THRESHOLD = 128;
+
+	private static final Map<BufferedImage, CollisionMask> CACHE = Collections.synchronizedMap(new WeakHashMap<BufferedImage, CollisionMask>());
+
+	private final int width, height;
+	private final int wordsPerRow;
+	private final long[] bits;
+
+	private CollisionMask(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.wordsPerRow = (width + 63) >>> 6;
+		this.bits = new long[this.wordsPerRow * height];
+	}
+
+	/**
+	 * Gets the (shared) mask for the provided image, using the default alpha threshold.
+	 * The mask is only computed the first time it is requested for a given image.
+	 * @param image the image to get the mask of
+	 * @return the CollisionMask of the image
+	 */
+	public static CollisionMask forImage(BufferedImage image) {
+		CollisionMask mask = CACHE.get(image);
+		if(mask == null) {
+			mask = fromImage(image, DEFAULT_ALPHA_THRESHOLD);
+			CACHE.put(image, mask);
+		}
+		return mask;
+	}
+
+	/**
+	 * Builds a new (unshared) mask from the alpha channel of an image.
+	 * Images without an alpha channel produce a fully solid mask.
+	 * @param image the image to build the mask from
+	 * @param alphaThreshold the alpha value (0-255) a pixel must reach to be solid
+	 * @return the newly built CollisionMask
+	 */
+	public static CollisionMask fromImage(BufferedImage image, int alphaThreshold) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		CollisionMask mask = new CollisionMask(width, height);
+
+		Raster alpha = image.getAlphaRaster();
+		if(alpha == null && !image.getColorModel().hasAlpha()) {
+			for(int y = 0; y < height; y++) {
+				mask.fillRow(y);
+			}
+			return mask;
+		}
+
+		// Images whose alpha is not stored as its own band (such as indexed images with a
+		// transparent color) are read as ARGB instead
+		int[] row = new int[width];
+		for(int y = 0; y < height; y++) {
+			if(alpha != null) {
+				alpha.getSamples(alpha.getMinX(), alpha.getMinY() + y, width, 1, 0, row);
+			} else {
+				image.getRGB(0, y, width, 1, row, 0, width);
+				for(int x = 0; x < width; x++) row[x] >>>= 24;
+			}
+			int base = y * mask.wordsPerRow;
+			for(int x = 0; x < width; x++) {
+				if(row[x] >= alphaThreshold) {
+					mask.bits[base + (x >>> 6)] |= 1L << x;
+				}
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Builds a fully solid mask of the given size
+	 * @param width the width of the mask
+	 * @param height the height of the mask
+	 * @return the solid CollisionMask
+	 */
+	public static CollisionMask solid(int width, int height) {
+		CollisionMask mask = new CollisionMask(width, height);
+		for(int y = 0; y < height; y++) {
+			mask.fillRow(y);
+		}
+		return mask;
+	}
+
+	/**
+	 * Gets this mask stretched (or shrunk) to a new size, for an image drawn at a size other
+	 * than its own. Each pixel of the new mask is the pixel of this mask nearest to its center,
+	 * the same pixel a scaled image is drawn with.
+	 * @param width the width of the new mask
+	 * @param height the height of the new mask
+	 * @return the scaled CollisionMask (or this mask, if it is already that size)
+	 */
+	public CollisionMask scaled(int width, int height) {
+		width = Math.max(0, width);
+		height = Math.max(0, height);
+		if(width == this.width && height == this.height) return this;
+
+		CollisionMask mask = new CollisionMask(width, height);
+		for(int y = 0; y < height; y++) {
+			int sourceY = (int) ((2L * y + 1) * this.height / (2L * height));
+			int base = y * mask.wordsPerRow;
+			for(int x = 0; x < width; x++) {
+				int sourceX = (int) ((2L * x + 1) * this.width / (2L * width));
+				if(isSolid(sourceX, sourceY)) {
+					mask.bits[base + (x >>> 6)] |= 1L << x;
+				}
+			}
+		}
+		return mask;
+	}
+
+	private void fillRow(int y) {
+		int base = y * wordsPerRow;
+		for(int w = 0; w < wordsPerRow; w++) {
+			bits[base + w] = -1L;
+		}
+		int tail = width & 63;
+		if(tail != 0) {
+			bits[base + wordsPerRow - 1] = (1L << tail) - 1;
+		}
+	}
+
+	/**
+	 * Gets the width of the mask
+	 * @return the width of the mask (in pixels)
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Gets the height of the mask
+	 * @return the height of the mask (in pixels)
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns whether or not the pixel at the given location is solid
+	 * @param x the X coordinate (relative to the mask)
+	 * @param y the Y coordinate (relative to the mask)
+	 * @return true/false depending on if the pixel is solid (false if outside the mask)
+	 */
+	public boolean isSolid(int x, int y) {
+		if(x < 0 || y < 0 || x >= width || y >= height) return false;
+		return (bits[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+	}
+
+	/**
+	 * Reads 64 bits of a row starting at an arbitrary bit offset.
+	 * Bits past the end of the row are read as 0.
+	 */
+	private long window(int base, int offset) {
+		int word = offset >>> 6;
+		int shift = offset & 63;
+		long value = bits[base + word] >>> shift;
+		if(shift != 0 && word + 1 < wordsPerRow) {
+			value |= bits[base + word + 1] << (64 - shift);
+		}
+		return value;
+	}
+
+	/**
+	 * Tests whether this mask (placed at ax, ay) and another mask (placed at bx, by)
+	 * share at least one solid pixel.
+	 *
+	 * Only the intersection of the two bounding boxes is checked, 64 pixels at a time.
+	 * @param ax the X position of this mask
+	 * @param ay the Y position of this mask
+	 * @param other the mask to test against
+	 * @param bx the X position of the other mask
+	 * @param by the Y position of the other mask
+	 * @return true/false depending on if the masks overlap
+	 */
+	public boolean overlaps(int ax, int ay, CollisionMask other, int bx, int by) {
+		int left = Math.max(ax, bx);
+		int right = Math.min(ax + width, bx + other.width);
+		int top = Math.max(ay, by);
+		int bottom = Math.min(ay + height, by + other.height);
+		if(left >= right || top >= bottom) return false;
+
+		int span = right - left;
+		for(int y = top; y < bottom; y++) {
+			int baseA = (y - ay) * wordsPerRow;
+			int baseB = (y - by) * other.wordsPerRow;
+			int offA = left - ax;
+			int offB = left - bx;
+			for(int done = 0; done < span; done += 64) {
+				long overlap = window(baseA, offA + done) & other.window(baseB, offB + done);
+				int remaining = span - done;
+				if(remaining < 64) {
+					overlap &= (1L << remaining) - 1;
+				}
+				if(overlap != 0) return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Tests whether this mask (placed at ax, ay) has at least one solid pixel
+	 * inside of a solid rectangle.
+	 * @param ax the X position of this mask
+	 * @param ay the Y position of this mask
+	 * @param rx the X position of the rectangle
+	 * @param ry the Y position of the rectangle
+	 * @param rw the width of the rectangle
+	 * @param rh the height of the rectangle
+	 * @return true/false depending on if the mask overlaps the rectangle
+	 */
+	public boolean overlapsRect(int ax, int ay, int rx, int ry, int rw, int rh) {
+		int left = Math.max(ax, rx);
+		int right = Math.min(ax + width, rx + rw);
+		int top = Math.max(ay, ry);
+		int bottom = Math.min(ay + height, ry + rh);
+		if(left >= right || top >= bottom) return false;
+
+		int span = right - left;
+		for(int y = top; y < bottom; y++) {
+			int base = (y - ay) * wordsPerRow;
+			int off = left - ax;
+			for(int done = 0; done < span; done += 64) {
+				long overlap = window(base, off + done);
+				int remaining = span - done;
+				if(remaining < 64) {
+					overlap &= (1L << remaining) - 1;
+				}
+				if(overlap != 0) return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -16,6 +16,7 @@ public enum EventType {
 	MOUSE_PRESS,
 	MOUSE_RELEASE,
 	MOUSE_MOVE,
-	MOUSE_DRAG
+	MOUSE_DRAG,
+	MOUSE_WHEEL
 	
 }
@@ -0,0 +1,28 @@
+package dev.johnnyleek.engine.input;
+
+/**
+ * Listens to input events as they are drained from an InputEventQueue (on the game thread).
+ *
+ * Events are passed as plain values rather than event objects, so listening
+ * to input never allocates.
+ *
+ * 	- For keyboard events, "code" is the key code, and x/y are 0
+ * 	- For mouse events, "code" is the mouse button (0 for move events), and x/y are the mouse position
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public interface InputEventListener {
+
+	/**
+	 * Called for each input event, in the order the events happened
+	 * @param type the type of the event
+	 * @param code the key code or mouse button of the event
+	 * @param x the X position of the mouse (mouse events only)
+	 * @param y the Y position of the mouse (mouse events only)
+	 * @param nanoTime when the event was recorded (from System.nanoTime())
+	 */
+	void onInputEvent(EventType type, int code, int x, int y, long nanoTime);
+
+}
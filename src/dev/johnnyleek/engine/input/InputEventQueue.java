@@ -0,0 +1,189 @@
+package dev.johnnyleek.engine.input;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed size queue of timestamped input events.
+ *
+ * Events are recorded by the AWT thread (the only producer) and drained by the
+ * game thread (the only consumer) once per tick, in the exact order they happened.
+ * Every event is stored as primitive values in preallocated arrays, so neither
+ * recording nor draining allocates, and neither side ever locks.
+ *
+ * If the game thread falls so far behind that the queue fills up, new events
+ * are dropped (and counted) rather than blocking the AWT thread. Key and mouse
+ * state (Keyboard/Mouse) is tracked separately, so it is never affected by drops.
+ *
+ * Listeners can be added for a single EventType, or for every event.
+ * Listeners should only be added from the game thread.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class InputEventQueue {
+
+	private static final InputEventListener[] NO_LISTENERS = new InputEventListener[0];
+
+	private final int mask;
+	private final EventType[] types;
+	private final int[] codes;
+	private final int[] xs;
+	private final int[] ys;
+	private final long[] times;
+
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private long cachedHead;
+
+	private InputEventListener[][] listeners;
+	private InputEventListener[] globalListeners = NO_LISTENERS;
+
+	/**
+	 * Creates a queue that can hold 1024 events between ticks
+	 */
+	public InputEventQueue() {
+		this(1024);
+	}
+
+	/**
+	 * Creates a queue with a custom capacity
+	 * @param capacity how many events can be held between ticks (rounded up to a power of two)
+	 */
+	public InputEventQueue(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.mask = size - 1;
+		this.types = new EventType[size];
+		this.codes = new int[size];
+		this.xs = new int[size];
+		this.ys = new int[size];
+		this.times = new long[size];
+		this.listeners = new InputEventListener[EventType.values().length][];
+		for(int i = 0; i < listeners.length; i++) {
+			listeners[i] = NO_LISTENERS;
+		}
+	}
+
+	/**
+	 * Records an event. Must only be called from a single producer thread (the AWT thread).
+	 * @param type the type of the event
+	 * @param code the key code or mouse button of the event
+	 * @param x the X position of the mouse
+	 * @param y the Y position of the mouse
+	 * @param nanoTime when the event happened (from System.nanoTime())
+	 * @return true if the event was recorded, false if the queue was full
+	 */
+	public boolean record(EventType type, int code, int x, int y, long nanoTime) {
+		long position = tail.get();
+		if(position - cachedHead > mask) {
+			cachedHead = head.get();
+			if(position - cachedHead > mask) {
+				dropped.incrementAndGet();
+				return false;
+			}
+		}
+		int slot = (int) position & mask;
+		types[slot] = type;
+		codes[slot] = code;
+		xs[slot] = x;
+		ys[slot] = y;
+		times[slot] = nanoTime;
+		tail.lazySet(position + 1);
+		return true;
+	}
+
+	/**
+	 * Drains every recorded event, passing each one to the registered listeners.
+	 * This is called by the game loop at the start of every tick.
+	 * @return the number of events drained
+	 */
+	public int dispatch() {
+		return drain(null);
+	}
+
+	/**
+	 * Drains every recorded event, passing each one to the registered listeners
+	 * and then to the provided listener. Must only be called from the game thread.
+	 * @param listener an extra listener for this drain only (can be null)
+	 * @return the number of events drained
+	 */
+	public int drain(InputEventListener listener) {
+		long start = head.get();
+		long end = tail.get();
+		for(long position = start; position < end; position++) {
+			int slot = (int) position & mask;
+			EventType type = types[slot];
+			int code = codes[slot], x = xs[slot], y = ys[slot];
+			long time = times[slot];
+
+			for(InputEventListener l : listeners[type.ordinal()]) {
+				l.onInputEvent(type, code, x, y, time);
+			}
+			for(InputEventListener l : globalListeners) {
+				l.onInputEvent(type, code, x, y, time);
+			}
+			if(listener != null) {
+				listener.onInputEvent(type, code, x, y, time);
+			}
+		}
+		head.lazySet(end);
+		return (int) (end - start);
+	}
+
+	/**
+	 * Adds a listener for a single type of event
+	 * @param type the type of event to listen to
+	 * @param listener the listener to call for each event of that type
+	 */
+	public void addListener(EventType type, InputEventListener listener) {
+		listeners[type.ordinal()] = append(listeners[type.ordinal()], listener);
+	}
+
+	/**
+	 * Adds a listener for every type of event
+	 * @param listener the listener to call for each event
+	 */
+	public void addListener(InputEventListener listener) {
+		globalListeners = append(globalListeners, listener);
+	}
+
+	/**
+	 * Removes a listener (from every type of event it was added to)
+	 * @param listener the listener to remove
+	 */
+	public void removeListener(InputEventListener listener) {
+		for(int i = 0; i < listeners.length; i++) {
+			listeners[i] = remove(listeners[i], listener);
+		}
+		globalListeners = remove(globalListeners, listener);
+	}
+
+	/**
+	 * Gets the number of events dropped because the queue was full
+	 * @return the number of dropped events
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	private static InputEventListener[] append(InputEventListener[] array, InputEventListener listener) {
+		InputEventListener[] result = new InputEventListener[array.length + 1];
+		System.arraycopy(array, 0, result, 0, array.length);
+		result[array.length] = listener;
+		return result;
+	}
+
+	private static InputEventListener[] remove(InputEventListener[] array, InputEventListener listener) {
+		for(int i = 0; i < array.length; i++) {
+			if(array[i] == listener) {
+				InputEventListener[] result = new InputEventListener[array.length - 1];
+				System.arraycopy(array, 0, result, 0, i);
+				System.arraycopy(array, i + 1, result, i, array.length - i - 1);
+				return result;
+			}
+		}
+		return array;
+	}
+
+}
@@ -0,0 +1,257 @@
+package dev.johnnyleek.engine.input;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import dev.johnnyleek.engine.util.Logger;
+import dev.johnnyleek.engine.window.Window;
+
+/**
+ * Records every keyboard and mouse event of a Window into a compact binary file,
+ * so a play session can be replayed exactly (see "InputReplayer").
+ *
+ * While a recorder is attached (see "Game.setInputRecorder"), the Window's Keyboard
+ * and Mouse pass their events to the recorder instead of applying them. At the start
+ * of each tick, the game loop calls "flush", which writes the events to the file and
+ * then applies them. Because events are applied at the same point of the tick in
+ * both recording and replay, the game sees exactly the same input on exactly the
+ * same tick either way.
+ *
+ * The file is memory mapped (in 1MB chunks), and is laid out as follows:
+ * 	- A header: the magic number "JGIN", and a version byte
+ * 	- One frame per tick that had events: the number of ticks since the last frame (varint),
+ * 	  then each event, then a 0 byte
+ * 	- An empty frame (no events) marking the tick the recording ended on
+ *
+ * Each event is a type byte (the EventType ordinal + 1), followed by the change in
+ * code, X, and Y since the last event (zigzag varints), and the nanoseconds since
+ * the last event (varint). Most events take 4-7 bytes.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class InputRecorder implements Closeable {
+
+	static final int MAGIC = 0x4A47494E;
+	static final byte VERSION = 1;
+	static final int HEADER_SIZE = 5;
+
+	private static final int CHUNK_SIZE = 1 << 20;
+	private static final int MAX_FRAME_SIZE = 64;
+
+	private final FileChannel channel;
+	private MappedByteBuffer buffer;
+	private long chunkStart;
+
+	// Written by the AWT thread, drained by the game thread
+	private final InputEventQueue staging;
+	private Keyboard keyboard;
+	private Mouse mouse;
+
+	private long startTick = -1;
+	private long endTick;
+	private long lastTick;
+	private long frameTick;
+	private boolean frameOpen;
+	private int lastCode, lastX, lastY;
+	private long lastTime;
+	private long eventCount;
+	private boolean closed;
+
+	/**
+	 * Creates a recorder that can hold 4096 events between ticks
+	 * @param path the path of the file to record into (overwritten if it exists)
+	 * @throws IOException if the file could not be created
+	 */
+	public InputRecorder(String path) throws IOException {
+		this(path, 4096);
+	}
+
+	/**
+	 * Creates a recorder with a custom capacity
+	 * @param path the path of the file to record into (overwritten if it exists)
+	 * @param capacity how many events can be held between ticks
+	 * @throws IOException if the file could not be created
+	 */
+	public InputRecorder(String path, int capacity) throws IOException {
+		this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, CHUNK_SIZE);
+		this.buffer.putInt(MAGIC);
+		this.buffer.put(VERSION);
+		this.staging = new InputEventQueue(capacity);
+		this.lastTime = System.nanoTime();
+		Logger.info("Recording input to " + path);
+	}
+
+	/**
+	 * Starts passing the Window's keyboard and mouse events to this recorder.
+	 * This is called by "Game.setInputRecorder".
+	 * @param window the Window to record
+	 */
+	public void attach(Window window) {
+		this.keyboard = window.getKeyboard();
+		this.mouse = window.getMouse();
+		if(keyboard != null) keyboard.setRecorder(this);
+		if(mouse != null) mouse.setRecorder(this);
+	}
+
+	/**
+	 * Stops passing keyboard and mouse events to this recorder (they are applied right away again)
+	 */
+	public void detach() {
+		if(keyboard != null) keyboard.setRecorder(null);
+		if(mouse != null) mouse.setRecorder(null);
+	}
+
+	/**
+	 * Holds an event until the next flush. Must only be called from the AWT thread.
+	 */
+	void stage(EventType type, int code, int x, int y, long nanoTime) {
+		staging.record(type, code, x, y, nanoTime);
+	}
+
+	/**
+	 * Writes every event held since the last flush (tagged with the tick), and then applies them
+	 * to the Keyboard and Mouse. This is called by the game loop at the start of every tick,
+	 * and must only be called from the game thread.
+	 * @param tick the tick that is starting
+	 */
+	public void flush(long tick) {
+		if(closed) return;
+		if(startTick < 0) startTick = tick;
+		this.frameTick = tick - startTick;
+		this.endTick = frameTick + 1;
+		this.frameOpen = false;
+
+		try {
+			staging.drain(writer);
+			if(frameOpen) buffer.put((byte) 0);
+		} catch(UncheckedIOException e) {
+			Logger.error("Failed to record input, recording stopped: " + e.getMessage());
+			detach();
+			closed = true;
+		}
+	}
+
+	/**
+	 * Writes and applies each event as it is drained
+	 */
+	private InputEventListener writer = new InputEventListener() {
+		@Override
+		public void onInputEvent(EventType type, int code, int x, int y, long nanoTime) {
+			ensure(MAX_FRAME_SIZE);
+			if(!frameOpen) {
+				putVarLong(frameTick - lastTick);
+				lastTick = frameTick;
+				frameOpen = true;
+			}
+			buffer.put((byte) (type.ordinal() + 1));
+			putVarLong(zigzag(code - lastCode));
+			putVarLong(zigzag(x - lastX));
+			putVarLong(zigzag(y - lastY));
+			putVarLong(Math.max(0, nanoTime - lastTime));
+			lastCode = code;
+			lastX = x;
+			lastY = y;
+			lastTime = Math.max(lastTime, nanoTime);
+			eventCount++;
+
+			if(type == EventType.KEYBOARD_PRESS || type == EventType.KEYBOARD_RELEASE) {
+				if(keyboard != null) keyboard.apply(type, code, nanoTime);
+			} else if(mouse != null) {
+				mouse.apply(type, code, x, y, nanoTime);
+			}
+		}
+	};
+
+	/**
+	 * Maps the next chunk of the file if there is not enough room left in the current one
+	 */
+	private void ensure(int bytes) {
+		if(buffer.remaining() >= bytes) return;
+		try {
+			chunkStart += buffer.position();
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, chunkStart, CHUNK_SIZE);
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private void putVarLong(long value) {
+		while((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * Gets the number of events recorded
+	 * @return the number of events written to the file
+	 */
+	public long getEventCount() {
+		return eventCount;
+	}
+
+	/**
+	 * Gets the number of events dropped because too many happened within one tick
+	 * @return the number of dropped events
+	 */
+	public long getDroppedCount() {
+		return staging.getDroppedCount();
+	}
+
+	/**
+	 * Gets the size of the recording so far
+	 * @return the number of bytes written to the file
+	 */
+	public long getSize() {
+		return chunkStart + buffer.position();
+	}
+
+	/**
+	 * Stops recording, marks the end of the recording, and closes the file.
+	 * Should be called from the game thread (or once the game loop has stopped).
+	 * @throws IOException if the file could not be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		if(!channel.isOpen()) return;
+		detach();
+
+		if(!closed) {
+			closed = true;
+			try {
+				ensure(MAX_FRAME_SIZE);
+				putVarLong(endTick - lastTick);
+				buffer.put((byte) 0);
+				buffer.force();
+			} catch(UncheckedIOException e) {
+				channel.close();
+				throw e.getCause();
+			}
+		}
+
+		long size = getSize();
+		try {
+			channel.truncate(size);
+		} catch(IOException e) {
+			// Some platforms can't truncate a mapped file. Anything after the end frame is ignored anyway.
+			Logger.warn("Could not trim input recording: " + e.getMessage());
+		}
+		channel.close();
+		Logger.info("Recorded " + eventCount + " input events over " + endTick + " ticks (" + size + " bytes)");
+	}
+
+}
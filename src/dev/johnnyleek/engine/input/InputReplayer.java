@@ -0,0 +1,124 @@
+package dev.johnnyleek.engine.input;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import dev.johnnyleek.engine.render.Game;
+import dev.johnnyleek.engine.window.Window;
+
+/**
+ * Replays a file recorded by an InputRecorder into a Game.
+ *
+ * Each recorded event is applied to the Game's Keyboard and Mouse at the start of
+ * the same tick it was recorded on, and the Game is stepped (see "Game.step") as fast
+ * as possible. The Game should use a headless Window (see "CreateWindow.headless"),
+ * and its game loop must not be running.
+ *
+ * As long as the Game only depends on its input and its tick count (not on the time of day,
+ * or the speed of the computer), every replay of the same recording runs exactly the same way.
+ * This makes it possible to profile a real play session over and over again.
+ *
+ * The file is memory mapped, so the events are read straight from the page cache.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class InputReplayer {
+
+	private static final EventType[] TYPES = EventType.values();
+
+	private final MappedByteBuffer buffer;
+
+	/**
+	 * Opens a recording to replay
+	 * @param path the path of the recording
+	 * @throws IOException if the file could not be read, or is not an input recording
+	 */
+	public InputReplayer(String path) throws IOException {
+		try(FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if(buffer.remaining() < InputRecorder.HEADER_SIZE || buffer.getInt() != InputRecorder.MAGIC) {
+			throw new IOException("Not an input recording: " + path);
+		}
+		byte version = buffer.get();
+		if(version != InputRecorder.VERSION) {
+			throw new IOException("Unsupported input recording version " + version + ": " + path);
+		}
+	}
+
+	/**
+	 * Replays the whole recording into a Game, stepping it once per recorded tick.
+	 * Can be called more than once (each call replays the recording from the start).
+	 * @param game the Game to replay into (its game loop must not be running)
+	 * @return the number of ticks that were run
+	 */
+	public long replay(Game game) {
+		Window window = game.getWindow();
+		Keyboard keyboard = window.getKeyboard();
+		Mouse mouse = window.getMouse();
+
+		buffer.position(InputRecorder.HEADER_SIZE);
+		int lastCode = 0, lastX = 0, lastY = 0;
+		long lastTime = System.nanoTime();
+		long frameTick = 0;
+		long ticks = 0;
+
+		try {
+			while(buffer.hasRemaining()) {
+				frameTick += getVarLong();
+				while(ticks < frameTick) {
+					game.step();
+					ticks++;
+				}
+
+				int type = buffer.get() & 0xFF;
+				if(type == 0) break; // An empty frame marks the end of the recording
+
+				while(type != 0) {
+					if(type > TYPES.length) throw new IllegalStateException("Corrupt input recording (unknown event type " + type + ")");
+					EventType eventType = TYPES[type - 1];
+					lastCode += (int) unzigzag(getVarLong());
+					lastX += (int) unzigzag(getVarLong());
+					lastY += (int) unzigzag(getVarLong());
+					lastTime += getVarLong();
+
+					if(eventType == EventType.KEYBOARD_PRESS || eventType == EventType.KEYBOARD_RELEASE) {
+						if(keyboard != null) keyboard.apply(eventType, lastCode, lastTime);
+					} else if(mouse != null) {
+						mouse.apply(eventType, lastCode, lastX, lastY, lastTime);
+					}
+					type = buffer.get() & 0xFF;
+				}
+
+				game.step();
+				ticks++;
+			}
+		} catch(BufferUnderflowException e) {
+			// The recording was cut off (it was never closed), so stop at the last full frame
+		}
+		return ticks;
+	}
+
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private long getVarLong() {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while(b < 0);
+		return value;
+	}
+
+}
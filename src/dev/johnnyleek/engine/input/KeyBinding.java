@@ -1,11 +1,18 @@
 package dev.johnnyleek.engine.input;
 
+import java.util.Arrays;
+
 /**
  * Provides customizable key bindings for common game controls.
  * Each binding has a name (Ex: "UP"), and a corresponding Key Code (Ex: 87)
- * 
+ *
+ * A binding can also be triggered by more than one key (Ex: "W" or the up arrow),
+ * or by a chord of keys that must all be held together (Ex: "CTRL + S").
+ * Each alternative is precomputed into a set of bitmasks, so checking a binding
+ * is only a few AND operations against the current keyboard state.
+ *
  * Keycodes can be found at <a href="https://docs.oracle.com/javase/7/docs/api/constant-values.html#java.awt.event.KeyEvent.CHAR_UNDEFINED">javadoc</a>
- * 
+ *
  * @author Johnny Leek
  * @version 1.0
  */
@@ -15,28 +22,99 @@ public enum KeyBinding {
 	DOWN(83),
 	LEFT(65),
 	RIGHT(68);
-	
-	private int keyCode;
+
+	private volatile Chord[] chords;
 
 	private KeyBinding(int keyCode) {
-		this.keyCode = keyCode;
+		this.chords = new Chord[] { new Chord(keyCode) };
 	}
-	
+
 	/**
-	 * Gets the keycode for the given key
+	 * Gets the keycode for the given key.
+	 * If the binding has more than one key, this is the first key of the first alternative.
 	 * @return the keycode for the corresponding key
 	 */
 	public int getKeyCode() {
-		return this.keyCode;
+		return this.chords[0].keyCodes[0];
 	}
-	
+
 	/**
 	 * Sets the keycode for the given key.
-	 * This allows for keys to be rebound as necessary
+	 * This allows for keys to be rebound as necessary (replacing every other key or chord)
 	 * @param keyCode the keycode (as an integer) to change the keybinding to
 	 */
 	public void setKeyCode(int keyCode) {
-		this.keyCode = keyCode;
-	}	
-	
+		this.chords = new Chord[] { new Chord(keyCode) };
+	}
+
+	/**
+	 * Sets several keys that can each trigger this binding on their own (replacing every other key or chord)
+	 * @param keyCodes the keycodes that should trigger this binding
+	 */
+	public void setKeyCodes(int ...keyCodes) {
+		if(keyCodes.length == 0) throw new IllegalArgumentException("A KeyBinding must have at least one key");
+		Chord[] chords = new Chord[keyCodes.length];
+		for(int i = 0; i < keyCodes.length; i++) {
+			chords[i] = new Chord(keyCodes[i]);
+		}
+		this.chords = chords;
+	}
+
+	/**
+	 * Adds another way of triggering this binding: a chord of keys that must all be held together.
+	 * Passing a single key adds an alternative key.
+	 * @param keyCodes the keycodes that must all be held to trigger this binding
+	 */
+	public void addChord(int ...keyCodes) {
+		if(keyCodes.length == 0) throw new IllegalArgumentException("A chord must have at least one key");
+		Chord[] current = this.chords;
+		Chord[] chords = new Chord[current.length + 1];
+		System.arraycopy(current, 0, chords, 0, current.length);
+		chords[current.length] = new Chord(keyCodes);
+		this.chords = chords;
+	}
+
+	/**
+	 * Gets every alternative of this binding (read by KeyboardState)
+	 * @return the chords of this binding
+	 */
+	Chord[] getChords() {
+		return this.chords;
+	}
+
+	/**
+	 * A group of keys that must all be held at the same time, stored as
+	 * the bitmask words (within the keyboard state) that the keys fall in.
+	 */
+	static final class Chord {
+
+		final int[] keyCodes;
+		final int[] words;
+		final long[] masks;
+
+		Chord(int ...keyCodes) {
+			for(int keyCode : keyCodes) {
+				if(keyCode < 0 || keyCode >= Keyboard.KEY_CODE_COUNT) {
+					throw new IllegalArgumentException(String.format("Key code %d is not valid", keyCode));
+				}
+			}
+			this.keyCodes = keyCodes.clone();
+
+			// Merge keys that share a word, so each word is only checked once
+			int[] words = new int[keyCodes.length];
+			long[] masks = new long[keyCodes.length];
+			int count = 0;
+			for(int keyCode : keyCodes) {
+				int word = keyCode >>> 6;
+				int i = 0;
+				while(i < count && words[i] != word) i++;
+				if(i == count) words[count++] = word;
+				masks[i] |= 1L << keyCode;
+			}
+			this.words = Arrays.copyOf(words, count);
+			this.masks = Arrays.copyOf(masks, count);
+		}
+
+	}
+
 }
@@ -1,8 +1,14 @@
 package dev.johnnyleek.engine.input;
 
+import java.awt.Component;
 import java.awt.KeyEventDispatcher;
+import java.awt.Window;
 import java.awt.event.KeyEvent;
-import java.util.HashMap;
+import java.awt.event.WindowEvent;
+import java.awt.event.WindowFocusListener;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.swing.SwingUtilities;
 
 import dev.johnnyleek.engine.util.Logger;
 
@@ -10,67 +16,388 @@ import dev.johnnyleek.engine.util.Logger;
  * Provides a custom dispatcher and map of which keys are pressed
  * in order to provide accurate information about the current key state
  * of the game.
- * 
+ *
+ * Key events are recorded (by the AWT thread) into atomic bitsets, one bit
+ * per key code, so recording a key never blocks the game. Once per tick, the
+ * game loop latches these bits into a KeyboardState (see "latch"), which is
+ * what every "isPressed", "justPressed", and "justReleased" check reads.
+ *
+ * Presses are recorded as edges, so a key that is pressed and released
+ * between two ticks still counts as pressed for one tick.
+ *
+ * Every press and release can also be recorded into an InputEventQueue
+ * (see "setEventQueue"), for games that need the exact order and timing of
+ * key events within a tick.
+ *
+ * Key events are dispatched to every Keyboard, so each Keyboard only keeps the events
+ * of its own window (see "setOwner"). When its window loses focus, every key it
+ * has held is released, since the releases will be sent to another window.
+ *
+ * The static methods check the Keyboard of the Game running on the calling thread
+ * (the game loop binds its window's Keyboard while it runs each frame, see "setCurrent"),
+ * so two Games never read each other's keys. Scripts check the Keyboard of the Game
+ * that started them. Any other thread checks the Keyboard of the most recently focused
+ * window (or the most recently created Keyboard, until a window is focused), and
+ * should use "getState" of its own Keyboard instead, as the latched state is only
+ * safe to read from the game thread.
+ *
  * @author Johnny Leek
  * @version 1.0
  *
  */
 public class Keyboard {
 
+	/**
+	 * The number of key codes that can be tracked (every possible AWT key code)
+	 */
+	public static final int KEY_CODE_COUNT = 1 << 16;
+	static final int WORDS = KEY_CODE_COUNT >>> 6;
+	private static final int SUMMARY_WORDS = WORDS >>> 6;
+
+	private static volatile Keyboard active;
+	// Inherited, so Scripts (whose threads are started by the game thread) see their Game's Keyboard
+	private static final InheritableThreadLocal<Keyboard> current = new InheritableThreadLocal<Keyboard>();
+
+	// Written by the AWT thread
+	private final AtomicLongArray down = new AtomicLongArray(WORDS);
+	private final AtomicLongArray pressedEdges = new AtomicLongArray(WORDS);
+	private final AtomicLongArray releasedEdges = new AtomicLongArray(WORDS);
+	private final AtomicLongArray dirtyWords = new AtomicLongArray(SUMMARY_WORDS);
+
+	// Only touched by the game thread (in latch)
+	private final KeyboardState state = new KeyboardState();
+	private final int[] revisit = new int[WORDS];
+	private final int[] candidates = new int[WORDS];
+	private final int[] candidateStamp = new int[WORDS];
+	private int revisitCount;
+	private int latchCount;
+
+	private volatile InputEventQueue eventQueue;
+	private volatile InputRecorder recorder;
+	private volatile Window owner;
+
 	public Keyboard() {
 		Logger.debug("New Keyboard created!");
-		pressedKeys = new HashMap<Integer, Boolean>();
+		active = this;
 	}
-	
-	private static volatile HashMap<Integer, Boolean> pressedKeys;
-	
+
 	/**
 	 * Returns whether or not a given key is pressed
 	 * @param key a KeyBinding for a given key
 	 * @return true/false depending on if the provided key is currently pressed
 	 */
 	public static boolean isPressed(KeyBinding key) {
-		synchronized(Keyboard.class) {
-			int keyCode = key.getKeyCode();
-			if(pressedKeys.containsKey(keyCode))
-				return pressedKeys.get(keyCode);
-			else return false;
-		}
+		Keyboard keyboard = current();
+		return keyboard != null && keyboard.state.isPressed(key);
 	}
-	
+
 	/**
 	 * Returns whether or not a given key is pressed
 	 * @param key a keycode for a given key
 	 * @return true/false depending on if the provided key is currently pressed
 	 */
 	public static boolean isPressed(int keyCode) {
-		synchronized(Keyboard.class) {
-			if(pressedKeys.containsKey(keyCode))
-				return pressedKeys.get(keyCode);
-			else return false;
-		}
+		Keyboard keyboard = current();
+		return keyboard != null && keyboard.state.isPressed(keyCode);
+	}
+
+	/**
+	 * Returns whether or not a given key was pressed since the last tick
+	 * @param key a KeyBinding for a given key
+	 * @return true/false depending on if the provided key was just pressed
+	 */
+	public static boolean justPressed(KeyBinding key) {
+		Keyboard keyboard = current();
+		return keyboard != null && keyboard.state.justPressed(key);
+	}
+
+	/**
+	 * Returns whether or not a given key was pressed since the last tick
+	 * @param keyCode a keycode for a given key
+	 * @return true/false depending on if the provided key was just pressed
+	 */
+	public static boolean justPressed(int keyCode) {
+		Keyboard keyboard = current();
+		return keyboard != null && keyboard.state.justPressed(keyCode);
+	}
+
+	/**
+	 * Returns whether or not a given key was released since the last tick
+	 * @param key a KeyBinding for a given key
+	 * @return true/false depending on if the provided key was just released
+	 */
+	public static boolean justReleased(KeyBinding key) {
+		Keyboard keyboard = current();
+		return keyboard != null && keyboard.state.justReleased(key);
+	}
+
+	/**
+	 * Returns whether or not a given key was released since the last tick
+	 * @param keyCode a keycode for a given key
+	 * @return true/false depending on if the provided key was just released
+	 */
+	public static boolean justReleased(int keyCode) {
+		Keyboard keyboard = current();
+		return keyboard != null && keyboard.state.justReleased(keyCode);
+	}
+
+	/**
+	 * Gets the state of this keyboard for the current tick
+	 * @return the latched KeyboardState
+	 */
+	public KeyboardState getState() {
+		return state;
+	}
+
+	/**
+	 * Gets the Keyboard of the most recently focused window
+	 * @return the active Keyboard (or null if no Keyboard has been created)
+	 */
+	public static Keyboard getActiveKeyboard() {
+		return active;
+	}
+
+	/**
+	 * Sets the Keyboard the static methods check on the calling thread (and on threads it starts,
+	 * such as Scripts). This is called by the game loop around every frame.
+	 * @param keyboard the Keyboard to check (or null to check the active Keyboard)
+	 * @return the Keyboard that was set before (or null if there was none)
+	 */
+	public static Keyboard setCurrent(Keyboard keyboard) {
+		Keyboard previous = current.get();
+		current.set(keyboard);
+		return previous;
+	}
+
+	/**
+	 * Gets the Keyboard the static methods check on the calling thread
+	 */
+	private static Keyboard current() {
+		Keyboard keyboard = current.get();
+		return keyboard != null ? keyboard : active;
+	}
+
+	/**
+	 * Sets the window this Keyboard listens to. Only key events sent to the window
+	 * (or one of its components) are kept. Can only be set once.
+	 * @param owner the window to listen to (a Keyboard with no owner keeps every key event)
+	 */
+	public void setOwner(Window owner) {
+		if(this.owner != null || owner == null) return;
+		this.owner = owner;
+		owner.addWindowFocusListener(focusListener);
+		if(owner.isFocused()) active = this;
+	}
+
+	/**
+	 * Gets the window this Keyboard listens to
+	 * @return the owning window (or null if this Keyboard keeps every key event)
+	 */
+	public Window getOwner() {
+		return this.owner;
+	}
+
+	/**
+	 * Sets the queue that key presses and releases are recorded into
+	 * @param eventQueue the InputEventQueue to record into (or null to stop recording)
+	 */
+	public void setEventQueue(InputEventQueue eventQueue) {
+		this.eventQueue = eventQueue;
+	}
+
+	/**
+	 * Sets the InputRecorder that key events are passed to. While a recorder is set, key
+	 * events are not applied right away; the recorder applies them at the start of each tick.
+	 * @param recorder the InputRecorder to pass key events to (or null to apply them right away)
+	 */
+	void setRecorder(InputRecorder recorder) {
+		this.recorder = recorder;
 	}
 	
 	/**
-	 * Custom event dispatcher that sets keys as pressed
+	 * Applies a recorded (or replayed) key event
+	 * @param type KEYBOARD_PRESS or KEYBOARD_RELEASE
+	 * @param keyCode the key that was pressed or released
+	 * @param nanoTime when the key was pressed or released
+	 */
+	void apply(EventType type, int keyCode, long nanoTime) {
+		if(type == EventType.KEYBOARD_PRESS) keyDown(keyCode, nanoTime);
+		else if(type == EventType.KEYBOARD_RELEASE) keyUp(keyCode, nanoTime);
+	}
+
+	/**
+	 * Passes a key event from the AWT thread to the recorder (if there is one), or applies it
+	 */
+	private void input(EventType type, int keyCode) {
+		long now = System.nanoTime();
+		InputRecorder r = recorder;
+		if(r != null) r.stage(type, keyCode, 0, 0, now);
+		else apply(type, keyCode, now);
+	}
+
+	/**
+	 * Records a key going down (ignoring key repeats while the key is held)
+	 * @param keyCode the key that was pressed
+	 * @param nanoTime when the key was pressed
+	 */
+	void keyDown(int keyCode, long nanoTime) {
+		if(keyCode < 0 || keyCode >= KEY_CODE_COUNT) return;
+		int word = keyCode >>> 6;
+		long bit = 1L << keyCode;
+		long old;
+		do {
+			old = down.get(word);
+			if((old & bit) != 0) return;
+		} while(!down.compareAndSet(word, old, old | bit));
+		setBits(pressedEdges, word, bit);
+		setBits(dirtyWords, word >>> 6, 1L << word);
+
+		InputEventQueue queue = eventQueue;
+		if(queue != null) queue.record(EventType.KEYBOARD_PRESS, keyCode, 0, 0, nanoTime);
+	}
+
+	/**
+	 * Records a key going up
+	 * @param keyCode the key that was released
+	 * @param nanoTime when the key was released
+	 */
+	void keyUp(int keyCode, long nanoTime) {
+		if(keyCode < 0 || keyCode >= KEY_CODE_COUNT) return;
+		int word = keyCode >>> 6;
+		long bit = 1L << keyCode;
+		long old;
+		do {
+			old = down.get(word);
+			if((old & bit) == 0) return;
+		} while(!down.compareAndSet(word, old, old & ~bit));
+		setBits(releasedEdges, word, bit);
+		setBits(dirtyWords, word >>> 6, 1L << word);
+
+		InputEventQueue queue = eventQueue;
+		if(queue != null) queue.record(EventType.KEYBOARD_RELEASE, keyCode, 0, 0, nanoTime);
+	}
+
+	private static void setBits(AtomicLongArray array, int index, long bits) {
+		long old;
+		do {
+			old = array.get(index);
+			if((old & bits) == bits) return;
+		} while(!array.compareAndSet(index, old, old | bits));
+	}
+
+	/**
+	 * Latches every key event recorded since the last call into the KeyboardState.
+	 *
+	 * Only words (groups of 64 keys) that had events, or that changed last tick,
+	 * are looked at, so this costs almost nothing when no keys are being pressed.
+	 *
+	 * This is called by the game loop at the start of every tick, and must only
+	 * be called from the game thread.
+	 */
+	public void latch() {
+		int stamp = ++latchCount;
+		int count = 0;
+
+		for(int i = 0; i < revisitCount; i++) {
+			int word = revisit[i];
+			candidateStamp[word] = stamp;
+			candidates[count++] = word;
+		}
+		for(int s = 0; s < SUMMARY_WORDS; s++) {
+			if(dirtyWords.get(s) == 0) continue;
+			long dirty = dirtyWords.getAndSet(s, 0);
+			while(dirty != 0) {
+				int word = (s << 6) | Long.numberOfTrailingZeros(dirty);
+				dirty &= dirty - 1;
+				if(candidateStamp[word] != stamp) {
+					candidateStamp[word] = stamp;
+					candidates[count++] = word;
+				}
+			}
+		}
+
+		long[] held = state.held;
+		long[] justPressed = state.justPressed;
+		long[] justReleased = state.justReleased;
+		revisitCount = 0;
+
+		for(int i = 0; i < count; i++) {
+			int word = candidates[i];
+			long pressed = pressedEdges.getAndSet(word, 0);
+			long released = releasedEdges.getAndSet(word, 0);
+			long current = down.get(word);
+			long previous = held[word];
+
+			held[word] = current | pressed;
+			justPressed[word] = pressed;
+			justReleased[word] = previous & (released | ~held[word]);
+
+			// Edges must be cleared next tick, and taps must be let go of next tick
+			if(justPressed[word] != 0 || justReleased[word] != 0 || held[word] != current) {
+				revisit[revisitCount++] = word;
+			}
+		}
+	}
+
+	/**
+	 * Returns whether or not a key event was sent to this Keyboard's window
+	 */
+	private boolean owns(KeyEvent ke) {
+		Window window = owner;
+		if(window == null) return true;
+		Component component = ke.getComponent();
+		if(component == null) return false;
+		return component == window || SwingUtilities.getWindowAncestor(component) == window;
+	}
+
+	/**
+	 * Releases every held key (from the AWT thread), since once the window loses focus
+	 * it will never see them being released
+	 */
+	private void releaseAll() {
+		for(int word = 0; word < WORDS; word++) {
+			long bits = down.get(word);
+			while(bits != 0) {
+				input(EventType.KEYBOARD_RELEASE, (word << 6) | Long.numberOfTrailingZeros(bits));
+				bits &= bits - 1;
+			}
+		}
+	}
+
+	/**
+	 * Makes this the active Keyboard when its window is focused, and lets go of its keys when it is not
+	 */
+	private final WindowFocusListener focusListener = new WindowFocusListener() {
+		@Override
+		public void windowGainedFocus(WindowEvent e) {
+			active = Keyboard.this;
+		}
+
+		@Override
+		public void windowLostFocus(WindowEvent e) {
+			releaseAll();
+		}
+	};
+
+	/**
+	 * Custom event dispatcher that sets keys as pressed (if the key event was sent to this Keyboard's window)
 	 */
 	private KeyEventDispatcher keyDispatcher = new KeyEventDispatcher() {
 		@Override
 		public boolean dispatchKeyEvent(KeyEvent ke) {
-			synchronized (Keyboard.class) {
-                switch (ke.getID()) {
-	                case KeyEvent.KEY_PRESSED:
-	                    pressedKeys.put(ke.getKeyCode(), true);
-	                    break;
-	                case KeyEvent.KEY_RELEASED:
-	                    pressedKeys.put(ke.getKeyCode(), false);
-	                    break;
-                }
-                return false;
+			if(!owns(ke)) return false;
+			switch (ke.getID()) {
+				case KeyEvent.KEY_PRESSED:
+					input(EventType.KEYBOARD_PRESS, ke.getKeyCode());
+					break;
+				case KeyEvent.KEY_RELEASED:
+					input(EventType.KEYBOARD_RELEASE, ke.getKeyCode());
+					break;
 			}
+			return false;
 		}
 	};
-	
+
 	/**
 	 * Returns the key dispatcher
 	 * @return the key event dispatcher
@@ -78,5 +405,5 @@ public class Keyboard {
 	public KeyEventDispatcher getDispatcher() {
 		return keyDispatcher;
 	}
-	
+
 }
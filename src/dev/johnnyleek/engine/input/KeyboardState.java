@@ -0,0 +1,116 @@
+package dev.johnnyleek.engine.input;
+
+/**
+ * Represents the state of the keyboard for the current tick.
+ *
+ * The state is latched once per tick by the game loop (see "Keyboard.latch"), and
+ * does not change while the tick is running, so every check within a tick sees
+ * the same keys. Each key is a single bit, so checks never allocate or lock.
+ *
+ * A key counts as pressed for a tick if it was held when the tick started, OR if it
+ * was pressed at any point since the last tick (so quick taps are never missed).
+ *
+ * The state must only be read from the game thread.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public final class KeyboardState {
+
+	final long[] held = new long[Keyboard.WORDS];
+	final long[] justPressed = new long[Keyboard.WORDS];
+	final long[] justReleased = new long[Keyboard.WORDS];
+
+	KeyboardState() {}
+
+	private static boolean inRange(int keyCode) {
+		return keyCode >= 0 && keyCode < Keyboard.KEY_CODE_COUNT;
+	}
+
+	/**
+	 * Returns whether or not a given key is pressed
+	 * @param keyCode a keycode for a given key
+	 * @return true/false depending on if the key is pressed this tick
+	 */
+	public boolean isPressed(int keyCode) {
+		return inRange(keyCode) && (held[keyCode >>> 6] & (1L << keyCode)) != 0;
+	}
+
+	/**
+	 * Returns whether or not a given key went down since the last tick
+	 * @param keyCode a keycode for a given key
+	 * @return true/false depending on if the key was just pressed
+	 */
+	public boolean justPressed(int keyCode) {
+		return inRange(keyCode) && (justPressed[keyCode >>> 6] & (1L << keyCode)) != 0;
+	}
+
+	/**
+	 * Returns whether or not a given key was let go since the last tick
+	 * @param keyCode a keycode for a given key
+	 * @return true/false depending on if the key was just released
+	 */
+	public boolean justReleased(int keyCode) {
+		return inRange(keyCode) && (justReleased[keyCode >>> 6] & (1L << keyCode)) != 0;
+	}
+
+	/**
+	 * Returns whether or not any of the binding's keys (or chords) are pressed
+	 * @param binding the KeyBinding to check
+	 * @return true/false depending on if the binding is pressed this tick
+	 */
+	public boolean isPressed(KeyBinding binding) {
+		for(KeyBinding.Chord chord : binding.getChords()) {
+			if(chordHeld(chord, false)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns whether or not one of the binding's keys (or chords) was completed since the last tick
+	 * @param binding the KeyBinding to check
+	 * @return true/false depending on if the binding was just pressed
+	 */
+	public boolean justPressed(KeyBinding binding) {
+		for(KeyBinding.Chord chord : binding.getChords()) {
+			if(chordHeld(chord, false) && chordTouches(chord, justPressed)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns whether or not one of the binding's keys (or chords) was broken since the last tick
+	 * @param binding the KeyBinding to check
+	 * @return true/false depending on if the binding was just released
+	 */
+	public boolean justReleased(KeyBinding binding) {
+		for(KeyBinding.Chord chord : binding.getChords()) {
+			if(chordHeld(chord, true) && chordTouches(chord, justReleased)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks that every key of a chord is held (either this tick, or last tick)
+	 */
+	private boolean chordHeld(KeyBinding.Chord chord, boolean previousTick) {
+		for(int i = 0; i < chord.words.length; i++) {
+			int word = chord.words[i];
+			long bits = previousTick ? (held[word] & ~justPressed[word]) | justReleased[word] : held[word];
+			if((bits & chord.masks[i]) != chord.masks[i]) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Checks that at least one key of a chord is set in the provided bits
+	 */
+	private static boolean chordTouches(KeyBinding.Chord chord, long[] bits) {
+		for(int i = 0; i < chord.words.length; i++) {
+			if((bits[chord.words[i]] & chord.masks[i]) != 0) return true;
+		}
+		return false;
+	}
+
+}
@@ -1,85 +1,359 @@
 package dev.johnnyleek.engine.input;
 
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import dev.johnnyleek.engine.util.Logger;
-import dev.johnnyleek.engine.window.Window;
 
 /**
  * Provides a custom listener to keep track of the mouse position, as well as
- * whether or not the mouse is pressed.
- * 
+ * which mouse buttons are pressed.
+ *
+ * Each Window has its own Mouse. The AWT thread packs the position of the mouse,
+ * the held buttons, and whether or not the mouse is being dragged into a single
+ * 64-bit value, so the X and Y position can never be read out of sync.
+ *
+ * Mouse movement is coalesced: however many move events arrive between two ticks,
+ * they are summed into a single change in position. Once per tick, the game loop
+ * latches everything into a MouseState (see "latch"), which is what every check reads.
+ *
+ * Every mouse event can also be recorded into an InputEventQueue
+ * (see "setEventQueue"), for games that need the exact order and timing of
+ * mouse events within a tick. Every MOUSE_MOVE/MOUSE_DRAG event is recorded, so the
+ * last one of each tick carries the position the MouseState latches; the total
+ * movement is available from the MouseState.
+ *
+ * The static methods check the Mouse of the Game running on the calling thread (see
+ * "setCurrent"), or of the window the mouse most recently entered on any other thread
+ * (as with "Keyboard").
+ *
  * @author Johnny Leek
  * @version 1.0
  *
  */
-public class Mouse implements MouseMotionListener, java.awt.event.MouseListener {
-	
-	private static boolean isPressed = false;
-	private static int mouseX = 0;
-	private static int mouseY = 0;
-	
-	/**
-	 * Returns whether or not the mouse is currently pressed.
+public class Mouse implements MouseMotionListener, MouseListener, MouseWheelListener {
+
+	/**
+	 * The number of mouse buttons that can be tracked
+	 */
+	public static final int MAX_BUTTONS = 15;
+
+	private static final long DRAGGING = 1L << 63;
+	// Button 0 does not exist, so its bit marks that the position is known
+	private static final long POSITIONED = 1L << 48;
+
+	private static volatile Mouse active;
+	private static final InheritableThreadLocal<Mouse> current = new InheritableThreadLocal<Mouse>();
+
+	// Written by the AWT thread
+	private final AtomicLong packed = new AtomicLong();
+	private final AtomicLong motion = new AtomicLong();
+	private final AtomicInteger wheel = new AtomicInteger();
+	private final AtomicInteger pressedEdges = new AtomicInteger();
+	private final AtomicInteger releasedEdges = new AtomicInteger();
+
+	// Only touched by the game thread (in latch)
+	private final MouseState state = new MouseState();
+
+	private volatile InputEventQueue eventQueue;
+	private volatile InputRecorder recorder;
+
+	/**
+	 * Returns whether or not any mouse button is currently pressed.
 	 * @return true/false depending on if the mouse is pressed
 	 */
 	public static boolean isPressed() {
-		synchronized(Mouse.class) {
-			return isPressed;
-		}
+		Mouse mouse = current();
+		return mouse != null && mouse.state.isPressed();
 	}
-	
+
+	/**
+	 * Returns whether or not a mouse button is currently pressed.
+	 * @param button the button to check (1 = left, 2 = middle, 3 = right)
+	 * @return true/false depending on if the button is pressed
+	 */
+	public static boolean isPressed(int button) {
+		Mouse mouse = current();
+		return mouse != null && mouse.state.isPressed(button);
+	}
+
 	/**
 	 * Returns the current X coordinate of the mouse (relative to the game window).
 	 * The LEFT of the window is 0
 	 * @return the X coordinate of the mouse
 	 */
 	public static int getMouseX() {
-		synchronized(Mouse.class) {
-			return mouseX;
-		}
+		Mouse mouse = current();
+		return mouse != null ? mouse.state.getX() : 0;
 	}
-	
+
 	/**
 	 * Returns the current Y coordinate of the mouse (relative to the game window).
 	 * The TOP of the window is 0
 	 * @return the Y coordinate of the mouse
 	 */
 	public static int getMouseY() {
-		synchronized(Mouse.class) {
-			return mouseY;
-		}
+		Mouse mouse = current();
+		return mouse != null ? mouse.state.getY() : 0;
+	}
+
+	/**
+	 * Gets the Mouse of the window the mouse most recently entered
+	 * @return the active Mouse (or null if no Mouse has been created)
+	 */
+	public static Mouse getActiveMouse() {
+		return active;
 	}
-	
+
+	/**
+	 * Sets the Mouse the static methods check on the calling thread (and on threads it starts,
+	 * such as Scripts). This is called by the game loop around every frame.
+	 * @param mouse the Mouse to check (or null to check the active Mouse)
+	 * @return the Mouse that was set before (or null if there was none)
+	 */
+	public static Mouse setCurrent(Mouse mouse) {
+		Mouse previous = current.get();
+		current.set(mouse);
+		return previous;
+	}
+
+	/**
+	 * Gets the Mouse the static methods check on the calling thread
+	 */
+	private static Mouse current() {
+		Mouse mouse = current.get();
+		return mouse != null ? mouse : active;
+	}
+
 	public Mouse() {
-		Logger.info("New Mouse created!");
+		Logger.debug("New Mouse created!");
+		active = this;
+	}
+
+	/**
+	 * Gets the state of this mouse for the current tick
+	 * @return the latched MouseState
+	 */
+	public MouseState getState() {
+		return state;
+	}
+
+	/**
+	 * Sets the queue that mouse events are recorded into
+	 * @param eventQueue the InputEventQueue to record into (or null to stop recording)
+	 */
+	public void setEventQueue(InputEventQueue eventQueue) {
+		this.eventQueue = eventQueue;
+	}
+
+	/**
+	 * Sets the InputRecorder that mouse events are passed to. While a recorder is set, mouse
+	 * events are not applied right away; the recorder applies them at the start of each tick.
+	 * @param recorder the InputRecorder to pass mouse events to (or null to apply them right away)
+	 */
+	void setRecorder(InputRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	/**
+	 * Applies a recorded (or replayed) mouse event
+	 * @param type the type of the event
+	 * @param code the mouse button (or wheel rotation for MOUSE_WHEEL events)
+	 * @param x the X position of the mouse
+	 * @param y the Y position of the mouse
+	 * @param nanoTime when the event happened
+	 */
+	void apply(EventType type, int code, int x, int y, long nanoTime) {
+		switch(type) {
+			case MOUSE_CLICK:
+				record(EventType.MOUSE_CLICK, code, x, y, nanoTime);
+				break;
+			case MOUSE_PRESS:
+				button(code, true, x, y, nanoTime);
+				break;
+			case MOUSE_RELEASE:
+				button(code, false, x, y, nanoTime);
+				break;
+			case MOUSE_MOVE:
+				moveTo(x, y, false, nanoTime);
+				break;
+			case MOUSE_DRAG:
+				moveTo(x, y, true, nanoTime);
+				break;
+			case MOUSE_WHEEL:
+				scroll(code, x, y, nanoTime);
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Passes a mouse event from the AWT thread to the recorder (if there is one), or applies it
+	 */
+	private void input(EventType type, int code, int x, int y) {
+		long now = System.nanoTime();
+		InputRecorder r = recorder;
+		if(r != null) r.stage(type, code, x, y, now);
+		else apply(type, code, x, y, now);
+	}
+
+	private static long pack(int x, int y, int buttons, boolean dragging) {
+		return (x & 0xFFFFFFL) | ((y & 0xFFFFFFL) << 24) | ((long) (buttons & 0x7FFE) << 48) | POSITIONED | (dragging ? DRAGGING : 0);
+	}
+
+	private static int unpackX(long packed) {
+		return (int) (packed << 40 >> 40);
+	}
+
+	private static int unpackY(long packed) {
+		return (int) (packed << 16 >> 40);
+	}
+
+	private static int unpackButtons(long packed) {
+		return (int) (packed >>> 48) & 0x7FFE;
+	}
+
+	private static int buttonBit(int button) {
+		return button > 0 && button < MAX_BUTTONS ? 1 << button : 0;
+	}
+
+	private static void setBits(AtomicInteger value, int bits) {
+		int old;
+		do {
+			old = value.get();
+		} while(!value.compareAndSet(old, old | bits));
+	}
+
+	/**
+	 * Records the mouse moving to a new position (adding to this tick's movement)
+	 * @param x the new X position
+	 * @param y the new Y position
+	 * @param dragged whether or not the mouse was moved with a button held
+	 * @param nanoTime when the mouse moved
+	 */
+	void moveTo(int x, int y, boolean dragged, long nanoTime) {
+		long old, updated;
+		do {
+			old = packed.get();
+			updated = pack(x, y, unpackButtons(old), dragged || (old & DRAGGING) != 0);
+		} while(!packed.compareAndSet(old, updated));
+
+		// The first position seen is where the mouse starts, not a move from (0, 0)
+		if((old & POSITIONED) != 0) {
+			int dx = x - unpackX(old), dy = y - unpackY(old);
+			long oldMotion, newMotion;
+			do {
+				oldMotion = motion.get();
+				int sumX = (int) (oldMotion >> 32) + dx;
+				int sumY = (int) oldMotion + dy;
+				newMotion = ((long) sumX << 32) | (sumY & 0xFFFFFFFFL);
+			} while(!motion.compareAndSet(oldMotion, newMotion));
+		}
+
+		record(dragged ? EventType.MOUSE_DRAG : EventType.MOUSE_MOVE, 0, x, y, nanoTime);
 	}
-	
+
+	/**
+	 * Records a button going down or up
+	 * @param button the button (1 = left, 2 = middle, 3 = right)
+	 * @param down true if the button was pressed, false if it was released
+	 * @param x the X position of the mouse
+	 * @param y the Y position of the mouse
+	 * @param nanoTime when the button was pressed or released
+	 */
+	void button(int button, boolean down, int x, int y, long nanoTime) {
+		int bit = buttonBit(button);
+		long old, updated;
+		do {
+			old = packed.get();
+			int buttons = down ? unpackButtons(old) | bit : unpackButtons(old) & ~bit;
+			updated = pack(x, y, buttons, buttons != 0 && (old & DRAGGING) != 0);
+		} while(!packed.compareAndSet(old, updated));
+
+		setBits(down ? pressedEdges : releasedEdges, bit);
+		record(down ? EventType.MOUSE_PRESS : EventType.MOUSE_RELEASE, button, x, y, nanoTime);
+	}
+
+	/**
+	 * Records the wheel being scrolled
+	 * @param rotation the number of notches scrolled
+	 * @param x the X position of the mouse
+	 * @param y the Y position of the mouse
+	 * @param nanoTime when the wheel was scrolled
+	 */
+	void scroll(int rotation, int x, int y, long nanoTime) {
+		wheel.addAndGet(rotation);
+		record(EventType.MOUSE_WHEEL, rotation, x, y, nanoTime);
+	}
+
+	/**
+	 * Records a mouse event into the event queue (if there is one)
+	 */
+	private void record(EventType type, int code, int x, int y, long nanoTime) {
+		InputEventQueue queue = eventQueue;
+		if(queue != null) queue.record(type, code, x, y, nanoTime);
+	}
+
+	/**
+	 * Latches every mouse event recorded since the last call into the MouseState.
+	 *
+	 * This is called by the game loop at the start of every tick, and must only
+	 * be called from the game thread.
+	 */
+	public void latch() {
+		long current = packed.get();
+		long moved = motion.getAndSet(0);
+		int pressed = pressedEdges.getAndSet(0);
+		int released = releasedEdges.getAndSet(0);
+
+		int previous = state.held;
+		state.x = unpackX(current);
+		state.y = unpackY(current);
+		state.deltaX = (int) (moved >> 32);
+		state.deltaY = (int) moved;
+		state.wheel = wheel.getAndSet(0);
+		state.held = unpackButtons(current) | pressed;
+		state.justPressed = pressed;
+		state.justReleased = previous & (released | ~state.held);
+		state.dragging = (current & DRAGGING) != 0;
+	}
+
+	/**
+	 * Fires whenever the mouse is clicked (pressed and released without moving)
+	 */
 	@Override
 	public void mouseClicked(MouseEvent e) {
-		// N/A
+		input(EventType.MOUSE_CLICK, e.getButton(), e.getX(), e.getY());
 	}
-	
+
 	/**
-	 * Fires whenever the mouse is pressed, and sets "isPressed" to true
+	 * Fires whenever a mouse button is pressed
 	 */
 	@Override
 	public void mousePressed(MouseEvent e) {
-		isPressed = true;		
+		input(EventType.MOUSE_PRESS, e.getButton(), e.getX(), e.getY());
 	}
 
 	/**
-	 * Fires whenever the mouse is released, and sets "isPressed" to false 
+	 * Fires whenever a mouse button is released
 	 */
 	@Override
 	public void mouseReleased(MouseEvent e) {
-		isPressed = false;		
+		input(EventType.MOUSE_RELEASE, e.getButton(), e.getX(), e.getY());
 	}
 
+	/**
+	 * Fires whenever the mouse enters the window, making this the active Mouse
+	 */
 	@Override
 	public void mouseEntered(MouseEvent e) {
-		// N/A		
+		active = this;
 	}
 
 	@Override
@@ -87,9 +361,12 @@ public class Mouse implements MouseMotionListener, java.awt.event.MouseListener
 		// N/A
 	}
 
+	/**
+	 * Fires whenever the mouse is moved while pressed, and updates the X and Y position
+	 */
 	@Override
 	public void mouseDragged(MouseEvent e) {
-		// TODO Auto-generated method stub
+		input(EventType.MOUSE_DRAG, 0, e.getX(), e.getY());
 	}
 
 	/**
@@ -97,8 +374,15 @@ public class Mouse implements MouseMotionListener, java.awt.event.MouseListener
 	 */
 	@Override
 	public void mouseMoved(MouseEvent e) {
-		mouseX = e.getX();
-		mouseY = e.getY();
+		input(EventType.MOUSE_MOVE, 0, e.getX(), e.getY());
 	}
-	
+
+	/**
+	 * Fires whenever the mouse wheel is scrolled
+	 */
+	@Override
+	public void mouseWheelMoved(MouseWheelEvent e) {
+		input(EventType.MOUSE_WHEEL, e.getWheelRotation(), e.getX(), e.getY());
+	}
+
 }
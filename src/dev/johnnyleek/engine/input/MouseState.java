@@ -0,0 +1,118 @@
+package dev.johnnyleek.engine.input;
+
+/**
+ * Represents the state of the mouse for the current tick.
+ *
+ * The state is latched once per tick by the game loop (see "Mouse.latch"), and
+ * does not change while the tick is running. It holds the latest position of the
+ * mouse, how far it moved since the last tick, how far the wheel was scrolled,
+ * and which buttons are held (or were just pressed/released).
+ *
+ * Buttons are numbered the same way as MouseEvent buttons (1 is the left button,
+ * 2 is the middle button, 3 is the right button, and so on).
+ *
+ * The state must only be read from the game thread.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public final class MouseState {
+
+	int x, y;
+	int deltaX, deltaY;
+	int wheel;
+	int held, justPressed, justReleased;
+	boolean dragging;
+
+	MouseState() {}
+
+	private static int bit(int button) {
+		return button > 0 && button < Mouse.MAX_BUTTONS ? 1 << button : 0;
+	}
+
+	/**
+	 * Gets the X position of the mouse (relative to the game window)
+	 * @return the X coordinate of the mouse
+	 */
+	public int getX() {
+		return x;
+	}
+
+	/**
+	 * Gets the Y position of the mouse (relative to the game window)
+	 * @return the Y coordinate of the mouse
+	 */
+	public int getY() {
+		return y;
+	}
+
+	/**
+	 * Gets how far the mouse moved horizontally since the last tick
+	 * @return the change in X position
+	 */
+	public int getDeltaX() {
+		return deltaX;
+	}
+
+	/**
+	 * Gets how far the mouse moved vertically since the last tick
+	 * @return the change in Y position
+	 */
+	public int getDeltaY() {
+		return deltaY;
+	}
+
+	/**
+	 * Gets how many notches the wheel was scrolled since the last tick.
+	 * Negative values are scrolls up (away from the user), positive values are scrolls down.
+	 * @return the number of wheel notches scrolled
+	 */
+	public int getWheelRotation() {
+		return wheel;
+	}
+
+	/**
+	 * Returns whether or not any button is pressed
+	 * @return true/false depending on if any button is pressed this tick
+	 */
+	public boolean isPressed() {
+		return held != 0;
+	}
+
+	/**
+	 * Returns whether or not a button is pressed
+	 * @param button the button to check (1 = left, 2 = middle, 3 = right)
+	 * @return true/false depending on if the button is pressed this tick
+	 */
+	public boolean isPressed(int button) {
+		return (held & bit(button)) != 0;
+	}
+
+	/**
+	 * Returns whether or not a button went down since the last tick
+	 * @param button the button to check (1 = left, 2 = middle, 3 = right)
+	 * @return true/false depending on if the button was just pressed
+	 */
+	public boolean justPressed(int button) {
+		return (justPressed & bit(button)) != 0;
+	}
+
+	/**
+	 * Returns whether or not a button was let go since the last tick
+	 * @param button the button to check (1 = left, 2 = middle, 3 = right)
+	 * @return true/false depending on if the button was just released
+	 */
+	public boolean justReleased(int button) {
+		return (justReleased & bit(button)) != 0;
+	}
+
+	/**
+	 * Returns whether or not the mouse is being dragged (moved while a button is held)
+	 * @return true/false depending on if the mouse is being dragged
+	 */
+	public boolean isDragging() {
+		return dragging;
+	}
+
+}
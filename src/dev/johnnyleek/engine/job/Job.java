@@ -0,0 +1,123 @@
+package dev.johnnyleek.engine.job;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents a piece of work that runs once every time a JobGraph runs.
+ *
+ * A Job declares the resources (any names, such as "scene" or "physics") that it reads
+ * and writes. The JobGraph uses these to decide which Jobs can run at the same time:
+ * 	- A Job that reads a resource runs after the last Job (added before it) that writes it
+ * 	- A Job that writes a resource also runs after every Job (added before it) that reads it
+ * Jobs that share no written resources run in parallel.
+ *
+ * A Job that must run on the thread that runs the graph (such as a Job that touches
+ * state owned by the game thread) can be marked with "onCallingThread".
+ *
+ * Example:
+ * 	graph.add(new Job("physics", world::step).reads("scene").writes("bodies"));
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class Job {
+
+	private final String name;
+	private final Runnable work;
+	private final ArrayList<String> reads = new ArrayList<String>();
+	private final ArrayList<String> writes = new ArrayList<String>();
+	private boolean callingThread;
+
+	private volatile long lastDuration;
+
+	/**
+	 * Creates a Job
+	 * @param name the name of the Job (shown in timing output)
+	 * @param work the work to do each time the Job runs
+	 */
+	public Job(String name, Runnable work) {
+		this.name = name;
+		this.work = work;
+	}
+
+	/**
+	 * Declares resources this Job reads
+	 * @param resources the names of the resources
+	 * @return the modified Job
+	 */
+	public Job reads(String ...resources) {
+		Collections.addAll(reads, resources);
+		return this;
+	}
+
+	/**
+	 * Declares resources this Job writes
+	 * @param resources the names of the resources
+	 * @return the modified Job
+	 */
+	public Job writes(String ...resources) {
+		Collections.addAll(writes, resources);
+		return this;
+	}
+
+	/**
+	 * Makes this Job always run on the thread that calls "JobGraph.run", rather than on the pool
+	 * @return the modified Job
+	 */
+	public Job onCallingThread() {
+		this.callingThread = true;
+		return this;
+	}
+
+	/**
+	 * Gets the name of the Job
+	 * @return the Job's name
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Gets the resources this Job reads
+	 * @return the names of the resources
+	 */
+	public List<String> getReads() {
+		return Collections.unmodifiableList(reads);
+	}
+
+	/**
+	 * Gets the resources this Job writes
+	 * @return the names of the resources
+	 */
+	public List<String> getWrites() {
+		return Collections.unmodifiableList(writes);
+	}
+
+	/**
+	 * Returns whether or not this Job always runs on the thread that calls "JobGraph.run"
+	 * @return true/false depending on if the Job runs on the calling thread
+	 */
+	public boolean isOnCallingThread() {
+		return this.callingThread;
+	}
+
+	/**
+	 * Gets how long the Job took the last time it ran
+	 * @return the duration (in nanoseconds)
+	 */
+	public long getLastDuration() {
+		return this.lastDuration;
+	}
+
+	Runnable getWork() {
+		return this.work;
+	}
+
+	void setLastDuration(long lastDuration) {
+		this.lastDuration = lastDuration;
+	}
+
+}
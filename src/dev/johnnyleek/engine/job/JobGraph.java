@@ -0,0 +1,363 @@
+package dev.johnnyleek.engine.job;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a set of Jobs, in parallel wherever their resources allow (see "Job").
+ *
+ * The Jobs are turned into a graph of dependencies the first time the graph runs
+ * (or after a Job is added). Each run then starts every Job with no dependencies, and
+ * as each Job finishes, every Job that was only waiting on it is started. The thread
+ * that finishes a Job carries straight on with the first Job it made ready, and hands
+ * the others to a work-stealing ForkJoinPool, so a chain of Jobs runs on a single thread,
+ * and a run takes as long as its slowest chain of dependencies (its critical path),
+ * rather than as long as all of its Jobs put together.
+ *
+ * The thread calling "run" runs Jobs too, and returns once every Job has finished.
+ * Jobs marked with "onCallingThread" are only ever run by that thread: when one becomes
+ * ready on another thread, it is handed back to the calling thread.
+ *
+ * Large Jobs can split their own work over the pool with "parallelFor".
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class JobGraph {
+
+	private final ForkJoinPool pool;
+	private final ArrayList<Job> jobs = new ArrayList<Job>();
+
+	// Built from the Jobs' resources
+	private Job[] compiled;
+	private int[][] successors;
+	private int[][] predecessors;
+	private int[] dependencyCounts;
+	private int[] roots;
+	private Runnable[] forks;
+	private AtomicIntegerArray remaining;
+	private AtomicIntegerArray callerJobs; // Jobs handed to the calling thread (plus 1, 0 while being handed over)
+
+	private final AtomicInteger callerTail = new AtomicInteger();
+	private int callerHead;
+
+	private final AtomicInteger pending = new AtomicInteger();
+	private volatile Thread caller;
+	private volatile Throwable failure;
+	private volatile JobTrace trace;
+	private long frame;
+	private long lastRunTime;
+
+	/**
+	 * Creates a JobGraph that runs on the common ForkJoinPool
+	 */
+	public JobGraph() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a JobGraph that runs on a custom ForkJoinPool
+	 * @param pool the pool to run Jobs on
+	 */
+	public JobGraph(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Adds a Job to the graph. The order Jobs are added in decides the order of Jobs that use
+	 * the same resources. Must not be called while the graph is running.
+	 * @param job the Job to add
+	 * @return the added Job
+	 */
+	public Job add(Job job) {
+		jobs.add(job);
+		compiled = null;
+		return job;
+	}
+
+	/**
+	 * Builds the dependencies between the Jobs from their resources
+	 */
+	private void compile() {
+		int count = jobs.size();
+		compiled = jobs.toArray(new Job[0]);
+		HashMap<String, Integer> lastWriter = new HashMap<String, Integer>();
+		HashMap<String, ArrayList<Integer>> readers = new HashMap<String, ArrayList<Integer>>();
+		ArrayList<ArrayList<Integer>> after = new ArrayList<ArrayList<Integer>>();
+		ArrayList<ArrayList<Integer>> before = new ArrayList<ArrayList<Integer>>();
+
+		for(int i = 0; i < count; i++) {
+			after.add(new ArrayList<Integer>());
+			before.add(new ArrayList<Integer>());
+			Job job = compiled[i];
+
+			for(String resource : job.getReads()) {
+				Integer writer = lastWriter.get(resource);
+				if(writer != null) link(before, after, writer, i);
+			}
+			for(String resource : job.getWrites()) {
+				Integer writer = lastWriter.get(resource);
+				if(writer != null) link(before, after, writer, i);
+				ArrayList<Integer> current = readers.get(resource);
+				if(current != null) {
+					for(int reader : current) {
+						if(reader != i) link(before, after, reader, i);
+					}
+					current.clear();
+				}
+			}
+			for(String resource : job.getReads()) {
+				readers.computeIfAbsent(resource, r -> new ArrayList<Integer>()).add(i);
+			}
+			for(String resource : job.getWrites()) {
+				lastWriter.put(resource, i);
+			}
+		}
+
+		successors = new int[count][];
+		predecessors = new int[count][];
+		dependencyCounts = new int[count];
+		forks = new Runnable[count];
+		int rootCount = 0;
+		for(int i = 0; i < count; i++) {
+			successors[i] = toArray(after.get(i));
+			predecessors[i] = toArray(before.get(i));
+			dependencyCounts[i] = predecessors[i].length;
+			if(dependencyCounts[i] == 0) rootCount++;
+			final int job = i;
+			forks[i] = () -> execute(job);
+		}
+		roots = new int[rootCount];
+		for(int i = 0, r = 0; i < count; i++) {
+			if(dependencyCounts[i] == 0) roots[r++] = i;
+		}
+		remaining = new AtomicIntegerArray(count);
+		callerJobs = new AtomicIntegerArray(count);
+	}
+
+	private static void link(ArrayList<ArrayList<Integer>> before, ArrayList<ArrayList<Integer>> after, int from, int to) {
+		if(from == to || after.get(from).contains(to)) return;
+		after.get(from).add(to);
+		before.get(to).add(from);
+	}
+
+	private static int[] toArray(ArrayList<Integer> list) {
+		int[] array = new int[list.size()];
+		for(int i = 0; i < array.length; i++) array[i] = list.get(i);
+		return array;
+	}
+
+	/**
+	 * Runs every Job once, returning once they have all finished.
+	 * If any Job throws, the rest of the Jobs still run, and the first exception is thrown once they are done.
+	 * Must not be called again until it returns.
+	 */
+	public void run() {
+		if(compiled == null) compile();
+		int count = compiled.length;
+		if(count == 0) return;
+
+		long start = System.nanoTime();
+		for(int i = 0; i < count; i++) {
+			remaining.set(i, dependencyCounts[i]);
+		}
+		failure = null;
+		caller = Thread.currentThread();
+		callerTail.set(0);
+		callerHead = 0;
+		pending.set(count);
+
+		for(int i = 1; i < roots.length; i++) {
+			if(compiled[roots[i]].isOnCallingThread()) handToCaller(roots[i]);
+			else pool.execute(forks[roots[i]]);
+		}
+		execute(roots[0]);
+		while(pending.get() > 0) {
+			int job = takeCallerJob();
+			if(job >= 0) execute(job);
+			else LockSupport.park(this);
+		}
+
+		long end = System.nanoTime();
+		lastRunTime = end - start;
+		JobTrace t = trace;
+		if(t != null) t.record("frame", frame, start, end);
+		frame++;
+
+		Throwable thrown = failure;
+		if(thrown instanceof RuntimeException) throw (RuntimeException) thrown;
+		if(thrown instanceof Error) throw (Error) thrown;
+	}
+
+	/**
+	 * Runs a Job, then carries on with the first Job it made ready (handing the rest to the pool)
+	 */
+	private void execute(int job) {
+		while(job >= 0) {
+			Job current = compiled[job];
+			JobTrace t = trace;
+			long start = System.nanoTime();
+			try {
+				current.getWork().run();
+			} catch(Throwable e) {
+				if(failure == null) failure = e;
+			}
+			long end = System.nanoTime();
+			current.setLastDuration(end - start);
+			if(t != null) t.record(current.getName(), frame, start, end);
+
+			int next = -1;
+			boolean onCaller = Thread.currentThread() == caller;
+			for(int successor : successors[job]) {
+				if(remaining.decrementAndGet(successor) == 0) {
+					if(compiled[successor].isOnCallingThread() && !onCaller) handToCaller(successor);
+					else if(next < 0) next = successor;
+					else if(compiled[successor].isOnCallingThread()) handToCaller(successor);
+					else pool.execute(forks[successor]);
+				}
+			}
+			if(pending.decrementAndGet() == 0) LockSupport.unpark(caller);
+			job = next;
+		}
+	}
+
+	/**
+	 * Queues a ready Job to be run by the thread that called "run"
+	 */
+	private void handToCaller(int job) {
+		callerJobs.set(callerTail.getAndIncrement(), job + 1);
+		LockSupport.unpark(caller);
+	}
+
+	/**
+	 * Takes the next Job handed to the calling thread
+	 * @return the Job (or -1 if there is none yet)
+	 */
+	private int takeCallerJob() {
+		if(callerHead == callerTail.get()) return -1;
+		int job = callerJobs.get(callerHead) - 1;
+		if(job < 0) return -1; // Still being handed over (the caller is unparked once it is)
+		callerJobs.set(callerHead++, 0);
+		return job;
+	}
+
+	/**
+	 * Splits work over a range of indexes, running the parts on the pool (and the calling thread),
+	 * and returns once every part has run.
+	 * @param start the first index
+	 * @param end the index after the last index
+	 * @param grain the most indexes to give a single part (at least 1)
+	 * @param body the work to run on each part
+	 */
+	public void parallelFor(int start, int end, int grain, RangeJob body) {
+		if(end - start <= grain) {
+			if(end > start) body.run(start, end);
+			return;
+		}
+		RangeAction action = new RangeAction(start, end, Math.max(1, grain), body);
+		if(ForkJoinTask.inForkJoinPool()) action.invoke();
+		else pool.invoke(action);
+	}
+
+	private static final class RangeAction extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int start, end, grain;
+		private final RangeJob body;
+
+		RangeAction(int start, int end, int grain, RangeJob body) {
+			this.start = start;
+			this.end = end;
+			this.grain = grain;
+			this.body = body;
+		}
+
+		@Override
+		protected void compute() {
+			if(end - start <= grain) {
+				body.run(start, end);
+				return;
+			}
+			int middle = (start + end) >>> 1;
+			invokeAll(new RangeAction(start, middle, grain, body), new RangeAction(middle, end, grain, body));
+		}
+
+	}
+
+	/**
+	 * Gets how long the longest chain of dependent Jobs took in the last run.
+	 * This is how long the run would take with enough threads.
+	 * @return the critical path time (in nanoseconds)
+	 */
+	public long getCriticalPathTime() {
+		if(compiled == null) return 0;
+		long[] finish = new long[compiled.length];
+		long longest = 0;
+		for(int i = 0; i < compiled.length; i++) { // Jobs only ever depend on Jobs added before them
+			long ready = 0;
+			for(int predecessor : predecessors[i]) {
+				ready = Math.max(ready, finish[predecessor]);
+			}
+			finish[i] = ready + compiled[i].getLastDuration();
+			longest = Math.max(longest, finish[i]);
+		}
+		return longest;
+	}
+
+	/**
+	 * Gets how long the last run took
+	 * @return the run time (in nanoseconds)
+	 */
+	public long getLastRunTime() {
+		return this.lastRunTime;
+	}
+
+	/**
+	 * Gets the number of times the graph has run
+	 * @return the number of runs
+	 */
+	public long getRunCount() {
+		return this.frame;
+	}
+
+	/**
+	 * Gets the Jobs in the graph (in the order they were added)
+	 * @return the Jobs
+	 */
+	public Job[] getJobs() {
+		return jobs.toArray(new Job[0]);
+	}
+
+	/**
+	 * Gets the pool the graph runs on
+	 * @return the graph's ForkJoinPool
+	 */
+	public ForkJoinPool getPool() {
+		return this.pool;
+	}
+
+	/**
+	 * Sets the JobTrace that every run is recorded into
+	 * @param trace the JobTrace to record into (or null to stop recording)
+	 */
+	public void setTrace(JobTrace trace) {
+		this.trace = trace;
+	}
+
+	/**
+	 * Gets the JobTrace that every run is recorded into
+	 * @return the graph's JobTrace (or null if runs are not being recorded)
+	 */
+	public JobTrace getTrace() {
+		return this.trace;
+	}
+
+}
@@ -0,0 +1,156 @@
+package dev.johnnyleek.engine.job;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records when every Job of a JobGraph ran, and on which thread, so the runs can be
+ * viewed as a timeline.
+ *
+ * The trace is written in the Chrome trace format (see "write"), which can be opened
+ * in chrome://tracing or https://ui.perfetto.dev. Each run of the graph is shown as a
+ * "frame" span on the thread that ran it, with a span for each Job below it.
+ *
+ * Events are recorded into preallocated arrays from any thread without locking.
+ * Once the trace is full, new events are dropped (and counted).
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class JobTrace {
+
+	private final String[] names;
+	private final String[] threads;
+	private final long[] threadIds;
+	private final long[] starts;
+	private final long[] ends;
+	private final long[] frames;
+	private final AtomicInteger count = new AtomicInteger();
+	private final AtomicInteger dropped = new AtomicInteger();
+	private final long origin = System.nanoTime();
+
+	/**
+	 * Creates a trace that can hold 65536 events
+	 */
+	public JobTrace() {
+		this(65536);
+	}
+
+	/**
+	 * Creates a trace with a custom capacity
+	 * @param capacity how many events the trace can hold
+	 */
+	public JobTrace(int capacity) {
+		this.names = new String[capacity];
+		this.threads = new String[capacity];
+		this.threadIds = new long[capacity];
+		this.starts = new long[capacity];
+		this.ends = new long[capacity];
+		this.frames = new long[capacity];
+	}
+
+	/**
+	 * Records an event that ran on the current thread
+	 * @param name the name of the event (the Job's name)
+	 * @param frame which run of the graph the event was part of
+	 * @param start when the event started (from System.nanoTime())
+	 * @param end when the event ended (from System.nanoTime())
+	 */
+	public void record(String name, long frame, long start, long end) {
+		int index = count.getAndIncrement();
+		if(index >= names.length) {
+			count.decrementAndGet();
+			dropped.incrementAndGet();
+			return;
+		}
+		Thread thread = Thread.currentThread();
+		names[index] = name;
+		threads[index] = thread.getName();
+		threadIds[index] = thread.getId();
+		starts[index] = start;
+		ends[index] = end;
+		frames[index] = frame;
+	}
+
+	/**
+	 * Writes the trace to a file in the Chrome trace format.
+	 * Should only be called while nothing is being recorded (such as after the game has stopped).
+	 * @param path the path of the file to write
+	 * @throws IOException if the file could not be written
+	 */
+	public void write(String path) throws IOException {
+		int total = Math.min(count.get(), names.length);
+		HashMap<Long, String> threadNames = new HashMap<Long, String>();
+
+		try(BufferedWriter writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8)) {
+			writer.write("{\"traceEvents\":[\n");
+			for(int i = 0; i < total; i++) {
+				if(names[i] == null) continue; // Still being recorded
+				threadNames.putIfAbsent(threadIds[i], threads[i]);
+				writer.write("{\"name\":");
+				writeString(writer, names[i]);
+				writer.write(",\"ph\":\"X\",\"pid\":1,\"tid\":" + threadIds[i]
+						+ ",\"ts\":" + micros(starts[i] - origin)
+						+ ",\"dur\":" + micros(ends[i] - starts[i])
+						+ ",\"args\":{\"frame\":" + frames[i] + "}},\n");
+			}
+			for(Long id : threadNames.keySet()) {
+				writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + id + ",\"args\":{\"name\":");
+				writeString(writer, threadNames.get(id));
+				writer.write("}},\n");
+			}
+			writer.write("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":1,\"args\":{\"name\":\"Game\"}}\n]}\n");
+		}
+	}
+
+	private static String micros(long nanos) {
+		return Long.toString(nanos / 1000) + "." + String.format("%03d", nanos % 1000);
+	}
+
+	private static void writeString(BufferedWriter writer, String value) throws IOException {
+		writer.write('"');
+		for(int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if(c == '"' || c == '\\') {
+				writer.write('\\');
+				writer.write(c);
+			} else if(c < 0x20) {
+				writer.write(String.format("\\u%04x", (int) c));
+			} else {
+				writer.write(c);
+			}
+		}
+		writer.write('"');
+	}
+
+	/**
+	 * Forgets every recorded event
+	 */
+	public void clear() {
+		count.set(0);
+		dropped.set(0);
+	}
+
+	/**
+	 * Gets the number of recorded events
+	 * @return the number of events
+	 */
+	public int getCount() {
+		return Math.min(count.get(), names.length);
+	}
+
+	/**
+	 * Gets the number of events dropped because the trace was full
+	 * @return the number of dropped events
+	 */
+	public int getDroppedCount() {
+		return dropped.get();
+	}
+
+}
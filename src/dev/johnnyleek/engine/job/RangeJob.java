@@ -0,0 +1,22 @@
+package dev.johnnyleek.engine.job;
+
+/**
+ * A piece of work that is split over a range of indexes (see "JobGraph.parallelFor").
+ *
+ * Each call is given a different part of the range, and calls can run at the same time
+ * on different threads, so a call must only touch the indexes it is given.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public interface RangeJob {
+
+	/**
+	 * Called for one part of the range
+	 * @param start the first index of the part
+	 * @param end the index after the last index of the part
+	 */
+	void run(int start, int end);
+
+}
@@ -0,0 +1,119 @@
+package dev.johnnyleek.engine.net;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads values packed by a BitWriter from a ByteBuffer (see "BitWriter").
+ *
+ * Reading past the end of the buffer throws a BufferUnderflowException.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public final class BitReader {
+
+	private ByteBuffer buffer;
+	private long bits;
+	private int count;
+
+	/**
+	 * Starts reading at the position of a buffer
+	 * @param buffer the buffer to read from
+	 * @return this BitReader
+	 */
+	public BitReader reset(ByteBuffer buffer) {
+		this.buffer = buffer;
+		this.bits = 0;
+		this.count = 0;
+		return this;
+	}
+
+	/**
+	 * Reads a value written with "writeBits"
+	 * @param width the number of bits to read (0 to 32)
+	 * @return the value (the bits above the width are 0)
+	 */
+	public int readBits(int width) {
+		if(width == 0) return 0;
+		while(count < width) {
+			bits |= (buffer.get() & 0xFFL) << count;
+			count += 8;
+		}
+		int value = (int) (bits & (0xFFFFFFFFL >>> (32 - width)));
+		bits >>>= width;
+		count -= width;
+		return value;
+	}
+
+	/**
+	 * Reads a single bit
+	 * @return true if the bit is 1
+	 */
+	public boolean readBoolean() {
+		return readBits(1) == 1;
+	}
+
+	/**
+	 * Reads a value written with "writeUnsigned"
+	 * @return the value
+	 */
+	public int readUnsigned() {
+		switch(readBits(2)) {
+			case 0:
+				return readBits(4);
+			case 1:
+				return readBits(8);
+			case 2:
+				return readBits(16);
+			default:
+				return readBits(32);
+		}
+	}
+
+	/**
+	 * Reads a value written with "writeSigned"
+	 * @return the value
+	 */
+	public int readSigned() {
+		int value = readUnsigned();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Reads a value written with "writeVarInt"
+	 * @return the value
+	 */
+	public int readVarInt() {
+		return (int) readVarLong();
+	}
+
+	/**
+	 * Reads a value written with "writeVarLong"
+	 * @return the value
+	 */
+	public long readVarLong() {
+		long value = 0;
+		for(int shift = 0; shift < 64; shift += 7) {
+			int b = readBits(8);
+			value |= (long) (b & 0x7F) << shift;
+			if((b & 0x80) == 0) return value;
+		}
+		throw new IllegalStateException("Malformed varint");
+	}
+
+	/**
+	 * Reads a string written with "writeString"
+	 * @return the string (or null)
+	 */
+	public String readString() {
+		if(!readBoolean()) return null;
+		int length = readVarInt();
+		if(length < 0 || length > buffer.remaining() + 8) throw new IllegalStateException("Malformed string length: " + length);
+		byte[] bytes = new byte[length];
+		for(int i = 0; i < length; i++) bytes[i] = (byte) readBits(8);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
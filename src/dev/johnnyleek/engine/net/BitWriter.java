@@ -0,0 +1,152 @@
+package dev.johnnyleek.engine.net;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Packs values into a ByteBuffer using only as many bits as they need.
+ *
+ * Bits are written least significant first, and whole bytes are put into the buffer as soon
+ * as they are filled. Once everything has been written, "finish" writes the last partial byte.
+ *
+ * Besides fixed width values, there are two kinds of variable length integers:
+ * 	- "writeVarInt"/"writeVarLong": the usual varint (7 bits at a time, each followed by a bit
+ * 	  saying if more follow), for values that can be any size (such as ticks)
+ * 	- "writeUnsigned"/"writeSigned": a 2 bit size class followed by 4, 8, 16, or 32 bits, for
+ * 	  values that are usually tiny (such as how far an element moved). Signed values are
+ * 	  zigzag encoded first (0, -1, 1, -2, 2 become 0, 1, 2, 3, 4), so small negative values stay small.
+ *
+ * A BitWriter can be reused for any number of buffers (see "reset").
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public final class BitWriter {
+
+	private ByteBuffer buffer;
+	private long bits;
+	private int count;
+	private long written;
+
+	/**
+	 * Starts writing at the position of a buffer (discarding anything not yet finished)
+	 * @param buffer the buffer to write to
+	 * @return this BitWriter
+	 */
+	public BitWriter reset(ByteBuffer buffer) {
+		this.buffer = buffer;
+		this.bits = 0;
+		this.count = 0;
+		this.written = 0;
+		return this;
+	}
+
+	/**
+	 * Writes the lowest bits of a value
+	 * @param value the value to write
+	 * @param width the number of bits to write (0 to 32)
+	 */
+	public void writeBits(int value, int width) {
+		if(width == 0) return;
+		bits |= (value & (0xFFFFFFFFL >>> (32 - width))) << count;
+		count += width;
+		written += width;
+		while(count >= 8) {
+			buffer.put((byte) bits);
+			bits >>>= 8;
+			count -= 8;
+		}
+	}
+
+	/**
+	 * Writes a single bit
+	 * @param value the bit to write
+	 */
+	public void writeBoolean(boolean value) {
+		writeBits(value ? 1 : 0, 1);
+	}
+
+	/**
+	 * Writes a non-negative value that is usually small (see "BitWriter")
+	 * @param value the value to write (treated as unsigned)
+	 */
+	public void writeUnsigned(int value) {
+		if((value & ~0xF) == 0) {
+			writeBits(0, 2);
+			writeBits(value, 4);
+		} else if((value & ~0xFF) == 0) {
+			writeBits(1, 2);
+			writeBits(value, 8);
+		} else if((value & ~0xFFFF) == 0) {
+			writeBits(2, 2);
+			writeBits(value, 16);
+		} else {
+			writeBits(3, 2);
+			writeBits(value, 32);
+		}
+	}
+
+	/**
+	 * Writes a value that is usually close to 0 (see "BitWriter")
+	 * @param value the value to write
+	 */
+	public void writeSigned(int value) {
+		writeUnsigned((value << 1) ^ (value >> 31));
+	}
+
+	/**
+	 * Writes a non-negative int as a varint (see "BitWriter")
+	 * @param value the value to write (treated as unsigned)
+	 */
+	public void writeVarInt(int value) {
+		writeVarLong(value & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Writes a non-negative long as a varint (see "BitWriter")
+	 * @param value the value to write (treated as unsigned)
+	 */
+	public void writeVarLong(long value) {
+		while((value & ~0x7FL) != 0) {
+			writeBits((int) (value & 0x7F) | 0x80, 8);
+			value >>>= 7;
+		}
+		writeBits((int) value, 8);
+	}
+
+	/**
+	 * Writes a string (or null) as a flag, a varint length, and its UTF-8 bytes
+	 * @param value the string to write
+	 */
+	public void writeString(String value) {
+		writeBoolean(value != null);
+		if(value == null) return;
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(bytes.length);
+		for(byte b : bytes) writeBits(b, 8);
+	}
+
+	/**
+	 * Writes the last partial byte (padded with zeros)
+	 * @return the number of bytes written since the last reset
+	 */
+	public int finish() {
+		if(count > 0) {
+			buffer.put((byte) bits);
+			written += 8 - count;
+			bits = 0;
+			count = 0;
+		}
+		return (int) (written >>> 3);
+	}
+
+	/**
+	 * Gets the number of bits written since the last reset
+	 * @return the number of bits written
+	 */
+	public long getBitsWritten() {
+		return this.written;
+	}
+
+}
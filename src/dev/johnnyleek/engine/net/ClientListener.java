@@ -0,0 +1,27 @@
+package dev.johnnyleek.engine.net;
+
+/**
+ * Listens for clients connecting to and disconnecting from a GameServer.
+ *
+ * The listener is called on the server thread, between ticks (never while
+ * a tick is running), so it can change the game freely.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public interface ClientListener {
+
+	/**
+	 * Called once a client has finished its handshake
+	 * @param client the client
+	 */
+	void onClientConnected(RemoteClient client);
+
+	/**
+	 * Called once a client has disconnected (or timed out)
+	 * @param client the client
+	 */
+	void onClientDisconnected(RemoteClient client);
+
+}
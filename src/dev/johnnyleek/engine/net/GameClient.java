@@ -0,0 +1,369 @@
+package dev.johnnyleek.engine.net;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+
+import dev.johnnyleek.engine.input.EventType;
+import dev.johnnyleek.engine.input.InputEventListener;
+import dev.johnnyleek.engine.util.Logger;
+import dev.johnnyleek.engine.window.Window;
+
+/**
+ * Connects a Window to a GameServer: the server's snapshots are applied to the window,
+ * and input events are sent to the server.
+ *
+ * Example:
+ * 	GameClient client = new GameClient(window);
+ * 	client.connect("localhost", 7777);
+ * 	window.getInputEvents().addListener(client); // Sends the window's input to the server
+ * 	// ... then, every tick (such as in "runTick"):
+ * 	client.update();
+ *
+ * Each update receives every waiting datagram (putting the fragments of each snapshot back
+ * together), applies the latest complete snapshot to the window, and sends one datagram to the
+ * server, holding the tick of the latest snapshot (so the server can encode the next snapshot
+ * against it), and the input events the server has not acknowledged yet, oldest first (so input
+ * is not lost when a datagram is). If the server falls so far behind that 256 input events are
+ * waiting to be acknowledged, new events are dropped (and counted) rather than overwriting events
+ * the server has not seen. Nothing is sent or received between updates.
+ *
+ * A GameClient must only be used from one thread (usually the game thread), apart from
+ * "onInputEvent", which is called by the window's InputEventQueue on the game thread.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class GameClient implements InputEventListener, Closeable {
+
+	private static final int INPUT_CAPACITY = 256;
+
+	private final Window window;
+	private final SnapshotDecoder decoder = new SnapshotDecoder();
+
+	private Socket socket;
+	private DatagramChannel udp;
+	private int id = -1;
+	private long token;
+	private int ticksPerSecond;
+	private int snapshotInterval;
+	private long timeoutNanos = 10000000000L;
+	private long lastHeard;
+
+	private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(2048);
+	private final ByteBuffer sendBuffer = ByteBuffer.allocateDirect(GameServer.MAX_DATAGRAM);
+	private ByteBuffer assembly = ByteBuffer.allocate(1 << 16);
+	private ByteBuffer ready = ByteBuffer.allocate(1 << 16);
+	private long readyTick = -1;
+	private boolean[] fragmentsReceived = new boolean[64];
+	private long assemblingTick = -1;
+	private int fragmentCount;
+	private int fragmentsLeft;
+	private int assembledLength;
+	private long decodedTick = -1;
+
+	private final byte[] inputTypes = new byte[INPUT_CAPACITY];
+	private final int[] inputCodes = new int[INPUT_CAPACITY];
+	private final int[] inputXs = new int[INPUT_CAPACITY];
+	private final int[] inputYs = new int[INPUT_CAPACITY];
+	private int inputSequence; // The sequence of the last input event
+	private int ackedInput; // The sequence of the last input event the server received
+
+	private long snapshotsApplied;
+	private long damagedSnapshots;
+	private long droppedInput;
+
+	/**
+	 * Creates a client that applies the server's snapshots to a window
+	 * @param window the window to apply snapshots to
+	 */
+	public GameClient(Window window) {
+		this.window = window;
+	}
+
+	/**
+	 * Connects to a server, waiting for the handshake to finish (for up to 5 seconds)
+	 * @param host the host name or address of the server
+	 * @param port the port of the server
+	 * @throws IOException if the server could not be reached, or rejected the client
+	 */
+	public void connect(String host, int port) throws IOException {
+		if(socket != null) throw new IllegalStateException("Already connected");
+		InetSocketAddress address = new InetSocketAddress(host, port);
+		Socket socket = new Socket();
+		try {
+			socket.setTcpNoDelay(true);
+			socket.connect(address, 5000);
+			socket.setSoTimeout(5000);
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			out.writeInt(GameServer.MAGIC);
+			out.writeShort(GameServer.VERSION);
+			out.flush();
+
+			DataInputStream in = new DataInputStream(socket.getInputStream());
+			if(in.readInt() != GameServer.MAGIC || in.readShort() != GameServer.VERSION) throw new IOException("Not a game server, or a different version: " + address);
+			this.id = in.readInt();
+			this.token = in.readLong();
+			this.ticksPerSecond = in.readInt();
+			this.snapshotInterval = in.readInt();
+			socket.setSoTimeout(0);
+
+			this.udp = DatagramChannel.open();
+			this.udp.setOption(StandardSocketOptions.SO_RCVBUF, 1 << 20);
+			this.udp.connect(address);
+			this.udp.configureBlocking(false);
+		} catch(IOException e) {
+			socket.close();
+			throw e;
+		}
+		this.socket = socket;
+		this.lastHeard = System.nanoTime();
+		Logger.info("Connected to {} as client {}", address, id);
+	}
+
+	/**
+	 * Receives and applies the latest snapshot (if a new one has arrived), and sends input to the server.
+	 * Must be called once per tick while connected.
+	 * @return true if a new snapshot was applied to the window
+	 */
+	public boolean update() {
+		if(!isConnected()) return false;
+		boolean applied = false;
+		try {
+			applied = receive();
+			send();
+		} catch(IOException e) {
+			Logger.error("Lost connection to the server");
+			e.printStackTrace();
+			close();
+		}
+		return applied;
+	}
+
+	/**
+	 * Receives every waiting datagram, and applies the latest complete snapshot
+	 * (older snapshots completed during the same update are skipped)
+	 */
+	private boolean receive() throws IOException {
+		while(true) {
+			receiveBuffer.clear();
+			if(udp.receive(receiveBuffer) == null) break;
+			receiveBuffer.flip();
+			if(receiveBuffer.remaining() < GameServer.FRAGMENT_HEADER) continue;
+			lastHeard = System.nanoTime();
+
+			long tick = receiveBuffer.getLong();
+			int acked = receiveBuffer.getInt();
+			int fragment = receiveBuffer.getShort() & 0xFFFF;
+			int fragments = receiveBuffer.getShort() & 0xFFFF;
+			if(acked - ackedInput > 0 && inputSequence - acked >= 0) ackedInput = acked;
+			if(tick <= readyTick || tick <= decodedTick || tick < assemblingTick || fragment >= fragments) continue;
+
+			if(tick > assemblingTick) startAssembling(tick, fragments);
+			if(fragments != fragmentCount || fragmentsReceived[fragment]) continue;
+
+			// Every fragment but the last is exactly FRAGMENT_PAYLOAD bytes, so anything else is damaged
+			int offset = fragment * GameServer.FRAGMENT_PAYLOAD;
+			int size = receiveBuffer.remaining();
+			if(size > GameServer.FRAGMENT_PAYLOAD || (fragment < fragments - 1 && size != GameServer.FRAGMENT_PAYLOAD)
+					|| offset + size > assembly.capacity()) continue;
+			assembly.limit(assembly.capacity()).position(offset);
+			assembly.put(receiveBuffer);
+			fragmentsReceived[fragment] = true;
+			if(fragment == fragments - 1) assembledLength = offset + size;
+			if(--fragmentsLeft > 0) continue;
+
+			// Every fragment has arrived, so the snapshot is ready to decode
+			assembly.position(0).limit(assembledLength);
+			ByteBuffer complete = assembly;
+			assembly = ready;
+			ready = complete;
+			readyTick = tick;
+			assemblingTick = -1;
+		}
+
+		if(readyTick == -1) return false;
+		long tick = readyTick;
+		readyTick = -1;
+		Snapshot snapshot;
+		try {
+			snapshot = decoder.decode(ready);
+		} catch(IOException e) {
+			damagedSnapshots++;
+			Logger.warn("Dropped snapshot {}: {}", tick, e.getMessage());
+			return false;
+		}
+		decodedTick = tick;
+		if(!decoder.apply(snapshot, window)) return false;
+		snapshotsApplied++;
+		return true;
+	}
+
+	private void startAssembling(long tick, int fragments) {
+		assemblingTick = tick;
+		fragmentCount = fragments;
+		fragmentsLeft = fragments;
+		if(fragmentsReceived.length < fragments) fragmentsReceived = new boolean[Math.max(fragments, fragmentsReceived.length * 2)];
+		else Arrays.fill(fragmentsReceived, 0, fragments, false);
+		int capacity = fragments * GameServer.FRAGMENT_PAYLOAD;
+		if(assembly.capacity() < capacity) assembly = ByteBuffer.allocate(Math.max(capacity, assembly.capacity() * 2));
+	}
+
+	/**
+	 * Sends the latest decoded tick, and the oldest input events the server has not acknowledged
+	 * (as many as fit in a datagram, the rest are sent once these are acknowledged)
+	 */
+	private void send() throws IOException {
+		int first = ackedInput + 1;
+		int count = Math.min(inputSequence - ackedInput, GameServer.MAX_INPUT_EVENTS);
+
+		sendBuffer.clear();
+		sendBuffer.putInt(id).putLong(token).putLong(decodedTick).putInt(first).put((byte) count);
+		for(int sequence = first; sequence < first + count; sequence++) {
+			int slot = sequence & (INPUT_CAPACITY - 1);
+			sendBuffer.put(inputTypes[slot]).putInt(inputCodes[slot]).putInt(inputXs[slot]).putInt(inputYs[slot]);
+		}
+		sendBuffer.flip();
+		udp.write(sendBuffer);
+	}
+
+	/**
+	 * Queues an input event to send to the server (with the next update)
+	 * @param type the type of the event
+	 * @param code the key code or mouse button of the event
+	 * @param x the X position of the mouse (mouse events only)
+	 * @param y the Y position of the mouse (mouse events only)
+	 * @return true if the event was queued, false if too many events are waiting to be acknowledged
+	 */
+	public boolean sendInput(EventType type, int code, int x, int y) {
+		if(inputSequence - ackedInput >= INPUT_CAPACITY) {
+			droppedInput++;
+			return false;
+		}
+		int slot = ++inputSequence & (INPUT_CAPACITY - 1);
+		inputTypes[slot] = (byte) type.ordinal();
+		inputCodes[slot] = code;
+		inputXs[slot] = x;
+		inputYs[slot] = y;
+		return true;
+	}
+
+	/**
+	 * Sends a window's input events to the server (see "GameClient")
+	 */
+	@Override
+	public void onInputEvent(EventType type, int code, int x, int y, long nanoTime) {
+		sendInput(type, code, x, y);
+	}
+
+	/**
+	 * Disconnects from the server
+	 */
+	@Override
+	public void close() {
+		if(socket == null) return;
+		try {
+			socket.close();
+			udp.close();
+		} catch(IOException e) {
+			// Already closed
+		}
+		socket = null;
+		Logger.info("Disconnected from the server");
+	}
+
+	/**
+	 * Returns whether or not the client is connected (and has heard from the server within the timeout)
+	 * @return true if the client is connected
+	 */
+	public boolean isConnected() {
+		if(socket == null) return false;
+		if(System.nanoTime() - lastHeard > timeoutNanos) {
+			Logger.warn("Server timed out");
+			close();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Sets how long the client can go without hearing from the server before it disconnects
+	 * @param millis the timeout in milliseconds
+	 */
+	public void setTimeout(long millis) {
+		this.timeoutNanos = millis * 1000000;
+	}
+
+	/**
+	 * Gets the ID the server gave this client
+	 * @return the client's ID (or -1 if the client has not connected)
+	 */
+	public int getID() {
+		return this.id;
+	}
+
+	/**
+	 * Gets the server's tick rate
+	 * @return how many ticks the server runs a second
+	 */
+	public int getTicksPerSecond() {
+		return this.ticksPerSecond;
+	}
+
+	/**
+	 * Gets the number of ticks between the server's snapshots
+	 * @return the snapshot interval
+	 */
+	public int getSnapshotInterval() {
+		return this.snapshotInterval;
+	}
+
+	/**
+	 * Gets the tick of the latest snapshot received
+	 * @return the tick (or -1 if no snapshot has been received)
+	 */
+	public long getSnapshotTick() {
+		return this.decodedTick;
+	}
+
+	/**
+	 * Gets the number of snapshots applied to the window
+	 * @return the number of snapshots applied
+	 */
+	public long getSnapshotsApplied() {
+		return this.snapshotsApplied;
+	}
+
+	/**
+	 * Gets the number of snapshots that could not be decoded
+	 * @return the number of damaged snapshots
+	 */
+	public long getDamagedSnapshots() {
+		return this.damagedSnapshots;
+	}
+
+	/**
+	 * Gets the number of input events dropped because too many were waiting to be acknowledged
+	 * @return the number of dropped input events
+	 */
+	public long getDroppedInputCount() {
+		return this.droppedInput;
+	}
+
+	/**
+	 * Gets the decoder snapshots are decoded with (such as to find the element with a network ID)
+	 * @return the client's SnapshotDecoder
+	 */
+	public SnapshotDecoder getDecoder() {
+		return this.decoder;
+	}
+
+}
@@ -0,0 +1,593 @@
+package dev.johnnyleek.engine.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+import dev.johnnyleek.engine.input.EventType;
+import dev.johnnyleek.engine.render.Game;
+import dev.johnnyleek.engine.util.Logger;
+
+/**
+ * Runs a Game (with a headless Window) as an authoritative server for any number of GameClients.
+ *
+ * Clients connect over TCP for a short handshake (which gives them an ID, and a token that
+ * proves their datagrams are theirs), and then everything else is sent over UDP on the same port:
+ * 	- Clients send their input events, and the tick of the last snapshot they received
+ * 	- The server sends a snapshot of the game's elements every "snapshot interval" ticks, encoded
+ * 	  as the difference from the last snapshot the client acknowledged (see "SnapshotEncoder"),
+ * 	  and split into datagrams of at most MAX_DATAGRAM bytes
+ * The TCP connection is kept open for as long as the client is connected, so closing it
+ * disconnects the client right away (clients that stop sending datagrams time out).
+ *
+ * The server runs the game loop itself, on a single thread, with a single Selector. Between ticks,
+ * the thread waits on the Selector (so handshakes and datagrams are handled as they arrive),
+ * and every tick:
+ * 	- Each client's input events are applied (see "RemoteClient")
+ * 	- The game runs a frame (see "Game.step")
+ * 	- On snapshot ticks, the window is captured once, and the snapshot is sent to every client.
+ * 	  Clients that acknowledged the same tick share the same encoded bytes, so each distinct
+ * 	  baseline is only encoded once per tick.
+ * Datagrams are received into, and sent from, preallocated direct buffers.
+ *
+ * The game's "runTick" can read each client's input through "getClients".
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class GameServer implements Runnable {
+
+	static final int MAGIC = 0x4A474E54; // "JGNT"
+	static final short VERSION = 1;
+	static final int HANDSHAKE_SIZE = 6;
+	static final int WELCOME_SIZE = 26;
+
+	/**
+	 * The largest datagram the server or a client sends (small enough to never be fragmented by IP)
+	 */
+	public static final int MAX_DATAGRAM = 1200;
+	static final int FRAGMENT_HEADER = 16;
+	static final int FRAGMENT_PAYLOAD = MAX_DATAGRAM - FRAGMENT_HEADER;
+	static final int INPUT_HEADER = 25;
+	static final int INPUT_EVENT_SIZE = 13;
+	static final int MAX_INPUT_EVENTS = (MAX_DATAGRAM - INPUT_HEADER) / INPUT_EVENT_SIZE;
+
+	private static final EventType[] EVENT_TYPES = EventType.values();
+
+	private final Game game;
+	private final Selector selector;
+	private final ServerSocketChannel server;
+	private final DatagramChannel udp;
+	private final int port;
+	private final Consumer<SelectionKey> handler = this::handle;
+
+	private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(2048);
+	private final ByteBuffer sendBuffer = ByteBuffer.allocateDirect(MAX_DATAGRAM);
+	private final ByteBuffer welcomeBuffer = ByteBuffer.allocateDirect(WELCOME_SIZE);
+	private ByteBuffer encoded = ByteBuffer.allocateDirect(1 << 18);
+	private ByteBuffer encodedView = encoded.duplicate();
+
+	private final SnapshotEncoder encoder;
+	private final long[] cachedBaselines;
+	private final int[] cachedStarts;
+	private final int[] cachedLengths;
+	private int cachedCount;
+
+	private RemoteClient[] clients;
+	private int clientCount;
+	private ClientListener listener;
+
+	private int snapshotInterval = 2;
+	private long timeoutNanos = 10000000000L;
+	private Thread thread;
+	private volatile boolean running;
+
+	private long datagramsSent;
+	private long datagramsDropped;
+	private long bytesSent;
+	private long datagramsReceived;
+	private long encodes;
+	private long lastTickNanos;
+
+	/**
+	 * Opens a server for a game on a port (TCP for handshakes, and UDP for everything else)
+	 * @param game the game to run (its Window should be headless)
+	 * @param port the port to listen on (or 0 to pick a free port, see "getPort")
+	 * @throws IOException if the port could not be opened
+	 */
+	public GameServer(Game game, int port) throws IOException {
+		this(game, port, 1024);
+	}
+
+	/**
+	 * Opens a server for a game on a port, with a custom limit on the number of clients
+	 * @param game the game to run (its Window should be headless)
+	 * @param port the port to listen on (or 0 to pick a free port, see "getPort")
+	 * @param maxClients the most clients that can be connected at once
+	 * @throws IOException if the port could not be opened
+	 */
+	public GameServer(Game game, int port, int maxClients) throws IOException {
+		this.game = game;
+		this.clients = new RemoteClient[Math.max(1, maxClients)];
+		this.encoder = new SnapshotEncoder();
+		this.cachedBaselines = new long[64];
+		this.cachedStarts = new int[cachedBaselines.length];
+		this.cachedLengths = new int[cachedBaselines.length];
+
+		this.selector = Selector.open();
+		this.server = ServerSocketChannel.open();
+		this.server.bind(new InetSocketAddress(port));
+		this.port = ((InetSocketAddress) server.getLocalAddress()).getPort();
+		this.server.configureBlocking(false);
+		this.server.register(selector, SelectionKey.OP_ACCEPT);
+
+		this.udp = DatagramChannel.open();
+		this.udp.setOption(StandardSocketOptions.SO_RCVBUF, 1 << 20);
+		this.udp.setOption(StandardSocketOptions.SO_SNDBUF, 4 << 20);
+		this.udp.bind(new InetSocketAddress(this.port));
+		this.udp.configureBlocking(false);
+		this.udp.register(selector, SelectionKey.OP_READ);
+	}
+
+	/**
+	 * Starts the server thread, which runs the game loop
+	 */
+	public synchronized void start() {
+		if(running) return;
+		Logger.info("Starting Game Server on port {}", port);
+		running = true;
+		thread = new Thread(this, "Game Server");
+		thread.start();
+	}
+
+	/**
+	 * Stops the server thread, disconnects every client, and closes the server's channels
+	 */
+	public synchronized void stop() {
+		if(!running) return;
+		Logger.info("Stopping Game Server");
+		running = false;
+		selector.wakeup();
+		try {
+			thread.join();
+		} catch(InterruptedException e) {
+			Logger.error("Game Server thread was interrupted!");
+			e.printStackTrace();
+		}
+		for(int id = 0; id < clientCount; id++) {
+			if(clients[id] != null) disconnect(clients[id]);
+		}
+		try {
+			selector.close();
+			server.close();
+			udp.close();
+		} catch(IOException e) {
+			Logger.error("Failed to close the Game Server's channels");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Runs a tick at the game's tick rate, handling network events between ticks
+	 */
+	@Override
+	public void run() {
+		long tickSpan = 1000000000L / game.getTicksPerSecond();
+		long next = System.nanoTime();
+		while(running) {
+			long wait = next - System.nanoTime();
+			if(wait > 0) {
+				poll(wait);
+				continue;
+			}
+			next += tickSpan;
+			if(System.nanoTime() - next > tickSpan * 4) next = System.nanoTime(); // Fell far behind, so skip the missed ticks
+			tick();
+		}
+	}
+
+	/**
+	 * Handles network events for up to a given time (returning as soon as there is nothing left to do)
+	 * @param nanos the most time to wait for (0 to only handle events that are already waiting)
+	 */
+	public void poll(long nanos) {
+		try {
+			if(nanos < 1000000) selector.selectNow(handler);
+			else selector.select(handler, nanos / 1000000);
+		} catch(IOException e) {
+			Logger.error("Game Server failed to select");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Runs a single tick right away: applies each client's input, runs a frame of the game, and sends
+	 * a snapshot to every client (on snapshot ticks). This is called by the server thread once per tick,
+	 * but can be called directly (while the server thread is not running), such as in tests.
+	 */
+	public void tick() {
+		long start = System.nanoTime();
+		poll(0);
+		for(int id = 0; id < clientCount; id++) {
+			RemoteClient client = clients[id];
+			if(client == null) continue;
+			if(start - client.lastHeard > timeoutNanos) {
+				Logger.info("Client {} timed out", id);
+				disconnect(client);
+				continue;
+			}
+			client.applyInput();
+		}
+
+		try {
+			game.step();
+		} catch(RuntimeException e) {
+			// One failed frame should not stop the server (or disconnect every client)
+			Logger.error("Game Server frame {} failed", game.getTick());
+			e.printStackTrace();
+		}
+		if(game.getTick() % snapshotInterval == 0) sendSnapshots();
+		lastTickNanos = System.nanoTime() - start;
+	}
+
+	private void handle(SelectionKey key) {
+		try {
+			if(!key.isValid()) return;
+			if(key.isAcceptable()) {
+				accept();
+			} else if(key.channel() == udp) {
+				receive();
+			} else {
+				read(key);
+			}
+		} catch(IOException e) {
+			Object attachment = key.attachment();
+			if(attachment instanceof RemoteClient) {
+				disconnect((RemoteClient) attachment);
+			} else {
+				key.cancel();
+				close(key.channel());
+			}
+		}
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel;
+		while((channel = server.accept()) != null) {
+			channel.configureBlocking(false);
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			channel.register(selector, SelectionKey.OP_READ, ByteBuffer.allocate(HANDSHAKE_SIZE));
+		}
+	}
+
+	/**
+	 * Reads from a client's TCP connection (its handshake, or the end of its connection)
+	 */
+	private void read(SelectionKey key) throws IOException {
+		SocketChannel channel = (SocketChannel) key.channel();
+		Object attachment = key.attachment();
+		if(attachment instanceof RemoteClient) {
+			// Clients send nothing more after their handshake, so only the end of the connection matters
+			receiveBuffer.clear();
+			if(channel.read(receiveBuffer) < 0) disconnect((RemoteClient) attachment);
+			return;
+		}
+
+		ByteBuffer handshake = (ByteBuffer) attachment;
+		if(channel.read(handshake) < 0) throw new IOException("Connection closed during handshake");
+		if(handshake.hasRemaining()) return;
+		handshake.flip();
+		if(handshake.getInt() != MAGIC || handshake.getShort() != VERSION) {
+			Logger.warn("Rejected a connection from {} (not a game client, or a different version)", channel.getRemoteAddress());
+			throw new IOException("Bad handshake");
+		}
+
+		int id = -1;
+		for(int i = 0; i < clients.length; i++) {
+			if(clients[i] == null) {
+				id = i;
+				break;
+			}
+		}
+		if(id == -1) {
+			Logger.warn("Rejected a connection from {} (the server is full)", channel.getRemoteAddress());
+			throw new IOException("Server full");
+		}
+
+		RemoteClient client = new RemoteClient(id, ThreadLocalRandom.current().nextLong(), channel);
+		welcomeBuffer.clear();
+		welcomeBuffer.putInt(MAGIC).putShort(VERSION).putInt(id).putLong(client.token)
+				.putInt(game.getTicksPerSecond()).putInt(snapshotInterval);
+		welcomeBuffer.flip();
+		channel.write(welcomeBuffer);
+		if(welcomeBuffer.hasRemaining()) throw new IOException("Could not send the handshake");
+
+		clients[id] = client;
+		clientCount = Math.max(clientCount, id + 1);
+		key.attach(client);
+		Logger.info("Client {} connected from {}", id, channel.getRemoteAddress());
+		if(listener != null) listener.onClientConnected(client);
+	}
+
+	/**
+	 * Receives every waiting datagram (each holding a client's acknowledged tick, and input events)
+	 */
+	private void receive() throws IOException {
+		while(true) {
+			receiveBuffer.clear();
+			SocketAddress from = udp.receive(receiveBuffer);
+			if(from == null) return;
+			receiveBuffer.flip();
+			datagramsReceived++;
+			if(receiveBuffer.remaining() < INPUT_HEADER) continue;
+
+			int id = receiveBuffer.getInt();
+			long token = receiveBuffer.getLong();
+			if(id < 0 || id >= clientCount || clients[id] == null || clients[id].token != token) continue;
+
+			RemoteClient client = clients[id];
+			if(client.address == null || !client.address.equals(from)) client.address = from;
+			client.lastHeard = System.nanoTime();
+
+			long acked = receiveBuffer.getLong();
+			if(acked > client.ackedTick && acked <= game.getTick()) client.ackedTick = acked;
+
+			int sequence = receiveBuffer.getInt();
+			int count = receiveBuffer.get() & 0xFF;
+			if(count > receiveBuffer.remaining() / INPUT_EVENT_SIZE) continue;
+			for(int i = 0; i < count; i++, sequence++) {
+				int type = receiveBuffer.get();
+				int code = receiveBuffer.getInt(), x = receiveBuffer.getInt(), y = receiveBuffer.getInt();
+				if(sequence - client.inputSequence <= 0) continue; // Already received (events are resent until acknowledged)
+				client.inputSequence = sequence;
+				if(type >= 0 && type < EVENT_TYPES.length) client.record(EVENT_TYPES[type], code, x, y);
+			}
+		}
+	}
+
+	/**
+	 * Captures the game's window, and sends the snapshot to every client
+	 */
+	private void sendSnapshots() {
+		long tick = game.getTick();
+		encoder.capture(game.getWindow(), tick);
+		cachedCount = 0;
+		int end = 0;
+
+		for(int id = 0; id < clientCount; id++) {
+			RemoteClient client = clients[id];
+			if(client == null || client.address == null) continue;
+
+			long baseline = encoder.getSnapshot(client.ackedTick) != null ? client.ackedTick : -1;
+			int entry = -1;
+			for(int i = 0; i < cachedCount; i++) {
+				if(cachedBaselines[i] == baseline) {
+					entry = i;
+					break;
+				}
+			}
+			if(entry == -1) {
+				entry = cachedCount < cachedBaselines.length ? cachedCount++ : cachedCount - 1;
+				cachedBaselines[entry] = baseline;
+				cachedStarts[entry] = end;
+				cachedLengths[entry] = encode(baseline, end);
+				end += cachedLengths[entry];
+			}
+			send(client, tick, cachedStarts[entry], cachedLengths[entry]);
+		}
+	}
+
+	/**
+	 * Encodes the latest snapshot into the encoded buffer (growing it if needed)
+	 * @return the number of bytes written
+	 */
+	private int encode(long baseline, int position) {
+		while(true) {
+			try {
+				encoded.limit(encoded.capacity()).position(position);
+				encodes++;
+				return encoder.encode(baseline, encoded);
+			} catch(BufferOverflowException e) {
+				ByteBuffer larger = ByteBuffer.allocateDirect(encoded.capacity() * 2);
+				encoded.position(0).limit(position);
+				larger.put(encoded);
+				encoded = larger;
+				encodedView = encoded.duplicate();
+			}
+		}
+	}
+
+	/**
+	 * Sends an encoded snapshot to a client, split into datagrams
+	 */
+	private void send(RemoteClient client, long tick, int start, int length) {
+		int fragments = Math.max(1, (length + FRAGMENT_PAYLOAD - 1) / FRAGMENT_PAYLOAD);
+		if(fragments > 0xFFFF) {
+			Logger.warn("Snapshot {} is too large to send ({} bytes)", tick, length);
+			return;
+		}
+		for(int fragment = 0; fragment < fragments; fragment++) {
+			int offset = start + fragment * FRAGMENT_PAYLOAD;
+			int size = Math.min(FRAGMENT_PAYLOAD, start + length - offset);
+			sendBuffer.clear();
+			sendBuffer.putLong(tick).putInt(client.inputSequence).putShort((short) fragment).putShort((short) fragments);
+			encodedView.limit(offset + size).position(offset);
+			sendBuffer.put(encodedView);
+			sendBuffer.flip();
+			try {
+				if(udp.send(sendBuffer, client.address) == 0) {
+					// The socket's buffer is full, so the rest of this snapshot would be useless
+					datagramsDropped += fragments - fragment;
+					return;
+				}
+			} catch(IOException e) {
+				datagramsDropped += fragments - fragment;
+				return;
+			}
+			datagramsSent++;
+			bytesSent += FRAGMENT_HEADER + size;
+		}
+	}
+
+	/**
+	 * Disconnects a client (closing its connection)
+	 * @param client the client to disconnect
+	 */
+	public void disconnect(RemoteClient client) {
+		if(!client.connected) return;
+		client.connected = false;
+		clients[client.getID()] = null;
+		while(clientCount > 0 && clients[clientCount - 1] == null) clientCount--;
+		SelectionKey key = client.channel.keyFor(selector);
+		if(key != null) key.cancel();
+		close(client.channel);
+		Logger.info("Client {} disconnected", client.getID());
+		if(listener != null) listener.onClientDisconnected(client);
+	}
+
+	private static void close(Channel channel) {
+		try {
+			channel.close();
+		} catch(IOException e) {
+			// Already closed
+		}
+	}
+
+	/**
+	 * Gets a connected client by its ID
+	 * @param id the ID of the client
+	 * @return the client (or null if no client has the ID)
+	 */
+	public RemoteClient getClient(int id) {
+		return id >= 0 && id < clientCount ? clients[id] : null;
+	}
+
+	/**
+	 * Gets the number of IDs in use (every connected client has an ID below this, see "getClient")
+	 * @return one more than the highest ID of a connected client
+	 */
+	public int getClientIDCount() {
+		return this.clientCount;
+	}
+
+	/**
+	 * Gets the number of connected clients
+	 * @return the number of connected clients
+	 */
+	public int getClientCount() {
+		int count = 0;
+		for(int id = 0; id < clientCount; id++) {
+			if(clients[id] != null) count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Sets the listener called when clients connect and disconnect
+	 * @param listener the listener (or null for no listener)
+	 */
+	public void setClientListener(ClientListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets how often snapshots are sent (every 2 ticks by default, so 30 snapshots a second at 60 ticks a second)
+	 * @param ticks the number of ticks between snapshots (at least 1)
+	 */
+	public void setSnapshotInterval(int ticks) {
+		this.snapshotInterval = Math.max(1, ticks);
+	}
+
+	/**
+	 * Sets how long a client can go without sending a datagram before it is disconnected
+	 * @param millis the timeout in milliseconds
+	 */
+	public void setTimeout(long millis) {
+		this.timeoutNanos = millis * 1000000;
+	}
+
+	/**
+	 * Gets the port the server is listening on
+	 * @return the port
+	 */
+	public int getPort() {
+		return this.port;
+	}
+
+	/**
+	 * Gets the game the server runs
+	 * @return the server's game
+	 */
+	public Game getGame() {
+		return this.game;
+	}
+
+	/**
+	 * Gets the encoder snapshots are captured and encoded with
+	 * @return the server's SnapshotEncoder
+	 */
+	public SnapshotEncoder getEncoder() {
+		return this.encoder;
+	}
+
+	/**
+	 * Gets the number of datagrams sent
+	 * @return the number of datagrams sent
+	 */
+	public long getDatagramsSent() {
+		return this.datagramsSent;
+	}
+
+	/**
+	 * Gets the number of datagrams that could not be sent (because the socket's send buffer was full)
+	 * @return the number of dropped datagrams
+	 */
+	public long getDatagramsDropped() {
+		return this.datagramsDropped;
+	}
+
+	/**
+	 * Gets the number of bytes sent in datagrams
+	 * @return the number of bytes sent
+	 */
+	public long getBytesSent() {
+		return this.bytesSent;
+	}
+
+	/**
+	 * Gets the number of datagrams received
+	 * @return the number of datagrams received
+	 */
+	public long getDatagramsReceived() {
+		return this.datagramsReceived;
+	}
+
+	/**
+	 * Gets the number of times a snapshot has been encoded (at most once per distinct baseline per snapshot)
+	 * @return the number of encodes
+	 */
+	public long getEncodeCount() {
+		return this.encodes;
+	}
+
+	/**
+	 * Gets how long the last tick took (applying input, running the frame, and sending snapshots)
+	 * @return the time in nanoseconds
+	 */
+	public long getLastTickTime() {
+		return this.lastTickNanos;
+	}
+
+}
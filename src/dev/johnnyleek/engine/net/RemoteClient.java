@@ -0,0 +1,169 @@
+package dev.johnnyleek.engine.net;
+
+import java.net.SocketAddress;
+import java.nio.channels.SocketChannel;
+
+import dev.johnnyleek.engine.input.EventType;
+import dev.johnnyleek.engine.input.InputEventListener;
+import dev.johnnyleek.engine.input.InputEventQueue;
+import dev.johnnyleek.engine.input.Keyboard;
+
+/**
+ * A client connected to a GameServer, as seen by the server.
+ *
+ * The input events a client sends are queued as they arrive (see "getInputEvents"),
+ * and applied at the start of the next tick: the client's key and mouse state is
+ * updated, and the events are passed to the queue's listeners. So, like the Keyboard
+ * and Mouse of a Window, a client's input does not change while a tick is running.
+ *
+ * A RemoteClient must only be used from the server thread (such as in "runTick").
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class RemoteClient {
+
+	private final int id;
+	final long token;
+	final SocketChannel channel;
+	SocketAddress address;
+	boolean connected = true;
+
+	long ackedTick = -1;
+	int inputSequence;
+	long lastHeard;
+
+	private final InputEventQueue inputEvents = new InputEventQueue(256);
+	private final InputEventListener applier = this::apply;
+	private final long[] keys = new long[Keyboard.KEY_CODE_COUNT / 64];
+	private int buttons;
+	private int mouseX, mouseY;
+
+	RemoteClient(int id, long token, SocketChannel channel) {
+		this.id = id;
+		this.token = token;
+		this.channel = channel;
+		this.lastHeard = System.nanoTime();
+	}
+
+	/**
+	 * Applies every input event received since the last tick
+	 */
+	void applyInput() {
+		inputEvents.drain(applier);
+	}
+
+	private void apply(EventType type, int code, int x, int y, long nanoTime) {
+		switch(type) {
+			case KEYBOARD_PRESS:
+				if(code >= 0 && code < Keyboard.KEY_CODE_COUNT) keys[code >>> 6] |= 1L << code;
+				break;
+			case KEYBOARD_RELEASE:
+				if(code >= 0 && code < Keyboard.KEY_CODE_COUNT) keys[code >>> 6] &= ~(1L << code);
+				break;
+			case MOUSE_PRESS:
+				if(code >= 0 && code < 32) buttons |= 1 << code;
+				mouseX = x;
+				mouseY = y;
+				break;
+			case MOUSE_RELEASE:
+				if(code >= 0 && code < 32) buttons &= ~(1 << code);
+				mouseX = x;
+				mouseY = y;
+				break;
+			case MOUSE_MOVE:
+			case MOUSE_DRAG:
+			case MOUSE_CLICK:
+				mouseX = x;
+				mouseY = y;
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Records an input event received from the client
+	 */
+	void record(EventType type, int code, int x, int y) {
+		inputEvents.record(type, code, x, y, System.nanoTime());
+	}
+
+	/**
+	 * Gets the ID of the client (unique among the connected clients, and reused once a client disconnects)
+	 * @return the ID of the client
+	 */
+	public int getID() {
+		return this.id;
+	}
+
+	/**
+	 * Returns whether or not a key was held by the client at the start of this tick
+	 * @param keyCode the key code (see KeyEvent)
+	 * @return true if the key is held
+	 */
+	public boolean isPressed(int keyCode) {
+		if(keyCode < 0 || keyCode >= Keyboard.KEY_CODE_COUNT) return false;
+		return (keys[keyCode >>> 6] & (1L << keyCode)) != 0;
+	}
+
+	/**
+	 * Returns whether or not a mouse button was held by the client at the start of this tick
+	 * @param button the mouse button (see MouseEvent)
+	 * @return true if the button is held
+	 */
+	public boolean isMousePressed(int button) {
+		return button >= 0 && button < 32 && (buttons & (1 << button)) != 0;
+	}
+
+	/**
+	 * Gets the last X position of the client's mouse
+	 * @return the X position of the mouse
+	 */
+	public int getMouseX() {
+		return this.mouseX;
+	}
+
+	/**
+	 * Gets the last Y position of the client's mouse
+	 * @return the Y position of the mouse
+	 */
+	public int getMouseY() {
+		return this.mouseY;
+	}
+
+	/**
+	 * Gets the queue of the input events the client sent. Listeners added to it are called
+	 * with each event at the start of the tick after it arrived.
+	 * @return the client's InputEventQueue
+	 */
+	public InputEventQueue getInputEvents() {
+		return this.inputEvents;
+	}
+
+	/**
+	 * Gets the tick of the last snapshot the client acknowledged
+	 * @return the tick (or -1 if the client has not received a snapshot)
+	 */
+	public long getAckedTick() {
+		return this.ackedTick;
+	}
+
+	/**
+	 * Gets the address the client's datagrams come from
+	 * @return the address (or null if the client has not sent a datagram yet)
+	 */
+	public SocketAddress getAddress() {
+		return this.address;
+	}
+
+	/**
+	 * Returns whether or not the client is still connected
+	 * @return true if the client is connected
+	 */
+	public boolean isConnected() {
+		return this.connected;
+	}
+
+}
@@ -0,0 +1,165 @@
+package dev.johnnyleek.engine.net;
+
+import java.util.Arrays;
+
+/**
+ * The state of every networked element at a single tick, stored as flat arrays indexed by
+ * the elements' network IDs (small ints handed out by a SnapshotEncoder, and reused once an
+ * element is removed).
+ *
+ * For each ID, a snapshot stores the element's type (or NONE if no element has the ID),
+ * whether it is a UI element, its position, size, color, shape, name, and text (the text of a
+ * Text, or the asset path of an Image), and a generation that changes whenever the ID is given
+ * to a new element.
+ *
+ * Snapshots are reused (see "copyFrom" and "clear"), and only grow when more IDs are in use
+ * than ever before, so keeping a history of snapshots does not create garbage.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public final class Snapshot {
+
+	/**
+	 * The types of element a snapshot can hold
+	 */
+	public static final byte NONE = 0;
+	public static final byte SHAPE = 1;
+	public static final byte IMAGE = 2;
+	public static final byte TEXT = 3;
+
+	long tick = -1;
+	int count;
+	byte[] types;
+	boolean[] ui;
+	byte[] shapes;
+	int[] x;
+	int[] y;
+	int[] width;
+	int[] height;
+	int[] colors;
+	int[] generations;
+	String[] names;
+	String[] texts;
+
+	/**
+	 * Creates an empty snapshot
+	 * @param capacity the number of IDs to make room for (it grows when more are used)
+	 */
+	public Snapshot(int capacity) {
+		capacity = Math.max(1, capacity);
+		types = new byte[capacity];
+		ui = new boolean[capacity];
+		shapes = new byte[capacity];
+		x = new int[capacity];
+		y = new int[capacity];
+		width = new int[capacity];
+		height = new int[capacity];
+		colors = new int[capacity];
+		generations = new int[capacity];
+		names = new String[capacity];
+		texts = new String[capacity];
+	}
+
+	/**
+	 * Makes sure there is room for a number of IDs
+	 */
+	void ensure(int capacity) {
+		if(capacity <= types.length) return;
+		capacity = Math.max(capacity, types.length * 2);
+		types = Arrays.copyOf(types, capacity);
+		ui = Arrays.copyOf(ui, capacity);
+		shapes = Arrays.copyOf(shapes, capacity);
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		width = Arrays.copyOf(width, capacity);
+		height = Arrays.copyOf(height, capacity);
+		colors = Arrays.copyOf(colors, capacity);
+		generations = Arrays.copyOf(generations, capacity);
+		names = Arrays.copyOf(names, capacity);
+		texts = Arrays.copyOf(texts, capacity);
+	}
+
+	/**
+	 * Empties the snapshot
+	 */
+	public void clear() {
+		Arrays.fill(types, 0, count, NONE);
+		Arrays.fill(names, 0, count, null);
+		Arrays.fill(texts, 0, count, null);
+		count = 0;
+		tick = -1;
+	}
+
+	/**
+	 * Makes this snapshot a copy of another snapshot
+	 * @param other the snapshot to copy
+	 */
+	public void copyFrom(Snapshot other) {
+		ensure(other.count);
+		int n = other.count;
+		if(count > n) {
+			Arrays.fill(types, n, count, NONE);
+			Arrays.fill(names, n, count, null);
+			Arrays.fill(texts, n, count, null);
+		}
+		System.arraycopy(other.types, 0, types, 0, n);
+		System.arraycopy(other.ui, 0, ui, 0, n);
+		System.arraycopy(other.shapes, 0, shapes, 0, n);
+		System.arraycopy(other.x, 0, x, 0, n);
+		System.arraycopy(other.y, 0, y, 0, n);
+		System.arraycopy(other.width, 0, width, 0, n);
+		System.arraycopy(other.height, 0, height, 0, n);
+		System.arraycopy(other.colors, 0, colors, 0, n);
+		System.arraycopy(other.generations, 0, generations, 0, n);
+		System.arraycopy(other.names, 0, names, 0, n);
+		System.arraycopy(other.texts, 0, texts, 0, n);
+		count = n;
+		tick = other.tick;
+	}
+
+	/**
+	 * Gets the tick the snapshot was taken at
+	 * @return the tick (or -1 if the snapshot is empty)
+	 */
+	public long getTick() {
+		return this.tick;
+	}
+
+	/**
+	 * Gets the number of IDs the snapshot covers (one more than the highest ID in use)
+	 * @return the number of IDs
+	 */
+	public int getIDCount() {
+		return this.count;
+	}
+
+	/**
+	 * Gets the type of the element with an ID
+	 * @param id the network ID
+	 * @return SHAPE, IMAGE, TEXT, or NONE if no element has the ID
+	 */
+	public byte getType(int id) {
+		return id >= 0 && id < count ? types[id] : NONE;
+	}
+
+	/**
+	 * Gets the X position of the element with an ID
+	 * @param id the network ID
+	 * @return the X position
+	 */
+	public int getPosX(int id) {
+		return x[id];
+	}
+
+	/**
+	 * Gets the Y position of the element with an ID
+	 * @param id the network ID
+	 * @return the Y position
+	 */
+	public int getPosY(int id) {
+		return y[id];
+	}
+
+}
@@ -0,0 +1,336 @@
+package dev.johnnyleek.engine.net;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import dev.johnnyleek.engine.asset.AssetPack;
+import dev.johnnyleek.engine.sprite.Drawable;
+import dev.johnnyleek.engine.sprite.Image;
+import dev.johnnyleek.engine.sprite.Shape;
+import dev.johnnyleek.engine.sprite.ShapeType;
+import dev.johnnyleek.engine.sprite.Sprite;
+import dev.johnnyleek.engine.sprite.Text;
+import dev.johnnyleek.engine.tween.ColorCache;
+import dev.johnnyleek.engine.util.Logger;
+import dev.johnnyleek.engine.window.Window;
+
+/**
+ * Decodes snapshots encoded by a SnapshotEncoder, and applies them to a Window.
+ *
+ * Each encoded snapshot is the difference from a baseline, so the decoder keeps a ring of
+ * recently decoded snapshots to find the baseline in. The receiver should tell the sender
+ * which ticks it has decoded, so the sender can use them as baselines.
+ *
+ * Applying a snapshot compares it to the last snapshot applied, and only touches the elements
+ * that changed: new elements are created and added to the window, removed elements are removed,
+ * and changed elements are updated in place (colors come from a ColorCache, so color changes
+ * do not allocate either). Elements are added in the order of their IDs, so the draw order of
+ * new elements may differ from the sender's.
+ *
+ * A decoder must only be used from one thread (usually the game thread).
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class SnapshotDecoder {
+
+	private static final ShapeType[] SHAPES = ShapeType.values();
+
+	private final Snapshot[] history;
+	private Snapshot scratch = new Snapshot(64);
+	private Snapshot latest;
+	private final BitReader reader = new BitReader();
+
+	private final Snapshot applied = new Snapshot(64);
+	private Drawable[] elements = new Drawable[64];
+	private final ColorCache colors = new ColorCache();
+	private final HashMap<String, BufferedImage> images = new HashMap<String, BufferedImage>();
+	private AssetPack pack;
+
+	/**
+	 * Creates a decoder that keeps the last 32 decoded snapshots as possible baselines
+	 */
+	public SnapshotDecoder() {
+		this(32);
+	}
+
+	/**
+	 * Creates a decoder that keeps a custom number of decoded snapshots as possible baselines
+	 * @param history the number of snapshots to keep (at least as many as the sender)
+	 */
+	public SnapshotDecoder(int history) {
+		this.history = new Snapshot[Math.max(2, history)];
+		for(int i = 0; i < this.history.length; i++) this.history[i] = new Snapshot(64);
+	}
+
+	/**
+	 * Decodes a snapshot
+	 * @param in the encoded snapshot (read from its position)
+	 * @return the decoded snapshot (kept by the decoder until it is reused)
+	 * @throws IOException if the snapshot is damaged, or its baseline is no longer kept
+	 */
+	public Snapshot decode(ByteBuffer in) throws IOException {
+		try {
+			BitReader bits = reader.reset(in);
+			long tick = bits.readVarLong();
+			long back = bits.readVarLong();
+			int count = bits.readVarInt();
+			int changes = bits.readVarInt();
+			if(tick < 0 || back < 0 || back > tick || count < 0 || count > SnapshotEncoder.MAX_IDS || changes < 0 || changes > count) {
+				throw new IOException("Damaged snapshot (bad header)");
+			}
+
+			Snapshot existing = getSnapshot(tick);
+			if(existing != null) return existing;
+
+			Snapshot baseline = null;
+			if(back != 0) {
+				baseline = getSnapshot(tick - back);
+				if(baseline == null) throw new IOException("Snapshot " + tick + " is based on snapshot " + (tick - back) + ", which is no longer kept");
+			}
+
+			Snapshot snapshot = scratch;
+			if(baseline != null) snapshot.copyFrom(baseline);
+			else snapshot.clear();
+			snapshot.ensure(count);
+			if(snapshot.count < count) {
+				Arrays.fill(snapshot.types, snapshot.count, count, Snapshot.NONE);
+			}
+			snapshot.count = count;
+			snapshot.tick = tick;
+
+			boolean gaps = bits.readBoolean();
+			int id = -1;
+			for(int i = 0; i < changes; i++) {
+				if(gaps) {
+					id += bits.readUnsigned() + 1;
+				} else {
+					do {
+						id++;
+					} while(id < count && !bits.readBoolean());
+				}
+				if(id < 0 || id >= count) throw new IOException("Damaged snapshot (bad ID " + id + ")");
+				readRecord(bits, snapshot, id);
+			}
+
+			// Keep the snapshot in place of the oldest one
+			int oldest = 0;
+			for(int i = 1; i < history.length; i++) {
+				if(history[i].tick < history[oldest].tick) oldest = i;
+			}
+			scratch = history[oldest];
+			history[oldest] = snapshot;
+			if(latest == null || tick > latest.tick) latest = snapshot;
+			return snapshot;
+		} catch(BufferUnderflowException | IllegalStateException e) {
+			throw new IOException("Damaged snapshot (" + (e.getMessage() != null ? e.getMessage() : "ends early") + ")");
+		}
+	}
+
+	private void readRecord(BitReader bits, Snapshot s, int id) throws IOException {
+		switch(bits.readBits(2)) {
+			case SnapshotEncoder.SPAWN: {
+				byte type = (byte) bits.readBits(2);
+				if(type == Snapshot.NONE) throw new IOException("Damaged snapshot (bad element type)");
+				s.types[id] = type;
+				s.ui[id] = bits.readBoolean();
+				s.generations[id] = bits.readVarInt();
+				s.x[id] = bits.readSigned();
+				s.y[id] = bits.readSigned();
+				s.width[id] = bits.readUnsigned();
+				s.height[id] = bits.readUnsigned();
+				s.colors[id] = type != Snapshot.IMAGE ? bits.readBits(32) : 0;
+				s.shapes[id] = type == Snapshot.SHAPE ? shape(bits.readUnsigned()) : 0;
+				s.names[id] = bits.readString();
+				s.texts[id] = type != Snapshot.SHAPE ? bits.readString() : null;
+				break;
+			}
+			case SnapshotEncoder.UPDATE: {
+				if(s.types[id] == Snapshot.NONE) throw new IOException("Damaged snapshot (update of missing element " + id + ")");
+				if(bits.readBoolean()) s.x[id] += bits.readSigned();
+				if(bits.readBoolean()) s.y[id] += bits.readSigned();
+				if(!bits.readBoolean()) break;
+				if(bits.readBoolean()) s.width[id] += bits.readSigned();
+				if(bits.readBoolean()) s.height[id] += bits.readSigned();
+				if(bits.readBoolean()) s.colors[id] = bits.readBits(32);
+				if(bits.readBoolean()) s.shapes[id] = shape(bits.readUnsigned());
+				s.ui[id] = bits.readBoolean();
+				if(bits.readBoolean()) s.names[id] = bits.readString();
+				if(bits.readBoolean()) s.texts[id] = bits.readString();
+				break;
+			}
+			case SnapshotEncoder.REMOVE:
+				s.types[id] = Snapshot.NONE;
+				s.names[id] = null;
+				s.texts[id] = null;
+				break;
+			default:
+				throw new IOException("Damaged snapshot (unknown record)");
+		}
+	}
+
+	private static byte shape(int shape) throws IOException {
+		if(shape < 0 || shape >= SHAPES.length) throw new IOException("Damaged snapshot (unknown shape " + shape + ")");
+		return (byte) shape;
+	}
+
+	/**
+	 * Gets a snapshot that is still kept by the decoder
+	 * @param tick the tick of the snapshot
+	 * @return the snapshot (or null if it is not kept)
+	 */
+	public Snapshot getSnapshot(long tick) {
+		if(tick < 0) return null;
+		for(Snapshot snapshot : history) {
+			if(snapshot.tick == tick) return snapshot;
+		}
+		return null;
+	}
+
+	/**
+	 * Applies a decoded snapshot to a window, creating, removing, and updating its elements
+	 * (elements are added and removed through the window's scene changes, so they show up
+	 * the next time the changes are applied). Must be called from the game thread.
+	 * @param snapshot the snapshot to apply
+	 * @param window the window to apply it to
+	 * @return true if the snapshot was applied, false if a later snapshot has already been applied
+	 */
+	public boolean apply(Snapshot snapshot, Window window) {
+		if(snapshot.tick <= applied.tick) return false;
+		int count = Math.max(snapshot.count, applied.count);
+		if(elements.length < count) elements = Arrays.copyOf(elements, Math.max(count, elements.length * 2));
+
+		for(int id = 0; id < count; id++) {
+			byte type = snapshot.getType(id);
+			byte before = applied.getType(id);
+			if(type == Snapshot.NONE && before == Snapshot.NONE) continue;
+
+			// A new element (or an Image showing a different file) replaces the old element
+			boolean same = type != Snapshot.NONE && before != Snapshot.NONE && snapshot.generations[id] == applied.generations[id]
+					&& (type != Snapshot.IMAGE || SnapshotEncoder.same(snapshot.texts[id], applied.texts[id]));
+			if(!same) {
+				if(elements[id] != null) {
+					if(applied.ui[id]) window.removeUIElement(elements[id]);
+					else window.removeGameElement(elements[id]);
+					elements[id] = null;
+				}
+				if(type != Snapshot.NONE) {
+					Drawable element = create(snapshot, id);
+					elements[id] = element;
+					if(element == null) continue;
+					if(snapshot.ui[id]) window.addUIElement(element);
+					else window.addGameElement(element);
+				}
+			} else if(elements[id] != null) {
+				update(snapshot, id, elements[id], window);
+			}
+		}
+		applied.copyFrom(snapshot);
+		return true;
+	}
+
+	private Drawable create(Snapshot s, int id) {
+		Color color = colors.get(s.colors[id]);
+		switch(s.types[id]) {
+			case Snapshot.SHAPE:
+				return new Shape(SHAPES[s.shapes[id]], color, s.width[id], s.height[id], s.x[id], s.y[id], s.names[id]);
+			case Snapshot.TEXT:
+				return new Text(s.texts[id], color, s.x[id], s.y[id], s.names[id]);
+			default:
+				try {
+					Image image = image(s.texts[id], s.x[id], s.y[id]);
+					if(image.getWidth() != s.width[id] || image.getHeight() != s.height[id]) image.setSize(s.width[id], s.height[id]);
+					image.setName(s.names[id]);
+					return image;
+				} catch(IOException e) {
+					Logger.error("Failed to load image \"{}\" for networked element {}", s.texts[id], id);
+					e.printStackTrace();
+					return null;
+				}
+		}
+	}
+
+	/**
+	 * Creates an Image, loading its file only the first time the asset path is used
+	 */
+	private Image image(String assetPath, int x, int y) throws IOException {
+		if(assetPath == null) throw new IOException("Image with no asset path");
+		BufferedImage loaded = images.get(assetPath);
+		if(loaded == null) {
+			Image image = pack != null && pack.contains(assetPath) ? new Image(pack, assetPath, x, y) : new Image(assetPath, x, y);
+			images.put(assetPath, image.getImage());
+			return image;
+		}
+		Image image = new Image(loaded, x, y);
+		image.setAssetPath(assetPath);
+		return image;
+	}
+
+	/**
+	 * Updates an element in place from a snapshot (only touching what changed since the last applied snapshot)
+	 */
+	private void update(Snapshot s, int id, Drawable element, Window window) {
+		Snapshot a = applied;
+		if(s.x[id] != a.x[id]) element.setPosX(s.x[id]);
+		if(s.y[id] != a.y[id]) element.setPosY(s.y[id]);
+		if((s.width[id] != a.width[id] || s.height[id] != a.height[id]) && element instanceof Sprite) {
+			((Sprite) element).setSize(s.width[id], s.height[id]);
+		}
+		if(s.colors[id] != a.colors[id]) {
+			if(element instanceof Shape) ((Shape) element).setColor(colors.get(s.colors[id]));
+			else if(element instanceof Text) ((Text) element).setColor(colors.get(s.colors[id]));
+		}
+		if(s.shapes[id] != a.shapes[id] && element instanceof Shape) ((Shape) element).setShape(SHAPES[s.shapes[id]]);
+		if(!SnapshotEncoder.same(s.names[id], a.names[id])) element.setName(s.names[id]);
+		if(!SnapshotEncoder.same(s.texts[id], a.texts[id]) && element instanceof Text) ((Text) element).setText(s.texts[id]);
+		if(s.ui[id] != a.ui[id]) {
+			if(a.ui[id]) {
+				window.removeUIElement(element);
+				window.addGameElement(element);
+			} else {
+				window.removeGameElement(element);
+				window.addUIElement(element);
+			}
+		}
+	}
+
+	/**
+	 * Gets the element with a network ID (as of the last applied snapshot)
+	 * @param id the network ID
+	 * @return the element (or null if no element has the ID)
+	 */
+	public Drawable getElement(int id) {
+		return id >= 0 && id < applied.count ? elements[id] : null;
+	}
+
+	/**
+	 * Gets the latest decoded snapshot
+	 * @return the snapshot with the highest tick (or null if nothing has been decoded)
+	 */
+	public Snapshot getLatest() {
+		return this.latest;
+	}
+
+	/**
+	 * Gets the tick of the last applied snapshot
+	 * @return the tick (or -1 if nothing has been applied)
+	 */
+	public long getAppliedTick() {
+		return this.applied.tick;
+	}
+
+	/**
+	 * Sets the AssetPack images are loaded from (images not in the pack are loaded from the disk)
+	 * @param pack the AssetPack (or null to load every image from the disk)
+	 */
+	public void setAssetPack(AssetPack pack) {
+		this.pack = pack;
+	}
+
+}
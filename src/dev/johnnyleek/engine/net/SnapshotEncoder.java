@@ -0,0 +1,391 @@
+package dev.johnnyleek.engine.net;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import dev.johnnyleek.engine.sprite.Drawable;
+import dev.johnnyleek.engine.sprite.Image;
+import dev.johnnyleek.engine.sprite.Shape;
+import dev.johnnyleek.engine.sprite.Sprite;
+import dev.johnnyleek.engine.sprite.Text;
+import dev.johnnyleek.engine.window.Window;
+
+/**
+ * Captures the elements of a Window into Snapshots, and encodes each snapshot as the
+ * difference from an earlier snapshot (the baseline) that the receiver already has.
+ *
+ * Capturing gives every Shape, Text, and Image (with an asset path) in the window a network ID,
+ * and copies its state into the next snapshot of a ring of recent snapshots (other types of
+ * element are not sent). A server captures once per tick, and then encodes the latest snapshot
+ * for each client against the last snapshot that client acknowledged.
+ *
+ * An encoded snapshot is a stream of bits (see "BitWriter"):
+ * 	- A header: the tick, how many ticks before it the baseline was (0 if there is none, and every
+ * 	  element is sent in full), the number of IDs, and the number of IDs that changed
+ * 	- Which IDs changed: either a bitmap with one bit per ID (up to the last changed ID), or the
+ * 	  gaps between the changed IDs (whichever is smaller), with the record of each changed ID
+ * 	  right after it. Each record starts with what happened to the ID:
+ * 		- UPDATE: a bit for each of X and Y saying if it changed, followed by how far it moved,
+ * 		  then a bit saying if anything else changed (followed by a bit and the new value for each of
+ * 		  the width, height, color, shape, name, and text). Positions and sizes are sent as the change
+ * 		  from the baseline, so an element moving a few pixels per tick costs about 2 bytes.
+ * 		- SPAWN: everything about a new element (or a new element reusing the ID of a removed one)
+ * 		- REMOVE: nothing more
+ * Elements that did not change cost nothing besides their bit in the bitmap (if one is used).
+ *
+ * Capturing and encoding does not allocate, except when an element is given an ID, or its name
+ * or text is sent.
+ *
+ * An encoder must only be used from one thread (usually the game thread).
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class SnapshotEncoder {
+
+	static final int UPDATE = 0;
+	static final int SPAWN = 1;
+	static final int REMOVE = 2;
+	static final int MAX_IDS = 1 << 24;
+
+	private final Snapshot[] history;
+	private long captures;
+	private Snapshot latest;
+
+	private final IdentityHashMap<Drawable, Integer> ids = new IdentityHashMap<Drawable, Integer>();
+	private Drawable[] elements = new Drawable[64];
+	private boolean[] ui = new boolean[64];
+	private int[] stamps = new int[64];
+	private int[] generations = new int[64];
+	private int[] free = new int[64];
+	private int freeCount;
+	private int idCount;
+	private int stamp;
+
+	private int[] changed = new int[64];
+	private byte[] ops = new byte[64];
+	private final BitWriter writer = new BitWriter();
+	private int lastChangedCount;
+
+	/**
+	 * Creates an encoder that keeps the last 32 snapshots as possible baselines
+	 */
+	public SnapshotEncoder() {
+		this(32);
+	}
+
+	/**
+	 * Creates an encoder that keeps a custom number of recent snapshots as possible baselines
+	 * @param history the number of snapshots to keep (at least 2)
+	 */
+	public SnapshotEncoder(int history) {
+		this.history = new Snapshot[Math.max(2, history)];
+		for(int i = 0; i < this.history.length; i++) this.history[i] = new Snapshot(64);
+	}
+
+	/**
+	 * Captures the game and UI elements of a window (as of the last time its scene changes were applied).
+	 * Must be called from the game thread.
+	 * @param window the window to capture
+	 * @param tick the tick of the snapshot (must be higher than the tick of the last snapshot)
+	 * @return the snapshot (kept by the encoder until it is reused, after "history" more captures)
+	 */
+	public Snapshot capture(Window window, long tick) {
+		if(latest != null && tick <= latest.tick) throw new IllegalArgumentException("Snapshot tick " + tick + " is not after the last snapshot (" + latest.tick + ")");
+		stamp++;
+		mark(window.getGameElementSnapshot(), false);
+		mark(window.getUIElementSnapshot(), true);
+
+		Snapshot snapshot = history[(int) (captures++ % history.length)];
+		snapshot.ensure(idCount);
+		if(snapshot.count > idCount) snapshot.clear();
+
+		for(int id = 0; id < idCount; id++) {
+			Drawable element = elements[id];
+			if(element != null && stamps[id] != stamp) {
+				// Removed since the last capture
+				ids.remove(element);
+				elements[id] = null;
+				free[freeCount++] = id;
+				element = null;
+			}
+			if(element == null) {
+				snapshot.types[id] = Snapshot.NONE;
+				snapshot.names[id] = null;
+				snapshot.texts[id] = null;
+				continue;
+			}
+			store(snapshot, id, element);
+		}
+		snapshot.count = idCount;
+		snapshot.tick = tick;
+		latest = snapshot;
+		return snapshot;
+	}
+
+	/**
+	 * Gives every element an ID (if it does not have one), and stamps it as still in the window
+	 */
+	private void mark(Drawable[] window, boolean isUI) {
+		for(Drawable element : window) {
+			Integer known = ids.get(element);
+			int id;
+			if(known != null) {
+				id = known;
+			} else {
+				if(type(element) == Snapshot.NONE) continue;
+				id = allocate();
+				ids.put(element, id);
+				elements[id] = element;
+				generations[id]++;
+			}
+			ui[id] = isUI;
+			stamps[id] = stamp;
+		}
+	}
+
+	private int allocate() {
+		if(freeCount > 0) return free[--freeCount];
+		if(idCount == MAX_IDS) throw new IllegalStateException("Too many networked elements");
+		if(idCount == elements.length) {
+			int capacity = elements.length * 2;
+			elements = Arrays.copyOf(elements, capacity);
+			ui = Arrays.copyOf(ui, capacity);
+			stamps = Arrays.copyOf(stamps, capacity);
+			generations = Arrays.copyOf(generations, capacity);
+			free = Arrays.copyOf(free, capacity);
+		}
+		return idCount++;
+	}
+
+	static byte type(Drawable element) {
+		if(element instanceof Shape) return Snapshot.SHAPE;
+		if(element instanceof Text) return Snapshot.TEXT;
+		if(element instanceof Image && ((Image) element).getAssetPath() != null) return Snapshot.IMAGE;
+		return Snapshot.NONE;
+	}
+
+	/**
+	 * Copies the state of an element into a snapshot
+	 */
+	private void store(Snapshot snapshot, int id, Drawable element) {
+		byte type = type(element);
+		snapshot.types[id] = type;
+		snapshot.ui[id] = ui[id];
+		snapshot.generations[id] = generations[id];
+		snapshot.x[id] = element.getPosX();
+		snapshot.y[id] = element.getPosY();
+		snapshot.names[id] = element.getName();
+
+		int width = 0, height = 0;
+		if(element instanceof Sprite && ((Sprite) element).getSize() != null) {
+			width = ((Sprite) element).getWidth();
+			height = ((Sprite) element).getHeight();
+		}
+		snapshot.width[id] = width;
+		snapshot.height[id] = height;
+
+		switch(type) {
+			case Snapshot.SHAPE: {
+				Shape shape = (Shape) element;
+				snapshot.colors[id] = shape.getColor() != null ? shape.getColor().getRGB() : 0;
+				snapshot.shapes[id] = shape.getShape() != null ? (byte) shape.getShape().ordinal() : 0;
+				snapshot.texts[id] = null;
+				break;
+			}
+			case Snapshot.TEXT: {
+				Text text = (Text) element;
+				snapshot.colors[id] = text.getColor() != null ? text.getColor().getRGB() : 0;
+				snapshot.shapes[id] = 0;
+				snapshot.texts[id] = text.getText();
+				break;
+			}
+			default:
+				snapshot.colors[id] = 0;
+				snapshot.shapes[id] = 0;
+				snapshot.texts[id] = ((Image) element).getAssetPath();
+				break;
+		}
+	}
+
+	/**
+	 * Encodes the latest snapshot against an earlier snapshot that the receiver already has
+	 * @param baselineTick the tick of the receiver's baseline (or -1 if it has none). If the encoder
+	 * no longer has the baseline, the snapshot is encoded in full.
+	 * @param out the buffer to write to (from its position)
+	 * @return the number of bytes written
+	 * @throws java.nio.BufferOverflowException if the buffer is too small
+	 */
+	public int encode(long baselineTick, ByteBuffer out) {
+		if(latest == null) throw new IllegalStateException("Nothing has been captured yet");
+		return encode(latest, getSnapshot(baselineTick), out);
+	}
+
+	/**
+	 * Gets a snapshot that is still kept by the encoder
+	 * @param tick the tick of the snapshot
+	 * @return the snapshot (or null if it is not kept)
+	 */
+	public Snapshot getSnapshot(long tick) {
+		if(tick < 0) return null;
+		for(Snapshot snapshot : history) {
+			if(snapshot.tick == tick) return snapshot;
+		}
+		return null;
+	}
+
+	/**
+	 * Encodes a snapshot as the difference from a baseline snapshot
+	 * @param current the snapshot to encode
+	 * @param baseline the snapshot the receiver already has (or null to encode every element in full).
+	 * Its tick must be lower than the tick of the current snapshot.
+	 * @param out the buffer to write to (from its position)
+	 * @return the number of bytes written
+	 * @throws java.nio.BufferOverflowException if the buffer is too small
+	 */
+	public int encode(Snapshot current, Snapshot baseline, ByteBuffer out) {
+		if(baseline != null && baseline.tick >= current.tick) throw new IllegalArgumentException("Baseline tick " + baseline.tick + " is not before snapshot tick " + current.tick);
+		int count = baseline != null ? Math.max(current.count, baseline.count) : current.count;
+		int changes = diff(current, baseline, count);
+		lastChangedCount = changes;
+
+		BitWriter bits = writer.reset(out);
+		bits.writeVarLong(current.tick);
+		bits.writeVarLong(baseline != null ? current.tick - baseline.tick : 0);
+		bits.writeVarInt(count);
+		bits.writeVarInt(changes);
+
+		// Which IDs changed (the gaps between them when few changed, otherwise a bitmap),
+		// each followed by its record
+		boolean gaps = changes * 6L < count;
+		bits.writeBoolean(gaps);
+		int last = -1;
+		for(int i = 0; i < changes; i++) {
+			int id = changed[i];
+			if(gaps) {
+				bits.writeUnsigned(id - last - 1);
+			} else {
+				for(int skipped = last + 1; skipped < id; skipped++) bits.writeBoolean(false);
+				bits.writeBoolean(true);
+			}
+			last = id;
+
+			bits.writeBits(ops[i], 2);
+			if(ops[i] == SPAWN) writeSpawn(bits, current, id);
+			else if(ops[i] == UPDATE) writeUpdate(bits, current, baseline, id);
+		}
+		return bits.finish();
+	}
+
+	/**
+	 * Finds every ID that changed between the baseline and the current snapshot
+	 * @return the number of changed IDs (listed in "changed" and "ops")
+	 */
+	private int diff(Snapshot current, Snapshot baseline, int count) {
+		if(changed.length < count) {
+			changed = new int[Math.max(count, changed.length * 2)];
+			ops = new byte[changed.length];
+		}
+		int changes = 0;
+		for(int id = 0; id < count; id++) {
+			byte type = id < current.count ? current.types[id] : Snapshot.NONE;
+			byte before = baseline != null && id < baseline.count ? baseline.types[id] : Snapshot.NONE;
+			int op;
+			if(type == Snapshot.NONE) {
+				if(before == Snapshot.NONE) continue;
+				op = REMOVE;
+			} else if(before == Snapshot.NONE || baseline.generations[id] != current.generations[id]) {
+				op = SPAWN;
+			} else if(differs(current, baseline, id)) {
+				op = UPDATE;
+			} else {
+				continue;
+			}
+			changed[changes] = id;
+			ops[changes++] = (byte) op;
+		}
+		return changes;
+	}
+
+	private static boolean differs(Snapshot a, Snapshot b, int id) {
+		return a.x[id] != b.x[id] || a.y[id] != b.y[id] || a.width[id] != b.width[id] || a.height[id] != b.height[id]
+				|| a.colors[id] != b.colors[id] || a.shapes[id] != b.shapes[id] || a.ui[id] != b.ui[id]
+				|| !same(a.names[id], b.names[id]) || !same(a.texts[id], b.texts[id]);
+	}
+
+	static boolean same(String a, String b) {
+		return a == b || (a != null && a.equals(b));
+	}
+
+	private static void writeSpawn(BitWriter bits, Snapshot s, int id) {
+		bits.writeBits(s.types[id], 2);
+		bits.writeBoolean(s.ui[id]);
+		bits.writeVarInt(s.generations[id]);
+		bits.writeSigned(s.x[id]);
+		bits.writeSigned(s.y[id]);
+		bits.writeUnsigned(s.width[id]);
+		bits.writeUnsigned(s.height[id]);
+		if(s.types[id] != Snapshot.IMAGE) bits.writeBits(s.colors[id], 32);
+		if(s.types[id] == Snapshot.SHAPE) bits.writeUnsigned(s.shapes[id]);
+		bits.writeString(s.names[id]);
+		if(s.types[id] != Snapshot.SHAPE) bits.writeString(s.texts[id]);
+	}
+
+	private static void writeUpdate(BitWriter bits, Snapshot s, Snapshot b, int id) {
+		int dx = s.x[id] - b.x[id], dy = s.y[id] - b.y[id];
+		bits.writeBoolean(dx != 0);
+		if(dx != 0) bits.writeSigned(dx);
+		bits.writeBoolean(dy != 0);
+		if(dy != 0) bits.writeSigned(dy);
+
+		boolean sizeChanged = s.width[id] != b.width[id] || s.height[id] != b.height[id];
+		boolean more = sizeChanged || s.colors[id] != b.colors[id] || s.shapes[id] != b.shapes[id] || s.ui[id] != b.ui[id]
+				|| !same(s.names[id], b.names[id]) || !same(s.texts[id], b.texts[id]);
+		bits.writeBoolean(more);
+		if(!more) return;
+
+		int dw = s.width[id] - b.width[id], dh = s.height[id] - b.height[id];
+		bits.writeBoolean(dw != 0);
+		if(dw != 0) bits.writeSigned(dw);
+		bits.writeBoolean(dh != 0);
+		if(dh != 0) bits.writeSigned(dh);
+		bits.writeBoolean(s.colors[id] != b.colors[id]);
+		if(s.colors[id] != b.colors[id]) bits.writeBits(s.colors[id], 32);
+		bits.writeBoolean(s.shapes[id] != b.shapes[id]);
+		if(s.shapes[id] != b.shapes[id]) bits.writeUnsigned(s.shapes[id]);
+		bits.writeBoolean(s.ui[id]);
+		bits.writeBoolean(!same(s.names[id], b.names[id]));
+		if(!same(s.names[id], b.names[id])) bits.writeString(s.names[id]);
+		bits.writeBoolean(!same(s.texts[id], b.texts[id]));
+		if(!same(s.texts[id], b.texts[id])) bits.writeString(s.texts[id]);
+	}
+
+	/**
+	 * Gets the latest captured snapshot
+	 * @return the latest snapshot (or null if nothing has been captured)
+	 */
+	public Snapshot getLatest() {
+		return this.latest;
+	}
+
+	/**
+	 * Gets the network ID of an element
+	 * @param element the element
+	 * @return the ID (or -1 if the element was not in the window at the last capture)
+	 */
+	public int getID(Drawable element) {
+		Integer id = ids.get(element);
+		return id != null ? id : -1;
+	}
+
+	/**
+	 * Gets the number of IDs that changed in the last encoded snapshot
+	 * @return the number of changed IDs
+	 */
+	public int getLastChangedCount() {
+		return this.lastChangedCount;
+	}
+
+}
@@ -0,0 +1,15 @@
+package dev.johnnyleek.engine.physics;
+
+/**
+ * Defines the collision shapes a RigidBody can have.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public enum BodyShape {
+
+	BOX,
+	CIRCLE
+
+}
@@ -0,0 +1,636 @@
+package dev.johnnyleek.engine.physics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import dev.johnnyleek.engine.sprite.Sprite;
+
+/**
+ * Simulates RigidBodies at a fixed timestep.
+ *
+ * Every call to "step()" performs the following logic:
+ * 	- Teleports bodies whose Sprites were moved by hand (moving a static body wakes every body it touched or now touches)
+ * 	- Finds touching bodies (sweep and prune along the X axis, then exact shape tests)
+ * 	- Splits the touching bodies into independent islands
+ * 	- Solves each island (gravity, contact impulses, position integration) in parallel
+ * 	- Puts islands that have come to rest to sleep
+ * 	- Writes the new positions back into the Sprites
+ *
+ * Islands never share a dynamic body, so they can be solved on different threads
+ * without any locking. Static bodies are only ever read by the solver.
+ *
+ * Sleeping islands are skipped entirely until something touches them, or one of
+ * their bodies is woken up by hand.
+ *
+ * The world must only be modified (bodies added or removed) from the game thread.
+ * It is stepped automatically once per tick when attached to a Game using "setPhysicsWorld".
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class PhysicsWorld {
+
+	private static final int SOLVER_ITERATIONS = 6;
+	private static final double CONTACT_MARGIN = 1;
+	private static final double POSITION_SLOP = 0.5;
+	private static final double POSITION_CORRECTION = 0.4;
+	private static final double RESTITUTION_THRESHOLD = 60;
+	private static final double SLEEP_VELOCITY_SQ = 16;
+	private static final int SLEEP_TICKS = 30;
+	private static final int PARALLEL_GRAIN = 256;
+
+	private final List<RigidBody> bodies = new ArrayList<RigidBody>();
+	private final ForkJoinPool pool;
+
+	private double gravityX = 0;
+	private double gravityY = 980;
+	private double timeStep;
+
+	// Bodies sorted by their left edge (kept between steps, since the order barely changes)
+	private int[] order = new int[64];
+	private double[] minX = new double[64];
+
+	// Contacts found this step (structure of arrays)
+	private int contactCount;
+	private int[] contactA = new int[256];
+	private int[] contactB = new int[256];
+	private double[] contactNormalX = new double[256];
+	private double[] contactNormalY = new double[256];
+	private double[] contactDepth = new double[256];
+	private double[] contactBounce = new double[256];
+	private double[] contactImpulse = new double[256];
+	private double[] contactTangentImpulse = new double[256];
+
+	// Island bookkeeping
+	private int[] parent = new int[64];
+	private int[] islandOf = new int[64];
+	private int[] islandBodyStart = new int[64];
+	private int[] islandContactStart = new int[64];
+	private int[] islandBodies = new int[64];
+	private int[] islandContacts = new int[256];
+	private int[] islandFill = new int[64];
+	private boolean[] islandAwake = new boolean[64];
+	private int islandCount;
+
+	/**
+	 * Creates a world that steps 60 times per second, solving islands on the common ForkJoin pool
+	 */
+	public PhysicsWorld() {
+		this(1.0 / 60, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a world with a custom timestep and ForkJoin pool
+	 * @param timeStep the amount of time (in seconds) simulated by each step
+	 * @param pool the pool used to solve islands in parallel
+	 */
+	public PhysicsWorld(double timeStep, ForkJoinPool pool) {
+		this.timeStep = timeStep;
+		this.pool = pool;
+	}
+
+	/**
+	 * Creates a new body for the Sprite and adds it to the world
+	 * @param sprite the Sprite to simulate
+	 * @param mass the mass of the body (0 for a static body)
+	 * @return the newly created RigidBody
+	 */
+	public RigidBody addBody(Sprite sprite, double mass) {
+		RigidBody body = new RigidBody(sprite, mass);
+		addBody(body);
+		return body;
+	}
+
+	/**
+	 * Adds a body to the world
+	 * @param body the body to simulate
+	 */
+	public void addBody(RigidBody body) {
+		if(body.index >= 0) return;
+		body.index = bodies.size();
+		bodies.add(body);
+		ensureBodyCapacity(bodies.size());
+		order[body.index] = body.index;
+	}
+
+	/**
+	 * Removes a body from the world
+	 * @param body the body to stop simulating
+	 */
+	public void removeBody(RigidBody body) {
+		if(body.index < 0) return;
+		int removed = body.index;
+		RigidBody last = bodies.remove(bodies.size() - 1);
+		if(last != body) {
+			bodies.set(removed, last);
+			last.index = removed;
+		}
+		body.index = -1;
+
+		// Rebuild the sweep order without the removed slot
+		int count = bodies.size();
+		for(int i = 0; i < count; i++) {
+			order[i] = i;
+		}
+	}
+
+	/**
+	 * Gets every body in the world
+	 * @return a List of the bodies in the world
+	 */
+	public List<RigidBody> getBodies() {
+		return bodies;
+	}
+
+	/**
+	 * Sets the gravity applied to every dynamic body
+	 * @param gravityX the X acceleration (in pixels per second squared)
+	 * @param gravityY the Y acceleration (in pixels per second squared)
+	 */
+	public void setGravity(double gravityX, double gravityY) {
+		this.gravityX = gravityX;
+		this.gravityY = gravityY;
+		for(RigidBody body : bodies) {
+			body.wake();
+		}
+	}
+
+	/**
+	 * Gets the amount of time simulated by each step
+	 * @return the timestep (in seconds)
+	 */
+	public double getTimeStep() {
+		return timeStep;
+	}
+
+	/**
+	 * Sets the amount of time simulated by each step
+	 * @param timeStep the new timestep (in seconds)
+	 */
+	public void setTimeStep(double timeStep) {
+		this.timeStep = timeStep;
+	}
+
+	/**
+	 * Gets the number of islands solved in the last step (including single bodies)
+	 * @return the number of islands
+	 */
+	public int getIslandCount() {
+		return islandCount;
+	}
+
+	/**
+	 * Gets the number of contacts found in the last step
+	 * @return the number of contacts
+	 */
+	public int getContactCount() {
+		return contactCount;
+	}
+
+	/**
+	 * Advances the simulation by one timestep
+	 */
+	public void step() {
+		int count = bodies.size();
+		if(count == 0) return;
+
+		for(int i = 0; i < count; i++) {
+			RigidBody body = bodies.get(i);
+			if(body.syncFromSprite() && body.isStatic()) wakeTouching(body, count);
+		}
+
+		findContacts(count);
+		buildIslands(count);
+
+		if(count + contactCount < PARALLEL_GRAIN * 2) {
+			solveIslands(0, islandCount);
+		} else {
+			pool.invoke(new IslandTask(0, islandCount));
+		}
+	}
+
+	/**
+	 * Wakes every sleeping body touching a static body that was moved by hand, at either its old
+	 * or its new position (static bodies are never active, so the broad phase alone would leave
+	 * bodies resting on a moved platform floating where it used to be)
+	 */
+	private void wakeTouching(RigidBody moved, int count) {
+		double width = moved.sprite.getWidth() + CONTACT_MARGIN;
+		double height = moved.sprite.getHeight() + CONTACT_MARGIN;
+		for(int i = 0; i < count; i++) {
+			RigidBody body = bodies.get(i);
+			if(!body.sleeping || body.isStatic()) continue;
+			double bodyWidth = body.sprite.getWidth() + CONTACT_MARGIN;
+			double bodyHeight = body.sprite.getHeight() + CONTACT_MARGIN;
+			boolean touchedOld = body.x < moved.lastX + width && moved.lastX < body.x + bodyWidth
+					&& body.y < moved.lastY + height && moved.lastY < body.y + bodyHeight;
+			boolean touchesNew = body.x < moved.x + width && moved.x < body.x + bodyWidth
+					&& body.y < moved.y + height && moved.y < body.y + bodyHeight;
+			if(touchedOld || touchesNew) body.wake();
+		}
+	}
+
+	/**
+	 * Broad phase (sweep and prune on the X axis) followed by the narrow phase
+	 */
+	private void findContacts(int count) {
+		contactCount = 0;
+
+		for(int i = 0; i < count; i++) {
+			RigidBody body = bodies.get(i);
+			minX[i] = body.x;
+		}
+
+		// Insertion sort, since the order is nearly identical to the last step
+		for(int i = 1; i < count; i++) {
+			int value = order[i];
+			double key = minX[value];
+			int j = i - 1;
+			while(j >= 0 && (minX[order[j]] > key || (minX[order[j]] == key && order[j] > value))) {
+				order[j + 1] = order[j];
+				j--;
+			}
+			order[j + 1] = value;
+		}
+
+		for(int i = 0; i < count; i++) {
+			RigidBody a = bodies.get(order[i]);
+			boolean activeA = !a.sleeping && !a.isStatic();
+			double maxX = a.x + a.sprite.getWidth() + CONTACT_MARGIN;
+
+			for(int j = i + 1; j < count; j++) {
+				RigidBody b = bodies.get(order[j]);
+				if(b.x >= maxX) break;
+
+				boolean activeB = !b.sleeping && !b.isStatic();
+				if(!activeA && !activeB) continue;
+				if(a.isStatic() && b.isStatic()) continue;
+				if(a.y >= b.y + b.sprite.getHeight() + CONTACT_MARGIN || b.y >= a.y + a.sprite.getHeight() + CONTACT_MARGIN) continue;
+
+				collide(a, b);
+			}
+		}
+	}
+
+	/**
+	 * Narrow phase: records a contact if the two shapes overlap (or are within CONTACT_MARGIN of each other).
+	 * The contact normal always points from body A to body B, and a negative depth is the gap between the shapes.
+	 */
+	private void collide(RigidBody a, RigidBody b) {
+		double ax = a.x + a.halfWidth(), ay = a.y + a.halfHeight();
+		double bx = b.x + b.halfWidth(), by = b.y + b.halfHeight();
+		double dx = bx - ax, dy = by - ay;
+
+		if(a.shape == BodyShape.CIRCLE && b.shape == BodyShape.CIRCLE) {
+			double radii = a.radius() + b.radius();
+			double distSq = dx * dx + dy * dy;
+			if(distSq >= (radii + CONTACT_MARGIN) * (radii + CONTACT_MARGIN)) return;
+			double dist = Math.sqrt(distSq);
+			if(dist == 0) {
+				addContact(a.index, b.index, 0, 1, radii);
+			} else {
+				addContact(a.index, b.index, dx / dist, dy / dist, radii - dist);
+			}
+		} else if(a.shape == BodyShape.BOX && b.shape == BodyShape.BOX) {
+			double overlapX = a.halfWidth() + b.halfWidth() - Math.abs(dx);
+			double overlapY = a.halfHeight() + b.halfHeight() - Math.abs(dy);
+			if(overlapX <= -CONTACT_MARGIN || overlapY <= -CONTACT_MARGIN) return;
+			if(overlapX < 0 && overlapY < 0) return;
+			if(overlapX < overlapY) {
+				addContact(a.index, b.index, dx < 0 ? -1 : 1, 0, overlapX);
+			} else {
+				addContact(a.index, b.index, 0, dy < 0 ? -1 : 1, overlapY);
+			}
+		} else if(a.shape == BodyShape.BOX) {
+			collideBoxCircle(a, b, ax, ay, bx, by, false);
+		} else {
+			collideBoxCircle(b, a, bx, by, ax, ay, true);
+		}
+	}
+
+	private void collideBoxCircle(RigidBody box, RigidBody circle, double boxX, double boxY, double circleX, double circleY, boolean flip) {
+		double hw = box.halfWidth(), hh = box.halfHeight();
+		double radius = circle.radius();
+		double dx = circleX - boxX, dy = circleY - boxY;
+		double closestX = Math.max(-hw, Math.min(hw, dx));
+		double closestY = Math.max(-hh, Math.min(hh, dy));
+
+		double nx, ny, depth;
+		if(closestX == dx && closestY == dy) {
+			// Circle center is inside the box, push out along the shallowest axis
+			double pushX = hw - Math.abs(dx);
+			double pushY = hh - Math.abs(dy);
+			if(pushX < pushY) {
+				nx = dx < 0 ? -1 : 1;
+				ny = 0;
+				depth = pushX + radius;
+			} else {
+				nx = 0;
+				ny = dy < 0 ? -1 : 1;
+				depth = pushY + radius;
+			}
+		} else {
+			double ox = dx - closestX, oy = dy - closestY;
+			double distSq = ox * ox + oy * oy;
+			if(distSq >= (radius + CONTACT_MARGIN) * (radius + CONTACT_MARGIN)) return;
+			double dist = Math.sqrt(distSq);
+			nx = ox / dist;
+			ny = oy / dist;
+			depth = radius - dist;
+		}
+
+		if(flip) {
+			addContact(circle.index, box.index, -nx, -ny, depth);
+		} else {
+			addContact(box.index, circle.index, nx, ny, depth);
+		}
+	}
+
+	private void addContact(int a, int b, double nx, double ny, double depth) {
+		if(contactCount == contactA.length) {
+			int size = contactCount * 2;
+			contactA = Arrays.copyOf(contactA, size);
+			contactB = Arrays.copyOf(contactB, size);
+			contactNormalX = Arrays.copyOf(contactNormalX, size);
+			contactNormalY = Arrays.copyOf(contactNormalY, size);
+			contactDepth = Arrays.copyOf(contactDepth, size);
+			contactBounce = Arrays.copyOf(contactBounce, size);
+			contactImpulse = Arrays.copyOf(contactImpulse, size);
+			contactTangentImpulse = Arrays.copyOf(contactTangentImpulse, size);
+			islandContacts = Arrays.copyOf(islandContacts, size);
+		}
+		contactA[contactCount] = a;
+		contactB[contactCount] = b;
+		contactNormalX[contactCount] = nx;
+		contactNormalY[contactCount] = ny;
+		contactDepth[contactCount] = depth;
+		contactCount++;
+	}
+
+	private int find(int i) {
+		while(parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	/**
+	 * Groups dynamic bodies connected by contacts into islands (union-find), wakes
+	 * islands touched by an awake body, and lays out each island's bodies and contacts
+	 * contiguously so they can be solved independently.
+	 */
+	private void buildIslands(int count) {
+		for(int i = 0; i < count; i++) {
+			parent[i] = i;
+		}
+		for(int c = 0; c < contactCount; c++) {
+			int a = contactA[c], b = contactB[c];
+			if(bodies.get(a).isStatic() || bodies.get(b).isStatic()) continue;
+			int rootA = find(a), rootB = find(b);
+			if(rootA != rootB) {
+				if(rootA < rootB) parent[rootB] = rootA;
+				else parent[rootA] = rootB;
+			}
+		}
+
+		// Assign compact island numbers (static bodies are not part of any island)
+		islandCount = 0;
+		for(int i = 0; i < count; i++) {
+			if(bodies.get(i).isStatic()) {
+				islandOf[i] = -1;
+			} else if(find(i) == i) {
+				islandAwake[islandCount] = false;
+				islandBodyStart[islandCount] = 0;
+				islandContactStart[islandCount] = 0;
+				islandOf[i] = islandCount++;
+			}
+		}
+		for(int i = 0; i < count; i++) {
+			if(!bodies.get(i).isStatic()) {
+				int island = islandOf[find(i)];
+				islandOf[i] = island;
+				if(!bodies.get(i).sleeping) islandAwake[island] = true;
+				islandBodyStart[island]++;
+			}
+		}
+		for(int c = 0; c < contactCount; c++) {
+			int island = contactIsland(c);
+			islandContactStart[island]++;
+		}
+
+		// Counts -> start offsets
+		int bodyOffset = 0, contactOffset = 0;
+		for(int k = 0; k < islandCount; k++) {
+			int bodiesInIsland = islandBodyStart[k];
+			int contactsInIsland = islandContactStart[k];
+			islandBodyStart[k] = bodyOffset;
+			islandContactStart[k] = contactOffset;
+			bodyOffset += bodiesInIsland;
+			contactOffset += contactsInIsland;
+		}
+		islandBodyStart[islandCount] = bodyOffset;
+		islandContactStart[islandCount] = contactOffset;
+
+		// Scatter into the island arrays, keeping bodies and contacts in ascending order
+		System.arraycopy(islandBodyStart, 0, islandFill, 0, islandCount);
+		for(int i = 0; i < count; i++) {
+			int island = islandOf[i];
+			if(island < 0) continue;
+			RigidBody body = bodies.get(i);
+			if(islandAwake[island] && body.sleeping) body.wake();
+			islandBodies[islandFill[island]++] = i;
+		}
+		System.arraycopy(islandContactStart, 0, islandFill, 0, islandCount);
+		for(int c = 0; c < contactCount; c++) {
+			islandContacts[islandFill[contactIsland(c)]++] = c;
+		}
+	}
+
+	private int contactIsland(int c) {
+		int island = islandOf[contactA[c]];
+		return island >= 0 ? island : islandOf[contactB[c]];
+	}
+
+	/**
+	 * Solves a range of islands. Islands are independent, so ranges can run on different threads.
+	 */
+	private void solveIslands(int from, int to) {
+		double dt = timeStep;
+		for(int island = from; island < to; island++) {
+			if(!islandAwake[island]) continue;
+
+			int bodyStart = islandBodyStart[island], bodyEnd = islandBodyStart[island + 1];
+			int contactStart = islandContactStart[island], contactEnd = islandContactStart[island + 1];
+
+			for(int i = bodyStart; i < bodyEnd; i++) {
+				RigidBody body = bodies.get(islandBodies[i]);
+				body.vx += gravityX * body.gravityScale * dt;
+				body.vy += gravityY * body.gravityScale * dt;
+			}
+
+			for(int i = contactStart; i < contactEnd; i++) {
+				prepareContact(islandContacts[i]);
+			}
+			for(int iteration = 0; iteration < SOLVER_ITERATIONS; iteration++) {
+				for(int i = contactStart; i < contactEnd; i++) {
+					solveVelocity(islandContacts[i]);
+				}
+			}
+
+			for(int i = bodyStart; i < bodyEnd; i++) {
+				RigidBody body = bodies.get(islandBodies[i]);
+				body.lastX = body.x;
+				body.lastY = body.y;
+				body.x += body.vx * dt;
+				body.y += body.vy * dt;
+			}
+
+			for(int i = contactStart; i < contactEnd; i++) {
+				correctPosition(islandContacts[i]);
+			}
+
+			// An island only sleeps once every body in it has (almost) stopped moving for a while
+			boolean canSleep = true;
+			for(int i = bodyStart; i < bodyEnd; i++) {
+				RigidBody body = bodies.get(islandBodies[i]);
+				double moveX = body.x - body.lastX, moveY = body.y - body.lastY;
+				if((moveX * moveX + moveY * moveY) / (dt * dt) < SLEEP_VELOCITY_SQ) {
+					body.sleepTicks++;
+				} else {
+					body.sleepTicks = 0;
+				}
+				if(body.sleepTicks < SLEEP_TICKS) canSleep = false;
+			}
+
+			for(int i = bodyStart; i < bodyEnd; i++) {
+				RigidBody body = bodies.get(islandBodies[i]);
+				if(canSleep) {
+					body.sleeping = true;
+					body.vx = 0;
+					body.vy = 0;
+				}
+				body.syncToSprite();
+			}
+		}
+	}
+
+	/**
+	 * Resets the accumulated impulses of a contact, and works out the velocity it should bounce back with
+	 */
+	private void prepareContact(int c) {
+		RigidBody a = bodies.get(contactA[c]);
+		RigidBody b = bodies.get(contactB[c]);
+		double normalVelocity = (b.vx - a.vx) * contactNormalX[c] + (b.vy - a.vy) * contactNormalY[c];
+
+		// Slow contacts don't bounce, otherwise resting stacks would jitter forever.
+		// Separated contacts may still approach by enough to close the gap this step.
+		double bounce = normalVelocity < -RESTITUTION_THRESHOLD ? -Math.min(a.restitution, b.restitution) * normalVelocity : 0;
+		contactBounce[c] = contactDepth[c] < 0 ? Math.max(bounce, contactDepth[c] / timeStep) : bounce;
+		contactImpulse[c] = 0;
+		contactTangentImpulse[c] = 0;
+	}
+
+	/**
+	 * Applies the normal and friction impulses of a contact (sequential impulses with clamped accumulation)
+	 */
+	private void solveVelocity(int c) {
+		RigidBody a = bodies.get(contactA[c]);
+		RigidBody b = bodies.get(contactB[c]);
+		double nx = contactNormalX[c], ny = contactNormalY[c];
+		double invMassSum = a.invMass + b.invMass;
+
+		double rvx = b.vx - a.vx, rvy = b.vy - a.vy;
+		double normalVelocity = rvx * nx + rvy * ny;
+		double j = (contactBounce[c] - normalVelocity) / invMassSum;
+		double previous = contactImpulse[c];
+		contactImpulse[c] = Math.max(previous + j, 0);
+		j = contactImpulse[c] - previous;
+		applyImpulse(a, b, j * nx, j * ny);
+
+		// Friction along the contact tangent, clamped by the accumulated normal impulse
+		double tx = -ny, ty = nx;
+		rvx = b.vx - a.vx;
+		rvy = b.vy - a.vy;
+		double jt = -(rvx * tx + rvy * ty) / invMassSum;
+		double maxFriction = contactImpulse[c] * Math.sqrt(a.friction * b.friction);
+		previous = contactTangentImpulse[c];
+		contactTangentImpulse[c] = Math.max(-maxFriction, Math.min(maxFriction, previous + jt));
+		jt = contactTangentImpulse[c] - previous;
+		applyImpulse(a, b, jt * tx, jt * ty);
+	}
+
+	private static void applyImpulse(RigidBody a, RigidBody b, double ix, double iy) {
+		// Static bodies are shared between islands, so they are never written to
+		if(a.invMass != 0) {
+			a.vx -= ix * a.invMass;
+			a.vy -= iy * a.invMass;
+		}
+		if(b.invMass != 0) {
+			b.vx += ix * b.invMass;
+			b.vy += iy * b.invMass;
+		}
+	}
+
+	private void correctPosition(int c) {
+		RigidBody a = bodies.get(contactA[c]);
+		RigidBody b = bodies.get(contactB[c]);
+		double correction = Math.max(contactDepth[c] - POSITION_SLOP, 0) / (a.invMass + b.invMass) * POSITION_CORRECTION;
+		double cx = correction * contactNormalX[c];
+		double cy = correction * contactNormalY[c];
+		if(a.invMass != 0) {
+			a.x -= cx * a.invMass;
+			a.y -= cy * a.invMass;
+		}
+		if(b.invMass != 0) {
+			b.x += cx * b.invMass;
+			b.y += cy * b.invMass;
+		}
+	}
+
+	private void ensureBodyCapacity(int count) {
+		if(count < order.length) return;
+		int size = Math.max(count + 1, order.length * 2);
+		order = Arrays.copyOf(order, size);
+		minX = Arrays.copyOf(minX, size);
+		parent = Arrays.copyOf(parent, size);
+		islandOf = Arrays.copyOf(islandOf, size);
+		islandBodyStart = Arrays.copyOf(islandBodyStart, size + 1);
+		islandContactStart = Arrays.copyOf(islandContactStart, size + 1);
+		islandBodies = Arrays.copyOf(islandBodies, size);
+		islandFill = Arrays.copyOf(islandFill, size);
+		islandAwake = Arrays.copyOf(islandAwake, size);
+	}
+
+	/**
+	 * Splits a range of islands in half until each half holds roughly PARALLEL_GRAIN bodies and contacts
+	 */
+	private class IslandTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from, to;
+
+		IslandTask(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			int work = (islandBodyStart[to] - islandBodyStart[from]) + (islandContactStart[to] - islandContactStart[from]);
+			if(to - from <= 1 || work <= PARALLEL_GRAIN) {
+				solveIslands(from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new IslandTask(from, middle), new IslandTask(middle, to));
+		}
+
+	}
+
+}
@@ -0,0 +1,241 @@
+package dev.johnnyleek.engine.physics;
+
+import dev.johnnyleek.engine.sprite.Shape;
+import dev.johnnyleek.engine.sprite.ShapeType;
+import dev.johnnyleek.engine.sprite.Sprite;
+
+/**
+ * Represents a physical body attached to a Sprite.
+ *
+ * The body keeps its own (sub-pixel) position and velocity, and writes its
+ * position back to the Sprite after every physics step. If the Sprite is moved
+ * by hand (using setPosX/setPosY), the body is teleported to the new position.
+ *
+ * Bodies with a mass of 0 are static: they are never moved by the simulation,
+ * but other bodies still collide with them.
+ *
+ * The collision shape of a body defaults to a CIRCLE for circular Shapes,
+ * and a BOX (the size of the Sprite) for everything else.
+ *
+ * Velocities are measured in pixels per second.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class RigidBody {
+
+	final Sprite sprite;
+	BodyShape shape;
+
+	double x, y;
+	double lastX, lastY;
+	double vx, vy;
+	double invMass;
+	double restitution = 0.2;
+	double friction = 0.3;
+	double gravityScale = 1;
+
+	boolean sleeping;
+	int sleepTicks;
+	int syncedX, syncedY;
+	int index = -1;
+
+	/**
+	 * Creates a new body for the provided Sprite
+	 * @param sprite the Sprite this body moves
+	 * @param mass the mass of the body (0 for a static body)
+	 */
+	public RigidBody(Sprite sprite, double mass) {
+		this.sprite = sprite;
+		this.shape = (sprite instanceof Shape && ((Shape) sprite).getShape() == ShapeType.CIRCLE) ? BodyShape.CIRCLE : BodyShape.BOX;
+		this.invMass = mass > 0 ? 1 / mass : 0;
+		this.x = this.syncedX = sprite.getPosX();
+		this.y = this.syncedY = sprite.getPosY();
+	}
+
+	/**
+	 * Teleports the body if its Sprite was moved outside of the simulation
+	 * (the position it was teleported from is kept in lastX/lastY)
+	 * @return true if the body was teleported
+	 */
+	boolean syncFromSprite() {
+		int posX = sprite.getPosX();
+		int posY = sprite.getPosY();
+		if(posX != syncedX || posY != syncedY) {
+			lastX = x;
+			lastY = y;
+			x = syncedX = posX;
+			y = syncedY = posY;
+			wake();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Writes the (rounded) position of the body back into its Sprite
+	 */
+	void syncToSprite() {
+		syncedX = (int) Math.round(x);
+		syncedY = (int) Math.round(y);
+		sprite.setPosX(syncedX);
+		sprite.setPosY(syncedY);
+	}
+
+	double halfWidth() {
+		return sprite.getWidth() * 0.5;
+	}
+
+	double halfHeight() {
+		return sprite.getHeight() * 0.5;
+	}
+
+	double radius() {
+		return Math.min(sprite.getWidth(), sprite.getHeight()) * 0.5;
+	}
+
+	/**
+	 * Gets the Sprite this body is attached to
+	 * @return the Sprite of this body
+	 */
+	public Sprite getSprite() {
+		return sprite;
+	}
+
+	/**
+	 * Gets the collision shape of the body
+	 * @return the BodyShape of the body
+	 */
+	public BodyShape getShape() {
+		return shape;
+	}
+
+	/**
+	 * Sets the collision shape of the body
+	 * @param shape the new BodyShape of the body
+	 */
+	public void setShape(BodyShape shape) {
+		this.shape = shape;
+	}
+
+	/**
+	 * Returns whether or not the body is static (has no mass)
+	 * @return true/false depending on if the body is static
+	 */
+	public boolean isStatic() {
+		return invMass == 0;
+	}
+
+	/**
+	 * Sets the mass of the body (0 makes the body static)
+	 * @param mass the new mass of the body
+	 */
+	public void setMass(double mass) {
+		this.invMass = mass > 0 ? 1 / mass : 0;
+		wake();
+	}
+
+	/**
+	 * Gets the X velocity of the body
+	 * @return the X velocity (in pixels per second)
+	 */
+	public double getVelocityX() {
+		return vx;
+	}
+
+	/**
+	 * Gets the Y velocity of the body
+	 * @return the Y velocity (in pixels per second)
+	 */
+	public double getVelocityY() {
+		return vy;
+	}
+
+	/**
+	 * Sets the velocity of the body, and wakes it up
+	 * @param vx the new X velocity (in pixels per second)
+	 * @param vy the new Y velocity (in pixels per second)
+	 */
+	public void setVelocity(double vx, double vy) {
+		this.vx = vx;
+		this.vy = vy;
+		wake();
+	}
+
+	/**
+	 * Applies an instant change in momentum to the body, and wakes it up
+	 * @param ix the X impulse
+	 * @param iy the Y impulse
+	 */
+	public void applyImpulse(double ix, double iy) {
+		this.vx += ix * invMass;
+		this.vy += iy * invMass;
+		wake();
+	}
+
+	/**
+	 * Gets the restitution (bounciness) of the body
+	 * @return the restitution of the body (0 - 1)
+	 */
+	public double getRestitution() {
+		return restitution;
+	}
+
+	/**
+	 * Sets the restitution (bounciness) of the body
+	 * @param restitution the new restitution of the body (0 - 1)
+	 */
+	public void setRestitution(double restitution) {
+		this.restitution = restitution;
+	}
+
+	/**
+	 * Gets the friction coefficient of the body
+	 * @return the friction of the body
+	 */
+	public double getFriction() {
+		return friction;
+	}
+
+	/**
+	 * Sets the friction coefficient of the body
+	 * @param friction the new friction of the body
+	 */
+	public void setFriction(double friction) {
+		this.friction = friction;
+	}
+
+	/**
+	 * Gets how strongly gravity affects this body
+	 * @return the gravity scale of the body
+	 */
+	public double getGravityScale() {
+		return gravityScale;
+	}
+
+	/**
+	 * Sets how strongly gravity affects this body (0 disables gravity)
+	 * @param gravityScale the new gravity scale of the body
+	 */
+	public void setGravityScale(double gravityScale) {
+		this.gravityScale = gravityScale;
+	}
+
+	/**
+	 * Returns whether or not the body is sleeping (not being simulated)
+	 * @return true/false depending on if the body is asleep
+	 */
+	public boolean isSleeping() {
+		return sleeping;
+	}
+
+	/**
+	 * Wakes the body so it is simulated again
+	 */
+	public void wake() {
+		sleeping = false;
+		sleepTicks = 0;
+	}
+
+}
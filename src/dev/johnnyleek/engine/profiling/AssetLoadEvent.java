@@ -0,0 +1,34 @@
+package dev.johnnyleek.engine.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event recorded around the loading of an asset from disk
+ * (such as decoding an Image or an audio file).
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+@Name("dev.johnnyleek.engine.AssetLoad")
+@Label("Asset Load")
+@Category({"Game Engine", "Assets"})
+@Description("Reading and decoding an asset")
+public class AssetLoadEvent extends Event {
+
+	@Label("Path")
+	public String path;
+
+	@Label("Asset Type")
+	public String assetType;
+
+	@Label("Bytes")
+	@DataAmount
+	public long bytes;
+
+}
@@ -0,0 +1,31 @@
+package dev.johnnyleek.engine.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event recorded when the AudioPlayer is asked to play or stop audio.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+@Name("dev.johnnyleek.engine.Audio")
+@Label("Audio")
+@Category({"Game Engine", "Audio"})
+@Description("A sound being played or stopped")
+public class AudioEvent extends Event {
+
+	@Label("Action")
+	public String action;
+
+	@Label("Path")
+	public String path;
+
+	@Label("Voice Handle")
+	public long handle;
+
+}
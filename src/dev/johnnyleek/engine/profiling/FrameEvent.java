@@ -0,0 +1,38 @@
+package dev.johnnyleek.engine.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event recorded around every frame drawn by a Renderer.
+ *
+ * Like every engine event, it is only recorded while a recording has it enabled
+ * (for example, "java -XX:StartFlightRecording ..."), and costs nothing otherwise.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+@Name("dev.johnnyleek.engine.Frame")
+@Label("Frame")
+@Category({"Game Engine", "Rendering"})
+@Description("Drawing a single frame")
+public class FrameEvent extends Event {
+
+	@Label("Window")
+	public String window;
+
+	@Label("Game Elements")
+	public int gameElements;
+
+	@Label("UI Elements")
+	public int uiElements;
+
+	@Label("Culled Elements")
+	@Description("Elements skipped because they were entirely outside of the window")
+	public int culledElements;
+
+}
@@ -0,0 +1,41 @@
+package dev.johnnyleek.engine.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event recorded when a Window applies queued scene changes
+ * (elements being added, removed, or reordered).
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+@Name("dev.johnnyleek.engine.SceneChange")
+@Label("Scene Change")
+@Category({"Game Engine", "Scene"})
+@Description("Applying the queued changes to a window's elements")
+public class SceneChangeEvent extends Event {
+
+	@Label("Window")
+	public String window;
+
+	@Label("Added")
+	public int added;
+
+	@Label("Removed")
+	public int removed;
+
+	@Label("Reordered")
+	public int reordered;
+
+	@Label("Game Elements")
+	public int gameElements;
+
+	@Label("UI Elements")
+	public int uiElements;
+
+}
@@ -0,0 +1,25 @@
+package dev.johnnyleek.engine.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event recorded around every call to a Game's "runTick" method.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+@Name("dev.johnnyleek.engine.Tick")
+@Label("Tick")
+@Category({"Game Engine", "Game Loop"})
+@Description("Running the game's logic for a single tick")
+public class TickEvent extends Event {
+
+	@Label("Tick")
+	public long tick;
+
+}
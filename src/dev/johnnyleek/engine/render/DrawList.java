@@ -0,0 +1,154 @@
+package dev.johnnyleek.engine.render;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+
+import dev.johnnyleek.engine.sprite.AnimatedSprite;
+import dev.johnnyleek.engine.sprite.Drawable;
+import dev.johnnyleek.engine.sprite.Image;
+import dev.johnnyleek.engine.sprite.Shape;
+import dev.johnnyleek.engine.sprite.SpriteSheet;
+import dev.johnnyleek.engine.sprite.Text;
+
+/**
+ * A copy of everything needed to draw a frame, taken from the elements of a Window.
+ *
+ * The list is built on the game side (see "Renderer.buildDrawList"), and drawn by the
+ * Renderer's thread, so the next tick can change the elements while the frame is drawn.
+ * Every element is stored as primitive values (and references to its immutable Color,
+ * BufferedImage, or String) in arrays that are only grown, never reallocated each frame.
+ *
+ * Each element has its own slot (its draw order), so parts of the list can be built
+ * on different threads at the same time. Elements that are entirely outside of the
+ * window are culled (their slot is skipped when drawing).
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+final class DrawList {
+
+	static final byte SKIP = 0;
+	static final byte RECTANGLE = 1;
+	static final byte OVAL = 2;
+	static final byte IMAGE = 3;
+	static final byte SPRITE = 4;
+	static final byte TEXT = 5;
+
+	byte[] kinds = new byte[0];
+	int[] xs = new int[0];
+	int[] ys = new int[0];
+	int[] widths = new int[0];
+	int[] heights = new int[0];
+	int[] sourceXs = new int[0];
+	int[] sourceYs = new int[0];
+	int[] sourceWidths = new int[0];
+	int[] sourceHeights = new int[0];
+	Color[] colors = new Color[0];
+	BufferedImage[] images = new BufferedImage[0];
+	String[] texts = new String[0];
+
+	int count;
+	int gameElements;
+	int uiElements;
+	int width;
+	int height;
+
+	/**
+	 * Readies the list for a new frame
+	 * @param gameElements the number of game elements
+	 * @param uiElements the number of UI elements
+	 * @param width the width of the window (for culling)
+	 * @param height the height of the window (for culling)
+	 */
+	void reset(int gameElements, int uiElements, int width, int height) {
+		int count = gameElements + uiElements;
+		if(kinds.length < count) grow(Math.max(count, kinds.length * 2));
+		this.count = count;
+		this.gameElements = gameElements;
+		this.uiElements = uiElements;
+		this.width = width;
+		this.height = height;
+	}
+
+	private void grow(int capacity) {
+		kinds = new byte[capacity];
+		xs = new int[capacity];
+		ys = new int[capacity];
+		widths = new int[capacity];
+		heights = new int[capacity];
+		sourceXs = new int[capacity];
+		sourceYs = new int[capacity];
+		sourceWidths = new int[capacity];
+		sourceHeights = new int[capacity];
+		colors = new Color[capacity];
+		images = new BufferedImage[capacity];
+		texts = new String[capacity];
+	}
+
+	/**
+	 * Copies an element into its slot (or marks the slot to be skipped, if the element is culled)
+	 * @param slot the slot of the element (its place in the draw order)
+	 * @param element the element to copy
+	 */
+	void record(int slot, Drawable element) {
+		int x = element.getPosX(), y = element.getPosY();
+		byte kind = SKIP;
+		int w = 0, h = 0;
+		Color color = null;
+		BufferedImage image = null;
+		String text = null;
+
+		if(element instanceof Shape) {
+			Shape shape = (Shape) element;
+			switch(shape.getShape()) {
+				case RECTANGLE:
+					kind = RECTANGLE;
+					break;
+				case CIRCLE:
+					kind = OVAL;
+					break;
+				default:
+					break;
+			}
+			w = shape.getWidth();
+			h = shape.getHeight();
+			color = shape.getColor();
+		} else if(element instanceof Image) {
+			kind = IMAGE;
+			image = ((Image) element).getImage();
+			// Resized images are drawn scaled to their size
+			boolean sized = ((Image) element).getSize() != null;
+			w = sized ? ((Image) element).getWidth() : image.getWidth();
+			h = sized ? ((Image) element).getHeight() : image.getHeight();
+		} else if(element instanceof AnimatedSprite) {
+			AnimatedSprite sprite = (AnimatedSprite) element;
+			SpriteSheet sheet = sprite.getSheet();
+			kind = SPRITE;
+			image = sheet.getImage();
+			w = sprite.getWidth();
+			h = sprite.getHeight();
+			sourceXs[slot] = sprite.getSourceX();
+			sourceYs[slot] = sprite.getSourceY();
+			sourceWidths[slot] = sheet.getFrameWidth();
+			sourceHeights[slot] = sheet.getFrameHeight();
+		} else if(element instanceof Text) {
+			kind = TEXT;
+			color = ((Text) element).getColor();
+			text = ((Text) element).getText();
+		}
+
+		// Text has no known size, so it is never culled
+		if(kind != TEXT && (x >= width || y >= height || x + w <= 0 || y + h <= 0)) kind = SKIP;
+
+		kinds[slot] = kind;
+		xs[slot] = x;
+		ys[slot] = y;
+		widths[slot] = w;
+		heights[slot] = h;
+		colors[slot] = color;
+		images[slot] = image;
+		texts[slot] = text;
+	}
+
+}
@@ -0,0 +1,138 @@
+package dev.johnnyleek.engine.render;
+
+import java.util.concurrent.Phaser;
+import java.util.concurrent.locks.LockSupport;
+
+import dev.johnnyleek.engine.util.Logger;
+
+/**
+ * Keeps the game loops of several Games (usually one per Window) in step.
+ *
+ * Without a coordinator, each Game times its own ticks. Games that share a coordinator
+ * instead start every tick at the same boundary: each Game runs its tick on its own thread,
+ * hands its frame to its Window's render thread, and then waits for the next boundary.
+ * The coordinator's clock thread starts the next tick once the tick span has passed AND
+ * every Game has finished its tick, so the Windows tick and render in parallel, and a slow
+ * Game holds the others back rather than drifting apart from them.
+ *
+ * Example (an editor Window with a game preview Window):
+ * 	FrameCoordinator coordinator = new FrameCoordinator(60);
+ * 	editor.setFrameCoordinator(coordinator);
+ * 	preview.setFrameCoordinator(coordinator);
+ * 	editor.start();
+ * 	preview.start();
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class FrameCoordinator implements Runnable {
+
+	private final Phaser phaser = new Phaser(1); // The clock is always registered
+	private final int ticksPerSecond;
+	private final long tickSpan;
+	private Thread clock;
+
+	private volatile long lateTicks;
+
+	/**
+	 * Creates a coordinator that runs 60 ticks a second
+	 */
+	public FrameCoordinator() {
+		this(60);
+	}
+
+	/**
+	 * Creates a coordinator with a custom tick rate
+	 * @param ticksPerSecond how many ticks to run a second
+	 */
+	public FrameCoordinator(int ticksPerSecond) {
+		if(ticksPerSecond <= 0) throw new IllegalArgumentException("Tick rate must be positive: " + ticksPerSecond);
+		this.ticksPerSecond = ticksPerSecond;
+		this.tickSpan = 1000000000L / ticksPerSecond;
+	}
+
+	/**
+	 * Registers the thread of a Game that is starting, starting the clock if it is not running.
+	 * The Game's first tick starts right away, and every tick after starts on a boundary.
+	 */
+	synchronized void register() {
+		phaser.register();
+		if(clock == null) {
+			Logger.info("Starting Frame Coordinator");
+			clock = new Thread(this, "Frame Coordinator");
+			clock.setDaemon(true);
+			clock.start();
+		}
+	}
+
+	/**
+	 * Called by a Game once its tick is done, waiting until the next tick starts
+	 */
+	void awaitTick() {
+		phaser.arriveAndAwaitAdvance();
+	}
+
+	/**
+	 * Deregisters the thread of a Game that has stopped
+	 */
+	void deregister() {
+		phaser.arriveAndDeregister();
+	}
+
+	/**
+	 * Starts a tick at every boundary (once every Game has finished the last one)
+	 */
+	@Override
+	public void run() {
+		long next = System.nanoTime() + tickSpan;
+		while(true) {
+			long wait;
+			while((wait = next - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(this, wait);
+			}
+			phaser.arriveAndAwaitAdvance();
+
+			long now = System.nanoTime();
+			if(now - next > tickSpan) {
+				// A tick ran long, so start counting from now rather than running ticks back to back to catch up
+				lateTicks++;
+				next = now;
+			}
+			next += tickSpan;
+		}
+	}
+
+	/**
+	 * Gets the tick rate of the coordinator
+	 * @return how many ticks are run a second
+	 */
+	public int getTicksPerSecond() {
+		return this.ticksPerSecond;
+	}
+
+	/**
+	 * Gets the number of ticks that have been started
+	 * @return the current tick
+	 */
+	public long getTick() {
+		return phaser.getPhase() & Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Gets the number of Games being kept in step
+	 * @return the number of running Games
+	 */
+	public int getGameCount() {
+		return phaser.getRegisteredParties() - 1;
+	}
+
+	/**
+	 * Gets the number of ticks that started late, because a Game took longer than a tick
+	 * @return the number of late ticks
+	 */
+	public long getLateTicks() {
+		return this.lateTicks;
+	}
+
+}
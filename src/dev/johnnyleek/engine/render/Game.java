@@ -2,9 +2,23 @@ package dev.johnnyleek.engine.render;
 
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.util.ArrayList;
 
+import dev.johnnyleek.engine.input.InputRecorder;
 import dev.johnnyleek.engine.input.KeyBinding;
 import dev.johnnyleek.engine.input.Keyboard;
+import dev.johnnyleek.engine.input.Mouse;
+import dev.johnnyleek.engine.job.Job;
+import dev.johnnyleek.engine.job.JobGraph;
+import dev.johnnyleek.engine.physics.PhysicsWorld;
+import dev.johnnyleek.engine.profiling.TickEvent;
+import dev.johnnyleek.engine.scene.SceneHistory;
+import dev.johnnyleek.engine.script.Script;
+import dev.johnnyleek.engine.script.ScriptScheduler;
+import dev.johnnyleek.engine.sprite.AnimatedSprite;
+import dev.johnnyleek.engine.sprite.Drawable;
+import dev.johnnyleek.engine.timer.TimerService;
+import dev.johnnyleek.engine.tween.Tweener;
 import dev.johnnyleek.engine.util.Logger;
 import dev.johnnyleek.engine.window.Window;
 
@@ -18,11 +32,33 @@ import dev.johnnyleek.engine.window.Window;
  */
 public abstract class Game implements Runnable {
 
+	/**
+	 * The resources of the Jobs that run every frame (see "addJob")
+	 */
+	public static final String INPUT = "input";
+	public static final String SCENE = "scene";
+	public static final String ANIMATION = "animation";
+	public static final String PHYSICS = "physics";
+	public static final String POSITION = "position"; // The positions of elements, as moved by physics
+	public static final String DRAW_LIST = "draw list";
+	
+	private static final int ANIMATION_GRAIN = 512;
+
 	private int fps = 60;
 	private Thread gameThread;
 	private boolean isRunning;
+	private long tick;
 	
 	private Window window;
+	private PhysicsWorld physicsWorld;
+	private InputRecorder inputRecorder;
+	private SceneHistory sceneHistory;
+	private FrameCoordinator frameCoordinator;
+	private final ScriptScheduler scripts = new ScriptScheduler();
+	private final TimerService timers = new TimerService();
+	private final Tweener tweens = new Tweener();
+	private final ArrayList<Job> jobs = new ArrayList<Job>();
+	private JobGraph frameGraph;
 	
 	/**
 	 * Creates the game loop, and runs the "stop" method on close
@@ -30,6 +66,7 @@ public abstract class Game implements Runnable {
 	 */
 	public Game(Window window) {
 		this.window = window;
+		if(window.isHeadless()) return;
 		
 		window.getFrame().addWindowListener(new WindowAdapter() {
 			@Override
@@ -46,13 +83,18 @@ public abstract class Game implements Runnable {
 	
 	/**
 	 * Calculates the current time, and decides whether or not to run
-	 * the next frame.
+	 * the next frame (see "step").
 	 * 
-	 * Running the next frame consists of calling the "runTick" method,
-	 * and calling the renderer to render the next frame.
+	 * If the game has a FrameCoordinator, the coordinator decides when
+	 * to run the next frame instead.
 	 */
 	@Override
 	public void run() {
+		if(frameCoordinator != null) {
+			runCoordinated(frameCoordinator);
+			return;
+		}
+		
 		double tickSpan = 1000000000 / fps;
 		double deltaT = 0;
 		long previous = System.nanoTime();
@@ -62,13 +104,152 @@ public abstract class Game implements Runnable {
 			deltaT += (now - previous) / tickSpan;
 			previous = now;
 			if(deltaT >= 1) {
-				runTick();
-				window.getRenderer().render();
+				step();
 				deltaT--;
 			}
 		}
 	}
 	
+	/**
+	 * Runs a frame at every tick boundary of a FrameCoordinator
+	 */
+	private void runCoordinated(FrameCoordinator coordinator) {
+		coordinator.register();
+		try {
+			while(this.isRunning) {
+				step();
+				coordinator.awaitTick();
+			}
+		} finally {
+			coordinator.deregister();
+		}
+	}
+	
+	/**
+	 * Runs a single frame, right away.
+	 * 
+	 * This is called by the game loop once per tick. It can also be called directly
+	 * (while the game loop is not running) to run the game as fast as possible, such
+	 * as when replaying recorded input.
+	 * 
+	 * The frame is run as a JobGraph (see "getFrameGraph"), so work that does not depend
+	 * on each other (such as animation and physics) runs in parallel. "input", "update" and
+	 * "scene changes" always run on the thread calling "step" (the game thread). Running the
+	 * next frame consists of the following Jobs:
+	 * 	- "input": Recording the input events of this tick (if an InputRecorder is attached),
+	 * 	  latching the keyboard and mouse state, draining the Window's input events (calling
+	 * 	  their listeners), and applying queued scene changes (elements added/removed from other threads)
+	 * 	- "update": Firing every timer that is due (see "TimerService"), calling the "runTick" method,
+	 * 	  resuming every Script that is due (see "ScriptScheduler"), and advancing every tween (see "Tweener")
+	 * 	- Any Jobs added with "addJob"
+	 * 	- "animation": Advancing every AnimatedSprite
+	 * 	- "physics": Stepping the PhysicsWorld (if one is attached)
+	 * 	- "scene changes": Applying scene changes made during the tick
+	 * 	- "history": Saving the state of every element (if a SceneHistory is attached)
+	 * 	- "draw list": Building the DrawList of the next frame (unless the Window is headless)
+	 * Once every Job is done, the next frame is handed to the renderer to draw on its own thread.
+	 * 
+	 * While the frame runs, the static Keyboard and Mouse methods check this game's Window
+	 * (on the calling thread, and in Scripts).
+	 */
+	public void step() {
+		Keyboard keyboard = Keyboard.setCurrent(window.getKeyboard());
+		Mouse mouse = Mouse.setCurrent(window.getMouse());
+		try {
+			getFrameGraph().run();
+			if(!window.isHeadless()) window.getRenderer().present();
+			tick++;
+		} finally {
+			Keyboard.setCurrent(keyboard);
+			Mouse.setCurrent(mouse);
+		}
+	}
+	
+	/**
+	 * Builds the JobGraph that runs each frame
+	 */
+	private JobGraph buildFrameGraph() {
+		JobGraph graph = new JobGraph();
+		
+		graph.add(new Job("input", () -> {
+			if(inputRecorder != null) inputRecorder.flush(tick);
+			if(window.getKeyboard() != null) window.getKeyboard().latch();
+			if(window.getMouse() != null) window.getMouse().latch();
+			window.getInputEvents().dispatch();
+			window.applySceneChanges();
+		}).writes(INPUT, SCENE).onCallingThread());
+		
+		graph.add(new Job("update", () -> {
+			TickEvent tickEvent = new TickEvent();
+			tickEvent.begin();
+			while(timers.getTick() < tick) timers.advance();
+			runTick();
+			scripts.update(tick);
+			tweens.update(graph);
+			tickEvent.tick = tick;
+			tickEvent.commit();
+		}).reads(INPUT).writes(SCENE).onCallingThread());
+		
+		for(Job job : jobs) {
+			graph.add(job);
+		}
+		
+		graph.add(new Job("animation", () -> tickAnimations(graph)).reads(SCENE).writes(ANIMATION));
+		graph.add(new Job("physics", () -> {
+			if(physicsWorld != null) physicsWorld.step();
+		}).reads(SCENE).writes(PHYSICS, POSITION));
+		graph.add(new Job("scene changes", window::applySceneChanges).writes(SCENE).onCallingThread());
+		graph.add(new Job("history", () -> {
+			if(sceneHistory != null) sceneHistory.save(tick);
+		}).reads(SCENE, ANIMATION, PHYSICS, POSITION));
+		graph.add(new Job("draw list", () -> {
+			if(!window.isHeadless()) window.getRenderer().buildDrawList(graph);
+		}).reads(SCENE, ANIMATION, PHYSICS, POSITION).writes(DRAW_LIST));
+		
+		return graph;
+	}
+	
+	/**
+	 * Advances every AnimatedSprite in the window by one tick (splitting the elements over the JobGraph's pool)
+	 */
+	private void tickAnimations(JobGraph graph) {
+		Drawable[] gameElements = window.getGameElementSnapshot();
+		graph.parallelFor(0, gameElements.length, ANIMATION_GRAIN, (start, end) -> tickAnimations(gameElements, start, end));
+		Drawable[] uiElements = window.getUIElementSnapshot();
+		graph.parallelFor(0, uiElements.length, ANIMATION_GRAIN, (start, end) -> tickAnimations(uiElements, start, end));
+	}
+	
+	private static void tickAnimations(Drawable[] elements, int start, int end) {
+		for(int i = start; i < end; i++) {
+			if(elements[i] instanceof AnimatedSprite) ((AnimatedSprite) elements[i]).tick();
+		}
+	}
+	
+	/**
+	 * Adds a Job to every frame. Jobs are run after "runTick" (and after the Jobs added before them),
+	 * and before animation, physics, and the draw list, as their resources allow (see "Job").
+	 * The resources of the engine's own Jobs are INPUT, SCENE, ANIMATION, PHYSICS, POSITION, and DRAW_LIST.
+	 * Must be called before the first frame is run.
+	 * @param job the Job to add
+	 * @return the added Job
+	 * @throws IllegalStateException if a frame has already been run
+	 */
+	public Job addJob(Job job) {
+		if(frameGraph != null) throw new IllegalStateException("Jobs must be added before the first frame is run");
+		jobs.add(job);
+		return job;
+	}
+	
+	/**
+	 * Gets the JobGraph that runs each frame (built the first time this is called).
+	 * A JobTrace can be attached to it to see how long each Job takes (see "JobTrace").
+	 * @return the game loops JobGraph
+	 */
+	public JobGraph getFrameGraph() {
+		if(frameGraph == null) frameGraph = buildFrameGraph();
+		return this.frameGraph;
+	}
+	
 	/**
 	 * Starts the game thread
 	 */
@@ -103,4 +284,136 @@ public abstract class Game implements Runnable {
 		return this.window;
 	}
 	
+	/**
+	 * Gets the number of frames that have been run
+	 * @return the current tick (starting at 0)
+	 */
+	public long getTick() {
+		return this.tick;
+	}
+	
+	/**
+	 * Starts a Script, which runs alongside "runTick" (see "Script").
+	 * Must only be called from the game thread (or from a Script), or before the game loop is started.
+	 * @param script the Script to start
+	 * @return the started Script
+	 */
+	public <T extends Script> T startScript(T script) {
+		return scripts.start(script);
+	}
+	
+	/**
+	 * Gets the ScriptScheduler that runs this game's Scripts
+	 * @return the game loops ScriptScheduler
+	 */
+	public ScriptScheduler getScripts() {
+		return this.scripts;
+	}
+	
+	/**
+	 * Gets the TimerService whose timers fire at the start of each tick (before "runTick").
+	 * A timer scheduled with a delay of 1 during a tick fires at the start of the next tick.
+	 * It must only be used from the game thread (or from a Script).
+	 * @return the game loops TimerService
+	 */
+	public TimerService getTimers() {
+		return this.timers;
+	}
+	
+	/**
+	 * Gets the Tweener whose tweens are advanced each tick (after "runTick" and every Script).
+	 * A tween started during "runTick" first changes its target at the end of the same tick.
+	 * It must only be used from the game thread (or from a Script).
+	 * @return the game loops Tweener
+	 */
+	public Tweener getTweens() {
+		return this.tweens;
+	}
+	
+	/**
+	 * Gets the PhysicsWorld stepped by this game loop
+	 * @return the game loops PhysicsWorld (or null if physics is not enabled)
+	 */
+	public PhysicsWorld getPhysicsWorld() {
+		return this.physicsWorld;
+	}
+	
+	/**
+	 * Attaches a PhysicsWorld to this game loop. The world is stepped once per tick,
+	 * after "runTick" and before rendering. The world's timestep is set to match the tick rate.
+	 * @param physicsWorld the PhysicsWorld to step (or null to disable physics)
+	 */
+	public void setPhysicsWorld(PhysicsWorld physicsWorld) {
+		this.physicsWorld = physicsWorld;
+		if(physicsWorld != null) {
+			physicsWorld.setTimeStep(1.0 / getTicksPerSecond());
+		}
+	}
+	
+	/**
+	 * Gets the tick rate of this game loop (the FrameCoordinator's tick rate, if it has one)
+	 * @return how many ticks are run a second
+	 */
+	public int getTicksPerSecond() {
+		return frameCoordinator != null ? frameCoordinator.getTicksPerSecond() : fps;
+	}
+	
+	/**
+	 * Gets the FrameCoordinator that decides when this game runs its frames
+	 * @return the game loops FrameCoordinator (or null if the game times its own frames)
+	 */
+	public FrameCoordinator getFrameCoordinator() {
+		return this.frameCoordinator;
+	}
+	
+	/**
+	 * Keeps this game in step with every other game sharing the FrameCoordinator
+	 * (see "FrameCoordinator"). This should be called before the game loop is started.
+	 * @param frameCoordinator the FrameCoordinator to run frames with (or null for the game to time its own frames)
+	 */
+	public void setFrameCoordinator(FrameCoordinator frameCoordinator) {
+		this.frameCoordinator = frameCoordinator;
+		if(physicsWorld != null) {
+			physicsWorld.setTimeStep(1.0 / getTicksPerSecond());
+		}
+	}
+	
+	/**
+	 * Gets the SceneHistory saving this game's elements
+	 * @return the game loops SceneHistory (or null if the elements are not being saved)
+	 */
+	public SceneHistory getSceneHistory() {
+		return this.sceneHistory;
+	}
+	
+	/**
+	 * Saves the state of every element of this game's Window into a SceneHistory at the end of every tick
+	 * (once every change made during the tick has been applied), so any of the last few ticks can be
+	 * restored (see "SceneHistory"). This should be called before the game loop is started.
+	 * @param sceneHistory the SceneHistory to save into (or null to stop saving)
+	 */
+	public void setSceneHistory(SceneHistory sceneHistory) {
+		this.sceneHistory = sceneHistory;
+	}
+	
+	/**
+	 * Gets the InputRecorder recording this game's input
+	 * @return the game loops InputRecorder (or null if input is not being recorded)
+	 */
+	public InputRecorder getInputRecorder() {
+		return this.inputRecorder;
+	}
+	
+	/**
+	 * Starts recording every keyboard and mouse event of this game's Window into an InputRecorder.
+	 * Each event is recorded at the start of the tick that sees it, so the recording can be replayed
+	 * exactly (see "InputReplayer"). This should be called before the game loop is started.
+	 * @param inputRecorder the InputRecorder to record into (or null to stop recording)
+	 */
+	public void setInputRecorder(InputRecorder inputRecorder) {
+		if(this.inputRecorder != null) this.inputRecorder.detach();
+		this.inputRecorder = inputRecorder;
+		if(inputRecorder != null) inputRecorder.attach(window);
+	}
+	
 }
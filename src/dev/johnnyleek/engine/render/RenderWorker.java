@@ -0,0 +1,77 @@
+package dev.johnnyleek.engine.render;
+
+import java.util.concurrent.locks.LockSupport;
+
+import dev.johnnyleek.engine.util.Logger;
+
+/**
+ * The thread that draws the frames of a single Renderer.
+ *
+ * The game thread submits a frame (a DrawList) once its tick is done (see "submit"), and carries
+ * on with the next tick while the frame is drawn. The Renderer's two DrawLists take turns, so
+ * before submitting the next frame, the game thread waits for the last one to finish (see "await").
+ * Since every Window has its own worker, several Windows draw at the same time.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+final class RenderWorker implements Runnable {
+
+	private final Renderer renderer;
+	private final Thread thread;
+
+	private volatile long submitted;
+	private volatile long completed;
+	private volatile Thread waiter;
+
+	RenderWorker(Renderer renderer, String name) {
+		this.renderer = renderer;
+		this.thread = new Thread(this, "Render - " + name);
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Asks the worker to draw a frame. Must only be called from the game thread.
+	 */
+	void submit() {
+		submitted++;
+		LockSupport.unpark(thread);
+	}
+
+	/**
+	 * Waits until every submitted frame has been drawn. Must only be called from the game thread.
+	 */
+	void await() {
+		long target = submitted;
+		if(completed >= target) return;
+		waiter = Thread.currentThread();
+		while(completed < target) {
+			LockSupport.park(this);
+		}
+		waiter = null;
+	}
+
+	@Override
+	public void run() {
+		while(true) {
+			long target = submitted;
+			if(completed >= target) {
+				LockSupport.park(this);
+				continue;
+			}
+
+			try {
+				renderer.drawFrame();
+			} catch(RuntimeException e) {
+				Logger.error("Failed to render frame!");
+				e.printStackTrace();
+			}
+			completed = target;
+			Thread w = waiter;
+			if(w != null) LockSupport.unpark(w);
+		}
+	}
+
+}
@@ -4,26 +4,39 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
 
+import dev.johnnyleek.engine.job.JobGraph;
+import dev.johnnyleek.engine.job.RangeJob;
+import dev.johnnyleek.engine.profiling.FrameEvent;
 import dev.johnnyleek.engine.sprite.Drawable;
-import dev.johnnyleek.engine.sprite.Image;
-import dev.johnnyleek.engine.sprite.Shape;
-import dev.johnnyleek.engine.sprite.Sprite;
-import dev.johnnyleek.engine.sprite.Text;
-import dev.johnnyleek.engine.util.Logger;
 import dev.johnnyleek.engine.window.DrawArea;
 import dev.johnnyleek.engine.window.Window;
 
 /**
  * Handles rendering logic within a window.
  * 
+ * Rendering a frame is split in two:
+ * 	- Building a DrawList, which copies what is needed to draw each element (skipping
+ * 	  elements outside of the window). This is done by the game loop, as part of the tick.
+ * 	- Drawing the DrawList, which is done on the Renderer's own thread (see "present").
+ * There are two DrawLists, so the next tick can build one while the last frame is drawn
+ * from the other. The Renderers of several Windows draw at the same time.
+ * 
  * @author Johnny Leek
  * @version 1.0
  *
  */
 public class Renderer {
 
+	private static final int BUILD_GRAIN = 1024;
+
 	private Window window;
+	private RenderWorker worker;
+	
+	private final DrawList[] drawLists = { new DrawList(), new DrawList() };
+	private int back;
+	private volatile DrawList front;
 	
 	/**
 	 * Provides the window to the renderer (to know which window to render on)
@@ -34,20 +47,101 @@ public class Renderer {
 	}
 	
 	/**
-	 * Renders the current frame.
-	 * This method will return immediately if the DrawArea isDrawable field is false.
+	 * Builds the current frame, and waits until the Renderer's thread has drawn it
+	 * (only the Renderer's thread ever draws, so this never fights it for the buffers).
+	 * 
+	 * Nothing is drawn if the DrawArea isDrawable field is false.
 	 * This can be used to freeze the frame (the runTick() method will still be called every frame,
 	 * so this can be used to pause the game).
 	 * 
+	 * It must only be called from the game thread (or while no game loop is running).
+	 */
+	public void render() {
+		submitFrame();
+		awaitFrame();
+	}
+	
+	/**
+	 * Builds the current frame, and draws it on the Renderer's thread, returning once the
+	 * last frame has been drawn (which usually has happened long before).
+	 * The render thread is started the first time this is called.
+	 * 
+	 * The game loop does the same thing in two steps ("buildDrawList" as one of the Jobs of the frame,
+	 * then "present"), so this is only needed to draw a Window without a game loop.
+	 * It must only be called from the game thread (or while no game loop is running).
+	 */
+	public void submitFrame() {
+		buildDrawList(null);
+		present();
+	}
+	
+	/**
+	 * Waits until the last submitted frame has been drawn.
+	 * It must only be called from the game thread.
+	 */
+	public void awaitFrame() {
+		if(worker != null) worker.await();
+	}
+	
+	/**
+	 * Builds the next frame's DrawList (splitting the work over a JobGraph's pool, if one is provided)
+	 * from the Window's element snapshots. The frame is drawn once "present" is called.
+	 */
+	void buildDrawList(JobGraph graph) {
+		build(drawLists[back], graph);
+	}
+	
+	/**
+	 * Hands the DrawList built by "buildDrawList" to the Renderer's thread to draw
+	 */
+	void present() {
+		if(worker == null) worker = new RenderWorker(this, window.getTitle() != null ? window.getTitle() : "Window");
+		worker.await(); // The other DrawList must be drawn before it can be built again
+		front = drawLists[back];
+		back ^= 1;
+		worker.submit();
+	}
+	
+	/**
+	 * Draws the DrawList that was last handed to the Renderer's thread
+	 */
+	void drawFrame() {
+		DrawList list = front;
+		if(list != null) draw(list);
+	}
+	
+	/**
+	 * Copies every game element, and then every UI element, into a DrawList
+	 */
+	private void build(DrawList list, JobGraph graph) {
+		Drawable[] gameElements = window.getGameElementSnapshot();
+		Drawable[] uiElements = window.getUIElementSnapshot();
+		int gameCount = gameElements.length;
+		list.reset(gameCount, uiElements.length, window.getDimensions().width, window.getDimensions().height);
+		
+		RangeJob builder = (start, end) -> {
+			for(int i = start; i < end; i++) {
+				list.record(i, i < gameCount ? gameElements[i] : uiElements[i - gameCount]);
+			}
+		};
+		if(graph != null) graph.parallelFor(0, list.count, BUILD_GRAIN, builder);
+		else builder.run(0, list.count);
+	}
+	
+	/**
+	 * Draws a DrawList.
+	 * This method will return immediately if the DrawArea isDrawable field is false.
+	 * 
 	 * If there is no buffer strategy on the DrawArea, create one with 3 buffers.
 	 * 
-	 * Renders the frame by performing the following logic:
+	 * Draws the frame by performing the following logic:
 	 * 	- Clears the frame
-	 * 	- Iterate through each game object (element), and draw
-	 * 	- Iterate through each UI object (UI element), and draw
+	 * 	- Draws each game object (element)
+	 * 	- Draws each UI object (UI element)
 	 * 
+	 * Each frame is recorded as a FrameEvent (when Java Flight Recorder is recording it).
 	 */
-	public void render() {
+	private void draw(DrawList list) {
 		DrawArea area = window.getDrawArea();
 		if(!area.isDrawable()) return;
 		
@@ -58,60 +152,71 @@ public class Renderer {
 			return;
 		}
 		
+		FrameEvent frameEvent = new FrameEvent();
+		frameEvent.begin();
+		
 		Graphics graphics = bufferStrategy.getDrawGraphics();
 		Graphics2D graphics2D = (Graphics2D) graphics;
 		graphics2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 		graphics.clearRect(0, 0, window.getDimensions().width, window.getDimensions().height);
 		
-		for(Drawable sprite : window.getGameElements().values()) {
-			if(sprite instanceof Shape) {
-				Shape s = (Shape) sprite;
-				graphics.setColor(s.getColor());
-				switch(s.getShape()) {
-					case RECTANGLE:
-						graphics.fillRect(sprite.getPosX(), sprite.getPosY(), ((Sprite) sprite).getSize().width, ((Sprite) sprite).getSize().height);
-						break;
-					case CIRCLE:
-						graphics.fillOval(sprite.getPosX(), sprite.getPosY(), ((Sprite) sprite).getSize().width, ((Sprite) sprite).getSize().height);
-						break;
-					default:
-						break;
-				}
-				
-			} else if(sprite instanceof Image) {
-				graphics.drawImage(((Image) sprite).getImage(), sprite.getPosX(), sprite.getPosY(), null);
-			} else if(sprite instanceof Text) {
-				graphics2D.setColor(((Text) sprite).getColor());
-				graphics2D.drawString(((Text) sprite).getText(), sprite.getPosX(), sprite.getPosY());
-			}
-		}
-		
-		for(Drawable sprite : window.getUIElements().values()) {
-			if(sprite instanceof Shape) {
-				Shape s = (Shape) sprite;
-				graphics.setColor(s.getColor());
-				switch(s.getShape()) {
-					case RECTANGLE:
-						graphics.fillRect(sprite.getPosX(), sprite.getPosY(), ((Sprite) sprite).getSize().width, ((Sprite) sprite).getSize().height);
-						break;
-					case CIRCLE:
-						graphics.fillOval(sprite.getPosX(), sprite.getPosY(), ((Sprite) sprite).getSize().width, ((Sprite) sprite).getSize().height);
-						break;
-					default:
-						break;
-				}
-				
-			} else if(sprite instanceof Image) {
-				graphics.drawImage(((Image) sprite).getImage(), sprite.getPosX(), sprite.getPosY(), null);
-			} else if(sprite instanceof Text) {
-				graphics2D.setColor(((Text) sprite).getColor());
-				graphics2D.drawString(((Text) sprite).getText(), sprite.getPosX(), sprite.getPosY());
-			}
+		int culled = 0;
+		for(int i = 0; i < list.count; i++) {
+			if(list.kinds[i] == DrawList.SKIP) culled++;
+			else draw(graphics2D, list, i);
 		}
 		
 		bufferStrategy.show();
 		graphics.dispose();
 		
+		if(frameEvent.shouldCommit()) {
+			frameEvent.window = window.getTitle();
+			frameEvent.gameElements = list.gameElements;
+			frameEvent.uiElements = list.uiElements;
+			frameEvent.culledElements = culled;
+			frameEvent.commit();
+		}
+
+	}
+	
+	/**
+	 * Draws a single element onto the frame
+	 * @param graphics the graphics of the frame being drawn
+	 * @param list the DrawList holding the element
+	 * @param i the slot of the element
+	 */
+	private void draw(Graphics2D graphics, DrawList list, int i) {
+		int x = list.xs[i], y = list.ys[i];
+		switch(list.kinds[i]) {
+			case DrawList.RECTANGLE:
+				graphics.setColor(list.colors[i]);
+				graphics.fillRect(x, y, list.widths[i], list.heights[i]);
+				break;
+			case DrawList.OVAL:
+				graphics.setColor(list.colors[i]);
+				graphics.fillOval(x, y, list.widths[i], list.heights[i]);
+				break;
+			case DrawList.IMAGE:
+				BufferedImage image = list.images[i];
+				if(list.widths[i] == image.getWidth() && list.heights[i] == image.getHeight()) {
+					graphics.drawImage(image, x, y, null);
+				} else {
+					graphics.drawImage(image, x, y, list.widths[i], list.heights[i], null);
+				}
+				break;
+			case DrawList.SPRITE:
+				int sourceX = list.sourceXs[i], sourceY = list.sourceYs[i];
+				graphics.drawImage(list.images[i],
+						x, y, x + list.widths[i], y + list.heights[i],
+						sourceX, sourceY, sourceX + list.sourceWidths[i], sourceY + list.sourceHeights[i], null);
+				break;
+			case DrawList.TEXT:
+				graphics.setColor(list.colors[i]);
+				graphics.drawString(list.texts[i], x, y);
+				break;
+			default:
+				break;
+		}
 	}
 	
 }
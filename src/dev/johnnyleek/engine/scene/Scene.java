@@ -0,0 +1,122 @@
+package dev.johnnyleek.engine.scene;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import dev.johnnyleek.engine.asset.AssetPack;
+import dev.johnnyleek.engine.sprite.Drawable;
+import dev.johnnyleek.engine.window.Window;
+
+/**
+ * Represents a set of game elements and UI elements that can be saved to, and loaded from,
+ * a binary scene file (see "SceneWriter" and "SceneReader").
+ *
+ * A scene can be captured from a Window ("Scene.of(window)"), saved ("scene.save(path)"),
+ * loaded again ("Scene.load(path)"), and added to a Window ("scene.addTo(window)").
+ *
+ * Shapes, Images (that were loaded from a file path) and Text can be saved.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class Scene {
+
+	private final Drawable[] gameElements;
+	private final Drawable[] uiElements;
+
+	/**
+	 * Creates a scene from game elements and UI elements
+	 * @param gameElements the game elements, in the order they are drawn
+	 * @param uiElements the UI elements, in the order they are drawn
+	 */
+	public Scene(Drawable[] gameElements, Drawable[] uiElements) {
+		this.gameElements = gameElements;
+		this.uiElements = uiElements;
+	}
+
+	/**
+	 * Captures the elements currently in a Window (as of the last applied scene changes)
+	 * @param window the Window to capture
+	 * @return the Window's scene
+	 */
+	public static Scene of(Window window) {
+		return new Scene(window.getGameElementSnapshot(), window.getUIElementSnapshot());
+	}
+
+	/**
+	 * Loads a scene file
+	 * @param path the path of the scene file
+	 * @return the loaded scene
+	 * @throws IOException if the file (or an image it refers to) could not be read, or is not a scene file
+	 */
+	public static Scene load(String path) throws IOException {
+		return new SceneReader(path).read();
+	}
+
+	/**
+	 * Loads a scene file, loading its images from an AssetPack (see "SceneReader")
+	 * @param path the path of the scene file
+	 * @param pack the AssetPack to load images from
+	 * @return the loaded scene
+	 * @throws IOException if the file (or an image it refers to) could not be read, or is not a scene file
+	 */
+	public static Scene load(String path, AssetPack pack) throws IOException {
+		return new SceneReader(path, pack).read();
+	}
+
+	/**
+	 * Saves the scene to a file.
+	 *
+	 * The scene is written to a temporary file next to it, which then replaces the file,
+	 * so a save that fails part of the way through never damages the previous save.
+	 * @param path the path of the scene file
+	 * @throws IOException if the file could not be written, or the scene has an element that cannot be saved
+	 */
+	public void save(String path) throws IOException {
+		Path target = Paths.get(path).toAbsolutePath();
+		Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		try {
+			try(SceneWriter writer = new SceneWriter(temp.toString())) {
+				writer.write(this);
+			}
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch(AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Adds every element of the scene to a Window (applied at the start of the next tick)
+	 * @param window the Window to add the elements to
+	 */
+	public void addTo(Window window) {
+		window.addGameElements(gameElements);
+		window.addUIElements(uiElements);
+	}
+
+	/**
+	 * Gets the game elements of the scene
+	 * @return the game elements, in the order they are drawn
+	 */
+	public Drawable[] getGameElements() {
+		return this.gameElements;
+	}
+
+	/**
+	 * Gets the UI elements of the scene
+	 * @return the UI elements, in the order they are drawn
+	 */
+	public Drawable[] getUIElements() {
+		return this.uiElements;
+	}
+
+}
@@ -0,0 +1,537 @@
+package dev.johnnyleek.engine.scene;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import dev.johnnyleek.engine.sprite.AnimatedSprite;
+import dev.johnnyleek.engine.sprite.AnimationClip;
+import dev.johnnyleek.engine.sprite.Drawable;
+import dev.johnnyleek.engine.sprite.Shape;
+import dev.johnnyleek.engine.sprite.ShapeType;
+import dev.johnnyleek.engine.sprite.Sprite;
+import dev.johnnyleek.engine.sprite.Text;
+import dev.johnnyleek.engine.window.Window;
+
+/**
+ * Saves the state of a Window's elements every tick, so the window can be put back
+ * the way it was at any of the last few ticks (for rewinding time, rolling back and
+ * resimulating networked games, and so on).
+ *
+ * Example:
+ * 	SceneHistory history = new SceneHistory(window, 120); // The last 2 seconds at 60 ticks a second
+ * 	game.setSceneHistory(history); // Saves every tick
+ * 	// ... later, in runTick:
+ * 	history.restore(getTick() - 60);
+ *
+ * The state saved for each element is its position, its size (Sprites), its color and shape
+ * (Shapes), its color and text (Text), and its clip and how far into it it is (AnimatedSprites).
+ * Which elements were in the window (and in what order) is saved too, without copying
+ * (the window's element snapshots never change once they are made).
+ *
+ * The history keeps a copy of the last saved state of every element in flat arrays. Each save
+ * compares every element to its copy, and only the elements that changed are copied: their old
+ * state is appended to an undo log (a ring of flat arrays), and the copy is updated. Restoring
+ * a tick first puts back any element that changed since the last save, then reads the undo log
+ * from that tick on, and puts back the first logged state of each element (its state at the tick).
+ * So saving costs a comparison per element and a copy per changed element, and restoring costs a
+ * comparison per element and a copy per element changed since the restored tick. Neither allocates
+ * once the arrays have grown to fit.
+ *
+ * Restoring a tick forgets every tick after it (so the game can carry on, or resimulate, from it).
+ * If elements were added or removed since the restored tick, the window's elements are put back
+ * through its scene changes (so they show up the next time the changes are applied).
+ * Only the state of the elements themselves is restored (not, for example, the state of a
+ * PhysicsWorld, or the game's own fields).
+ *
+ * A SceneHistory must only be used from the game thread.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class SceneHistory {
+
+	private static final byte SPRITE = 1;
+	private static final byte SHAPE = 2;
+	private static final byte TEXT = 4;
+	private static final byte ANIMATED = 8;
+	private static final ShapeType[] SHAPES = ShapeType.values();
+
+	private final Window window;
+	private final int capacity;
+
+	// The saved ticks (a ring, holding frames "oldest" to "frames - 1")
+	private final long[] frameTicks;
+	private final long[] frameLogEnds;
+	private final Drawable[][] frameGame;
+	private final Drawable[][] frameUI;
+	private long frames;
+	private long oldest;
+
+	// Every element seen, each with a slot holding a copy of its last saved state
+	private final IdentityHashMap<Drawable, Integer> slotOf = new IdentityHashMap<Drawable, Integer>();
+	private Drawable[] elements;
+	private byte[] kinds;
+	private long[] removedAt; // The frame an element was first missing from the window (or -1)
+	private long[] seenAt;
+	private int[] restoredAt;
+	private int restoreStamp;
+	private int[] free;
+	private int freeCount;
+	private int slotCount;
+	private int[] x, y, width, height, elapsed;
+	private byte[] shapes;
+	private boolean[] paused;
+	private Color[] colors;
+	private String[] texts;
+	private AnimationClip[] clips;
+
+	// The undo log (a ring, holding entries "logTail" to "logHead - 1")
+	private int logMask;
+	private long logHead, logTail;
+	private int[] logSlots, logX, logY, logWidth, logHeight, logElapsed;
+	private byte[] logShapes;
+	private boolean[] logPaused;
+	private Color[] logColors;
+	private String[] logTexts;
+	private AnimationClip[] logClips;
+
+	// The slots of the elements in the window, as of the last save
+	private Drawable[] lastGame, lastUI;
+	private int[] gameSlots = new int[0], uiSlots = new int[0];
+
+	private int lastChanged;
+	private long lastSaveNanos;
+	private long lastRestoreNanos;
+
+	/**
+	 * Creates a history of a window's elements
+	 * @param window the window to save the elements of
+	 * @param ticks the number of ticks to keep (at least 1)
+	 */
+	public SceneHistory(Window window, int ticks) {
+		this.window = window;
+		this.capacity = Math.max(1, ticks);
+		this.frameTicks = new long[capacity];
+		this.frameLogEnds = new long[capacity];
+		this.frameGame = new Drawable[capacity][];
+		this.frameUI = new Drawable[capacity][];
+		growSlots(256);
+		growLog(1024);
+	}
+
+	/**
+	 * Saves the state of every element in the window (as of the last time its scene changes were applied)
+	 * @param tick the tick being saved (must be higher than the last saved tick)
+	 */
+	public void save(long tick) {
+		long start = System.nanoTime();
+		if(frames > oldest && tick <= getLatestTick()) throw new IllegalArgumentException("Tick " + tick + " is not after the last saved tick (" + getLatestTick() + ")");
+
+		long frame = frames;
+		if(frame - oldest == capacity) {
+			// Forget the oldest tick (its undo log is only needed to go back further)
+			oldest++;
+			logTail = frameLogEnds[(int) (oldest % capacity)];
+		}
+
+		Drawable[] game = window.getGameElementSnapshot(), ui = window.getUIElementSnapshot();
+		if(game != lastGame || ui != lastUI) remap(game, ui, frame);
+
+		int changed = 0;
+		for(int i = 0; i < game.length; i++) {
+			if(capture(gameSlots[i], game[i])) changed++;
+		}
+		for(int i = 0; i < ui.length; i++) {
+			if(capture(uiSlots[i], ui[i])) changed++;
+		}
+
+		int ring = (int) (frame % capacity);
+		frameTicks[ring] = tick;
+		frameLogEnds[ring] = logHead;
+		frameGame[ring] = game;
+		frameUI[ring] = ui;
+		frames++;
+		lastChanged = changed;
+		lastSaveNanos = System.nanoTime() - start;
+	}
+
+	/**
+	 * Finds the slots of every element in the window (giving new elements a slot),
+	 * and notes which elements are no longer in it
+	 */
+	private void remap(Drawable[] game, Drawable[] ui, long frame) {
+		gameSlots = map(game, gameSlots, frame);
+		uiSlots = map(ui, uiSlots, frame);
+		for(int slot = 0; slot < slotCount; slot++) {
+			if(elements[slot] == null) continue;
+			if(seenAt[slot] == frame) {
+				removedAt[slot] = -1;
+			} else if(removedAt[slot] == -1) {
+				removedAt[slot] = frame;
+			} else if(removedAt[slot] <= oldest) {
+				// Not in any saved tick any more, so the slot can be reused
+				slotOf.remove(elements[slot]);
+				elements[slot] = null;
+				colors[slot] = null;
+				texts[slot] = null;
+				clips[slot] = null;
+				free[freeCount++] = slot;
+			}
+		}
+		lastGame = game;
+		lastUI = ui;
+	}
+
+	private int[] map(Drawable[] window, int[] slots, long frame) {
+		if(slots.length < window.length) slots = new int[window.length];
+		for(int i = 0; i < window.length; i++) {
+			Drawable element = window[i];
+			Integer known = slotOf.get(element);
+			int slot;
+			if(known != null) {
+				slot = known;
+			} else {
+				slot = freeCount > 0 ? free[--freeCount] : slotCount++;
+				if(slot == elements.length) growSlots(elements.length * 2);
+				slotOf.put(element, slot);
+				elements[slot] = element;
+				kinds[slot] = kind(element);
+				removedAt[slot] = -1;
+				store(slot, element);
+			}
+			seenAt[slot] = frame;
+			slots[i] = slot;
+		}
+		return slots;
+	}
+
+	private static byte kind(Drawable element) {
+		byte kind = 0;
+		if(element instanceof Sprite) kind |= SPRITE;
+		if(element instanceof Shape) kind |= SHAPE;
+		if(element instanceof Text) kind |= TEXT;
+		if(element instanceof AnimatedSprite) kind |= ANIMATED;
+		return kind;
+	}
+
+	/**
+	 * Compares an element to its saved copy, logging the old state and updating the copy if it changed
+	 * @return true if the element changed
+	 */
+	private boolean capture(int slot, Drawable element) {
+		if(!differs(slot, element)) return false;
+		log(slot);
+		store(slot, element);
+		return true;
+	}
+
+	/**
+	 * Compares an element to its saved copy
+	 * @return true if the element has changed since it was saved
+	 */
+	private boolean differs(int slot, Drawable element) {
+		byte kind = kinds[slot];
+		boolean changed = element.getPosX() != x[slot] || element.getPosY() != y[slot];
+		if(!changed && (kind & SPRITE) != 0) {
+			Sprite sprite = (Sprite) element;
+			changed = sprite.getSize() != null ? sprite.getWidth() != width[slot] || sprite.getHeight() != height[slot] : width[slot] != -1;
+		}
+		if(!changed && (kind & SHAPE) != 0) {
+			Shape shape = (Shape) element;
+			changed = shape.getColor() != colors[slot] || shape.getShape() != shape(slot);
+		}
+		if(!changed && (kind & TEXT) != 0) {
+			Text text = (Text) element;
+			changed = text.getColor() != colors[slot] || text.getText() != texts[slot];
+		}
+		if(!changed && (kind & ANIMATED) != 0) {
+			AnimatedSprite animated = (AnimatedSprite) element;
+			changed = animated.getClip() != clips[slot] || animated.getElapsed() != elapsed[slot] || animated.isPaused() != paused[slot];
+		}
+		return changed;
+	}
+
+	private ShapeType shape(int slot) {
+		return shapes[slot] >= 0 ? SHAPES[shapes[slot]] : null;
+	}
+
+	/**
+	 * Copies the state of an element into its slot
+	 */
+	private void store(int slot, Drawable element) {
+		byte kind = kinds[slot];
+		x[slot] = element.getPosX();
+		y[slot] = element.getPosY();
+		if((kind & SPRITE) != 0) {
+			Sprite sprite = (Sprite) element;
+			width[slot] = sprite.getSize() != null ? sprite.getWidth() : -1;
+			height[slot] = sprite.getSize() != null ? sprite.getHeight() : -1;
+		}
+		if((kind & SHAPE) != 0) {
+			Shape shape = (Shape) element;
+			colors[slot] = shape.getColor();
+			shapes[slot] = shape.getShape() != null ? (byte) shape.getShape().ordinal() : -1;
+		}
+		if((kind & TEXT) != 0) {
+			Text text = (Text) element;
+			colors[slot] = text.getColor();
+			texts[slot] = text.getText();
+		}
+		if((kind & ANIMATED) != 0) {
+			AnimatedSprite animated = (AnimatedSprite) element;
+			clips[slot] = animated.getClip();
+			elapsed[slot] = animated.getElapsed();
+			paused[slot] = animated.isPaused();
+		}
+	}
+
+	/**
+	 * Appends the saved state of a slot to the undo log
+	 */
+	private void log(int slot) {
+		if(logHead - logTail > logMask) growLog((logMask + 1) * 2);
+		int entry = (int) logHead & logMask;
+		logSlots[entry] = slot;
+		logX[entry] = x[slot];
+		logY[entry] = y[slot];
+		logWidth[entry] = width[slot];
+		logHeight[entry] = height[slot];
+		logShapes[entry] = shapes[slot];
+		logColors[entry] = colors[slot];
+		logTexts[entry] = texts[slot];
+		logClips[entry] = clips[slot];
+		logElapsed[entry] = elapsed[slot];
+		logPaused[entry] = paused[slot];
+		logHead++;
+	}
+
+	/**
+	 * Puts every element back the way it was at a saved tick, and forgets every tick after it
+	 * @param tick the tick to restore
+	 * @return true if the tick was restored, false if it is not in the history
+	 */
+	public boolean restore(long tick) {
+		long start = System.nanoTime();
+		long frame = -1;
+		for(long f = frames - 1; f >= oldest; f--) {
+			long saved = frameTicks[(int) (f % capacity)];
+			if(saved == tick) {
+				frame = f;
+				break;
+			}
+			if(saved < tick) break;
+		}
+		if(frame == -1) return false;
+
+		// Undo the changes made since the last save (which are not in the undo log yet)
+		for(int slot = 0; slot < slotCount; slot++) {
+			Drawable element = elements[slot];
+			if(element != null && differs(slot, element)) apply(slot, element);
+		}
+
+		// Undo every change since the tick. The first entry of a slot after the tick holds its
+		// state at the tick, so each changed element is only put back once.
+		int ring = (int) (frame % capacity);
+		long end = frameLogEnds[ring];
+		restoreStamp++;
+		for(long position = end; position < logHead; position++) {
+			int entry = (int) position & logMask;
+			int slot = logSlots[entry];
+			if(restoredAt[slot] == restoreStamp) continue;
+			restoredAt[slot] = restoreStamp;
+			x[slot] = logX[entry];
+			y[slot] = logY[entry];
+			width[slot] = logWidth[entry];
+			height[slot] = logHeight[entry];
+			shapes[slot] = logShapes[entry];
+			colors[slot] = logColors[entry];
+			texts[slot] = logTexts[entry];
+			clips[slot] = logClips[entry];
+			elapsed[slot] = logElapsed[entry];
+			paused[slot] = logPaused[entry];
+			if(elements[slot] != null) apply(slot, elements[slot]);
+		}
+		logHead = end;
+		frames = frame + 1;
+
+		// Put back the elements that were in the window
+		Drawable[] game = frameGame[ring], ui = frameUI[ring];
+		if(game != window.getGameElementSnapshot()) {
+			for(Drawable element : window.getGameElementSnapshot()) window.removeGameElement(element);
+			for(Drawable element : game) window.addGameElement(element);
+		}
+		if(ui != window.getUIElementSnapshot()) {
+			for(Drawable element : window.getUIElementSnapshot()) window.removeUIElement(element);
+			for(Drawable element : ui) window.addUIElement(element);
+		}
+		lastGame = null;
+		lastRestoreNanos = System.nanoTime() - start;
+		return true;
+	}
+
+	/**
+	 * Puts the saved state of a slot back into its element
+	 */
+	private void apply(int slot, Drawable element) {
+		byte kind = kinds[slot];
+		element.setPosX(x[slot]);
+		element.setPosY(y[slot]);
+		if((kind & SPRITE) != 0 && width[slot] != -1) {
+			Sprite sprite = (Sprite) element;
+			if(sprite.getSize() == null || sprite.getWidth() != width[slot] || sprite.getHeight() != height[slot]) sprite.setSize(width[slot], height[slot]);
+		}
+		if((kind & SHAPE) != 0) {
+			((Shape) element).setColor(colors[slot]);
+			((Shape) element).setShape(shape(slot));
+		}
+		if((kind & TEXT) != 0) {
+			((Text) element).setColor(colors[slot]);
+			((Text) element).setText(texts[slot]);
+		}
+		if((kind & ANIMATED) != 0) {
+			AnimatedSprite animated = (AnimatedSprite) element;
+			animated.seek(clips[slot], elapsed[slot]);
+			animated.setPaused(paused[slot]);
+		}
+	}
+
+	private void growSlots(int size) {
+		if(elements == null) {
+			elements = new Drawable[size];
+			kinds = new byte[size];
+			removedAt = new long[size];
+			seenAt = new long[size];
+			restoredAt = new int[size];
+			free = new int[size];
+			x = new int[size];
+			y = new int[size];
+			width = new int[size];
+			height = new int[size];
+			elapsed = new int[size];
+			shapes = new byte[size];
+			paused = new boolean[size];
+			colors = new Color[size];
+			texts = new String[size];
+			clips = new AnimationClip[size];
+			return;
+		}
+		elements = Arrays.copyOf(elements, size);
+		kinds = Arrays.copyOf(kinds, size);
+		removedAt = Arrays.copyOf(removedAt, size);
+		seenAt = Arrays.copyOf(seenAt, size);
+		restoredAt = Arrays.copyOf(restoredAt, size);
+		free = Arrays.copyOf(free, size);
+		x = Arrays.copyOf(x, size);
+		y = Arrays.copyOf(y, size);
+		width = Arrays.copyOf(width, size);
+		height = Arrays.copyOf(height, size);
+		elapsed = Arrays.copyOf(elapsed, size);
+		shapes = Arrays.copyOf(shapes, size);
+		paused = Arrays.copyOf(paused, size);
+		colors = Arrays.copyOf(colors, size);
+		texts = Arrays.copyOf(texts, size);
+		clips = Arrays.copyOf(clips, size);
+	}
+
+	/**
+	 * Grows the undo log to a power of two size, keeping its entries at the same positions
+	 */
+	private void growLog(int size) {
+		int[] slots = new int[size], lx = new int[size], ly = new int[size], lw = new int[size], lh = new int[size], le = new int[size];
+		byte[] ls = new byte[size];
+		boolean[] lp = new boolean[size];
+		Color[] lc = new Color[size];
+		String[] lt = new String[size];
+		AnimationClip[] la = new AnimationClip[size];
+		int mask = size - 1;
+		for(long position = logTail; position < logHead; position++) {
+			int from = (int) position & logMask, to = (int) position & mask;
+			slots[to] = logSlots[from];
+			lx[to] = logX[from];
+			ly[to] = logY[from];
+			lw[to] = logWidth[from];
+			lh[to] = logHeight[from];
+			le[to] = logElapsed[from];
+			ls[to] = logShapes[from];
+			lp[to] = logPaused[from];
+			lc[to] = logColors[from];
+			lt[to] = logTexts[from];
+			la[to] = logClips[from];
+		}
+		logSlots = slots;
+		logX = lx;
+		logY = ly;
+		logWidth = lw;
+		logHeight = lh;
+		logElapsed = le;
+		logShapes = ls;
+		logPaused = lp;
+		logColors = lc;
+		logTexts = lt;
+		logClips = la;
+		logMask = mask;
+	}
+
+	/**
+	 * Returns whether or not a tick can be restored
+	 * @param tick the tick
+	 * @return true if the tick is in the history
+	 */
+	public boolean contains(long tick) {
+		for(long f = frames - 1; f >= oldest; f--) {
+			if(frameTicks[(int) (f % capacity)] == tick) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the last saved tick
+	 * @return the latest tick in the history (or -1 if nothing has been saved)
+	 */
+	public long getLatestTick() {
+		return frames > oldest ? frameTicks[(int) ((frames - 1) % capacity)] : -1;
+	}
+
+	/**
+	 * Gets the earliest tick that can still be restored
+	 * @return the oldest tick in the history (or -1 if nothing has been saved)
+	 */
+	public long getOldestTick() {
+		return frames > oldest ? frameTicks[(int) (oldest % capacity)] : -1;
+	}
+
+	/**
+	 * Gets the number of ticks in the history
+	 * @return the number of saved ticks that can be restored
+	 */
+	public int getTickCount() {
+		return (int) (frames - oldest);
+	}
+
+	/**
+	 * Gets the number of elements that changed in the last save (and so were copied)
+	 * @return the number of changed elements
+	 */
+	public int getLastChangedCount() {
+		return this.lastChanged;
+	}
+
+	/**
+	 * Gets how long the last save took
+	 * @return the time in nanoseconds
+	 */
+	public long getLastSaveTime() {
+		return this.lastSaveNanos;
+	}
+
+	/**
+	 * Gets how long the last restore took
+	 * @return the time in nanoseconds
+	 */
+	public long getLastRestoreTime() {
+		return this.lastRestoreNanos;
+	}
+
+}
@@ -0,0 +1,199 @@
+package dev.johnnyleek.engine.scene;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import dev.johnnyleek.engine.asset.AssetPack;
+import dev.johnnyleek.engine.sprite.Drawable;
+import dev.johnnyleek.engine.sprite.Image;
+import dev.johnnyleek.engine.sprite.Shape;
+import dev.johnnyleek.engine.sprite.ShapeType;
+import dev.johnnyleek.engine.sprite.Text;
+
+/**
+ * Reads a scene file written by a SceneWriter.
+ *
+ * The file is memory mapped, and the elements are built straight from their records,
+ * into arrays sized from the file's header. Each string is only decoded once, each
+ * color is only created once, and each image file is only loaded once (every Image
+ * using the same asset path shares the same BufferedImage, and CollisionMask).
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class SceneReader {
+
+	private static final ShapeType[] SHAPES = ShapeType.values();
+
+	private final String path;
+	private final AssetPack pack;
+	private final MappedByteBuffer buffer;
+
+	/**
+	 * Opens a scene file to read
+	 * @param path the path of the scene file
+	 * @throws IOException if the file could not be read, or is not a scene file
+	 */
+	public SceneReader(String path) throws IOException {
+		this(path, null);
+	}
+
+	/**
+	 * Opens a scene file to read, loading its images from an AssetPack.
+	 * Images whose asset path is not in the pack are loaded from the disk.
+	 * @param path the path of the scene file
+	 * @param pack the AssetPack to load images from (or null to load them from the disk)
+	 * @throws IOException if the file could not be read, or is not a scene file
+	 */
+	public SceneReader(String path, AssetPack pack) throws IOException {
+		this.path = path;
+		this.pack = pack;
+		try(FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if(buffer.remaining() < SceneWriter.HEADER_SIZE || buffer.getInt(0) != SceneWriter.MAGIC) {
+			throw new IOException("Not a scene file: " + path);
+		}
+		short version = buffer.getShort(4);
+		if(version != SceneWriter.VERSION) {
+			throw new IOException("Unsupported scene file version " + version + ": " + path);
+		}
+	}
+
+	/**
+	 * Builds every element in the scene file.
+	 * Can be called more than once (each call builds new elements).
+	 * @return the scene
+	 * @throws IOException if the file is damaged, or an image it refers to could not be loaded
+	 */
+	public Scene read() throws IOException {
+		int gameCount = buffer.getInt(8), uiCount = buffer.getInt(12);
+		long maxElements = buffer.limit() / (SceneWriter.ELEMENT_SIZE + 1);
+		if(gameCount < 0 || uiCount < 0 || (long) gameCount + uiCount > maxElements) {
+			throw new IOException("Damaged scene file (bad element counts): " + path);
+		}
+
+		Drawable[] game = new Drawable[gameCount];
+		Drawable[] ui = new Drawable[uiCount];
+		int gameIndex = 0, uiIndex = 0;
+
+		String[] strings = new String[16];
+		int stringCount = 0;
+		HashMap<Integer, Color> colors = new HashMap<Integer, Color>();
+		HashMap<String, BufferedImage> images = new HashMap<String, BufferedImage>();
+
+		buffer.position(SceneWriter.HEADER_SIZE);
+		try {
+			while(true) {
+				byte tag = buffer.get();
+				if(tag == SceneWriter.END) break;
+
+				if(tag == SceneWriter.STRING) {
+					int length = buffer.getInt();
+					if(length < 0 || length > buffer.remaining()) throw new IOException("Damaged scene file (bad string length " + length + "): " + path);
+					byte[] bytes = new byte[length];
+					buffer.get(bytes);
+					if(stringCount == strings.length) strings = Arrays.copyOf(strings, stringCount * 2);
+					strings[stringCount++] = new String(bytes, StandardCharsets.UTF_8);
+					continue;
+				}
+				if(tag != SceneWriter.ELEMENT) throw new IOException("Damaged scene file (unknown record " + tag + "): " + path);
+
+				byte type = buffer.get();
+				boolean isUI = buffer.get() != 0;
+				int shape = buffer.get();
+				int x = buffer.getInt(), y = buffer.getInt();
+				int width = buffer.getInt(), height = buffer.getInt();
+				int rgb = buffer.getInt();
+				String name = string(strings, stringCount, buffer.getInt());
+				String reference = string(strings, stringCount, buffer.getInt());
+
+				Drawable element;
+				switch(type) {
+					case SceneWriter.SHAPE:
+						if(shape < 0 || shape >= SHAPES.length) throw new IOException("Damaged scene file (unknown shape " + shape + "): " + path);
+						element = new Shape(SHAPES[shape], color(colors, rgb), width, height, x, y, name);
+						break;
+					case SceneWriter.IMAGE:
+						element = image(images, reference, x, y, width, height);
+						element.setName(name);
+						break;
+					case SceneWriter.TEXT:
+						element = new Text(reference, color(colors, rgb), x, y, name);
+						break;
+					default:
+						throw new IOException("Damaged scene file (unknown element type " + type + "): " + path);
+				}
+
+				if(isUI) {
+					if(uiIndex == ui.length) throw new IOException("Damaged scene file (too many UI elements): " + path);
+					ui[uiIndex++] = element;
+				} else {
+					if(gameIndex == game.length) throw new IOException("Damaged scene file (too many game elements): " + path);
+					game[gameIndex++] = element;
+				}
+			}
+		} catch(BufferUnderflowException | NegativeArraySizeException e) {
+			throw new IOException("Damaged scene file (ends early): " + path);
+		}
+
+		if(gameIndex != game.length || uiIndex != ui.length) {
+			throw new IOException("Damaged scene file (missing elements): " + path);
+		}
+		return new Scene(game, ui);
+	}
+
+	private String string(String[] strings, int count, int index) throws IOException {
+		if(index == -1) return null;
+		if(index < 0 || index >= count) throw new IOException("Damaged scene file (unknown string " + index + "): " + path);
+		return strings[index];
+	}
+
+	private static Color color(HashMap<Integer, Color> colors, int rgb) {
+		Color color = colors.get(rgb);
+		if(color == null) {
+			color = new Color(rgb, true);
+			colors.put(rgb, color);
+		}
+		return color;
+	}
+
+	/**
+	 * Creates an Image, loading its file only the first time the asset path is used
+	 */
+	private Image image(HashMap<String, BufferedImage> images, String assetPath, int x, int y, int width, int height) throws IOException {
+		if(assetPath == null) throw new IOException("Damaged scene file (image with no asset path): " + path);
+
+		Image image;
+		BufferedImage loaded = images.get(assetPath);
+		if(loaded == null) {
+			image = pack != null && pack.contains(assetPath) ? new Image(pack, assetPath, x, y) : new Image(assetPath, x, y);
+			images.put(assetPath, image.getImage());
+		} else {
+			image = new Image(loaded, x, y);
+			image.setAssetPath(assetPath);
+		}
+
+		if(image.getWidth() != width || image.getHeight() != height) image.setSize(width, height);
+		return image;
+	}
+
+	/**
+	 * Gets the path of the scene file
+	 * @return the path of the file
+	 */
+	public String getPath() {
+		return this.path;
+	}
+
+}
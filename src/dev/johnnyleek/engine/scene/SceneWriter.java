@@ -0,0 +1,195 @@
+package dev.johnnyleek.engine.scene;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+import dev.johnnyleek.engine.sprite.Drawable;
+import dev.johnnyleek.engine.sprite.Image;
+import dev.johnnyleek.engine.sprite.Shape;
+import dev.johnnyleek.engine.sprite.Sprite;
+import dev.johnnyleek.engine.sprite.Text;
+
+/**
+ * Writes elements to a binary scene file, which can be loaded again with a SceneReader.
+ *
+ * The file starts with a header (see "HEADER_SIZE"), followed by a stream of records:
+ * 	- STRING: a string used by the elements after it (a name, a text, or an image's asset path)
+ * 	- ELEMENT: a single element (a fixed size record, see "ELEMENT_SIZE")
+ * 	- END: the end of the scene
+ *
+ * Each distinct string is only written once (the first time it is used), and elements refer
+ * to strings by their index. Elements are written in the order they are drawn.
+ *
+ * Elements are written as they are given to the writer, through a small buffer, so saving
+ * a scene never builds a copy of it in memory. The element counts in the header are filled
+ * in when the writer is closed.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class SceneWriter implements Closeable {
+
+	static final int MAGIC = 0x4A475343; // "JGSC"
+	static final short VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	static final int ELEMENT_SIZE = 31;
+
+	static final byte END = 0;
+	static final byte STRING = 1;
+	static final byte ELEMENT = 2;
+
+	static final byte SHAPE = 0;
+	static final byte IMAGE = 1;
+	static final byte TEXT = 2;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final String path;
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private final HashMap<String, Integer> strings = new HashMap<String, Integer>();
+	private int gameCount;
+	private int uiCount;
+
+	/**
+	 * Creates (or replaces) a scene file
+	 * @param path the path of the scene file
+	 * @throws IOException if the file could not be created
+	 */
+	public SceneWriter(String path) throws IOException {
+		this.path = path;
+		this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(0).putInt(0);
+	}
+
+	/**
+	 * Writes every element of a scene
+	 * @param scene the scene to write
+	 * @throws IOException if the file could not be written, or an element cannot be saved
+	 */
+	public void write(Scene scene) throws IOException {
+		for(Drawable element : scene.getGameElements()) write(element, false);
+		for(Drawable element : scene.getUIElements()) write(element, true);
+	}
+
+	/**
+	 * Writes a single element
+	 * @param element the element to write (a Shape, Text, or an Image that has an asset path)
+	 * @param ui true if the element is a UI element, false if it is a game element
+	 * @throws IOException if the file could not be written, or the element cannot be saved
+	 */
+	public void write(Drawable element, boolean ui) throws IOException {
+		byte type;
+		int color = 0, reference = -1, shape = 0;
+		if(element instanceof Shape) {
+			type = SHAPE;
+			color = ((Shape) element).getColor().getRGB();
+			shape = ((Shape) element).getShape().ordinal();
+		} else if(element instanceof Image) {
+			type = IMAGE;
+			String assetPath = ((Image) element).getAssetPath();
+			if(assetPath == null) throw new IOException("Image \"" + element.getName() + "\" has no asset path, so it cannot be saved");
+			reference = string(assetPath);
+		} else if(element instanceof Text) {
+			type = TEXT;
+			color = ((Text) element).getColor().getRGB();
+			reference = string(((Text) element).getText());
+		} else {
+			throw new IOException("Elements of type " + element.getClass().getSimpleName() + " cannot be saved");
+		}
+		int name = string(element.getName());
+
+		int width = 0, height = 0;
+		if(element instanceof Sprite && ((Sprite) element).getSize() != null) {
+			width = ((Sprite) element).getWidth();
+			height = ((Sprite) element).getHeight();
+		}
+
+		ensure(1 + ELEMENT_SIZE);
+		buffer.put(ELEMENT).put(type).put((byte) (ui ? 1 : 0)).put((byte) shape)
+				.putInt(element.getPosX()).putInt(element.getPosY())
+				.putInt(width).putInt(height).putInt(color)
+				.putInt(name).putInt(reference);
+
+		if(ui) uiCount++;
+		else gameCount++;
+	}
+
+	/**
+	 * Gets the index of a string, writing it first if it has not been used yet
+	 * @return the index of the string (or -1 for null)
+	 */
+	private int string(String value) throws IOException {
+		if(value == null) return -1;
+		Integer index = strings.get(value);
+		if(index != null) return index;
+
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		ensure(5);
+		buffer.put(STRING).putInt(bytes.length);
+		if(bytes.length <= buffer.remaining()) {
+			buffer.put(bytes);
+		} else {
+			flush();
+			ByteBuffer large = ByteBuffer.wrap(bytes);
+			while(large.hasRemaining()) channel.write(large);
+		}
+
+		index = strings.size();
+		strings.put(value, index);
+		return index;
+	}
+
+	private void ensure(int bytes) throws IOException {
+		if(buffer.remaining() < bytes) flush();
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Gets the number of elements written so far
+	 * @return the number of elements
+	 */
+	public int getElementCount() {
+		return this.gameCount + this.uiCount;
+	}
+
+	/**
+	 * Gets the path of the scene file
+	 * @return the path of the file
+	 */
+	public String getPath() {
+		return this.path;
+	}
+
+	/**
+	 * Ends the scene, fills in the element counts, and closes the file
+	 */
+	@Override
+	public void close() throws IOException {
+		if(!channel.isOpen()) return;
+		try {
+			ensure(1);
+			buffer.put(END);
+			flush();
+
+			ByteBuffer counts = ByteBuffer.allocate(8).putInt(gameCount).putInt(uiCount);
+			counts.flip();
+			channel.write(counts, 8);
+		} finally {
+			channel.close();
+		}
+	}
+
+}
@@ -0,0 +1,203 @@
+package dev.johnnyleek.engine.script;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import dev.johnnyleek.engine.util.Logger;
+
+/**
+ * Represents a behavior that runs over many ticks, written as straight-line code.
+ *
+ * A Script's "run" method runs on its own thread (a virtual thread, when the JVM has them),
+ * and can wait for a number of ticks ("waitTicks") or for a condition ("waitUntil") in the
+ * middle of its code, without having to be written as a state machine:
+ * 	game.startScript(new Script() {
+ * 		protected void run() {
+ * 			enemy.setPosX(enemy.getPosX() + 100);
+ * 			waitTicks(30);
+ * 			fire();
+ * 			waitUntil(() -> player.isDead());
+ * 		}
+ * 	});
+ *
+ * Scripts never run at the same time as the game thread (or each other). The game thread
+ * hands control to a Script when it is due, and waits until the Script waits again (or ends),
+ * so a Script can safely change anything the game thread can, and Scripts always run in the
+ * same order (see "ScriptScheduler").
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public abstract class Script {
+
+	enum Wait {
+		TICKS,
+		CONDITION
+	}
+
+	private ScriptScheduler scheduler;
+	private Thread thread;
+	private Thread caller;
+
+	// The baton: true while the Script's thread has control
+	private volatile boolean running;
+	private volatile boolean finished;
+	private volatile boolean cancelled;
+
+	long sequence;
+	long wakeTick;
+	Wait wait = Wait.TICKS;
+	BooleanSupplier condition;
+
+	/**
+	 * The behavior of the Script. Called on the Script's own thread once the Script is first due.
+	 */
+	protected abstract void run();
+
+	/**
+	 * Waits for a number of ticks. Must only be called from the Script's own code.
+	 * @param ticks the number of ticks to wait (0 or less returns right away)
+	 */
+	protected final void waitTicks(int ticks) {
+		checkThread();
+		if(ticks <= 0) return;
+		wakeTick = scheduler.getTick() + ticks;
+		wait = Wait.TICKS;
+		condition = null;
+		suspend();
+	}
+
+	/**
+	 * Waits until a condition is true. Must only be called from the Script's own code.
+	 * The condition is checked right away, and then once per tick (by the game thread).
+	 * @param condition the condition to wait for
+	 */
+	protected final void waitUntil(BooleanSupplier condition) {
+		checkThread();
+		if(condition.getAsBoolean()) return;
+		this.wait = Wait.CONDITION;
+		this.condition = condition;
+		suspend();
+		this.condition = null;
+	}
+
+	/**
+	 * Gets the current tick
+	 * @return the tick of the game running this Script
+	 */
+	protected final long getTick() {
+		return scheduler != null ? scheduler.getTick() : 0;
+	}
+
+	/**
+	 * Stops the Script. A waiting Script ends the next time Scripts are resumed (its
+	 * "waitTicks"/"waitUntil" call never returns, but its "finally" blocks run).
+	 */
+	public void cancel() {
+		this.cancelled = true;
+		ScriptScheduler scheduler = this.scheduler;
+		if(scheduler != null) scheduler.cancelled();
+	}
+
+	/**
+	 * Returns whether or not the Script has been cancelled
+	 * @return true/false depending on if the Script was cancelled
+	 */
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+
+	/**
+	 * Returns whether or not the Script has ended (by returning from "run", failing, or being cancelled)
+	 * @return true/false depending on if the Script is finished
+	 */
+	public boolean isFinished() {
+		return this.finished;
+	}
+
+	/**
+	 * Gets the ScriptScheduler running this Script
+	 * @return the Script's scheduler (or null if the Script has not been started)
+	 */
+	public ScriptScheduler getScheduler() {
+		return this.scheduler;
+	}
+
+	/**
+	 * Attaches the Script to the scheduler that will run it
+	 */
+	void attach(ScriptScheduler scheduler, long sequence) {
+		if(this.scheduler != null) throw new IllegalStateException("Script has already been started");
+		this.scheduler = scheduler;
+		this.sequence = sequence;
+		this.wakeTick = scheduler.getTick();
+	}
+
+	/**
+	 * Hands control to the Script's thread (starting it the first time), and waits
+	 * until the Script waits again or ends. Called by the scheduler on the game thread.
+	 */
+	void resume() {
+		caller = Thread.currentThread();
+		running = true;
+		if(thread == null) {
+			thread = scheduler.newThread(this::body, "Script " + sequence);
+			thread.start();
+		} else {
+			LockSupport.unpark(thread);
+		}
+		while(running) {
+			LockSupport.park(this);
+		}
+	}
+
+	/**
+	 * Ends a Script that never started (it was cancelled before its first tick)
+	 */
+	void finishUnstarted() {
+		finished = true;
+	}
+
+	/**
+	 * Returns whether or not the Script's thread has been started
+	 */
+	boolean isStarted() {
+		return thread != null;
+	}
+
+	/**
+	 * Hands control back to the game thread, and waits until the Script is resumed
+	 */
+	private void suspend() {
+		running = false;
+		LockSupport.unpark(caller);
+		while(!running) {
+			LockSupport.park(this);
+		}
+		if(cancelled) throw new CancellationException();
+	}
+
+	private void body() {
+		try {
+			if(!cancelled) run();
+		} catch(CancellationException e) {
+			// Cancelled while waiting
+		} catch(Throwable t) {
+			Logger.error("Script " + sequence + " failed!");
+			t.printStackTrace();
+		} finally {
+			finished = true;
+			running = false;
+			LockSupport.unpark(caller);
+		}
+	}
+
+	private void checkThread() {
+		if(Thread.currentThread() != thread) {
+			throw new IllegalStateException("Scripts can only wait from their own code");
+		}
+	}
+
+}
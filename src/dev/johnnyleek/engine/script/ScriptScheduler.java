@@ -0,0 +1,225 @@
+package dev.johnnyleek.engine.script;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+
+import dev.johnnyleek.engine.util.Logger;
+
+/**
+ * Runs the Scripts of a Game, resuming every Script that is due once per tick (see "update").
+ *
+ * Scripts are resumed one at a time, on a fixed schedule:
+ * 	- First, every Script whose "waitTicks" is over (and every newly started Script),
+ * 	  in order of the tick it is due, then the order the Scripts were started
+ * 	- Then, every Script whose "waitUntil" condition is true, in the order the Scripts were started
+ * Scripts started by another Script during a tick run later in the same tick.
+ * Cancelled Scripts end the next time Scripts are resumed (even in the middle of a "waitTicks"). A Script that
+ * moves from "waitTicks" to "waitUntil" has its condition checked from the next tick on.
+ *
+ * Since the schedule never depends on thread timing, Scripts run exactly the same way every time
+ * (such as when replaying recorded input).
+ *
+ * Each Script runs on a virtual thread when the JVM has them (Java 21+), so tens of thousands of
+ * Scripts can wait at once. On older JVMs, each Script runs on a platform thread with a small stack.
+ *
+ * A scheduler must only be used from the game thread (or from a Script it is running).
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class ScriptScheduler {
+
+	private static final long PLATFORM_STACK_SIZE = 256 * 1024;
+	private static final Method OF_VIRTUAL;
+	private static final Method UNSTARTED;
+
+	static {
+		Method ofVirtual = null, unstarted = null;
+		try {
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			unstarted = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+			ofVirtual.invoke(null); // Fails if virtual threads are a disabled preview feature
+		} catch(ReflectiveOperationException | RuntimeException e) {
+			ofVirtual = null;
+			unstarted = null;
+		}
+		OF_VIRTUAL = ofVirtual;
+		UNSTARTED = unstarted;
+		Logger.debug("Scripts run on {} threads", OF_VIRTUAL != null ? "virtual" : "platform");
+	}
+
+	private final PriorityQueue<Script> timed = new PriorityQueue<Script>((a, b) -> {
+		if(a.wakeTick != b.wakeTick) return Long.compare(a.wakeTick, b.wakeTick);
+		return Long.compare(a.sequence, b.sequence);
+	});
+	private ArrayList<Script> waiting = new ArrayList<Script>();
+	private ArrayList<Script> spare = new ArrayList<Script>();
+	private final ArrayList<Script> newlyWaiting = new ArrayList<Script>();
+	private final ArrayList<Script> cancelled = new ArrayList<Script>();
+	private volatile boolean cancelPending; // Set when a Script is cancelled (see "wakeCancelled")
+
+	private long tick;
+	private long sequence;
+	private long resumes;
+
+	/**
+	 * Starts a Script. It first runs the next time Scripts are resumed (in this tick,
+	 * if Scripts have not been resumed yet, or if it is started by another Script).
+	 * @param script the Script to start
+	 * @return the started Script
+	 * @throws IllegalStateException if the Script has already been started
+	 */
+	public <T extends Script> T start(T script) {
+		script.attach(this, sequence++);
+		timed.add(script);
+		return script;
+	}
+
+	/**
+	 * Resumes every Script that is due in this tick. Called by the game loop once per tick.
+	 * @param tick the current tick
+	 */
+	public void update(long tick) {
+		this.tick = tick;
+		resumeTimed();
+
+		Script script;
+		ArrayList<Script> kept = spare;
+		for(int i = 0; i < waiting.size(); i++) {
+			script = waiting.get(i);
+			if(script.isCancelled() || script.condition.getAsBoolean()) {
+				resume(script);
+				if(script.isFinished()) continue;
+				if(script.wait == Script.Wait.TICKS) {
+					timed.add(script);
+					continue;
+				}
+			}
+			kept.add(script);
+		}
+		spare = waiting;
+		spare.clear();
+		waiting = kept;
+
+		// Scripts started by the Scripts that were waiting on conditions
+		resumeTimed();
+
+		if(!newlyWaiting.isEmpty()) {
+			merge(waiting, newlyWaiting);
+			newlyWaiting.clear();
+		}
+	}
+
+	/**
+	 * Resumes every Script whose "waitTicks" is over, and every newly started Script
+	 */
+	private void resumeTimed() {
+		if(cancelPending) wakeCancelled();
+		Script script;
+		while((script = timed.peek()) != null && (script.wakeTick <= tick || script.isCancelled())) {
+			timed.poll();
+			resume(script);
+			if(script.isFinished()) continue;
+			if(script.wait == Script.Wait.TICKS) timed.add(script);
+			else newlyWaiting.add(script);
+		}
+	}
+
+	/**
+	 * Makes every cancelled Script that is waiting for ticks due now, so it ends right away
+	 * instead of holding its thread until its wait would have been over
+	 */
+	private void wakeCancelled() {
+		cancelPending = false;
+		for(Script script : timed) {
+			if(script.isCancelled() && script.wakeTick > tick) cancelled.add(script);
+		}
+		for(Script script : cancelled) {
+			timed.remove(script);
+			script.wakeTick = tick;
+			timed.add(script);
+		}
+		cancelled.clear();
+	}
+
+	/**
+	 * Called when a Script is cancelled (from any thread)
+	 */
+	void cancelled() {
+		cancelPending = true;
+	}
+
+	private void resume(Script script) {
+		if(script.isCancelled() && !script.isStarted()) {
+			script.finishUnstarted();
+			return;
+		}
+		resumes++;
+		script.resume();
+	}
+
+	/**
+	 * Adds Scripts into a list that is sorted by the order the Scripts were started
+	 */
+	private static void merge(ArrayList<Script> sorted, ArrayList<Script> added) {
+		added.sort((a, b) -> Long.compare(a.sequence, b.sequence));
+		int end = sorted.size();
+		for(Script script : added) sorted.add(script);
+		if(end == 0 || sorted.get(end - 1).sequence < added.get(0).sequence) return;
+		sorted.sort((a, b) -> Long.compare(a.sequence, b.sequence));
+	}
+
+	/**
+	 * Creates the thread for a Script (a virtual thread, if the JVM has them)
+	 */
+	Thread newThread(Runnable body, String name) {
+		if(OF_VIRTUAL != null) {
+			try {
+				Thread thread = (Thread) UNSTARTED.invoke(OF_VIRTUAL.invoke(null), body);
+				thread.setName(name);
+				return thread;
+			} catch(IllegalAccessException | InvocationTargetException e) {
+				Logger.warn("Failed to create a virtual thread for a Script, using a platform thread");
+			}
+		}
+		Thread thread = new Thread(null, body, name, PLATFORM_STACK_SIZE);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	/**
+	 * Gets the current tick (as of the last call to "update")
+	 * @return the current tick
+	 */
+	public long getTick() {
+		return this.tick;
+	}
+
+	/**
+	 * Gets the number of Scripts that have been started and have not ended
+	 * @return the number of running Scripts
+	 */
+	public int getScriptCount() {
+		return timed.size() + waiting.size() + newlyWaiting.size();
+	}
+
+	/**
+	 * Gets the number of times a Script has been handed control
+	 * @return the number of Script resumes
+	 */
+	public long getResumeCount() {
+		return this.resumes;
+	}
+
+	/**
+	 * Returns whether or not Scripts run on virtual threads
+	 * @return true if the JVM has virtual threads, false if Scripts run on platform threads
+	 */
+	public static boolean usesVirtualThreads() {
+		return OF_VIRTUAL != null;
+	}
+
+}
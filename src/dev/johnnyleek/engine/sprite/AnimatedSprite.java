@@ -0,0 +1,183 @@
+package dev.johnnyleek.engine.sprite;
+
+/**
+ * Represents a Sprite that plays AnimationClips from a SpriteSheet.
+ *
+ * An AnimatedSprite only keeps track of which clip it is playing and how many
+ * ticks it has been playing for. The sheet (and its clips) are shared, so any
+ * number of AnimatedSprites can play the same animation without copying it.
+ *
+ * Animations are advanced once per tick by the Game loop (for every AnimatedSprite
+ * added to the Window), so there is no need to call "tick()" manually.
+ *
+ * The size of the sprite defaults to the size of a frame, but it can be changed
+ * using "setSize" to scale the frames when they are drawn.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class AnimatedSprite extends Sprite {
+
+	private final SpriteSheet sheet;
+	private AnimationClip clip;
+	private int elapsed;
+	private int frame;
+	private boolean paused;
+
+	/**
+	 * Instantiates an AnimatedSprite showing the first frame of the sheet
+	 * @param sheet the SpriteSheet to draw frames from
+	 * @param posX the X position to render the sprite
+	 * @param posY the Y position to render the sprite
+	 */
+	public AnimatedSprite(SpriteSheet sheet, int posX, int posY) {
+		super(posX, posY, sheet.getFrameWidth(), sheet.getFrameHeight());
+		this.sheet = sheet;
+	}
+
+	/**
+	 * Instantiates an AnimatedSprite showing the first frame of the sheet, with a name (as an identifier)
+	 * @param sheet the SpriteSheet to draw frames from
+	 * @param posX the X position to render the sprite
+	 * @param posY the Y position to render the sprite
+	 * @param name the name to identify the sprite
+	 */
+	public AnimatedSprite(SpriteSheet sheet, int posX, int posY, String name) {
+		super(posX, posY, sheet.getFrameWidth(), sheet.getFrameHeight(), name);
+		this.sheet = sheet;
+	}
+
+	/**
+	 * Starts playing a clip (from the beginning) by its name.
+	 * If the clip is already playing, it is not restarted.
+	 * @param clipName the name of the clip in the SpriteSheet
+	 */
+	public void play(String clipName) {
+		AnimationClip clip = sheet.getClip(clipName);
+		if(clip == null) {
+			throw new IllegalArgumentException(String.format("Clip \"%s\" does not exist in this SpriteSheet", clipName));
+		}
+		play(clip);
+	}
+
+	/**
+	 * Starts playing a clip (from the beginning).
+	 * If the clip is already playing, it is not restarted.
+	 * @param clip the AnimationClip to play
+	 */
+	public void play(AnimationClip clip) {
+		this.paused = false;
+		if(this.clip == clip) return;
+		this.clip = clip;
+		this.elapsed = 0;
+		this.frame = clip.frameAt(0);
+	}
+
+	/**
+	 * Restarts the current clip from its first frame
+	 */
+	public void restart() {
+		if(clip == null) return;
+		this.elapsed = 0;
+		this.frame = clip.frameAt(0);
+	}
+
+	/**
+	 * Advances the animation by one tick
+	 */
+	public void tick() {
+		if(clip == null || paused) return;
+		if(clip.getMode() == AnimationMode.ONCE) {
+			if(clip.isFinished(elapsed)) return;
+			elapsed++;
+		} else {
+			elapsed = (elapsed + 1) % clip.getCycleLength();
+		}
+		frame = clip.frameAt(elapsed);
+	}
+
+	/**
+	 * Jumps to a point in a clip, without restarting it (such as when restoring a saved state)
+	 * @param clip the AnimationClip to show (or null for no clip)
+	 * @param elapsed the number of ticks into the clip
+	 */
+	public void seek(AnimationClip clip, int elapsed) {
+		this.clip = clip;
+		this.elapsed = elapsed;
+		if(clip != null) this.frame = clip.frameAt(elapsed);
+	}
+
+	/**
+	 * Gets the number of ticks the current clip has been playing for (wrapping around for looping clips)
+	 * @return the number of ticks into the current clip
+	 */
+	public int getElapsed() {
+		return elapsed;
+	}
+
+	/**
+	 * Pauses/resumes the current clip
+	 * @param paused whether or not the clip should be paused
+	 */
+	public void setPaused(boolean paused) {
+		this.paused = paused;
+	}
+
+	/**
+	 * Returns whether or not the current clip is paused
+	 * @return true/false depending on if the clip is paused
+	 */
+	public boolean isPaused() {
+		return paused;
+	}
+
+	/**
+	 * Returns whether or not the current clip has finished (only clips played ONCE can finish)
+	 * @return true/false depending on if the current clip has finished
+	 */
+	public boolean isFinished() {
+		return clip != null && clip.isFinished(elapsed);
+	}
+
+	/**
+	 * Gets the clip currently playing
+	 * @return the current AnimationClip (or null if no clip has been played)
+	 */
+	public AnimationClip getClip() {
+		return clip;
+	}
+
+	/**
+	 * Gets the SpriteSheet this sprite draws frames from
+	 * @return the SpriteSheet of the sprite
+	 */
+	public SpriteSheet getSheet() {
+		return sheet;
+	}
+
+	/**
+	 * Gets the index (in the SpriteSheet) of the frame currently shown
+	 * @return the current frame
+	 */
+	public int getFrame() {
+		return frame;
+	}
+
+	/**
+	 * Gets the X position of the current frame's source rectangle within the sheet
+	 * @return the X position of the current frame
+	 */
+	public int getSourceX() {
+		return sheet.getFrameX(frame);
+	}
+
+	/**
+	 * Gets the Y position of the current frame's source rectangle within the sheet
+	 * @return the Y position of the current frame
+	 */
+	public int getSourceY() {
+		return sheet.getFrameY(frame);
+	}
+
+}
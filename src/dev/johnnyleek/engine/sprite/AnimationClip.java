@@ -0,0 +1,117 @@
+package dev.johnnyleek.engine.sprite;
+
+/**
+ * Represents a named animation within a SpriteSheet.
+ *
+ * A clip is a sequence of frames from the sheet, where each frame is shown
+ * for its own number of ticks.
+ *
+ * When the clip is created, its timeline is flattened into a lookup table
+ * (one entry per tick of a full cycle). Finding the frame to show for any
+ * point in time is then a single array lookup.
+ *
+ * Clips are immutable, and are shared by every AnimatedSprite playing them.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public final class AnimationClip {
+
+	private final String name;
+	private final AnimationMode mode;
+	private final int[] timeline;
+	private final int length;
+
+	/**
+	 * Creates a new clip. Clips are created through "SpriteSheet.addClip".
+	 * @param name the name of the clip
+	 * @param mode how the clip plays once it reaches its last frame
+	 * @param frames the indices (in the SpriteSheet) of each frame of the clip
+	 * @param durations how many ticks each frame is shown for
+	 */
+	AnimationClip(String name, AnimationMode mode, int[] frames, int[] durations) {
+		if(frames.length == 0 || frames.length != durations.length) {
+			throw new IllegalArgumentException(String.format("Clip \"%s\" must have one duration per frame (%d frames, %d durations)", name, frames.length, durations.length));
+		}
+		this.name = name;
+		this.mode = mode;
+
+		int forward = 0;
+		for(int duration : durations) {
+			if(duration < 1) throw new IllegalArgumentException(String.format("Clip \"%s\" has a frame duration less than 1 tick", name));
+			forward += duration;
+		}
+		this.length = forward;
+
+		// Ping-pong plays the inner frames again in reverse (the first and last frames aren't repeated)
+		int total = forward;
+		if(mode == AnimationMode.PING_PONG) {
+			for(int i = frames.length - 2; i > 0; i--) {
+				total += durations[i];
+			}
+		}
+
+		this.timeline = new int[total];
+		int tick = 0;
+		for(int i = 0; i < frames.length; i++) {
+			for(int t = 0; t < durations[i]; t++) {
+				timeline[tick++] = frames[i];
+			}
+		}
+		if(mode == AnimationMode.PING_PONG) {
+			for(int i = frames.length - 2; i > 0; i--) {
+				for(int t = 0; t < durations[i]; t++) {
+					timeline[tick++] = frames[i];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the frame (index in the SpriteSheet) to show after a number of ticks
+	 * @param elapsed the number of ticks since the clip started playing
+	 * @return the index of the frame in the SpriteSheet
+	 */
+	public int frameAt(int elapsed) {
+		if(mode == AnimationMode.ONCE) {
+			return timeline[elapsed < length ? elapsed : length - 1];
+		}
+		return timeline[elapsed % timeline.length];
+	}
+
+	/**
+	 * Returns whether or not the clip has finished after a number of ticks.
+	 * Only clips played ONCE ever finish.
+	 * @param elapsed the number of ticks since the clip started playing
+	 * @return true/false depending on if the clip has finished
+	 */
+	public boolean isFinished(int elapsed) {
+		return mode == AnimationMode.ONCE && elapsed >= length;
+	}
+
+	/**
+	 * Gets the number of ticks in one full cycle of the clip
+	 * @return the length of the clip (in ticks)
+	 */
+	public int getCycleLength() {
+		return timeline.length;
+	}
+
+	/**
+	 * Gets the name of the clip
+	 * @return the name of the clip
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets how the clip plays once it reaches its last frame
+	 * @return the AnimationMode of the clip
+	 */
+	public AnimationMode getMode() {
+		return mode;
+	}
+
+}
@@ -0,0 +1,20 @@
+package dev.johnnyleek.engine.sprite;
+
+/**
+ * Defines how an AnimationClip plays once it reaches its last frame.
+ * 
+ * 	- ONCE: stops on the last frame
+ * 	- LOOP: starts again from the first frame
+ * 	- PING_PONG: plays backwards to the first frame, then forwards again
+ * 
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public enum AnimationMode {
+
+	ONCE,
+	LOOP,
+	PING_PONG
+	
+}
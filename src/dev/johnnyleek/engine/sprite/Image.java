@@ -7,18 +7,32 @@ import java.io.IOException;
 
 import javax.imageio.ImageIO;
 
+import dev.johnnyleek.engine.asset.AssetPack;
+import dev.johnnyleek.engine.asset.ByteBufferInputStream;
+import dev.johnnyleek.engine.collision.CollisionMask;
+import dev.johnnyleek.engine.profiling.AssetLoadEvent;
+
 /**
  * Represents an drawable image.
  * 
  * Images are created by loading a FileInputStream containing
  * the path to the image, and it's size is calculated dynamically.
  * 
- * Images can be instantiated either by using a FileInputStream, or by
- * providing a file path as a String.
+ * Images can be instantiated either by using a FileInputStream, by
+ * providing a file path as a String, or from an entry of an AssetPack.
  * 
  * Images can be changed using the "setImage" method, which will reload
  * the image and recalculate its size.
  * 
+ * Images sharing the same BufferedImage (see the BufferedImage constructor)
+ * also share the same CollisionMask, which is only built once.
+ * 
+ * Images loaded from a file path (or an AssetPack entry) remember the path (their
+ * asset path), which is how they are referred to when a scene is saved (see "SceneWriter").
+ * 
+ * Every image loaded from a file is recorded as an AssetLoadEvent (when Java
+ * Flight Recorder is recording it).
+ * 
  * @author Johnny Leek
  * @version 1.0
  *
@@ -26,6 +40,9 @@ import javax.imageio.ImageIO;
 public class Image extends Sprite {
 	
 	private BufferedImage image;
+	private CollisionMask collisionMask;
+	private CollisionMask scaledMask;
+	private String assetPath;
 	
 	/**
 	 * Instantiates a new image using a FileInputStream
@@ -36,7 +53,7 @@ public class Image extends Sprite {
 	 */
 	public Image(FileInputStream imageStream, int posX, int posY) throws IOException {
 		super(posX, posY);
-		this.image = ImageIO.read(imageStream);
+		this.image = read(imageStream, null);
 		super.setSize(new Dimension(this.image.getWidth(), this.image.getHeight()));
 	}
 	
@@ -49,10 +66,89 @@ public class Image extends Sprite {
 	 */
 	public Image(String filePath, int posX, int posY) throws IOException {
 		super(posX, posY);
-		this.image = ImageIO.read(new FileInputStream(filePath));
+		this.image = read(filePath);
+		this.assetPath = filePath;
+		super.setSize(new Dimension(this.image.getWidth(), this.image.getHeight()));
+	}
+	
+	/**
+	 * Instantiates a new image from an entry of an AssetPack (decoded straight from the mapped pack)
+	 * @param pack the AssetPack containing the Image file
+	 * @param name the name of the entry (for example "images/player.png")
+	 * @param posX the X position to render the Image
+	 * @param posY the Y position to render the Image
+	 * @throws IOException if the entry does not exist OR is not a valid Image
+	 */
+	public Image(AssetPack pack, String name, int posX, int posY) throws IOException {
+		super(posX, posY);
+		this.image = read(pack, name);
+		this.assetPath = name;
 		super.setSize(new Dimension(this.image.getWidth(), this.image.getHeight()));
 	}
 	
+	/**
+	 * Instantiates a new image from an already loaded BufferedImage.
+	 * This allows multiple Images to share the same decoded image (and CollisionMask).
+	 * @param image the BufferedImage to draw
+	 * @param posX the X position to render the Image
+	 * @param posY the Y position to render the Image
+	 */
+	public Image(BufferedImage image, int posX, int posY) {
+		super(posX, posY);
+		this.image = image;
+		super.setSize(new Dimension(this.image.getWidth(), this.image.getHeight()));
+	}
+	
+	/**
+	 * Reads and decodes an image file (closing the file once it has been read)
+	 */
+	private static BufferedImage read(String filePath) throws IOException {
+		try(FileInputStream imageStream = new FileInputStream(filePath)) {
+			return read(imageStream, filePath);
+		}
+	}
+	
+	/**
+	 * Decodes an image from an entry of an AssetPack, recording how long it took
+	 */
+	private static BufferedImage read(AssetPack pack, String name) throws IOException {
+		AssetLoadEvent loadEvent = new AssetLoadEvent();
+		loadEvent.begin();
+		ByteBufferInputStream entry = pack.open(name);
+		BufferedImage image = ImageIO.read(entry);
+		if(image == null) throw new IOException("Not a valid image: \"" + name + "\" in " + pack.getPath());
+		
+		if(loadEvent.shouldCommit()) {
+			loadEvent.path = name;
+			loadEvent.assetType = "image";
+			loadEvent.bytes = entry.getPosition();
+			loadEvent.commit();
+		}
+		return image;
+	}
+	
+	/**
+	 * Reads and decodes an image from a stream, recording how long it took
+	 * @param imageStream the stream of the image file
+	 * @param filePath the path of the file (or null if it is not known)
+	 * @throws IOException if the file cannot be read OR is not a valid Image
+	 */
+	private static BufferedImage read(FileInputStream imageStream, String filePath) throws IOException {
+		AssetLoadEvent loadEvent = new AssetLoadEvent();
+		loadEvent.begin();
+		long start = imageStream.getChannel().position();
+		BufferedImage image = ImageIO.read(imageStream);
+		if(image == null) throw new IOException("Not a valid image" + (filePath != null ? ": \"" + filePath + "\"" : ""));
+		
+		if(loadEvent.shouldCommit()) {
+			loadEvent.path = filePath;
+			loadEvent.assetType = "image";
+			loadEvent.bytes = imageStream.getChannel().position() - start;
+			loadEvent.commit();
+		}
+		return image;
+	}
+	
 	/**
 	 * Gets the loaded BufferedImage
 	 * @return the current Image
@@ -67,7 +163,10 @@ public class Image extends Sprite {
 	 * @throws IOException if the file cannot be read OR is not a valid image
 	 */
 	public void setImage(FileInputStream imageStream) throws IOException {
-		this.image = ImageIO.read(imageStream);
+		this.image = read(imageStream, null);
+		this.collisionMask = null;
+		this.scaledMask = null;
+		this.assetPath = null;
 		super.setSize(new Dimension(this.image.getWidth(), this.image.getHeight()));
 	}
 	
@@ -77,8 +176,49 @@ public class Image extends Sprite {
 	 * @throws IOException if the file cannot be read OR is not a valid image
 	 */
 	public void setImage(String filePath) throws IOException {
-		this.image = ImageIO.read(new FileInputStream(filePath));
+		this.image = read(filePath);
+		this.collisionMask = null;
+		this.scaledMask = null;
+		this.assetPath = filePath;
 		super.setSize(new Dimension(this.image.getWidth(), this.image.getHeight()));
 	}
+	
+	/**
+	 * Gets the path of the file the Image was loaded from
+	 * @return the asset path (or null if the Image was not loaded from a file path)
+	 */
+	public String getAssetPath() {
+		return assetPath;
+	}
+	
+	/**
+	 * Sets the path of the file the Image was loaded from, without reloading it
+	 * (for example, for an Image sharing an already loaded BufferedImage)
+	 * @param assetPath the asset path
+	 */
+	public void setAssetPath(String assetPath) {
+		this.assetPath = assetPath;
+	}
+	
+	/**
+	 * Gets the CollisionMask of the current Image (built from its alpha channel), at the size
+	 * the Image is drawn at.
+	 * The mask is computed the first time it is requested, and shared with every
+	 * other Image using the same BufferedImage. If the Image has been resized, a scaled
+	 * copy of the mask is made (and kept until the size changes again).
+	 * @return the CollisionMask of the Image
+	 */
+	public CollisionMask getCollisionMask() {
+		if(this.collisionMask == null) {
+			this.collisionMask = CollisionMask.forImage(this.image);
+		}
+		if(getSize() == null || (getWidth() == this.image.getWidth() && getHeight() == this.image.getHeight())) {
+			return this.collisionMask;
+		}
+		if(this.scaledMask == null || this.scaledMask.getWidth() != getWidth() || this.scaledMask.getHeight() != getHeight()) {
+			this.scaledMask = this.collisionMask.scaled(getWidth(), getHeight());
+		}
+		return this.scaledMask;
+	}
 
 }
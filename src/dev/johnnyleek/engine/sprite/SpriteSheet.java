@@ -0,0 +1,162 @@
+package dev.johnnyleek.engine.sprite;
+
+import java.awt.image.BufferedImage;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Represents an image made up of a grid of equally sized frames.
+ *
+ * The sheet is loaded and sliced once. Frames are numbered from left to right,
+ * top to bottom, starting at 0. Slicing does not copy any pixels; each frame is
+ * only the position of its source rectangle within the sheet.
+ *
+ * Named AnimationClips can be added to a sheet, and then played by any number
+ * of AnimatedSprites. Every AnimatedSprite using the same sheet shares the same
+ * image, frame positions, and clips.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class SpriteSheet {
+
+	private final BufferedImage image;
+	private final int frameWidth, frameHeight;
+	private final int[] frameX, frameY;
+
+	private HashMap<String, AnimationClip> clips;
+
+	/**
+	 * Loads and slices a sprite sheet from a file path
+	 * @param filePath a String containing the path to the sheet
+	 * @param frameWidth the width of each frame
+	 * @param frameHeight the height of each frame
+	 * @throws IOException if the file cannot be read OR is not a valid Image
+	 */
+	public SpriteSheet(String filePath, int frameWidth, int frameHeight) throws IOException {
+		this(ImageIO.read(new FileInputStream(filePath)), frameWidth, frameHeight);
+	}
+
+	/**
+	 * Slices an already loaded image into frames
+	 * @param image the sheet
+	 * @param frameWidth the width of each frame
+	 * @param frameHeight the height of each frame
+	 */
+	public SpriteSheet(BufferedImage image, int frameWidth, int frameHeight) {
+		this.image = image;
+		this.frameWidth = frameWidth;
+		this.frameHeight = frameHeight;
+		this.clips = new HashMap<String, AnimationClip>();
+
+		int columns = image.getWidth() / frameWidth;
+		int rows = image.getHeight() / frameHeight;
+		this.frameX = new int[columns * rows];
+		this.frameY = new int[columns * rows];
+		for(int row = 0; row < rows; row++) {
+			for(int column = 0; column < columns; column++) {
+				frameX[row * columns + column] = column * frameWidth;
+				frameY[row * columns + column] = row * frameHeight;
+			}
+		}
+	}
+
+	/**
+	 * Adds a named clip where every frame is shown for the same amount of ticks
+	 * @param name the name of the clip
+	 * @param mode how the clip plays once it reaches its last frame
+	 * @param ticksPerFrame how many ticks each frame is shown for
+	 * @param frames the indices of each frame of the clip
+	 * @return the created AnimationClip
+	 */
+	public AnimationClip addClip(String name, AnimationMode mode, int ticksPerFrame, int ...frames) {
+		int[] durations = new int[frames.length];
+		for(int i = 0; i < durations.length; i++) {
+			durations[i] = ticksPerFrame;
+		}
+		return addClip(name, mode, frames, durations);
+	}
+
+	/**
+	 * Adds a named clip where every frame has its own duration
+	 * @param name the name of the clip
+	 * @param mode how the clip plays once it reaches its last frame
+	 * @param frames the indices of each frame of the clip
+	 * @param durations how many ticks each frame is shown for
+	 * @return the created AnimationClip
+	 */
+	public AnimationClip addClip(String name, AnimationMode mode, int[] frames, int[] durations) {
+		for(int frame : frames) {
+			if(frame < 0 || frame >= frameX.length) {
+				throw new IllegalArgumentException(String.format("Frame %d is not valid. The sheet only has %d frames", frame, frameX.length));
+			}
+		}
+		AnimationClip clip = new AnimationClip(name, mode, frames.clone(), durations.clone());
+		clips.put(name, clip);
+		return clip;
+	}
+
+	/**
+	 * Gets a clip by its name. Names are CaSe sensitive
+	 * @param name the name of the clip
+	 * @return the AnimationClip matching the name (or null if the clip is not found)
+	 */
+	public AnimationClip getClip(String name) {
+		return clips.get(name);
+	}
+
+	/**
+	 * Gets the whole sheet
+	 * @return the sheet as a BufferedImage
+	 */
+	public BufferedImage getImage() {
+		return image;
+	}
+
+	/**
+	 * Gets the number of frames in the sheet
+	 * @return the number of frames
+	 */
+	public int getFrameCount() {
+		return frameX.length;
+	}
+
+	/**
+	 * Gets the width of each frame
+	 * @return the width of a frame
+	 */
+	public int getFrameWidth() {
+		return frameWidth;
+	}
+
+	/**
+	 * Gets the height of each frame
+	 * @return the height of a frame
+	 */
+	public int getFrameHeight() {
+		return frameHeight;
+	}
+
+	/**
+	 * Gets the X position of a frame within the sheet
+	 * @param frame the index of the frame
+	 * @return the X position of the frame's source rectangle
+	 */
+	public int getFrameX(int frame) {
+		return frameX[frame];
+	}
+
+	/**
+	 * Gets the Y position of a frame within the sheet
+	 * @param frame the index of the frame
+	 * @return the Y position of the frame's source rectangle
+	 */
+	public int getFrameY(int frame) {
+		return frameY[frame];
+	}
+
+}
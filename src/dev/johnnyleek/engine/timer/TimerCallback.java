@@ -0,0 +1,22 @@
+package dev.johnnyleek.engine.timer;
+
+/**
+ * Called when a timer scheduled with a TimerService fires.
+ *
+ * The callback is called on the game thread (while the TimerService is advancing),
+ * so it can safely change anything the game thread can, including scheduling
+ * and cancelling timers.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public interface TimerCallback {
+
+	/**
+	 * Called whenever the timer fires
+	 * @param handle the handle of the timer (as returned when it was scheduled)
+	 */
+	void onTimer(long handle);
+
+}
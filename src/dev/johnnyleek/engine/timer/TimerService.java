@@ -0,0 +1,331 @@
+package dev.johnnyleek.engine.timer;
+
+import java.util.Arrays;
+
+/**
+ * Runs timers that fire after a number of ticks, built on a hierarchical timing wheel.
+ *
+ * The wheel has 4 levels of 256 slots. Level 0 holds the timers due in the next 256 ticks
+ * (one slot per tick), level 1 holds the timers due in the next 65536 ticks (one slot per
+ * 256 ticks), and so on. When the tick moves into a new slot of a higher level, the timers
+ * in that slot are moved down to the level below (a "cascade"). Each timer is moved at most
+ * 4 times, so scheduling and cancelling are O(1), and a tick where no timer fires only looks
+ * at a single (empty) slot, no matter how many timers are pending.
+ *
+ * Timers are stored in preallocated arrays, indexed by an int, and linked together into
+ * the slots, so scheduling and cancelling a timer never allocates (the arrays only grow
+ * when more timers are pending than ever before). Each timer is identified by a handle:
+ * a long made of the timer's index and a generation that changes every time the index is
+ * reused, so a handle to a timer that has fired (or been cancelled) can never affect
+ * the timer that reuses its index.
+ *
+ * Timers fire on the game thread (see "advance"), and timers due on the same tick fire in
+ * the order they were scheduled (a repeating timer counts as scheduled again each time it
+ * fires), so timers always fire in the same order.
+ *
+ * A TimerService must only be used from the game thread.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class TimerService {
+
+	private static final int SLOT_BITS = 8;
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int SLOT_MASK = SLOTS - 1;
+	private static final int LEVELS = 4;
+	private static final int OVERFLOW = LEVELS * SLOTS; // The list of timers too far away for the wheel
+	private static final int NONE = -1;
+
+	// The lists: one per slot (level * SLOTS + slot), plus the overflow list
+	private final int[] heads = new int[OVERFLOW + 1];
+	private final int[] tails = new int[OVERFLOW + 1];
+
+	// The timers (a timer's index into these arrays is the low half of its handle)
+	private long[] due;
+	private long[] sequences;
+	private int[] periods;
+	private int[] generations;
+	private int[] next;
+	private int[] previous;
+	private int[] lists;
+	private TimerCallback[] callbacks;
+	private int freeHead = NONE;
+	private int used;
+
+	private long tick;
+	private long sequence;
+	private int pending;
+	private long fired;
+
+	/**
+	 * Creates a TimerService with room for 1024 pending timers (it grows when more are pending)
+	 */
+	public TimerService() {
+		this(1024);
+	}
+
+	/**
+	 * Creates a TimerService with room for a custom number of pending timers (it grows when more are pending)
+	 * @param capacity how many timers can be pending before the service grows
+	 */
+	public TimerService(int capacity) {
+		capacity = Math.max(1, capacity);
+		this.due = new long[capacity];
+		this.sequences = new long[capacity];
+		this.periods = new int[capacity];
+		this.generations = new int[capacity];
+		this.next = new int[capacity];
+		this.previous = new int[capacity];
+		this.lists = new int[capacity];
+		this.callbacks = new TimerCallback[capacity];
+		Arrays.fill(heads, NONE);
+		Arrays.fill(tails, NONE);
+	}
+
+	/**
+	 * Schedules a timer that fires once
+	 * @param delay the number of ticks until the timer fires (at least 1)
+	 * @param callback the callback to call when the timer fires
+	 * @return the handle of the timer
+	 */
+	public long schedule(int delay, TimerCallback callback) {
+		return schedule(delay, 0, callback);
+	}
+
+	/**
+	 * Schedules a timer that fires over and over, until it is cancelled
+	 * @param delay the number of ticks until the timer first fires (at least 1)
+	 * @param period the number of ticks between each time the timer fires (at least 1)
+	 * @param callback the callback to call each time the timer fires
+	 * @return the handle of the timer
+	 */
+	public long scheduleRepeating(int delay, int period, TimerCallback callback) {
+		if(period < 1) throw new IllegalArgumentException("Timer period must be at least 1 tick: " + period);
+		return schedule(delay, period, callback);
+	}
+
+	private long schedule(int delay, int period, TimerCallback callback) {
+		if(delay < 1) throw new IllegalArgumentException("Timer delay must be at least 1 tick: " + delay);
+		if(callback == null) throw new NullPointerException("Timer callback cannot be null");
+
+		int timer = allocate();
+		periods[timer] = period;
+		callbacks[timer] = callback;
+		due[timer] = tick + delay;
+		sequences[timer] = sequence++;
+		place(timer);
+		pending++;
+		return handle(timer);
+	}
+
+	/**
+	 * Cancels a timer. Does nothing if the timer has already fired (or been cancelled).
+	 * @param handle the handle of the timer
+	 * @return true if the timer was pending, and is now cancelled
+	 */
+	public boolean cancel(long handle) {
+		int timer = resolve(handle);
+		if(timer == NONE) return false;
+		unlink(timer);
+		release(timer);
+		return true;
+	}
+
+	/**
+	 * Returns whether or not a timer is still pending (waiting to fire, or repeating)
+	 * @param handle the handle of the timer
+	 * @return true if the timer is pending
+	 */
+	public boolean isPending(long handle) {
+		return resolve(handle) != NONE;
+	}
+
+	/**
+	 * Gets the number of ticks until a timer next fires
+	 * @param handle the handle of the timer
+	 * @return the number of ticks until the timer fires (or -1 if the timer is not pending)
+	 */
+	public long getRemainingTicks(long handle) {
+		int timer = resolve(handle);
+		return timer == NONE ? -1 : due[timer] - tick;
+	}
+
+	/**
+	 * Moves to the next tick, firing every timer that is due on it.
+	 * Called by the game loop once per tick.
+	 */
+	public void advance() {
+		long now = ++tick;
+		if((now & SLOT_MASK) == 0) cascade(now);
+
+		int list = (int) (now & SLOT_MASK);
+		int timer;
+		while((timer = heads[list]) != NONE) {
+			unlink(timer);
+			long handle = handle(timer);
+			TimerCallback callback = callbacks[timer];
+
+			if(periods[timer] > 0) {
+				due[timer] = now + periods[timer];
+				sequences[timer] = sequence++;
+				place(timer);
+			} else {
+				release(timer);
+			}
+			fired++;
+			callback.onTimer(handle);
+		}
+	}
+
+	/**
+	 * Moves the timers of every slot the tick has just moved into down a level
+	 * (from the highest level down, so timers moved down twice land in the right slot)
+	 */
+	private void cascade(long now) {
+		if((now & 0xFFFFFFFFL) == 0) redistribute(OVERFLOW);
+		for(int level = LEVELS - 1; level > 0; level--) {
+			int shift = level * SLOT_BITS;
+			if((now & ((1L << shift) - 1)) == 0) {
+				redistribute(level * SLOTS + (int) ((now >>> shift) & SLOT_MASK));
+			}
+		}
+	}
+
+	/**
+	 * Places every timer of a list again (relative to the current tick)
+	 */
+	private void redistribute(int list) {
+		int timer = heads[list];
+		heads[list] = NONE;
+		tails[list] = NONE;
+		while(timer != NONE) {
+			int following = next[timer];
+			place(timer);
+			timer = following;
+		}
+	}
+
+	/**
+	 * Puts a timer into the list of the slot it is due in (at the lowest level that can hold it)
+	 */
+	private void place(int timer) {
+		long when = due[timer];
+		long difference = when ^ tick;
+		int list;
+		if(difference < (1L << (SLOT_BITS * LEVELS))) {
+			int level = (63 - Long.numberOfLeadingZeros(difference | 1)) / SLOT_BITS;
+			list = level * SLOTS + (int) ((when >>> (level * SLOT_BITS)) & SLOT_MASK);
+		} else {
+			list = OVERFLOW;
+		}
+
+		// Slots of level 0 are kept in the order the timers were scheduled (the order they fire in)
+		int after = tails[list];
+		if(list < SLOTS) {
+			while(after != NONE && sequences[after] > sequences[timer]) {
+				after = previous[after];
+			}
+		}
+		insertAfter(list, after, timer);
+	}
+
+	private void insertAfter(int list, int after, int timer) {
+		int before = after == NONE ? heads[list] : next[after];
+		previous[timer] = after;
+		next[timer] = before;
+		lists[timer] = list;
+		if(after == NONE) heads[list] = timer;
+		else next[after] = timer;
+		if(before == NONE) tails[list] = timer;
+		else previous[before] = timer;
+	}
+
+	private void unlink(int timer) {
+		int list = lists[timer];
+		int before = previous[timer], after = next[timer];
+		if(before == NONE) heads[list] = after;
+		else next[before] = after;
+		if(after == NONE) tails[list] = before;
+		else previous[after] = before;
+		next[timer] = NONE;
+		previous[timer] = NONE;
+	}
+
+	/**
+	 * Takes a timer from the free list (growing the arrays if there are none)
+	 */
+	private int allocate() {
+		if(freeHead != NONE) {
+			int timer = freeHead;
+			freeHead = next[timer];
+			return timer;
+		}
+		if(used == due.length) grow(due.length * 2);
+		return used++;
+	}
+
+	private void grow(int capacity) {
+		due = Arrays.copyOf(due, capacity);
+		sequences = Arrays.copyOf(sequences, capacity);
+		periods = Arrays.copyOf(periods, capacity);
+		generations = Arrays.copyOf(generations, capacity);
+		next = Arrays.copyOf(next, capacity);
+		previous = Arrays.copyOf(previous, capacity);
+		lists = Arrays.copyOf(lists, capacity);
+		callbacks = Arrays.copyOf(callbacks, capacity);
+	}
+
+	/**
+	 * Returns a timer to the free list, ending its handle
+	 */
+	private void release(int timer) {
+		generations[timer]++;
+		callbacks[timer] = null;
+		lists[timer] = NONE;
+		next[timer] = freeHead;
+		freeHead = timer;
+		pending--;
+	}
+
+	private long handle(int timer) {
+		return ((long) generations[timer] << 32) | timer;
+	}
+
+	/**
+	 * Gets the index of a pending timer from its handle
+	 * @return the index (or NONE if the handle is not of a pending timer)
+	 */
+	private int resolve(long handle) {
+		int timer = (int) handle;
+		if(timer < 0 || timer >= used) return NONE;
+		if(generations[timer] != (int) (handle >>> 32) || lists[timer] == NONE) return NONE;
+		return timer;
+	}
+
+	/**
+	 * Gets the current tick (the number of times the service has advanced)
+	 * @return the current tick
+	 */
+	public long getTick() {
+		return this.tick;
+	}
+
+	/**
+	 * Gets the number of pending timers
+	 * @return the number of timers waiting to fire (or repeating)
+	 */
+	public int getPendingCount() {
+		return this.pending;
+	}
+
+	/**
+	 * Gets the number of times a timer has fired
+	 * @return the number of fired timers
+	 */
+	public long getFiredCount() {
+		return this.fired;
+	}
+
+}
@@ -0,0 +1,70 @@
+package dev.johnnyleek.engine.tween;
+
+import java.awt.Color;
+
+/**
+ * A fixed size cache of Colors, looked up by their packed ARGB value.
+ *
+ * Fading a color creates a different Color almost every tick, so each Color is
+ * cached: the next fade between the same colors (or any other use of the same
+ * ARGB value) reuses it instead of allocating. The cache is direct mapped, so a
+ * lookup is a single array read, and a Color is only ever replaced by another
+ * Color that maps to the same slot.
+ *
+ * A ColorCache is not thread safe.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class ColorCache {
+
+	private final int mask;
+	private final int[] values;
+	private final Color[] colors;
+	private long misses;
+
+	/**
+	 * Creates a cache that holds up to 4096 Colors
+	 */
+	public ColorCache() {
+		this(4096);
+	}
+
+	/**
+	 * Creates a cache with a custom size
+	 * @param capacity how many Colors the cache can hold (rounded up to a power of two)
+	 */
+	public ColorCache(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.mask = size - 1;
+		this.values = new int[size];
+		this.colors = new Color[size];
+	}
+
+	/**
+	 * Gets the Color of a packed ARGB value (creating it, if it is not cached)
+	 * @param argb the color, as 0xAARRGGBB
+	 * @return the Color
+	 */
+	public Color get(int argb) {
+		int slot = (argb * 0x9E3779B9 >>> 16) & mask;
+		Color color = colors[slot];
+		if(color != null && values[slot] == argb) return color;
+
+		color = new Color(argb, true);
+		colors[slot] = color;
+		values[slot] = argb;
+		misses++;
+		return color;
+	}
+
+	/**
+	 * Gets the number of Colors that had to be created
+	 * @return the number of cache misses
+	 */
+	public long getMissCount() {
+		return this.misses;
+	}
+
+}
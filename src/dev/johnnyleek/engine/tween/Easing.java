@@ -0,0 +1,93 @@
+package dev.johnnyleek.engine.tween;
+
+/**
+ * The easing curves a tween can follow, identified by an int (see "Tweener").
+ *
+ * Each curve maps the progress of a tween (from 0 to 1) to how far along
+ * its value is (0 at the start, 1 at the end; BACK and ELASTIC curves go
+ * slightly past the end before settling).
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public final class Easing {
+
+	public static final int LINEAR = 0;
+	public static final int QUAD_IN = 1;
+	public static final int QUAD_OUT = 2;
+	public static final int QUAD_IN_OUT = 3;
+	public static final int CUBIC_IN = 4;
+	public static final int CUBIC_OUT = 5;
+	public static final int CUBIC_IN_OUT = 6;
+	public static final int SINE_IN = 7;
+	public static final int SINE_OUT = 8;
+	public static final int SINE_IN_OUT = 9;
+	public static final int BACK_OUT = 10;
+	public static final int ELASTIC_OUT = 11;
+	public static final int BOUNCE_OUT = 12;
+
+	static final int COUNT = 13;
+
+	private Easing() {}
+
+	/**
+	 * Applies an easing curve
+	 * @param easing the easing curve (such as Easing.QUAD_OUT)
+	 * @param t the progress of the tween (from 0 to 1)
+	 * @return how far along the value is
+	 */
+	public static double ease(int easing, double t) {
+		switch(easing) {
+			case QUAD_IN:
+				return t * t;
+			case QUAD_OUT:
+				return t * (2 - t);
+			case QUAD_IN_OUT:
+				return t < 0.5 ? 2 * t * t : 1 - 2 * (1 - t) * (1 - t);
+			case CUBIC_IN:
+				return t * t * t;
+			case CUBIC_OUT: {
+				double u = 1 - t;
+				return 1 - u * u * u;
+			}
+			case CUBIC_IN_OUT: {
+				if(t < 0.5) return 4 * t * t * t;
+				double u = 1 - t;
+				return 1 - 4 * u * u * u;
+			}
+			case SINE_IN:
+				return 1 - Math.cos(t * Math.PI / 2);
+			case SINE_OUT:
+				return Math.sin(t * Math.PI / 2);
+			case SINE_IN_OUT:
+				return (1 - Math.cos(t * Math.PI)) / 2;
+			case BACK_OUT: {
+				double u = t - 1;
+				return 1 + u * u * (2.70158 * u + 1.70158);
+			}
+			case ELASTIC_OUT:
+				if(t <= 0 || t >= 1) return t <= 0 ? 0 : 1;
+				return Math.pow(2, -10 * t) * Math.sin((t * 10 - 0.75) * (2 * Math.PI / 3)) + 1;
+			case BOUNCE_OUT:
+				return bounce(t);
+			default:
+				return t;
+		}
+	}
+
+	private static double bounce(double t) {
+		if(t < 1 / 2.75) return 7.5625 * t * t;
+		if(t < 2 / 2.75) {
+			t -= 1.5 / 2.75;
+			return 7.5625 * t * t + 0.75;
+		}
+		if(t < 2.5 / 2.75) {
+			t -= 2.25 / 2.75;
+			return 7.5625 * t * t + 0.9375;
+		}
+		t -= 2.625 / 2.75;
+		return 7.5625 * t * t + 0.984375;
+	}
+
+}
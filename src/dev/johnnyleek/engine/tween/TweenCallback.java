@@ -0,0 +1,23 @@
+package dev.johnnyleek.engine.tween;
+
+/**
+ * Called when a tween started by a Tweener ends.
+ *
+ * The callback is called on the game thread (while the Tweener is updating),
+ * so it can safely change anything the game thread can, including starting
+ * and cancelling tweens.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public interface TweenCallback {
+
+	/**
+	 * Called whenever the tween ends
+	 * @param handle the handle of the tween (as returned when it was started)
+	 * @param completed true if the tween reached its end value, false if it was cancelled
+	 */
+	void onTweenEnded(long handle, boolean completed);
+
+}
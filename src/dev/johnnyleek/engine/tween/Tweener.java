@@ -0,0 +1,512 @@
+package dev.johnnyleek.engine.tween;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+import dev.johnnyleek.engine.job.JobGraph;
+import dev.johnnyleek.engine.sprite.Drawable;
+import dev.johnnyleek.engine.sprite.Shape;
+import dev.johnnyleek.engine.sprite.Sprite;
+import dev.johnnyleek.engine.sprite.Text;
+
+/**
+ * Smoothly changes the properties of Drawables (position, size, or color) over a number of ticks.
+ *
+ * Example:
+ * 	long slide = tweens.to(panel, Tweener.X, 400, 30, Easing.QUAD_OUT);
+ * 	long fade = tweens.afterColor(slide, label, Color.RED, 15, Easing.LINEAR);
+ * 	tweens.setCallback(fade, (handle, completed) -> ...);
+ *
+ * Every tween is stored as primitive values in preallocated arrays (its target, property,
+ * start and end values, duration, and easing curve), and identified by a handle: a long made of
+ * the tween's index and a generation that changes every time the index is reused. Starting
+ * and cancelling tweens never allocates (the arrays only grow when more tweens are running
+ * than ever before).
+ *
+ * Once per tick (see "update"), every running tween is advanced in a single pass:
+ * 	- First, the new value of every tween is worked out (split over a JobGraph's pool when
+ * 	  there are many tweens). This only reads the targets.
+ * 	- Then, the values are applied to the targets, and finished tweens end (calling their
+ * 	  callbacks, and starting the tweens queued after them), in the order the tweens started.
+ * A tween's start value is read from its target the first tick it runs, so tweens queued
+ * after each other ("after") carry on from wherever the last one ended.
+ *
+ * Colors are interpolated as packed ARGB values, and turned into Colors through a ColorCache,
+ * so fading back and forth between the same colors stops allocating once the cache is warm.
+ * Size tweens give their sprite a new size each tick (see "Sprite.setSize"), so a Dimension
+ * from "getSize" (which may be shared with another sprite) is never changed by a tween.
+ *
+ * A Tweener must only be used from the game thread.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class Tweener {
+
+	/**
+	 * The properties a tween can change
+	 */
+	public static final int X = 0;
+	public static final int Y = 1;
+	public static final int WIDTH = 2;
+	public static final int HEIGHT = 3;
+	public static final int COLOR = 4;
+
+	private static final int PARALLEL_THRESHOLD = 2048;
+	private static final int GRAIN = 512;
+
+	private static final byte FREE = 0;
+	private static final byte WAITING = 1; // Queued after another tween
+	private static final byte RUNNING = 2;
+	private static final byte CANCELLED = 3; // Released by the next update (or by the tween it was queued after)
+	private static final int NONE = -1;
+
+	private Drawable[] targets;
+	private byte[] properties;
+	private byte[] states;
+	private boolean[] started;
+	private double[] starts;
+	private double[] ends;
+	private double[] values;
+	private int[] durations;
+	private int[] elapsed;
+	private int[] delays;
+	private int[] easings;
+	private int[] generations;
+	private int[] firstFollowers;
+	private int[] lastFollowers;
+	private int[] nextFollowers;
+	private TweenCallback[] callbacks;
+	private int freeHead = NONE;
+	private int used;
+
+	private int[] running;
+	private int runningCount;
+
+	private final ColorCache colors = new ColorCache();
+	private long completed;
+
+	/**
+	 * Creates a Tweener with room for 256 tweens (it grows when more are running)
+	 */
+	public Tweener() {
+		this(256);
+	}
+
+	/**
+	 * Creates a Tweener with room for a custom number of tweens (it grows when more are running)
+	 * @param capacity how many tweens can run before the Tweener grows
+	 */
+	public Tweener(int capacity) {
+		capacity = Math.max(1, capacity);
+		targets = new Drawable[capacity];
+		properties = new byte[capacity];
+		states = new byte[capacity];
+		started = new boolean[capacity];
+		starts = new double[capacity];
+		ends = new double[capacity];
+		values = new double[capacity];
+		durations = new int[capacity];
+		elapsed = new int[capacity];
+		delays = new int[capacity];
+		easings = new int[capacity];
+		generations = new int[capacity];
+		firstFollowers = new int[capacity];
+		lastFollowers = new int[capacity];
+		nextFollowers = new int[capacity];
+		callbacks = new TweenCallback[capacity];
+		running = new int[capacity];
+	}
+
+	/**
+	 * Starts a tween that changes a property of a Drawable (from the next update)
+	 * @param target the Drawable to change
+	 * @param property the property to change (X, Y, WIDTH, or HEIGHT)
+	 * @param end the value the property should end at
+	 * @param duration the number of ticks the tween should take (at least 1)
+	 * @param easing the easing curve to follow (such as Easing.QUAD_OUT)
+	 * @return the handle of the tween
+	 */
+	public long to(Drawable target, int property, double end, int duration, int easing) {
+		return after(0, target, property, end, duration, easing);
+	}
+
+	/**
+	 * Starts a tween that changes the color of a Shape or Text (from the next update)
+	 * @param target the Shape or Text to change
+	 * @param end the color to end at
+	 * @param duration the number of ticks the tween should take (at least 1)
+	 * @param easing the easing curve to follow (such as Easing.LINEAR)
+	 * @return the handle of the tween
+	 */
+	public long toColor(Drawable target, Color end, int duration, int easing) {
+		return after(0, target, COLOR, end.getRGB(), duration, easing);
+	}
+
+	/**
+	 * Queues a tween to start once another tween completes (making a sequence).
+	 * If the other tween is not running, the tween starts right away. If the other tween
+	 * is cancelled, so is this one.
+	 * @param previous the handle of the tween to wait for
+	 * @param target the Drawable to change
+	 * @param property the property to change (X, Y, WIDTH, or HEIGHT)
+	 * @param end the value the property should end at
+	 * @param duration the number of ticks the tween should take (at least 1)
+	 * @param easing the easing curve to follow
+	 * @return the handle of the tween
+	 */
+	public long after(long previous, Drawable target, int property, double end, int duration, int easing) {
+		check(target, property, duration, easing);
+		int tween = allocate();
+		targets[tween] = target;
+		properties[tween] = (byte) property;
+		ends[tween] = end;
+		durations[tween] = duration;
+		easings[tween] = easing;
+		delays[tween] = 0;
+		callbacks[tween] = null;
+		firstFollowers[tween] = NONE;
+		lastFollowers[tween] = NONE;
+		nextFollowers[tween] = NONE;
+
+		int leader = resolve(previous);
+		if(leader != NONE && (states[leader] == RUNNING || states[leader] == WAITING)) {
+			states[tween] = WAITING;
+			if(lastFollowers[leader] == NONE) firstFollowers[leader] = tween;
+			else nextFollowers[lastFollowers[leader]] = tween;
+			lastFollowers[leader] = tween;
+		} else {
+			run(tween);
+		}
+		return handle(tween);
+	}
+
+	/**
+	 * Queues a color tween to start once another tween completes (see "after")
+	 * @param previous the handle of the tween to wait for
+	 * @param target the Shape or Text to change
+	 * @param end the color to end at
+	 * @param duration the number of ticks the tween should take (at least 1)
+	 * @param easing the easing curve to follow
+	 * @return the handle of the tween
+	 */
+	public long afterColor(long previous, Drawable target, Color end, int duration, int easing) {
+		return after(previous, target, COLOR, end.getRGB(), duration, easing);
+	}
+
+	private static void check(Drawable target, int property, int duration, int easing) {
+		if(target == null) throw new NullPointerException("Tween target cannot be null");
+		if(duration < 1) throw new IllegalArgumentException("Tween duration must be at least 1 tick: " + duration);
+		if(easing < 0 || easing >= Easing.COUNT) throw new IllegalArgumentException("Unknown easing: " + easing);
+		switch(property) {
+			case X:
+			case Y:
+				return;
+			case WIDTH:
+			case HEIGHT:
+				if(target instanceof Sprite) return;
+				throw new IllegalArgumentException("Only Sprites have a size to tween");
+			case COLOR:
+				if(target instanceof Shape || target instanceof Text) return;
+				throw new IllegalArgumentException("Only Shapes and Text have a color to tween");
+			default:
+				throw new IllegalArgumentException("Unknown tween property: " + property);
+		}
+	}
+
+	/**
+	 * Sets how many ticks a tween waits before it starts (once it would otherwise start)
+	 * @param handle the handle of the tween
+	 * @param ticks the number of ticks to wait
+	 */
+	public void setDelay(long handle, int ticks) {
+		int tween = resolve(handle);
+		if(tween == NONE || started[tween]) return;
+		delays[tween] = Math.max(0, ticks);
+		if(states[tween] == RUNNING) elapsed[tween] = -delays[tween];
+	}
+
+	/**
+	 * Sets the callback called when a tween ends
+	 * @param handle the handle of the tween
+	 * @param callback the callback (or null for no callback)
+	 */
+	public void setCallback(long handle, TweenCallback callback) {
+		int tween = resolve(handle);
+		if(tween != NONE) callbacks[tween] = callback;
+	}
+
+	/**
+	 * Cancels a tween (leaving its property where it is), and every tween queued after it.
+	 * Their callbacks are called right away.
+	 * @param handle the handle of the tween
+	 * @return true if the tween was running (or queued), and is now cancelled
+	 */
+	public boolean cancel(long handle) {
+		int tween = resolve(handle);
+		if(tween == NONE) return false;
+		end(tween, false);
+		return true;
+	}
+
+	/**
+	 * Returns whether or not a tween is running (or queued after another tween)
+	 * @param handle the handle of the tween
+	 * @return true if the tween has not ended
+	 */
+	public boolean isActive(long handle) {
+		return resolve(handle) != NONE;
+	}
+
+	/**
+	 * Advances every running tween by one tick
+	 */
+	public void update() {
+		update(null);
+	}
+
+	/**
+	 * Advances every running tween by one tick, working out their values on a JobGraph's pool
+	 * when there are many of them. Called by the game loop once per tick.
+	 * @param graph the JobGraph to split the work over (or null to do it all on the calling thread)
+	 */
+	public void update(JobGraph graph) {
+		int count = runningCount;
+		if(count == 0) return;
+
+		if(graph != null && count >= PARALLEL_THRESHOLD) graph.parallelFor(0, count, GRAIN, this::compute);
+		else compute(0, count);
+
+		int kept = 0;
+		for(int i = 0; i < count; i++) {
+			int tween = running[i];
+			if(states[tween] != RUNNING) {
+				if(states[tween] == CANCELLED) release(tween);
+				continue;
+			}
+			double value = values[tween];
+			if(value == value) apply(tween, value); // Not NaN (still delayed)
+
+			if(elapsed[tween] >= durations[tween]) {
+				completed++;
+				end(tween, true);
+				release(tween);
+			} else {
+				running[kept++] = tween;
+			}
+		}
+
+		// Keep the tweens started during the pass (by callbacks, or queued after finished tweens)
+		int added = runningCount - count;
+		System.arraycopy(running, count, running, kept, added);
+		runningCount = kept + added;
+	}
+
+	/**
+	 * Works out the values of a range of running tweens (only reading their targets)
+	 */
+	private void compute(int start, int end) {
+		for(int i = start; i < end; i++) {
+			int tween = running[i];
+			if(states[tween] != RUNNING) continue;
+
+			int e = ++elapsed[tween];
+			if(e <= 0) {
+				values[tween] = Double.NaN;
+				continue;
+			}
+			if(!started[tween]) {
+				starts[tween] = read(tween);
+				started[tween] = true;
+			}
+
+			double t = e >= durations[tween] ? 1 : (double) e / durations[tween];
+			double k = Easing.ease(easings[tween], t);
+			if(properties[tween] == COLOR) {
+				values[tween] = lerpColor((int) starts[tween], (int) ends[tween], k);
+			} else {
+				values[tween] = starts[tween] + (ends[tween] - starts[tween]) * k;
+			}
+		}
+	}
+
+	private static int lerpColor(int from, int to, double k) {
+		int result = 0;
+		for(int shift = 0; shift < 32; shift += 8) {
+			int a = (from >>> shift) & 0xFF, b = (to >>> shift) & 0xFF;
+			int channel = (int) Math.round(a + (b - a) * k);
+			result |= Math.max(0, Math.min(255, channel)) << shift;
+		}
+		return result;
+	}
+
+	private double read(int tween) {
+		Drawable target = targets[tween];
+		switch(properties[tween]) {
+			case X:
+				return target.getPosX();
+			case Y:
+				return target.getPosY();
+			case WIDTH:
+				return ((Sprite) target).getWidth();
+			case HEIGHT:
+				return ((Sprite) target).getHeight();
+			default:
+				Color color = target instanceof Shape ? ((Shape) target).getColor() : ((Text) target).getColor();
+				return color != null ? color.getRGB() : 0;
+		}
+	}
+
+	private void apply(int tween, double value) {
+		Drawable target = targets[tween];
+		switch(properties[tween]) {
+			case X:
+				target.setPosX((int) Math.round(value));
+				break;
+			case Y:
+				target.setPosY((int) Math.round(value));
+				break;
+			case WIDTH: {
+				Sprite sprite = (Sprite) target;
+				sprite.setSize((int) Math.round(value), sprite.getHeight());
+				break;
+			}
+			case HEIGHT: {
+				Sprite sprite = (Sprite) target;
+				sprite.setSize(sprite.getWidth(), (int) Math.round(value));
+				break;
+			}
+			default: {
+				Color color = colors.get((int) value);
+				if(target instanceof Shape) ((Shape) target).setColor(color);
+				else ((Text) target).setColor(color);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Ends a tween, starting (or cancelling) the tweens queued after it, and calling its callback
+	 */
+	private void end(int tween, boolean reachedEnd) {
+		long handle = handle(tween);
+		TweenCallback callback = callbacks[tween];
+		if(++generations[tween] == 0) generations[tween] = 1;
+
+		if(!reachedEnd) {
+			// A running tween stays in the running list (and a queued tween stays queued after
+			// another tween) until it is released, so the lists are never left holding a free tween
+			states[tween] = CANCELLED;
+		}
+
+		int follower = firstFollowers[tween];
+		firstFollowers[tween] = lastFollowers[tween] = NONE;
+		while(follower != NONE) {
+			int following = nextFollowers[follower];
+			if(states[follower] == WAITING) {
+				if(reachedEnd) run(follower);
+				else end(follower, false);
+			}
+			if(states[follower] == CANCELLED) release(follower); // Cancelled while queued
+			follower = following;
+		}
+		if(callback != null) callback.onTweenEnded(handle, reachedEnd);
+	}
+
+	/**
+	 * Adds a tween to the running list
+	 */
+	private void run(int tween) {
+		states[tween] = RUNNING;
+		started[tween] = false;
+		elapsed[tween] = -delays[tween];
+		if(runningCount == running.length) running = Arrays.copyOf(running, running.length * 2);
+		running[runningCount++] = tween;
+	}
+
+	/**
+	 * Takes a tween from the free list (growing the arrays if there are none)
+	 */
+	private int allocate() {
+		if(freeHead != NONE) {
+			int tween = freeHead;
+			freeHead = nextFollowers[tween];
+			return tween;
+		}
+		if(used == targets.length) grow(targets.length * 2);
+		generations[used] = 1; // So no handle is ever 0 (which "to" passes as no previous tween)
+		return used++;
+	}
+
+	private void grow(int capacity) {
+		targets = Arrays.copyOf(targets, capacity);
+		properties = Arrays.copyOf(properties, capacity);
+		states = Arrays.copyOf(states, capacity);
+		started = Arrays.copyOf(started, capacity);
+		starts = Arrays.copyOf(starts, capacity);
+		ends = Arrays.copyOf(ends, capacity);
+		values = Arrays.copyOf(values, capacity);
+		durations = Arrays.copyOf(durations, capacity);
+		elapsed = Arrays.copyOf(elapsed, capacity);
+		delays = Arrays.copyOf(delays, capacity);
+		easings = Arrays.copyOf(easings, capacity);
+		generations = Arrays.copyOf(generations, capacity);
+		firstFollowers = Arrays.copyOf(firstFollowers, capacity);
+		lastFollowers = Arrays.copyOf(lastFollowers, capacity);
+		nextFollowers = Arrays.copyOf(nextFollowers, capacity);
+		callbacks = Arrays.copyOf(callbacks, capacity);
+	}
+
+	/**
+	 * Returns a tween to the free list
+	 */
+	private void release(int tween) {
+		states[tween] = FREE;
+		targets[tween] = null;
+		callbacks[tween] = null;
+		nextFollowers[tween] = freeHead;
+		freeHead = tween;
+	}
+
+	private long handle(int tween) {
+		return ((long) generations[tween] << 32) | tween;
+	}
+
+	/**
+	 * Gets the index of a running (or queued) tween from its handle
+	 * @return the index (or NONE if the handle is not of a running or queued tween)
+	 */
+	private int resolve(long handle) {
+		int tween = (int) handle;
+		if(tween < 0 || tween >= used) return NONE;
+		if(generations[tween] != (int) (handle >>> 32)) return NONE;
+		byte state = states[tween];
+		return state == RUNNING || state == WAITING ? tween : NONE;
+	}
+
+	/**
+	 * Gets the number of running tweens (not counting tweens queued after other tweens)
+	 * @return the number of running tweens
+	 */
+	public int getRunningCount() {
+		return this.runningCount;
+	}
+
+	/**
+	 * Gets the number of tweens that have reached their end value
+	 * @return the number of completed tweens
+	 */
+	public long getCompletedCount() {
+		return this.completed;
+	}
+
+	/**
+	 * Gets the cache the Colors of color tweens are looked up in
+	 * @return the Tweener's ColorCache
+	 */
+	public ColorCache getColorCache() {
+		return this.colors;
+	}
+
+}
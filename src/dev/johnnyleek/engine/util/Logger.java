@@ -1,25 +1,49 @@
 package dev.johnnyleek.engine.util;
 
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
 /**
  * A custom logger class to log messages of different verbosity levels.
- * 
+ *
  * These messages contain ANSI prefixes in order to change the color of
- * the different logging levels (there will be the ability to disable this in a future release)
- * 
+ * the different logging levels (colors are left out when logging to a file)
+ *
  * The verbosity can be set by setting the "verbosity" variable: "Logger.verbosity = Verbosity.DEBUG"
- * 
+ * Messages below the verbosity are ignored before anything is formatted. Errors are always logged.
+ *
  * Any object can be logged, but objects are best represented if they have a toString() method.
- * 
+ *
  * Objects can be logged as follows: Logger.error("error message");
- * 
+ *
+ * Messages can also be built only when they will be logged, either with "{}" placeholders
+ * (Logger.debug("Added sprite {} to {}", id, title)), or with a Supplier
+ * (Logger.debug(() -> expensiveDescription())).
+ *
+ * Logging never waits on the console (or file). Messages are put into a fixed size ring buffer,
+ * and written in batches by a background thread. If the ring buffer is full, the message is
+ * dropped (see "getDroppedCount") instead of blocking the thread that logged it. Call "flush"
+ * to wait for every message to be written (this is done automatically when the program exits).
+ *
+ * Placeholder arguments that are Strings, boxed primitives, enums or UUIDs are formatted on the
+ * background thread. Any other argument is converted to a String when it is logged, so later
+ * changes to the object do not change the message.
+ *
  * @author Johnny Leek
  * @verion 1.0
  *
  */
 public class Logger {
 
-	public static Verbosity verbosity = Verbosity.CRITICAL;
-	
+	public static volatile Verbosity verbosity = Verbosity.CRITICAL;
+
 	// Colours taken from: https://stackoverflow.com/a/5762502
 	public static final String ANSI_RESET = "\u001B[0m";
 	public static final String ANSI_BLACK = "\u001B[30m";
@@ -30,45 +54,523 @@ public class Logger {
 	public static final String ANSI_PURPLE = "\u001B[35m";
 	public static final String ANSI_CYAN = "\u001B[36m";
 	public static final String ANSI_WHITE = "\u001B[37m";
-	
+
+	/**
+	 * The number of messages that can be waiting to be written before new messages are dropped
+	 */
+	public static final int CAPACITY = 1 << 13;
+	private static final int MASK = CAPACITY - 1;
+	private static final long IDLE_NANOS = 1000000L;
+	private static final long EXIT_FLUSH_NANOS = 1000000000L;
+
+	private static final int ERROR = 0, INFO = 1, WARN = 2, CRITICAL = 3, DEBUG = 4;
+	private static final String[] COLORED_PREFIXES = {
+		ANSI_RED + "[ERROR]: ",
+		ANSI_CYAN + "[INFO]:" + ANSI_RESET + " ",
+		ANSI_YELLOW + "[WARN]:" + ANSI_RESET + " ",
+		ANSI_RED + "[CRITICAL]:" + ANSI_RESET + " ",
+		ANSI_BLUE + "[DEBUG]:" + ANSI_RESET + " "
+	};
+	private static final String[] PREFIXES = { "[ERROR]: ", "[INFO]: ", "[WARN]: ", "[CRITICAL]: ", "[DEBUG]: " };
+
+	/**
+	 * A slot in the ring buffer. Written by the thread that logs the message, then read
+	 * by the writer thread once the slot's sequence number has been published.
+	 */
+	private static final class Entry {
+		int kind;
+		String pattern; // null if "arg0" is the whole message
+		int argCount;
+		Object arg0, arg1, arg2;
+		Object[] args;
+	}
+
+	private static final Entry[] entries = new Entry[CAPACITY];
+	private static final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+	private static final AtomicLong tail = new AtomicLong();
+	private static final AtomicLong dropped = new AtomicLong();
+
+	// Only written by the writer thread
+	private static volatile long head;
+	private static final StringBuilder batch = new StringBuilder(1 << 14);
+	private static PrintStream output = System.out;
+	private static boolean colors = true;
+
+	private static volatile PrintStream newOutput;
+	private static volatile boolean newColors;
+	private static final Thread writer;
+
+	static {
+		for(int i = 0; i < CAPACITY; i++) {
+			entries[i] = new Entry();
+			sequences.set(i, i);
+		}
+		writer = new Thread(Logger::write, "Logger");
+		writer.setDaemon(true);
+		writer.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(EXIT_FLUSH_NANOS), "Logger Shutdown"));
+	}
+
+	/**
+	 * Returns whether or not messages of a verbosity level are logged
+	 * @param level the verbosity level
+	 * @return true/false depending on if the level is at or above the current verbosity
+	 */
+	public static boolean isEnabled(Verbosity level) {
+		return level.compareTo(verbosity) >= 0;
+	}
+
 	/**
 	 * Prints error message (prints on all verbosities)
 	 * @param message: Error message to print
 	 */
 	public static void error(Object message) {
-		System.out.println(String.format("%s[ERROR]: %s", ANSI_RED, message.toString()));
+		log(ERROR, null, 0, message, null, null, null);
+	}
+
+	/**
+	 * Prints error message (prints on all verbosities)
+	 * @param message: Supplies the error message to print
+	 */
+	public static void error(Supplier<?> message) {
+		log(ERROR, null, 0, message.get(), null, null, null);
 	}
-	
+
+	/**
+	 * Prints error message (prints on all verbosities)
+	 * @param pattern: Error message to print, with "{}" in place of the argument
+	 * @param arg: The argument
+	 */
+	public static void error(String pattern, Object arg) {
+		log(ERROR, pattern, 1, arg, null, null, null);
+	}
+
+	/**
+	 * Prints error message (prints on all verbosities)
+	 * @param pattern: Error message to print, with "{}" in place of each argument
+	 * @param arg0: The first argument
+	 * @param arg1: The second argument
+	 */
+	public static void error(String pattern, Object arg0, Object arg1) {
+		log(ERROR, pattern, 2, arg0, arg1, null, null);
+	}
+
+	/**
+	 * Prints error message (prints on all verbosities)
+	 * @param pattern: Error message to print, with "{}" in place of each argument
+	 * @param arg0: The first argument
+	 * @param arg1: The second argument
+	 * @param arg2: The third argument
+	 */
+	public static void error(String pattern, Object arg0, Object arg1, Object arg2) {
+		log(ERROR, pattern, 3, arg0, arg1, arg2, null);
+	}
+
+	/**
+	 * Prints error message (prints on all verbosities)
+	 * @param pattern: Error message to print, with "{}" in place of each argument
+	 * @param args: The arguments
+	 */
+	public static void error(String pattern, Object... args) {
+		log(ERROR, pattern, args);
+	}
+
 	/**
 	 * Prints info message (only prints on INFO verbosity or lower)
 	 * @param message: Info message to print
 	 */
 	public static void info(Object message) {
-		System.out.println(String.format("%s[INFO]:%s %s", ANSI_CYAN, ANSI_RESET, message.toString()));
+		if(isEnabled(Verbosity.INFO)) log(INFO, null, 0, message, null, null, null);
+	}
+
+	/**
+	 * Prints info message (only prints on INFO verbosity or lower)
+	 * @param message: Supplies the info message to print (only called if the message is printed)
+	 */
+	public static void info(Supplier<?> message) {
+		if(isEnabled(Verbosity.INFO)) log(INFO, null, 0, message.get(), null, null, null);
+	}
+
+	/**
+	 * Prints info message (only prints on INFO verbosity or lower)
+	 * @param pattern: Info message to print, with "{}" in place of the argument
+	 * @param arg: The argument
+	 */
+	public static void info(String pattern, Object arg) {
+		if(isEnabled(Verbosity.INFO)) log(INFO, pattern, 1, arg, null, null, null);
+	}
+
+	/**
+	 * Prints info message (only prints on INFO verbosity or lower)
+	 * @param pattern: Info message to print, with "{}" in place of each argument
+	 * @param arg0: The first argument
+	 * @param arg1: The second argument
+	 */
+	public static void info(String pattern, Object arg0, Object arg1) {
+		if(isEnabled(Verbosity.INFO)) log(INFO, pattern, 2, arg0, arg1, null, null);
+	}
+
+	/**
+	 * Prints info message (only prints on INFO verbosity or lower)
+	 * @param pattern: Info message to print, with "{}" in place of each argument
+	 * @param arg0: The first argument
+	 * @param arg1: The second argument
+	 * @param arg2: The third argument
+	 */
+	public static void info(String pattern, Object arg0, Object arg1, Object arg2) {
+		if(isEnabled(Verbosity.INFO)) log(INFO, pattern, 3, arg0, arg1, arg2, null);
+	}
+
+	/**
+	 * Prints info message (only prints on INFO verbosity or lower)
+	 * @param pattern: Info message to print, with "{}" in place of each argument
+	 * @param args: The arguments
+	 */
+	public static void info(String pattern, Object... args) {
+		if(isEnabled(Verbosity.INFO)) log(INFO, pattern, args);
 	}
-	
+
 	/**
 	 * Prints warning message (only prints on WARNING verbosity or lower)
 	 * @param message: Warning message to print
 	 */
 	public static void warn(Object message) {
-		System.out.println(String.format("%s[WARN]:%s %s", ANSI_YELLOW, ANSI_RESET, message.toString()));
+		if(isEnabled(Verbosity.WARNING)) log(WARN, null, 0, message, null, null, null);
+	}
+
+	/**
+	 * Prints warning message (only prints on WARNING verbosity or lower)
+	 * @param message: Supplies the warning message to print (only called if the message is printed)
+	 */
+	public static void warn(Supplier<?> message) {
+		if(isEnabled(Verbosity.WARNING)) log(WARN, null, 0, message.get(), null, null, null);
+	}
+
+	/**
+	 * Prints warning message (only prints on WARNING verbosity or lower)
+	 * @param pattern: Warning message to print, with "{}" in place of the argument
+	 * @param arg: The argument
+	 */
+	public static void warn(String pattern, Object arg) {
+		if(isEnabled(Verbosity.WARNING)) log(WARN, pattern, 1, arg, null, null, null);
+	}
+
+	/**
+	 * Prints warning message (only prints on WARNING verbosity or lower)
+	 * @param pattern: Warning message to print, with "{}" in place of each argument
+	 * @param arg0: The first argument
+	 * @param arg1: The second argument
+	 */
+	public static void warn(String pattern, Object arg0, Object arg1) {
+		if(isEnabled(Verbosity.WARNING)) log(WARN, pattern, 2, arg0, arg1, null, null);
+	}
+
+	/**
+	 * Prints warning message (only prints on WARNING verbosity or lower)
+	 * @param pattern: Warning message to print, with "{}" in place of each argument
+	 * @param arg0: The first argument
+	 * @param arg1: The second argument
+	 * @param arg2: The third argument
+	 */
+	public static void warn(String pattern, Object arg0, Object arg1, Object arg2) {
+		if(isEnabled(Verbosity.WARNING)) log(WARN, pattern, 3, arg0, arg1, arg2, null);
+	}
+
+	/**
+	 * Prints warning message (only prints on WARNING verbosity or lower)
+	 * @param pattern: Warning message to print, with "{}" in place of each argument
+	 * @param args: The arguments
+	 */
+	public static void warn(String pattern, Object... args) {
+		if(isEnabled(Verbosity.WARNING)) log(WARN, pattern, args);
 	}
-	
+
 	/**
 	 * Prints critical message (only prints on CRITICAL verbosity or lower)
 	 * @param message: Critical message to print
 	 */
 	public static void critical(Object message) {
-		System.out.println(String.format("%s[CRITICAL]:%s %s", ANSI_RED, ANSI_RESET, message.toString()));
+		if(isEnabled(Verbosity.CRITICAL)) log(CRITICAL, null, 0, message, null, null, null);
+	}
+
+	/**
+	 * Prints critical message (only prints on CRITICAL verbosity or lower)
+	 * @param message: Supplies the critical message to print (only called if the message is printed)
+	 */
+	public static void critical(Supplier<?> message) {
+		if(isEnabled(Verbosity.CRITICAL)) log(CRITICAL, null, 0, message.get(), null, null, null);
+	}
+
+	/**
+	 * Prints critical message (only prints on CRITICAL verbosity or lower)
+	 * @param pattern: Critical message to print, with "{}" in place of the argument
+	 * @param arg: The argument
+	 */
+	public static void critical(String pattern, Object arg) {
+		if(isEnabled(Verbosity.CRITICAL)) log(CRITICAL, pattern, 1, arg, null, null, null);
+	}
+
+	/**
+	 * Prints critical message (only prints on CRITICAL verbosity or lower)
+	 * @param pattern: Critical message to print, with "{}" in place of each argument
+	 * @param arg0: The first argument
+	 * @param arg1: The second argument
+	 */
+	public static void critical(String pattern, Object arg0, Object arg1) {
+		if(isEnabled(Verbosity.CRITICAL)) log(CRITICAL, pattern, 2, arg0, arg1, null, null);
 	}
-	
+
+	/**
+	 * Prints critical message (only prints on CRITICAL verbosity or lower)
+	 * @param pattern: Critical message to print, with "{}" in place of each argument
+	 * @param arg0: The first argument
+	 * @param arg1: The second argument
+	 * @param arg2: The third argument
+	 */
+	public static void critical(String pattern, Object arg0, Object arg1, Object arg2) {
+		if(isEnabled(Verbosity.CRITICAL)) log(CRITICAL, pattern, 3, arg0, arg1, arg2, null);
+	}
+
 	/**
-	 * Prints debug message
+	 * Prints critical message (only prints on CRITICAL verbosity or lower)
+	 * @param pattern: Critical message to print, with "{}" in place of each argument
+	 * @param args: The arguments
+	 */
+	public static void critical(String pattern, Object... args) {
+		if(isEnabled(Verbosity.CRITICAL)) log(CRITICAL, pattern, args);
+	}
+
+	/**
+	 * Prints debug message (only prints on DEBUG verbosity)
 	 * @param message: Debug message to print
 	 */
 	public static void debug(Object message) {
-		System.out.println(String.format("%s[DEBUG]:%s %s", ANSI_BLUE, ANSI_RESET, message.toString()));
+		if(isEnabled(Verbosity.DEBUG)) log(DEBUG, null, 0, message, null, null, null);
+	}
+
+	/**
+	 * Prints debug message (only prints on DEBUG verbosity)
+	 * @param message: Supplies the debug message to print (only called if the message is printed)
+	 */
+	public static void debug(Supplier<?> message) {
+		if(isEnabled(Verbosity.DEBUG)) log(DEBUG, null, 0, message.get(), null, null, null);
+	}
+
+	/**
+	 * Prints debug message (only prints on DEBUG verbosity)
+	 * @param pattern: Debug message to print, with "{}" in place of the argument
+	 * @param arg: The argument
+	 */
+	public static void debug(String pattern, Object arg) {
+		if(isEnabled(Verbosity.DEBUG)) log(DEBUG, pattern, 1, arg, null, null, null);
+	}
+
+	/**
+	 * Prints debug message (only prints on DEBUG verbosity)
+	 * @param pattern: Debug message to print, with "{}" in place of each argument
+	 * @param arg0: The first argument
+	 * @param arg1: The second argument
+	 */
+	public static void debug(String pattern, Object arg0, Object arg1) {
+		if(isEnabled(Verbosity.DEBUG)) log(DEBUG, pattern, 2, arg0, arg1, null, null);
+	}
+
+	/**
+	 * Prints debug message (only prints on DEBUG verbosity)
+	 * @param pattern: Debug message to print, with "{}" in place of each argument
+	 * @param arg0: The first argument
+	 * @param arg1: The second argument
+	 * @param arg2: The third argument
+	 */
+	public static void debug(String pattern, Object arg0, Object arg1, Object arg2) {
+		if(isEnabled(Verbosity.DEBUG)) log(DEBUG, pattern, 3, arg0, arg1, arg2, null);
+	}
+
+	/**
+	 * Prints debug message (only prints on DEBUG verbosity)
+	 * @param pattern: Debug message to print, with "{}" in place of each argument
+	 * @param args: The arguments
+	 */
+	public static void debug(String pattern, Object... args) {
+		if(isEnabled(Verbosity.DEBUG)) log(DEBUG, pattern, args);
 	}
-	
+
+	/**
+	 * Waits (for up to a second) until every message logged so far has been written
+	 */
+	public static void flush() {
+		flush(EXIT_FLUSH_NANOS);
+	}
+
+	private static void flush(long timeoutNanos) {
+		long target = tail.get();
+		long deadline = System.nanoTime() + timeoutNanos;
+		while(head < target && System.nanoTime() < deadline) {
+			LockSupport.unpark(writer);
+			LockSupport.parkNanos(IDLE_NANOS / 10);
+		}
+	}
+
+	/**
+	 * Sends messages to a stream (System.out by default). Messages that were already
+	 * logged may still be written to the old stream.
+	 * @param stream the stream to write messages to
+	 * @param useColors whether or not to include the ANSI color prefixes
+	 */
+	public static void setOutput(PrintStream stream, boolean useColors) {
+		newColors = useColors;
+		newOutput = stream;
+		LockSupport.unpark(writer);
+	}
+
+	/**
+	 * Sends messages to a file (without ANSI colors), appending to the file if it exists
+	 * @param path the path of the log file
+	 * @throws IOException if the file could not be opened
+	 */
+	public static void setOutputFile(String path) throws IOException {
+		setOutput(new PrintStream(new BufferedOutputStream(new FileOutputStream(path, true)), false, "UTF-8"), false);
+	}
+
+	/**
+	 * Gets the number of messages that were dropped because the ring buffer was full
+	 * @return the number of dropped messages
+	 */
+	public static long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * Gets the number of messages that have been written
+	 * @return the number of written messages
+	 */
+	public static long getWrittenCount() {
+		return head;
+	}
+
+	/**
+	 * Logs a message with any number of arguments (a null array is treated as no arguments)
+	 */
+	private static void log(int kind, String pattern, Object[] args) {
+		if(args == null) log(kind, pattern, 0, null, null, null, null);
+		else log(kind, pattern, args.length, null, null, null, args.clone());
+	}
+
+	/**
+	 * Claims a slot in the ring buffer and fills it, or drops the message if the ring buffer is full.
+	 * Arguments are frozen before the slot is claimed, so a slot is always published once claimed.
+	 */
+	private static void log(int kind, String pattern, int argCount, Object arg0, Object arg1, Object arg2, Object[] args) {
+		arg0 = freeze(arg0);
+		arg1 = freeze(arg1);
+		arg2 = freeze(arg2);
+		if(args != null) {
+			for(int i = 0; i < args.length; i++) args[i] = freeze(args[i]);
+		}
+
+		long position;
+		while(true) {
+			position = tail.get();
+			long available = sequences.get((int) position & MASK) - position;
+			if(available < 0) {
+				dropped.incrementAndGet();
+				return;
+			}
+			if(available == 0 && tail.compareAndSet(position, position + 1)) break;
+		}
+
+		Entry entry = entries[(int) position & MASK];
+		entry.kind = kind;
+		entry.pattern = pattern;
+		entry.argCount = argCount;
+		entry.arg0 = arg0;
+		entry.arg1 = arg1;
+		entry.arg2 = arg2;
+		entry.args = args;
+		sequences.lazySet((int) position & MASK, position + 1);
+	}
+
+	/**
+	 * Converts an object that could change before it is written into a String
+	 * (or a description of the exception, if its toString() throws one)
+	 */
+	private static Object freeze(Object arg) {
+		if(arg == null || arg instanceof String || arg instanceof Integer || arg instanceof Long
+				|| arg instanceof Double || arg instanceof Float || arg instanceof Boolean || arg instanceof Character
+				|| arg instanceof Short || arg instanceof Byte || arg instanceof Enum || arg instanceof UUID) {
+			return arg;
+		}
+		try {
+			return arg.toString();
+		} catch(RuntimeException e) {
+			return "[" + arg.getClass().getName() + ".toString() threw " + e + "]";
+		}
+	}
+
+	/**
+	 * Writes messages in batches, sleeping while there are none. Run by the writer thread.
+	 */
+	private static void write() {
+		long position = head;
+		while(true) {
+			PrintStream changed = newOutput;
+			if(changed != null) {
+				newOutput = null;
+				output.flush();
+				if(output != System.out && output != System.err) output.close();
+				output = changed;
+				colors = newColors;
+			}
+
+			int count = 0;
+			while(count < CAPACITY) {
+				int index = (int) position & MASK;
+				if(sequences.get(index) != position + 1) break;
+				append(entries[index]);
+				clear(entries[index]);
+				sequences.lazySet(index, position + CAPACITY);
+				position++;
+				count++;
+			}
+
+			if(count == 0) {
+				LockSupport.parkNanos(IDLE_NANOS);
+				continue;
+			}
+			output.append(batch);
+			output.flush();
+			batch.setLength(0);
+			head = position;
+		}
+	}
+
+	private static void append(Entry entry) {
+		batch.append(colors ? COLORED_PREFIXES[entry.kind] : PREFIXES[entry.kind]);
+		if(entry.pattern == null) {
+			batch.append(entry.arg0).append(System.lineSeparator());
+			return;
+		}
+
+		String pattern = entry.pattern;
+		int start = 0, arg = 0;
+		while(true) {
+			int placeholder = pattern.indexOf("{}", start);
+			if(placeholder < 0 || arg >= entry.argCount) break;
+			batch.append(pattern, start, placeholder).append(argument(entry, arg++));
+			start = placeholder + 2;
+		}
+		batch.append(pattern, start, pattern.length()).append(System.lineSeparator());
+	}
+
+	private static Object argument(Entry entry, int index) {
+		if(entry.args != null) return entry.args[index];
+		return index == 0 ? entry.arg0 : index == 1 ? entry.arg1 : entry.arg2;
+	}
+
+	private static void clear(Entry entry) {
+		entry.pattern = null;
+		entry.arg0 = entry.arg1 = entry.arg2 = null;
+		entry.args = null;
+	}
+
 }
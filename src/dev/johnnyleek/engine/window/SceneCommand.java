@@ -0,0 +1,40 @@
+package dev.johnnyleek.engine.window;
+
+import dev.johnnyleek.engine.sprite.Drawable;
+
+/**
+ * Represents a queued change to the elements of a Window.
+ *
+ * Commands are created by any thread (when adding, removing, or reordering
+ * elements), and are applied by the game thread once per tick.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+final class SceneCommand {
+
+	enum Action {
+		ADD,
+		REMOVE,
+		BRING_TO_FRONT,
+		SEND_TO_BACK
+	}
+
+	final Action action;
+	final boolean ui;
+	final Drawable element;
+
+	/**
+	 * Creates a new command
+	 * @param action what to do with the element
+	 * @param ui true if the element is a UI element, false if it is a game element
+	 * @param element the element to change
+	 */
+	SceneCommand(Action action, boolean ui, Drawable element) {
+		this.action = action;
+		this.ui = ui;
+		this.element = element;
+	}
+
+}
@@ -8,13 +8,16 @@ import java.awt.KeyboardFocusManager;
 import java.awt.event.MouseEvent;
 import java.util.LinkedHashMap;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.swing.JFrame;
 import javax.swing.WindowConstants;
 
 import dev.johnnyleek.engine.input.EventType;
+import dev.johnnyleek.engine.input.InputEventQueue;
 import dev.johnnyleek.engine.input.Keyboard;
 import dev.johnnyleek.engine.input.Mouse;
+import dev.johnnyleek.engine.profiling.SceneChangeEvent;
 import dev.johnnyleek.engine.render.Renderer;
 import dev.johnnyleek.engine.sprite.Drawable;
 import dev.johnnyleek.engine.util.Logger;
@@ -24,17 +27,29 @@ import dev.johnnyleek.engine.util.Logger;
  * and can be rendered to.
  * 
  * Each window keeps track of it's own game and UI objects, as well
- * as Keyboard and Mouse input.
+ * as Keyboard and Mouse input (a window's Keyboard only sees the keys pressed
+ * while that window is focused, and its Mouse only sees the mouse over it).
  * 
  * Keyboard and Mouse input can be disabled at instantiation using the
  * CreateWindow Window builder.
  * 
  * Each Window holds it's own Renderer which is used to render all
- * game and UI objects at runtime.
+ * game and UI objects at runtime (on the Renderer's own thread, so
+ * several Windows can render at the same time).
+ * 
+ * A headless Window (see "CreateWindow.headless") never opens a JFrame or listens
+ * to real input. It is used to run a Game with no display, such as when
+ * replaying recorded input (see "InputReplayer").
  * 
  * The order of objects added to the window is preserved, by utilizing
  * a LinkedHashMap.
  * 
+ * Elements can be added, removed, and reordered from any thread. These changes
+ * are queued (without blocking), and applied by the game thread at the start of
+ * each tick and right before each frame is rendered (see "applySceneChanges").
+ * The Renderer draws from an array snapshot of the elements, which is only
+ * rebuilt when the elements change.
+ * 
  * 
  * @author Johnny Leek
  * @version 1.0
@@ -45,6 +60,7 @@ public class Window {
 	private Dimension screenSize;
 	private String title;
 	private boolean visible = true;
+	private boolean headless;
 	
 	private JFrame window;
 	private DrawArea drawArea;
@@ -55,7 +71,13 @@ public class Window {
 	private LinkedHashMap<UUID, Drawable> gameObjects;
 	private LinkedHashMap<UUID, Drawable> uiObjects;
 	
+	private final ConcurrentLinkedQueue<SceneCommand> pendingChanges = new ConcurrentLinkedQueue<SceneCommand>();
+	private volatile Drawable[] gameSnapshot = new Drawable[0];
+	private volatile Drawable[] uiSnapshot = new Drawable[0];
+	
 	private KeyEventDispatcher keyboardDispatcher;
+	private Keyboard keyboard;
+	private final InputEventQueue inputEvents = new InputEventQueue();
 	
 	private Mouse mouseDispatcher;
 	
@@ -70,6 +92,7 @@ public class Window {
 		this.title = windowBuilder.title;
 		this.visible = windowBuilder.visible;
 		this.initDisplay = windowBuilder.display;
+		this.headless = windowBuilder.headless;
 		this.drawArea = new DrawArea();
 		this.gameObjects = new LinkedHashMap<UUID, Drawable>();
 		this.uiObjects = new LinkedHashMap<UUID, Drawable>();
@@ -77,7 +100,8 @@ public class Window {
 		if(windowBuilder.allowKeyboard)
 			allowKeyboard();		
 		
-		createWindow(windowBuilder.region);
+		if(!headless)
+			createWindow(windowBuilder.region);
 		
 		if(windowBuilder.allowMouse)
 			allowMouse();
@@ -104,6 +128,7 @@ public class Window {
 		
 		window.add(drawArea.getArea());
 		window.pack();
+		if(keyboard != null) keyboard.setOwner(window);
 		window.setVisible(this.visible);
 	}
 	
@@ -112,7 +137,10 @@ public class Window {
 	 */
 	public void allowKeyboard() {
 		if(keyboardDispatcher == null) {
-			addKeyDispatcher(new Keyboard().getDispatcher());
+			this.keyboard = new Keyboard();
+			this.keyboard.setEventQueue(inputEvents);
+			if(this.window != null) this.keyboard.setOwner(this.window);
+			addKeyDispatcher(this.keyboard.getDispatcher());
 		}
 	}
 	
@@ -123,16 +151,36 @@ public class Window {
 	private void addKeyDispatcher(KeyEventDispatcher dispatcher) {
 		if(this.keyboardDispatcher == null) {
 			this.keyboardDispatcher = dispatcher;
+			if(headless) return;
 			KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(dispatcher);
 		}
 	}
 	
+	/**
+	 * Gets the Keyboard listening to this Window
+	 * @return the Window's Keyboard (or null if keyboard input is disabled)
+	 */
+	public Keyboard getKeyboard() {
+		return this.keyboard;
+	}
+	
+	/**
+	 * Gets the queue of keyboard and mouse events recorded in this Window.
+	 * The game loop drains this queue (calling its listeners) at the start of every tick.
+	 * @return the Window's InputEventQueue
+	 */
+	public InputEventQueue getInputEvents() {
+		return this.inputEvents;
+	}
+	
 	/**
 	 * Allows the mouse listener to listen to this Window
 	 */
 	public void allowMouse() {
 		if(mouseDispatcher == null) {
-			addMouseListener(new Mouse());
+			Mouse mouse = new Mouse();
+			mouse.setEventQueue(inputEvents);
+			addMouseListener(mouse);
 		}
 	}
 	
@@ -143,12 +191,22 @@ public class Window {
 	private void addMouseListener(Mouse mouse) {
 		if(this.mouseDispatcher == null) {
 			this.mouseDispatcher = mouse;
+			if(headless) return;
 			
 			this.drawArea.getArea().addMouseListener(mouseDispatcher);
 			this.drawArea.getArea().addMouseMotionListener(mouseDispatcher);
+			this.drawArea.getArea().addMouseWheelListener(mouseDispatcher);
 		}
 	}
 	
+	/**
+	 * Gets the Mouse listening to this Window
+	 * @return the Window's Mouse (or null if mouse input is disabled)
+	 */
+	public Mouse getMouse() {
+		return this.mouseDispatcher;
+	}
+	
 	/**
 	 * Sets the display (monitor/screen) to show the Window
 	 */
@@ -188,6 +246,14 @@ public class Window {
 		return this.drawArea;
 	}
 	
+	/**
+	 * Gets the title of the Window
+	 * @return the Window's title
+	 */
+	public String getTitle() {
+		return this.title;
+	}
+	
 	/**
 	 * Gets the dimensions of the Window (width, height)
 	 * @return Dimension containing the current screen size
@@ -196,16 +262,26 @@ public class Window {
 		return this.screenSize;
 	}
 	
+	/**
+	 * Returns whether or not this Window is headless (has no JFrame, and is never rendered)
+	 * @return true/false depending on if the Window is headless
+	 */
+	public boolean isHeadless() {
+		return this.headless;
+	}
+	
 	/**
 	 * Gets the JFrame that the Window is housed in
-	 * @return the JFrame containing the Window
+	 * @return the JFrame containing the Window (or null if the Window is headless)
 	 */
 	public JFrame getFrame() {
 		return this.window;
 	}
 	
 	/**
-	 * Gets all of the game elements (Drawable's) as a LinkedHashMap
+	 * Gets all of the game elements (Drawable's) as a LinkedHashMap.
+	 * This map is only updated by the game thread (in "applySceneChanges"), so it should only
+	 * be used from the game thread. Use "getGameElementSnapshot" from any other thread.
 	 * @return a LinkedHashMap containing all of the game elements contained in this Window
 	 */
 	public LinkedHashMap<UUID, Drawable> getGameElements() {
@@ -213,16 +289,24 @@ public class Window {
 	}
 	
 	/**
-	 * Adds a new game element to the window
+	 * Gets the game elements (in draw order) as of the last time scene changes were applied.
+	 * The returned array is never modified, so it is safe to read from any thread.
+	 * @return an array containing all of the game elements contained in this Window
+	 */
+	public Drawable[] getGameElementSnapshot() {
+		return this.gameSnapshot;
+	}
+	
+	/**
+	 * Adds a new game element to the window (applied at the start of the next tick)
 	 * @param sprite the game element to draw to the window
 	 */
 	public void addGameElement(Drawable sprite) {		
-		this.gameObjects.put(sprite.getID(), sprite);
-		Logger.debug("Added game sprite to Window: \"" + window.getTitle() + "\" with ID: " + sprite.getID());
+		this.pendingChanges.add(new SceneCommand(SceneCommand.Action.ADD, false, sprite));
 	}
 	
 	/**
-	 * Adds multiple new game elements to the window
+	 * Adds multiple new game elements to the window (applied at the start of the next tick)
 	 * @param sprites the game elements to draw to the window
 	 */
 	public void addGameElements(Drawable ...sprites) {
@@ -231,6 +315,30 @@ public class Window {
 		}
 	}
 	
+	/**
+	 * Removes a game element from the window (applied at the start of the next tick)
+	 * @param sprite the game element to remove
+	 */
+	public void removeGameElement(Drawable sprite) {
+		this.pendingChanges.add(new SceneCommand(SceneCommand.Action.REMOVE, false, sprite));
+	}
+	
+	/**
+	 * Moves a game element so it is drawn above every other game element (applied at the start of the next tick)
+	 * @param sprite the game element to move
+	 */
+	public void bringGameElementToFront(Drawable sprite) {
+		this.pendingChanges.add(new SceneCommand(SceneCommand.Action.BRING_TO_FRONT, false, sprite));
+	}
+	
+	/**
+	 * Moves a game element so it is drawn below every other game element (applied at the start of the next tick)
+	 * @param sprite the game element to move
+	 */
+	public void sendGameElementToBack(Drawable sprite) {
+		this.pendingChanges.add(new SceneCommand(SceneCommand.Action.SEND_TO_BACK, false, sprite));
+	}
+	
 	/**
 	 * Gets a game element by it's 'name' attribute. Returns null if game element matching the provided name
 	 * is not found. Names are CaSe sensitive
@@ -238,7 +346,7 @@ public class Window {
 	 * @return the Drawable matching the name (or null if element not found)
 	 */
 	public Drawable getGameElementByName(String name) {
-		for(Drawable sprite : gameObjects.values()) {
+		for(Drawable sprite : gameSnapshot) {
 			if(sprite.getName() == name) return sprite;
 		}
 		
@@ -246,24 +354,34 @@ public class Window {
 	}
 	
 	/**
-	 * Gets all of the UI elements (Drawable's) as a LinkedHashMap
+	 * Gets all of the UI elements (Drawable's) as a LinkedHashMap.
+	 * This map is only updated by the game thread (in "applySceneChanges"), so it should only
+	 * be used from the game thread. Use "getUIElementSnapshot" from any other thread.
 	 * @return a LinkedHashMap containing all of the UI elements contained in this Window
 	 */
 	public LinkedHashMap<UUID, Drawable> getUIElements() {
 		return this.uiObjects;
 	}
+	
+	/**
+	 * Gets the UI elements (in draw order) as of the last time scene changes were applied.
+	 * The returned array is never modified, so it is safe to read from any thread.
+	 * @return an array containing all of the UI elements contained in this Window
+	 */
+	public Drawable[] getUIElementSnapshot() {
+		return this.uiSnapshot;
+	}
 
 	/**
-	 * Adds a new UI element to the window
+	 * Adds a new UI element to the window (applied at the start of the next tick)
 	 * @param sprite the UI element to draw to the window
 	 */
 	public void addUIElement(Drawable sprite) {
-		this.uiObjects.put(sprite.getID(), sprite);
-		Logger.debug("Added UI Sprite to Window: \"" + window.getTitle() + "\" with ID: " + sprite.getID());
+		this.pendingChanges.add(new SceneCommand(SceneCommand.Action.ADD, true, sprite));
 	}
 	
 	/**
-	 * Adds multiple new UI elements to the window
+	 * Adds multiple new UI elements to the window (applied at the start of the next tick)
 	 * @param sprites the UI elements to draw to the window
 	 */
 	public void addUIElements(Drawable ...sprites) {
@@ -272,6 +390,30 @@ public class Window {
 		}
 	}
 	
+	/**
+	 * Removes a UI element from the window (applied at the start of the next tick)
+	 * @param sprite the UI element to remove
+	 */
+	public void removeUIElement(Drawable sprite) {
+		this.pendingChanges.add(new SceneCommand(SceneCommand.Action.REMOVE, true, sprite));
+	}
+	
+	/**
+	 * Moves a UI element so it is drawn above every other UI element (applied at the start of the next tick)
+	 * @param sprite the UI element to move
+	 */
+	public void bringUIElementToFront(Drawable sprite) {
+		this.pendingChanges.add(new SceneCommand(SceneCommand.Action.BRING_TO_FRONT, true, sprite));
+	}
+	
+	/**
+	 * Moves a UI element so it is drawn below every other UI element (applied at the start of the next tick)
+	 * @param sprite the UI element to move
+	 */
+	public void sendUIElementToBack(Drawable sprite) {
+		this.pendingChanges.add(new SceneCommand(SceneCommand.Action.SEND_TO_BACK, true, sprite));
+	}
+	
 	/**
 	 * Gets a UI element by it's 'name' attribute. Returns null if UI element matching the provided name
 	 * is not found. Names are CaSe sensitive
@@ -279,13 +421,77 @@ public class Window {
 	 * @return the Drawable matching the name (or null if element not found)
 	 */
 	public Drawable getUIElementByName(String name) {
-		for(Drawable sprite : uiObjects.values()) {
+		for(Drawable sprite : uiSnapshot) {
 			if(sprite.getName() == name) return sprite;
 		}
 		
 		return null;		
 	}
 	
+	/**
+	 * Applies every queued add/remove/reorder, in the order they were queued, and
+	 * rebuilds the element snapshots if anything changed.
+	 * 
+	 * This is called by the Game loop at the start of every tick, and right before
+	 * every frame is rendered. It must only be called from the game thread.
+	 * 
+	 * The changes are recorded as a SceneChangeEvent (when Java Flight Recorder is recording it).
+	 */
+	public void applySceneChanges() {
+		boolean gameChanged = false, uiChanged = false;
+		int added = 0, removed = 0, moved = 0;
+		SceneChangeEvent sceneEvent = new SceneChangeEvent();
+		sceneEvent.begin();
+		
+		SceneCommand command;
+		while((command = pendingChanges.poll()) != null) {
+			LinkedHashMap<UUID, Drawable> elements = command.ui ? uiObjects : gameObjects;
+			Drawable element = command.element;
+			
+			switch(command.action) {
+				case ADD:
+					elements.put(element.getID(), element);
+					Logger.debug("Added {} sprite to Window: \"{}\" with ID: {}", command.ui ? "UI" : "game", title, element.getID());
+					added++;
+					break;
+				case REMOVE:
+					if(elements.remove(element.getID()) == null) continue;
+					removed++;
+					break;
+				case BRING_TO_FRONT:
+					if(elements.remove(element.getID()) == null) continue;
+					elements.put(element.getID(), element);
+					moved++;
+					break;
+				case SEND_TO_BACK:
+					if(elements.remove(element.getID()) == null) continue;
+					LinkedHashMap<UUID, Drawable> reordered = new LinkedHashMap<UUID, Drawable>();
+					reordered.put(element.getID(), element);
+					reordered.putAll(elements);
+					elements.clear();
+					elements.putAll(reordered);
+					moved++;
+					break;
+			}
+			
+			if(command.ui) uiChanged = true;
+			else gameChanged = true;
+		}
+		
+		if(gameChanged) this.gameSnapshot = gameObjects.values().toArray(new Drawable[0]);
+		if(uiChanged) this.uiSnapshot = uiObjects.values().toArray(new Drawable[0]);
+		
+		if((gameChanged || uiChanged) && sceneEvent.shouldCommit()) {
+			sceneEvent.window = title;
+			sceneEvent.added = added;
+			sceneEvent.removed = removed;
+			sceneEvent.reordered = moved;
+			sceneEvent.gameElements = gameSnapshot.length;
+			sceneEvent.uiElements = uiSnapshot.length;
+			sceneEvent.commit();
+		}
+	}
+	
 	/**
 	 * Serves as a builder for a Window which allows for the
 	 * dynamic creation of a window with specified parameters.
@@ -299,6 +505,7 @@ public class Window {
 	 *  - selectDisplay: The display to open the window on
 	 *  - disableKeyboard: Disables keyboard input for this window
 	 *  - disableMouse: Disables mouse input for this window
+	 *  - headless: Never opens or renders the window (input can only be injected, such as by an InputReplayer)
 	 * 
 	 * 
 	 * @author Johnny Leek
@@ -312,6 +519,7 @@ public class Window {
 		private boolean visible = true;
 		private boolean allowKeyboard = true;
 		private boolean allowMouse = true;
+		private boolean headless;
 		private ScreenRegion region;
 		private int display = 0;
 		
@@ -387,6 +595,16 @@ public class Window {
 			return this;
 		}
 		
+		/**
+		 * Makes the window headless. A headless window never opens a JFrame,
+		 * is never rendered, and does not listen to real keyboard or mouse input.
+		 * @return the modified builder object
+		 */
+		public CreateWindow headless() {
+			this.headless = true;
+			return this;
+		}
+		
 		/**
 		 * Packs the settings into a window
 		 * 
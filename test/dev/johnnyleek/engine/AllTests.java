@@ -0,0 +1,38 @@
+package dev.johnnyleek.engine;
+
+/**
+ * Runs every test of the engine (stopping at the first failure).
+ *
+ * 	javac -d bin $(find src test -name "*.java")
+ * 	java -cp bin dev.johnnyleek.engine.AllTests
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public final class AllTests {
+
+	public static void main(String[] args) throws Exception {
+		System.setProperty("java.awt.headless", "true");
+		dev.johnnyleek.engine.asset.AssetPackTest.main(args);
+		dev.johnnyleek.engine.audio.AudioStreamTest.main(args);
+		dev.johnnyleek.engine.collision.CollisionMaskTest.main(args);
+		dev.johnnyleek.engine.input.InputEventQueueTest.main(args);
+		dev.johnnyleek.engine.input.KeyboardTest.main(args);
+		dev.johnnyleek.engine.input.MouseTest.main(args);
+		dev.johnnyleek.engine.job.JobGraphTest.main(args);
+		dev.johnnyleek.engine.net.GameServerTest.main(args);
+		dev.johnnyleek.engine.net.SnapshotTest.main(args);
+		dev.johnnyleek.engine.physics.PhysicsWorldTest.main(args);
+		dev.johnnyleek.engine.scene.SceneFileTest.main(args);
+		dev.johnnyleek.engine.scene.SceneHistoryTest.main(args);
+		dev.johnnyleek.engine.script.ScriptSchedulerTest.main(args);
+		dev.johnnyleek.engine.sprite.SpriteTest.main(args);
+		dev.johnnyleek.engine.timer.TimerServiceTest.main(args);
+		dev.johnnyleek.engine.tween.TweenerTest.main(args);
+		dev.johnnyleek.engine.util.LoggerTest.main(args);
+		System.out.println("All tests passed");
+		System.exit(0);
+	}
+
+}
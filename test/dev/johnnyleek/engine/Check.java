@@ -0,0 +1,77 @@
+package dev.johnnyleek.engine;
+
+import java.util.Objects;
+
+/**
+ * The assertions the engine's tests are written with.
+ *
+ * Each test class has a "main" method that runs every one of its tests (see "AllTests"),
+ * and a failed check throws an AssertionError describing what was expected.
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public final class Check {
+
+	private Check() {}
+
+	/**
+	 * A test that can throw anything (see "run")
+	 */
+	public interface Test {
+		void run() throws Exception;
+	}
+
+	/**
+	 * Runs a single named test, printing whether it passed
+	 * @param name the name of the test
+	 * @param test the test to run
+	 * @throws Exception if the test failed
+	 */
+	public static void run(String name, Test test) throws Exception {
+		try {
+			test.run();
+			System.out.println("  passed: " + name);
+		} catch(Exception | AssertionError e) {
+			System.out.println("  FAILED: " + name);
+			throw e;
+		}
+	}
+
+	/**
+	 * Fails if a condition is false
+	 * @param condition the condition that should be true
+	 * @param message what the condition means
+	 */
+	public static void check(boolean condition, String message) {
+		if(!condition) throw new AssertionError(message);
+	}
+
+	/**
+	 * Fails if two values are not equal
+	 * @param expected the expected value
+	 * @param actual the actual value
+	 * @param message what the value is
+	 */
+	public static void equal(Object expected, Object actual, String message) {
+		if(!Objects.equals(expected, actual)) throw new AssertionError(message + ": expected " + expected + " but was " + actual);
+	}
+
+	/**
+	 * Fails unless running something throws an exception of a type
+	 * @param type the type of exception expected
+	 * @param test the code that should throw
+	 * @param message what should have failed
+	 */
+	public static void throwsException(Class<? extends Throwable> type, Test test, String message) {
+		try {
+			test.run();
+		} catch(Throwable e) {
+			if(type.isInstance(e)) return;
+			throw new AssertionError(message + ": expected " + type.getSimpleName() + " but got " + e, e);
+		}
+		throw new AssertionError(message + ": expected " + type.getSimpleName() + " but nothing was thrown");
+	}
+
+}
@@ -0,0 +1,157 @@
+package dev.johnnyleek.engine.asset;
+
+import static dev.johnnyleek.engine.Check.check;
+import static dev.johnnyleek.engine.Check.equal;
+import static dev.johnnyleek.engine.Check.run;
+import static dev.johnnyleek.engine.Check.throwsException;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Tests for AssetPack and AssetPacker
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class AssetPackTest {
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("AssetPackTest");
+		run("packed entries are read back by name", AssetPackTest::readBack);
+		run("missing entries", AssetPackTest::missing);
+		run("packing the same directory gives the same pack", AssetPackTest::repeatable);
+		run("names that collide are rejected", AssetPackTest::collision);
+		run("files that are not asset packs", AssetPackTest::notAPack);
+	}
+
+	private static Path assets() throws IOException {
+		Path directory = Files.createTempDirectory("assets");
+		Files.createDirectories(directory.resolve("images"));
+		Files.createDirectories(directory.resolve("audio"));
+		Files.write(directory.resolve("images/player.png"), new byte[] { 1, 2, 3, 4, 5 });
+		Files.write(directory.resolve("audio/jump.wav"), "jump".getBytes(StandardCharsets.UTF_8));
+		Files.write(directory.resolve("empty.txt"), new byte[0]);
+		byte[] large = new byte[100000];
+		for(int i = 0; i < large.length; i++) large[i] = (byte) (i * 31);
+		Files.write(directory.resolve("large.bin"), large);
+		return directory;
+	}
+
+	private static void delete(Path directory) throws IOException {
+		try(Stream<Path> walk = Files.walk(directory)) {
+			walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	private static byte[] bytes(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+
+	private static void readBack() throws IOException {
+		Path directory = assets();
+		try {
+			Path file = directory.resolve("assets.pack");
+			equal(4, AssetPacker.pack(directory, file), "files packed");
+			equal(4, AssetPacker.pack(directory, file), "the pack itself is not packed");
+
+			AssetPack pack = new AssetPack(file.toString());
+			equal(4, pack.getEntryCount(), "entries");
+			check(pack.contains("images/player.png"), "contains");
+			check(Arrays.equals(new byte[] { 1, 2, 3, 4, 5 }, bytes(pack.get("images/player.png"))), "image data");
+			check(Arrays.equals(new byte[] { 1, 2, 3, 4, 5 }, bytes(pack.get("\\images\\player.png"))), "names are normalized");
+			check(Arrays.equals(Files.readAllBytes(directory.resolve("large.bin")), bytes(pack.get("large.bin"))), "large data");
+			equal(0, pack.get("empty.txt").remaining(), "empty data");
+			check(pack.get("audio/jump.wav").isReadOnly(), "entries are read-only");
+
+			try(InputStream in = pack.open("audio/jump.wav")) {
+				byte[] read = new byte[16];
+				int count = in.read(read);
+				equal("jump", new String(read, 0, count, StandardCharsets.UTF_8), "streamed data");
+				equal(-1, in.read(), "end of the stream");
+			}
+		} finally {
+			delete(directory);
+		}
+	}
+
+	private static void missing() throws IOException {
+		Path directory = assets();
+		try {
+			Path file = directory.resolve("assets.pack");
+			AssetPacker.pack(directory, file);
+			AssetPack pack = new AssetPack(file.toString());
+			check(!pack.contains("images/enemy.png"), "not contained");
+			equal(null, pack.get("images/enemy.png"), "no data");
+			throwsException(FileNotFoundException.class, () -> pack.open("images/enemy.png"), "opening a missing entry");
+		} finally {
+			delete(directory);
+		}
+	}
+
+	private static void repeatable() throws IOException {
+		Path directory = assets();
+		Path output = Files.createTempDirectory("packs");
+		try {
+			AssetPacker.pack(directory, output.resolve("first.pack"));
+			AssetPacker.pack(directory, output.resolve("second.pack"));
+			check(Arrays.equals(Files.readAllBytes(output.resolve("first.pack")), Files.readAllBytes(output.resolve("second.pack"))), "same bytes");
+		} finally {
+			delete(directory);
+			delete(output);
+		}
+	}
+
+	private static void collision() throws IOException {
+		// "a\b" and "a/b" are both the entry "a/b" (a file name can only contain "\" where "/" separates directories)
+		if(File.separatorChar != '/') return;
+		Path directory = Files.createTempDirectory("assets");
+		Path output = Files.createTempDirectory("packs");
+		try {
+			Files.createDirectories(directory.resolve("a"));
+			Files.write(directory.resolve("a").resolve("b"), new byte[] { 1 });
+			Files.write(directory.resolve("a\\b"), new byte[] { 2 });
+			Path file = output.resolve("assets.pack");
+			throwsException(IOException.class, () -> AssetPacker.pack(directory, file), "two files with the same name");
+		} finally {
+			delete(directory);
+			delete(output);
+		}
+	}
+
+	private static void notAPack() throws IOException {
+		Path directory = Files.createTempDirectory("packs");
+		try {
+			Path text = directory.resolve("text.pack");
+			Files.write(text, "not an asset pack".getBytes(StandardCharsets.UTF_8));
+			throwsException(IOException.class, () -> new AssetPack(text.toString()), "a text file");
+
+			Path empty = directory.resolve("empty.pack");
+			Files.write(empty, new byte[0]);
+			throwsException(IOException.class, () -> new AssetPack(empty.toString()), "an empty file");
+
+			Path damaged = directory.resolve("damaged.pack");
+			ByteBuffer header = ByteBuffer.allocate(AssetPack.HEADER_SIZE);
+			header.putInt(AssetPack.MAGIC).putShort(AssetPack.VERSION).putShort((short) 0).putInt(1000);
+			Files.write(damaged, header.array());
+			throwsException(IOException.class, () -> new AssetPack(damaged.toString()), "an index past the end of the file");
+
+			throwsException(IOException.class, () -> new AssetPack(directory.resolve("missing.pack").toString()), "a missing file");
+		} finally {
+			delete(directory);
+		}
+	}
+
+}
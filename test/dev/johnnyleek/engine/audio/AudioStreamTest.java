@@ -0,0 +1,178 @@
+package dev.johnnyleek.engine.audio;
+
+import static dev.johnnyleek.engine.Check.check;
+import static dev.johnnyleek.engine.Check.equal;
+import static dev.johnnyleek.engine.Check.run;
+import static dev.johnnyleek.engine.Check.throwsException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Tests for AudioStream
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class AudioStreamTest {
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("AudioStreamTest");
+		run("mono is copied to both channels", AudioStreamTest::mono);
+		run("stereo loops without a gap", AudioStreamTest::loops);
+		run("unplayed audio is never overwritten", AudioStreamTest::noOverwrite);
+		run("changing the loops of a stream", AudioStreamTest::setLoops);
+		run("unsupported files", AudioStreamTest::unsupported);
+		run("a streamer thread and a mixer thread", AudioStreamTest::twoThreads);
+	}
+
+	/**
+	 * Builds a WAV file where the left sample of frame i is i, and the right sample is -i
+	 * (with an odd sized chunk before the audio data)
+	 */
+	private static ByteBuffer wav(int channels, int bits, int sampleRate, int frames) {
+		int dataSize = frames * channels * 2;
+		ByteBuffer wav = ByteBuffer.allocate(12 + 24 + 12 + 8 + dataSize).order(ByteOrder.LITTLE_ENDIAN);
+		wav.putInt(0x46464952).putInt(wav.capacity() - 8).putInt(0x45564157); // "RIFF", "WAVE"
+		wav.putInt(0x20746D66).putInt(16); // "fmt "
+		wav.putShort((short) 1).putShort((short) channels).putInt(sampleRate)
+				.putInt(sampleRate * channels * 2).putShort((short) (channels * 2)).putShort((short) bits);
+		wav.putInt(0x5453494C).putInt(3).put((byte) 1).put((byte) 2).put((byte) 3).put((byte) 0); // "LIST" (padded)
+		wav.putInt(0x61746164).putInt(dataSize); // "data"
+		for(int i = 0; i < frames; i++) {
+			wav.putShort((short) i);
+			if(channels == 2) wav.putShort((short) -i);
+		}
+		wav.flip();
+		return wav;
+	}
+
+	private static AudioStream stream(int channels, int frames, int loops) throws Exception {
+		return new AudioStream("test.wav", wav(channels, 16, 44100, frames), loops, new byte[AudioStream.RING_SIZE]);
+	}
+
+	private static short sample(byte[] ring, int index) {
+		return (short) ((ring[index] & 0xFF) | (ring[index + 1] << 8));
+	}
+
+	/**
+	 * Plays every frame that is available, as the mixer would
+	 * @return each frame played, as (left << 16) | (right & 0xFFFF)
+	 */
+	private static int[] play(AudioStream stream, int maxFrames) {
+		int[] played = new int[maxFrames];
+		int count = 0;
+		while(count < maxFrames) {
+			stream.fill();
+			int available = Math.min(stream.available(), maxFrames - count);
+			if(available == 0 && stream.hasEnded()) break;
+			for(int i = 0; i < available; i++) {
+				int index = (stream.readIndex() + i * 4) & AudioStream.RING_MASK;
+				played[count++] = (sample(stream.ring, index) << 16) | (sample(stream.ring, index + 2) & 0xFFFF);
+			}
+			stream.consume(available);
+		}
+		int[] result = new int[count];
+		System.arraycopy(played, 0, result, 0, count);
+		return result;
+	}
+
+	private static void checkFrames(int[] played, int frames, boolean mono) {
+		for(int i = 0; i < played.length; i++) {
+			short value = (short) (i % frames);
+			int expected = (value << 16) | ((mono ? value : (short) -value) & 0xFFFF);
+			if(played[i] != expected) {
+				throw new AssertionError("frame " + i + ": expected " + Integer.toHexString(expected) + " but was " + Integer.toHexString(played[i]));
+			}
+		}
+	}
+
+	private static void mono() throws Exception {
+		AudioStream stream = stream(1, 30000, 0);
+		int[] played = play(stream, 100000);
+		equal(30000, played.length, "frames played");
+		checkFrames(played, 30000, true);
+		check(stream.hasEnded(), "ended");
+	}
+
+	private static void loops() throws Exception {
+		AudioStream stream = stream(2, 40001, 2);
+		int[] played = play(stream, 200000);
+		equal(3 * 40001, played.length, "frames played");
+		checkFrames(played, 40001, false);
+	}
+
+	private static void noOverwrite() throws Exception {
+		AudioStream stream = stream(2, 100000, 0);
+		for(int i = 0; i < 10; i++) stream.fill();
+		check(stream.available() <= AudioStream.RING_SIZE / 4, "no more than a ring of audio");
+		check(stream.available() > 0, "some audio");
+		int[] played = play(stream, 200000);
+		equal(100000, played.length, "frames played");
+		checkFrames(played, 100000, false);
+	}
+
+	private static void setLoops() throws Exception {
+		AudioStream stream = stream(2, 5000, -1);
+		int[] played = play(stream, 50000);
+		equal(50000, played.length, "loops forever");
+		check(!stream.hasEnded(), "not ended");
+
+		stream.setLoops(0);
+		int[] rest = play(stream, 100000);
+		check(rest.length < 100000, "stops looping");
+		equal(0, (played.length + rest.length) % 5000, "ends at the end of the audio");
+		check(stream.hasEnded(), "ended");
+	}
+
+	private static void unsupported() throws Exception {
+		throwsException(UnsupportedAudioFileException.class,
+				() -> new AudioStream("test.wav", ByteBuffer.wrap(new byte[64]), 0, new byte[AudioStream.RING_SIZE]), "not a WAV file");
+		throwsException(UnsupportedAudioFileException.class,
+				() -> new AudioStream("test.wav", wav(2, 8, 44100, 100), 0, new byte[AudioStream.RING_SIZE]), "8-bit");
+		throwsException(UnsupportedAudioFileException.class,
+				() -> new AudioStream("test.wav", wav(2, 16, 22050, 100), 0, new byte[AudioStream.RING_SIZE]), "22.05kHz");
+
+		AudioStream empty = stream(2, 0, 0);
+		check(!empty.fill(), "nothing to copy");
+		check(empty.hasEnded(), "an empty file ends");
+	}
+
+	private static void twoThreads() throws Exception {
+		int frames = 50000;
+		AudioStream stream = stream(2, frames, 3);
+		Thread streamer = new Thread(() -> {
+			while(!stream.hasEnded()) {
+				if(!stream.fill()) Thread.yield();
+			}
+		});
+		streamer.start();
+
+		int expected = 4 * frames;
+		int count = 0;
+		long deadline = System.nanoTime() + 60_000_000_000L;
+		while(System.nanoTime() < deadline) {
+			boolean ended = stream.hasEnded();
+			int available = stream.available();
+			if(available == 0) {
+				if(ended) break;
+				Thread.yield();
+				continue;
+			}
+			for(int i = 0; i < available; i++, count++) {
+				int index = (stream.readIndex() + i * 4) & AudioStream.RING_MASK;
+				short value = (short) (count % frames);
+				if(sample(stream.ring, index) != value || sample(stream.ring, index + 2) != (short) -value) {
+					throw new AssertionError("frame " + count + " was damaged");
+				}
+			}
+			stream.consume(available);
+		}
+		streamer.join();
+		equal(expected, count, "frames played");
+	}
+
+}
@@ -0,0 +1,97 @@
+package dev.johnnyleek.engine.collision;
+
+import static dev.johnnyleek.engine.Check.check;
+import static dev.johnnyleek.engine.Check.run;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+
+import dev.johnnyleek.engine.sprite.Image;
+import dev.johnnyleek.engine.sprite.Shape;
+import dev.johnnyleek.engine.sprite.ShapeType;
+
+/**
+ * Tests for CollisionMask
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class CollisionMaskTest {
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("CollisionMaskTest");
+		run("alpha channel", CollisionMaskTest::alphaChannel);
+		run("indexed image with a transparent color", CollisionMaskTest::indexedTransparency);
+		run("image without alpha is solid", CollisionMaskTest::opaque);
+		run("overlap", CollisionMaskTest::overlap);
+		run("resized images", CollisionMaskTest::resized);
+	}
+
+	private static void alphaChannel() {
+		BufferedImage image = new BufferedImage(70, 2, BufferedImage.TYPE_INT_ARGB);
+		image.setRGB(1, 0, 0xFF000000);
+		image.setRGB(65, 1, 0x80FFFFFF);
+		CollisionMask mask = CollisionMask.fromImage(image, 128);
+		check(mask.isSolid(1, 0), "opaque pixel is solid");
+		check(mask.isSolid(65, 1), "pixel at the threshold (past the first word) is solid");
+		check(!mask.isSolid(0, 0), "transparent pixel is not solid");
+	}
+
+	private static void indexedTransparency() {
+		byte[] red = { 0, (byte) 255 }, none = { 0, 0 };
+		IndexColorModel colors = new IndexColorModel(8, 2, red, none, none, 0);
+		BufferedImage image = new BufferedImage(4, 1, BufferedImage.TYPE_BYTE_INDEXED, colors);
+		image.getRaster().setSample(2, 0, 0, 1);
+		check(image.getAlphaRaster() == null, "indexed images have no alpha raster");
+
+		CollisionMask mask = CollisionMask.fromImage(image, 128);
+		check(mask.isSolid(2, 0), "opaque index is solid");
+		check(!mask.isSolid(0, 0) && !mask.isSolid(1, 0) && !mask.isSolid(3, 0), "transparent index is not solid");
+	}
+
+	private static void opaque() {
+		BufferedImage image = new BufferedImage(3, 3, BufferedImage.TYPE_INT_RGB);
+		CollisionMask mask = CollisionMask.fromImage(image, 128);
+		for(int y = 0; y < 3; y++) {
+			for(int x = 0; x < 3; x++) check(mask.isSolid(x, y), "pixel " + x + "," + y + " is solid");
+		}
+	}
+
+	private static void overlap() {
+		CollisionMask a = CollisionMask.solid(10, 10), b = CollisionMask.solid(10, 10);
+		check(a.overlaps(0, 0, b, 9, 9), "corners touch");
+		check(!a.overlaps(0, 0, b, 10, 0), "side by side");
+	}
+
+	private static void resized() {
+		// Solid on the left half, transparent on the right half
+		BufferedImage picture = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+		for(int y = 0; y < 10; y++) {
+			for(int x = 0; x < 5; x++) picture.setRGB(x, y, 0xFF000000);
+		}
+		Image image = new Image(picture, 0, 0);
+		check(Collision.collides(image, box(3, 3)), "solid half");
+		check(!Collision.collides(image, box(7, 3)), "transparent half");
+
+		image.setSize(20, 20);
+		check(image.getCollisionMask().getWidth() == 20 && image.getCollisionMask().getHeight() == 20, "the mask is the size of the image");
+		check(Collision.collides(image, box(7, 3)), "the solid half is stretched");
+		check(Collision.collides(image, box(8, 17)), "the solid half is stretched down");
+		check(!Collision.collides(image, box(12, 3)), "the transparent half is stretched");
+		check(CollisionMask.forImage(picture).getWidth() == 10, "the shared mask is not changed");
+
+		image.setSize(4, 4);
+		check(Collision.collides(image, box(1, 1)), "the solid half is shrunk");
+		check(!Collision.collides(image, box(2, 1)), "the transparent half is shrunk");
+
+		image.setSize(10, 10);
+		check(image.getCollisionMask() == CollisionMask.forImage(picture), "the shared mask is used at the natural size");
+	}
+
+	private static Shape box(int x, int y) {
+		return new Shape(ShapeType.RECTANGLE, Color.RED, 2, 2, x, y);
+	}
+
+}
@@ -0,0 +1,146 @@
+package dev.johnnyleek.engine.input;
+
+import static dev.johnnyleek.engine.Check.check;
+import static dev.johnnyleek.engine.Check.equal;
+import static dev.johnnyleek.engine.Check.run;
+
+/**
+ * Tests for InputEventQueue
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class InputEventQueueTest {
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("InputEventQueueTest");
+		run("events are drained in order", InputEventQueueTest::order);
+		run("a full queue drops and counts events", InputEventQueueTest::full);
+		run("capacity is rounded up to a power of two", InputEventQueueTest::capacity);
+		run("the ring wraps around", InputEventQueueTest::wrapAround);
+		run("listeners by type", InputEventQueueTest::listeners);
+		run("a producer thread and a consumer thread", InputEventQueueTest::twoThreads);
+	}
+
+	private static void order() {
+		InputEventQueue queue = new InputEventQueue(8);
+		queue.record(EventType.KEYBOARD_PRESS, 65, 1, 2, 100);
+		queue.record(EventType.MOUSE_MOVE, 0, 3, 4, 200);
+		queue.record(EventType.KEYBOARD_RELEASE, 65, 5, 6, 300);
+
+		StringBuilder seen = new StringBuilder();
+		int drained = queue.drain((type, code, x, y, time) -> seen.append(type).append(' ')
+				.append(code).append(' ').append(x).append(' ').append(y).append(' ').append(time).append(';'));
+		equal(3, drained, "drained");
+		equal("KEYBOARD_PRESS 65 1 2 100;MOUSE_MOVE 0 3 4 200;KEYBOARD_RELEASE 65 5 6 300;", seen.toString(), "events");
+		equal(0, queue.drain(null), "empty after draining");
+	}
+
+	private static void full() {
+		InputEventQueue queue = new InputEventQueue(4);
+		for(int i = 0; i < 4; i++) {
+			check(queue.record(EventType.MOUSE_MOVE, i, 0, 0, i), "recorded " + i);
+		}
+		check(!queue.record(EventType.MOUSE_MOVE, 4, 0, 0, 4), "fifth event dropped");
+		check(!queue.record(EventType.MOUSE_MOVE, 5, 0, 0, 5), "sixth event dropped");
+		equal(2L, queue.getDroppedCount(), "dropped count");
+
+		int[] codes = new int[4];
+		int[] count = new int[1];
+		equal(4, queue.drain((type, code, x, y, time) -> codes[count[0]++] = code), "drained");
+		for(int i = 0; i < 4; i++) {
+			equal(i, codes[i], "the oldest events are kept");
+		}
+		check(queue.record(EventType.MOUSE_MOVE, 6, 0, 0, 6), "room again after draining");
+	}
+
+	private static int capacityOf(InputEventQueue queue) {
+		int size = 0;
+		while(queue.record(EventType.MOUSE_MOVE, 0, 0, 0, 0)) size++;
+		return size;
+	}
+
+	private static void capacity() {
+		equal(1024, capacityOf(new InputEventQueue()), "default");
+		equal(1024, capacityOf(new InputEventQueue(1000)), "1000");
+		equal(1024, capacityOf(new InputEventQueue(1024)), "1024");
+		equal(2048, capacityOf(new InputEventQueue(1025)), "1025");
+		equal(4, capacityOf(new InputEventQueue(1)), "at least four");
+	}
+
+	private static void wrapAround() {
+		InputEventQueue queue = new InputEventQueue(8);
+		int[] next = new int[1];
+		int recorded = 0;
+		for(int round = 0; round < 100; round++) {
+			int batch = round % 9;
+			for(int i = 0; i < batch; i++) {
+				check(queue.record(EventType.MOUSE_DRAG, recorded, 0, 0, recorded), "recorded in round " + round);
+				recorded++;
+			}
+			equal(batch, queue.drain((type, code, x, y, time) -> {
+				equal(next[0], code, "event order");
+				next[0]++;
+			}), "drained in round " + round);
+		}
+		equal(recorded, next[0], "every event drained");
+		equal(0L, queue.getDroppedCount(), "nothing dropped");
+	}
+
+	private static void listeners() {
+		InputEventQueue queue = new InputEventQueue(8);
+		int[] presses = new int[1];
+		int[] all = new int[1];
+		InputEventListener pressListener = (type, code, x, y, time) -> {
+			equal(EventType.KEYBOARD_PRESS, type, "only presses");
+			presses[0]++;
+		};
+		InputEventListener allListener = (type, code, x, y, time) -> all[0]++;
+		queue.addListener(EventType.KEYBOARD_PRESS, pressListener);
+		queue.addListener(allListener);
+
+		queue.record(EventType.KEYBOARD_PRESS, 65, 0, 0, 0);
+		queue.record(EventType.KEYBOARD_RELEASE, 65, 0, 0, 0);
+		queue.record(EventType.MOUSE_CLICK, 1, 0, 0, 0);
+		queue.dispatch();
+		equal(1, presses[0], "press listener");
+		equal(3, all[0], "global listener");
+
+		queue.removeListener(pressListener);
+		queue.removeListener(allListener);
+		queue.record(EventType.KEYBOARD_PRESS, 65, 0, 0, 0);
+		queue.dispatch();
+		equal(1, presses[0], "press listener removed");
+		equal(3, all[0], "global listener removed");
+	}
+
+	private static void twoThreads() throws Exception {
+		InputEventQueue queue = new InputEventQueue(64);
+		int events = 200000;
+		Thread producer = new Thread(() -> {
+			for(int i = 0; i < events; i++) {
+				while(!queue.record(EventType.MOUSE_MOVE, i, i * 2, -i, i)) {
+					Thread.yield();
+				}
+			}
+		});
+		producer.start();
+
+		int[] next = new int[1];
+		boolean[] correct = { true };
+		long deadline = System.nanoTime() + 60_000_000_000L;
+		while(next[0] < events && System.nanoTime() < deadline) {
+			if(queue.drain((type, code, x, y, time) -> {
+				if(code != next[0] || x != code * 2 || y != -code || time != code) correct[0] = false;
+				next[0]++;
+			}) == 0) {
+				Thread.yield();
+			}
+		}
+		producer.join();
+		equal(events, next[0], "every event drained");
+		check(correct[0], "every event intact and in order");
+	}
+
+}
@@ -0,0 +1,118 @@
+package dev.johnnyleek.engine.input;
+
+import static dev.johnnyleek.engine.Check.check;
+import static dev.johnnyleek.engine.Check.equal;
+import static dev.johnnyleek.engine.Check.run;
+
+import java.awt.event.KeyEvent;
+
+import dev.johnnyleek.engine.render.Game;
+import dev.johnnyleek.engine.script.Script;
+import dev.johnnyleek.engine.window.Window;
+
+/**
+ * Tests for Keyboard
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class KeyboardTest {
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("KeyboardTest");
+		run("pressed, just pressed and just released", KeyboardTest::edges);
+		run("the static methods check the current Keyboard", KeyboardTest::current);
+		run("each Game checks its own Window", KeyboardTest::twoGames);
+	}
+
+	private static void edges() {
+		Keyboard keyboard = new Keyboard();
+		KeyboardState state = keyboard.getState();
+		keyboard.keyDown(KeyEvent.VK_A, 0);
+		keyboard.latch();
+		check(state.isPressed(KeyEvent.VK_A) && state.justPressed(KeyEvent.VK_A), "pressed");
+		keyboard.latch();
+		check(state.isPressed(KeyEvent.VK_A) && !state.justPressed(KeyEvent.VK_A), "held");
+		keyboard.keyUp(KeyEvent.VK_A, 1);
+		keyboard.latch();
+		check(!state.isPressed(KeyEvent.VK_A) && state.justReleased(KeyEvent.VK_A), "released");
+
+		keyboard.keyDown(KeyEvent.VK_B, 2);
+		keyboard.keyUp(KeyEvent.VK_B, 3);
+		keyboard.latch();
+		check(state.isPressed(KeyEvent.VK_B) && state.justPressed(KeyEvent.VK_B), "a tap counts as pressed for a tick");
+		keyboard.latch();
+		check(!state.isPressed(KeyEvent.VK_B) && state.justReleased(KeyEvent.VK_B), "and is let go of the next tick");
+	}
+
+	private static void current() {
+		Keyboard pressed = new Keyboard();
+		Keyboard other = new Keyboard();
+		pressed.keyDown(KeyEvent.VK_A, 0);
+		pressed.latch();
+		other.latch();
+
+		Keyboard previous = Keyboard.setCurrent(pressed);
+		try {
+			check(Keyboard.isPressed(KeyEvent.VK_A) && Keyboard.justPressed(KeyEvent.VK_A), "the current Keyboard");
+			Keyboard.setCurrent(other);
+			check(!Keyboard.isPressed(KeyEvent.VK_A), "another Keyboard");
+			Keyboard.setCurrent(null);
+			equal(other, Keyboard.getActiveKeyboard(), "the newest Keyboard is active");
+			check(!Keyboard.isPressed(KeyEvent.VK_A), "no current Keyboard checks the active one");
+		} finally {
+			Keyboard.setCurrent(previous);
+		}
+	}
+
+	/**
+	 * A Game that records what the static methods see from "runTick" and from a Script
+	 */
+	private static class RecordingGame extends Game {
+
+		final StringBuilder log = new StringBuilder();
+		final Script script;
+
+		RecordingGame() {
+			super(new Window.CreateWindow(320, 240).headless().pack());
+			script = startScript(new Script() {
+				@Override
+				protected void run() {
+					while(true) {
+						log.append("script:").append(Keyboard.isPressed(KeyEvent.VK_A)).append(',').append(Mouse.getMouseX()).append(' ');
+						waitTicks(1);
+					}
+				}
+			});
+		}
+
+		@Override
+		public void runTick() {
+			log.append("tick:").append(Keyboard.isPressed(KeyEvent.VK_A)).append(',').append(Mouse.getMouseX()).append(' ');
+		}
+
+	}
+
+	private static void twoGames() {
+		RecordingGame first = new RecordingGame();
+		RecordingGame second = new RecordingGame();
+		first.getWindow().getKeyboard().keyDown(KeyEvent.VK_A, 0);
+		first.getWindow().getMouse().moveTo(10, 10, false, 0);
+		second.getWindow().getMouse().moveTo(20, 20, false, 0);
+
+		first.step();
+		second.step();
+		second.step();
+		first.step();
+		equal("tick:true,10 script:true,10 tick:true,10 script:true,10 ", first.log.toString(), "the first Game");
+		equal("tick:false,20 script:false,20 tick:false,20 script:false,20 ", second.log.toString(), "the second Game");
+
+		first.script.cancel();
+		second.script.cancel();
+		first.step();
+		second.step();
+		check(first.script.isFinished() && second.script.isFinished(), "the Scripts ended");
+	}
+
+}
@@ -0,0 +1,83 @@
+package dev.johnnyleek.engine.input;
+
+import static dev.johnnyleek.engine.Check.check;
+import static dev.johnnyleek.engine.Check.equal;
+import static dev.johnnyleek.engine.Check.run;
+
+/**
+ * Tests for Mouse
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class MouseTest {
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("MouseTest");
+		run("first position is not a move", MouseTest::firstPosition);
+		run("movement is summed per tick", MouseTest::coalesced);
+		run("every move is recorded in order", MouseTest::recorded);
+		run("buttons and drag", MouseTest::buttons);
+	}
+
+	private static void firstPosition() {
+		Mouse mouse = new Mouse();
+		mouse.moveTo(300, 200, false, 0);
+		mouse.latch();
+		MouseState state = mouse.getState();
+		equal(300, state.getX(), "x");
+		equal(200, state.getY(), "y");
+		equal(0, state.getDeltaX(), "delta x");
+		equal(0, state.getDeltaY(), "delta y");
+		check(!state.isPressed(), "no buttons are held");
+	}
+
+	private static void coalesced() {
+		Mouse mouse = new Mouse();
+		mouse.moveTo(10, 10, false, 0);
+		mouse.latch();
+		mouse.moveTo(15, 8, false, 1);
+		mouse.moveTo(25, 4, false, 2);
+		mouse.latch();
+		MouseState state = mouse.getState();
+		equal(25, state.getX(), "x");
+		equal(4, state.getY(), "y");
+		equal(15, state.getDeltaX(), "delta x");
+		equal(-6, state.getDeltaY(), "delta y");
+
+		mouse.latch();
+		equal(0, state.getDeltaX(), "no movement in the next tick");
+	}
+
+	private static void recorded() {
+		Mouse mouse = new Mouse();
+		InputEventQueue queue = new InputEventQueue(16);
+		mouse.setEventQueue(queue);
+		mouse.moveTo(1, 1, false, 1);
+		mouse.moveTo(2, 3, false, 2);
+		mouse.button(1, true, 2, 3, 3);
+		mouse.moveTo(7, 9, true, 4);
+
+		StringBuilder seen = new StringBuilder();
+		int drained = queue.drain((type, code, x, y, time) -> seen.append(type).append(' ').append(x).append(',').append(y).append(';'));
+		equal(4, drained, "events drained");
+		equal("MOUSE_MOVE 1,1;MOUSE_MOVE 2,3;MOUSE_PRESS 2,3;MOUSE_DRAG 7,9;", seen.toString(), "events");
+	}
+
+	private static void buttons() {
+		Mouse mouse = new Mouse();
+		mouse.button(1, true, 5, 5, 0);
+		mouse.moveTo(6, 5, true, 1);
+		mouse.latch();
+		MouseState state = mouse.getState();
+		check(state.isPressed(1), "left button held");
+		check(!state.isPressed(2), "middle button not held");
+		check(state.isDragging(), "dragging");
+
+		mouse.button(1, false, 6, 5, 2);
+		mouse.latch();
+		check(!state.isPressed(), "released");
+	}
+
+}
@@ -0,0 +1,103 @@
+package dev.johnnyleek.engine.job;
+
+import static dev.johnnyleek.engine.Check.check;
+import static dev.johnnyleek.engine.Check.equal;
+import static dev.johnnyleek.engine.Check.run;
+import static dev.johnnyleek.engine.Check.throwsException;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tests for JobGraph
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class JobGraphTest {
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("JobGraphTest");
+		ForkJoinPool pool = new ForkJoinPool(3);
+		try {
+			run("resources order the jobs", () -> ordering(pool));
+			run("calling thread jobs", () -> callingThread(pool));
+			run("failures are thrown after every job runs", () -> failure(pool));
+			run("parallel for covers the range", () -> parallelFor(pool));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static void ordering(ForkJoinPool pool) {
+		JobGraph graph = new JobGraph(pool);
+		AtomicInteger clock = new AtomicInteger();
+		AtomicLongArray finished = new AtomicLongArray(5);
+		graph.add(new Job("write a", () -> finished.set(0, clock.incrementAndGet())).writes("a"));
+		graph.add(new Job("read a", () -> finished.set(1, clock.incrementAndGet())).reads("a").writes("b"));
+		graph.add(new Job("read a again", () -> finished.set(2, clock.incrementAndGet())).reads("a").writes("c"));
+		graph.add(new Job("write a again", () -> finished.set(3, clock.incrementAndGet())).writes("a"));
+		graph.add(new Job("read everything", () -> finished.set(4, clock.incrementAndGet())).reads("a", "b", "c"));
+
+		for(int frame = 0; frame < 200; frame++) {
+			graph.run();
+			check(finished.get(0) < finished.get(1) && finished.get(0) < finished.get(2), "readers run after the writer");
+			check(finished.get(3) > finished.get(1) && finished.get(3) > finished.get(2), "the next writer runs after the readers");
+			check(finished.get(4) > finished.get(3), "the last reader runs after the last writer");
+		}
+		equal(200L, graph.getRunCount(), "runs");
+	}
+
+	private static void callingThread(ForkJoinPool pool) {
+		JobGraph graph = new JobGraph(pool);
+		ConcurrentLinkedQueue<String> wrongThread = new ConcurrentLinkedQueue<String>();
+		Thread[] caller = new Thread[1];
+		for(int i = 0; i < 4; i++) {
+			String resource = "r" + i;
+			graph.add(new Job("pool " + i, JobGraphTest::spin).writes(resource));
+			graph.add(new Job("caller " + i, () -> {
+				if(Thread.currentThread() != caller[0]) wrongThread.add("caller " + resource);
+			}).reads(resource).writes("shared").onCallingThread());
+		}
+		graph.add(new Job("last", () -> {
+			if(Thread.currentThread() != caller[0]) wrongThread.add("last");
+		}).reads("shared").onCallingThread());
+
+		caller[0] = Thread.currentThread();
+		for(int frame = 0; frame < 200; frame++) graph.run();
+		check(wrongThread.isEmpty(), wrongThread.size() + " jobs ran on another thread (such as \"" + wrongThread.peek() + "\")");
+	}
+
+	private static void failure(ForkJoinPool pool) {
+		JobGraph graph = new JobGraph(pool);
+		AtomicInteger ran = new AtomicInteger();
+		graph.add(new Job("fails", () -> {
+			throw new IllegalStateException("failed");
+		}).writes("a"));
+		graph.add(new Job("after", ran::incrementAndGet).reads("a"));
+		graph.add(new Job("beside", ran::incrementAndGet).writes("b"));
+
+		throwsException(IllegalStateException.class, graph::run, "running a failing job");
+		equal(2, ran.get(), "other jobs ran");
+		throwsException(IllegalStateException.class, graph::run, "running it again");
+		equal(4, ran.get(), "other jobs ran again");
+	}
+
+	private static void parallelFor(ForkJoinPool pool) {
+		JobGraph graph = new JobGraph(pool);
+		AtomicLongArray counts = new AtomicLongArray(10000);
+		graph.parallelFor(0, counts.length(), 64, (start, end) -> {
+			for(int i = start; i < end; i++) counts.incrementAndGet(i);
+		});
+		for(int i = 0; i < counts.length(); i++) equal(1L, counts.get(i), "index " + i);
+	}
+
+	private static void spin() {
+		long end = System.nanoTime() + 20000;
+		while(System.nanoTime() < end) Thread.onSpinWait();
+	}
+
+}
@@ -0,0 +1,162 @@
+package dev.johnnyleek.engine.net;
+
+import static dev.johnnyleek.engine.Check.check;
+import static dev.johnnyleek.engine.Check.equal;
+import static dev.johnnyleek.engine.Check.run;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+
+import dev.johnnyleek.engine.input.EventType;
+import dev.johnnyleek.engine.render.Game;
+import dev.johnnyleek.engine.window.Window;
+
+/**
+ * Tests for GameServer and GameClient (over the loopback interface)
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class GameServerTest {
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("GameServerTest");
+		run("input is delivered oldest first", GameServerTest::inputInOrder);
+		run("a failed frame does not stop the server", GameServerTest::failedFrame);
+		run("damaged fragments are dropped", GameServerTest::damagedFragments);
+	}
+
+	private static Window headless() {
+		return new Window.CreateWindow(320, 240).headless().pack();
+	}
+
+	private static Game game(Runnable tick) {
+		return new Game(headless()) {
+			@Override
+			public void runTick() {
+				tick.run();
+			}
+		};
+	}
+
+	/**
+	 * Connects a client, handling the server's side of the handshake on this thread
+	 */
+	private static GameClient connect(GameServer server) throws Exception {
+		GameClient client = new GameClient(headless());
+		IOException[] failure = new IOException[1];
+		Thread connecting = new Thread(() -> {
+			try {
+				client.connect("localhost", server.getPort());
+			} catch(IOException e) {
+				failure[0] = e;
+			}
+		});
+		connecting.start();
+		while(connecting.isAlive()) server.poll(10000000L);
+		if(failure[0] != null) throw failure[0];
+		return client;
+	}
+
+	private static void inputInOrder() throws Exception {
+		GameServer server = new GameServer(game(() -> {}), 0);
+		try {
+			GameClient client = connect(server);
+			ArrayList<Integer> received = new ArrayList<Integer>();
+			server.getClient(client.getID()).getInputEvents().addListener((type, code, x, y, time) -> received.add(code));
+
+			// More events than fit in a single datagram
+			int count = GameServer.MAX_INPUT_EVENTS * 2 + 20;
+			for(int i = 0; i < count; i++) check(client.sendInput(EventType.KEYBOARD_PRESS, i, 0, 0), "event " + i + " queued");
+
+			for(int update = 0; update < 100 && received.size() < count; update++) {
+				client.update();
+				Thread.sleep(2);
+				server.tick();
+			}
+			equal(count, received.size(), "events received");
+			for(int i = 0; i < count; i++) equal(i, received.get(i), "event " + i);
+			client.close();
+		} finally {
+			server.stop();
+		}
+	}
+
+	private static void failedFrame() throws Exception {
+		int[] ticks = new int[1];
+		Game game = game(() -> {
+			if(++ticks[0] == 2) throw new IllegalStateException("failed frame");
+		});
+		GameServer server = new GameServer(game, 0);
+		try {
+			for(int i = 0; i < 4; i++) server.tick();
+			equal(4, ticks[0], "every tick ran");
+		} finally {
+			server.stop();
+		}
+	}
+
+	private static void damagedFragments() throws Exception {
+		// A fake server, to send the client datagrams a real server never would
+		try(ServerSocket tcp = new ServerSocket(0); DatagramChannel udp = DatagramChannel.open()) {
+			int port = tcp.getLocalPort();
+			udp.bind(new InetSocketAddress("localhost", port));
+			GameClient client = new GameClient(headless());
+			Thread serving = new Thread(() -> {
+				try(Socket socket = tcp.accept()) {
+					DataInputStream in = new DataInputStream(socket.getInputStream());
+					in.readInt();
+					in.readShort();
+					DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+					out.writeInt(GameServer.MAGIC);
+					out.writeShort(GameServer.VERSION);
+					out.writeInt(0);
+					out.writeLong(1);
+					out.writeInt(60);
+					out.writeInt(1);
+					out.flush();
+					Thread.sleep(2000);
+				} catch(Exception e) {
+					// The test failing will show what went wrong
+				}
+			});
+			serving.start();
+			client.connect("localhost", port);
+			client.update();
+
+			// The client's first datagram tells the fake server where to send
+			ByteBuffer buffer = ByteBuffer.allocate(2048);
+			SocketAddress clientAddress = udp.receive(buffer);
+
+			// The last fragment of a snapshot just larger than the client's buffer (which starts at
+			// 64KB, and at least doubles), itself larger than a fragment can be, so it ends past the buffer
+			int fragments = (1 << 17) / GameServer.FRAGMENT_PAYLOAD + 1;
+			buffer.clear();
+			buffer.putLong(1).putInt(0).putShort((short) (fragments - 1)).putShort((short) fragments);
+			buffer.put(new byte[2000 - GameServer.FRAGMENT_HEADER]);
+			buffer.flip();
+			udp.send(buffer, clientAddress);
+			// A middle fragment that is too short
+			buffer.clear();
+			buffer.putLong(1).putInt(0).putShort((short) 3).putShort((short) fragments).put(new byte[10]);
+			buffer.flip();
+			udp.send(buffer, clientAddress);
+			Thread.sleep(50);
+
+			check(!client.update(), "nothing applied");
+			check(client.isConnected(), "still connected");
+			client.close();
+			serving.interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,377 @@
+package dev.johnnyleek.engine.net;
+
+import static dev.johnnyleek.engine.Check.check;
+import static dev.johnnyleek.engine.Check.equal;
+import static dev.johnnyleek.engine.Check.run;
+import static dev.johnnyleek.engine.Check.throwsException;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import dev.johnnyleek.engine.sprite.Drawable;
+import dev.johnnyleek.engine.sprite.Shape;
+import dev.johnnyleek.engine.sprite.ShapeType;
+import dev.johnnyleek.engine.sprite.Sprite;
+import dev.johnnyleek.engine.sprite.Text;
+import dev.johnnyleek.engine.window.Window;
+
+/**
+ * Tests for SnapshotEncoder, SnapshotDecoder, BitWriter, and BitReader
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class SnapshotTest {
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("SnapshotTest");
+		run("bits round trip", SnapshotTest::bits);
+		run("a full snapshot", SnapshotTest::full);
+		run("a snapshot against a baseline", SnapshotTest::delta);
+		run("removed elements and reused IDs", SnapshotTest::reusedIDs);
+		run("few changes among many elements", SnapshotTest::fewChanges);
+		run("old snapshots are not applied", SnapshotTest::outOfOrder);
+		run("a missing baseline", SnapshotTest::missingBaseline);
+		run("damaged snapshots", SnapshotTest::damaged);
+	}
+
+	private static Window window() {
+		return new Window.CreateWindow(320, 240).headless().pack();
+	}
+
+	private static ByteBuffer encode(SnapshotEncoder encoder, long baselineTick) {
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+		encoder.encode(baselineTick, buffer);
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Decodes a snapshot, applies it to a window, and applies the window's scene changes
+	 */
+	private static void receive(SnapshotDecoder decoder, ByteBuffer encoded, Window window) throws IOException {
+		Snapshot snapshot = decoder.decode(encoded);
+		equal(0, encoded.remaining(), "bytes left after decoding");
+		check(decoder.apply(snapshot, window), "applied");
+		window.applySceneChanges();
+	}
+
+	/**
+	 * Checks that the client's copy of every element of the server's window matches it
+	 */
+	private static void checkSame(Window server, SnapshotEncoder encoder, Window client, SnapshotDecoder decoder) {
+		int count = 0;
+		for(Drawable[] elements : new Drawable[][] { server.getGameElementSnapshot(), server.getUIElementSnapshot() }) {
+			for(Drawable element : elements) {
+				Drawable copy = decoder.getElement(encoder.getID(element));
+				check(copy != null, "element " + element.getName() + " was sent");
+				equal(element.getClass(), copy.getClass(), "type");
+				equal(element.getPosX(), copy.getPosX(), "x of " + element.getName());
+				equal(element.getPosY(), copy.getPosY(), "y of " + element.getName());
+				equal(element.getName(), copy.getName(), "name");
+				if(element instanceof Sprite && ((Sprite) element).getSize() != null) {
+					equal(((Sprite) element).getSize(), ((Sprite) copy).getSize(), "size of " + element.getName());
+				}
+				if(element instanceof Shape) {
+					equal(((Shape) element).getColor(), ((Shape) copy).getColor(), "color of " + element.getName());
+					equal(((Shape) element).getShape(), ((Shape) copy).getShape(), "shape of " + element.getName());
+				}
+				if(element instanceof Text) {
+					equal(((Text) element).getText(), ((Text) copy).getText(), "text of " + element.getName());
+					equal(((Text) element).getColor(), ((Text) copy).getColor(), "color of " + element.getName());
+				}
+				count++;
+			}
+		}
+		equal(server.getGameElementSnapshot().length, client.getGameElementSnapshot().length, "game elements");
+		equal(server.getUIElementSnapshot().length, client.getUIElementSnapshot().length, "UI elements");
+		check(count > 0, "something was checked");
+	}
+
+	private static void bits() {
+		Random random = new Random(48);
+		int[] values = new int[2000];
+		int[] kinds = new int[values.length];
+		for(int i = 0; i < values.length; i++) {
+			kinds[i] = random.nextInt(5);
+			values[i] = random.nextInt(4) == 0 ? random.nextInt() : random.nextInt(1 << random.nextInt(20)) - (kinds[i] == 2 ? 1000 : 0);
+		}
+		values[0] = Integer.MIN_VALUE;
+		values[1] = Integer.MAX_VALUE;
+		values[2] = -1;
+
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+		BitWriter writer = new BitWriter().reset(buffer);
+		for(int i = 0; i < values.length; i++) {
+			switch(kinds[i]) {
+				case 0: writer.writeBits(values[i], 1 + (i % 32)); break;
+				case 1: writer.writeUnsigned(values[i]); break;
+				case 2: writer.writeSigned(values[i]); break;
+				case 3: writer.writeVarInt(values[i]); break;
+				default: writer.writeVarLong((long) values[i] << 20 & Long.MAX_VALUE); break;
+			}
+		}
+		writer.writeString("snapshot \u00e9\u4e16");
+		writer.writeString(null);
+		writer.writeString("");
+		writer.writeBoolean(true);
+		long bitCount = writer.getBitsWritten();
+		int bytes = writer.finish();
+		equal((int) ((bitCount + 7) / 8), bytes, "bytes written");
+		equal(bytes, buffer.position(), "buffer position");
+
+		buffer.flip();
+		BitReader reader = new BitReader().reset(buffer);
+		for(int i = 0; i < values.length; i++) {
+			switch(kinds[i]) {
+				case 0: {
+					int width = 1 + (i % 32);
+					equal(width == 32 ? values[i] : values[i] & ((1 << width) - 1), reader.readBits(width), "bits " + i);
+					break;
+				}
+				case 1: equal(values[i], reader.readUnsigned(), "unsigned " + i); break;
+				case 2: equal(values[i], reader.readSigned(), "signed " + i); break;
+				case 3: equal(values[i], reader.readVarInt(), "varint " + i); break;
+				default: equal((long) values[i] << 20 & Long.MAX_VALUE, reader.readVarLong(), "varlong " + i); break;
+			}
+		}
+		equal("snapshot \u00e9\u4e16", reader.readString(), "string");
+		equal(null, reader.readString(), "null string");
+		equal("", reader.readString(), "empty string");
+		check(reader.readBoolean(), "boolean");
+		equal(0, buffer.remaining(), "everything read");
+	}
+
+	private static void full() throws IOException {
+		Window server = window();
+		Shape box = new Shape(ShapeType.RECTANGLE, Color.RED, 10, 20, -5, 7, "box");
+		Shape ball = new Shape(ShapeType.CIRCLE, new Color(1, 2, 3, 4), 6, 6, 100000, -100000, "ball");
+		Text score = new Text("Score: 0", Color.WHITE, 4, 4, "score");
+		server.addGameElements(box, ball);
+		server.addUIElement(score);
+		server.applySceneChanges();
+
+		SnapshotEncoder encoder = new SnapshotEncoder();
+		encoder.capture(server, 1);
+		Window client = window();
+		SnapshotDecoder decoder = new SnapshotDecoder();
+		receive(decoder, encode(encoder, -1), client);
+
+		checkSame(server, encoder, client, decoder);
+		equal(1L, decoder.getAppliedTick(), "applied tick");
+		check(client.getUIElementSnapshot()[0] instanceof Text, "the text is a UI element");
+	}
+
+	private static void delta() throws IOException {
+		Window server = window();
+		Shape box = new Shape(ShapeType.RECTANGLE, Color.RED, 10, 20, 0, 0, "box");
+		Shape still = new Shape(ShapeType.RECTANGLE, Color.GREEN, 10, 10, 50, 50, "still");
+		Text score = new Text("Score: 0", Color.WHITE, 4, 4, "score");
+		server.addGameElements(box, still);
+		server.addUIElement(score);
+		server.applySceneChanges();
+
+		SnapshotEncoder encoder = new SnapshotEncoder();
+		SnapshotDecoder decoder = new SnapshotDecoder();
+		Window client = window();
+		encoder.capture(server, 1);
+		ByteBuffer first = encode(encoder, -1);
+		int fullSize = first.remaining();
+		receive(decoder, first, client);
+		Drawable clientBox = decoder.getElement(encoder.getID(box));
+
+		// Only movement
+		box.setPosX(3);
+		box.setPosY(-2);
+		encoder.capture(server, 2);
+		ByteBuffer moved = encode(encoder, 1);
+		equal(1, encoder.getLastChangedCount(), "only the box changed");
+		check(moved.remaining() < fullSize / 4, "a small move is small (" + moved.remaining() + " bytes)");
+		receive(decoder, moved, client);
+		checkSame(server, encoder, client, decoder);
+		check(clientBox == decoder.getElement(encoder.getID(box)), "the element was updated in place");
+
+		// Everything else
+		box.setSize(30, 5);
+		box.setColor(Color.BLUE);
+		box.setShape(ShapeType.CIRCLE);
+		box.setName("renamed");
+		score.setText("Score: 10");
+		score.setColor(Color.YELLOW);
+		encoder.capture(server, 3);
+		receive(decoder, encode(encoder, 2), client);
+		equal(2, encoder.getLastChangedCount(), "the box and the score changed");
+		checkSame(server, encoder, client, decoder);
+		check(clientBox == decoder.getElement(encoder.getID(box)), "still the same element");
+
+		// Against an older baseline (the client missed tick 3)
+		box.setPosX(-40);
+		encoder.capture(server, 4);
+		SnapshotDecoder late = new SnapshotDecoder();
+		Window lateClient = window();
+		receive(late, encode(encoder, -1), lateClient);
+		encoder.capture(server, 5);
+		still.setPosY(0);
+		encoder.capture(server, 6);
+		receive(late, encode(encoder, 4), lateClient);
+		checkSame(server, encoder, lateClient, late);
+		receive(decoder, encode(encoder, 2), client);
+		checkSame(server, encoder, client, decoder);
+	}
+
+	private static void reusedIDs() throws IOException {
+		Window server = window();
+		Shape a = new Shape(ShapeType.RECTANGLE, Color.RED, 10, 10, 0, 0, "a");
+		Shape b = new Shape(ShapeType.RECTANGLE, Color.RED, 10, 10, 20, 0, "b");
+		server.addGameElements(a, b);
+		server.applySceneChanges();
+
+		SnapshotEncoder encoder = new SnapshotEncoder();
+		SnapshotDecoder decoder = new SnapshotDecoder();
+		Window client = window();
+		encoder.capture(server, 1);
+		receive(decoder, encode(encoder, -1), client);
+		int idOfA = encoder.getID(a);
+		Drawable oldCopy = decoder.getElement(idOfA);
+
+		server.removeGameElement(a);
+		server.applySceneChanges();
+		encoder.capture(server, 2);
+		receive(decoder, encode(encoder, 1), client);
+		equal(-1, encoder.getID(a), "a has no ID");
+		equal(null, decoder.getElement(idOfA), "a was removed");
+		equal(1, client.getGameElementSnapshot().length, "one element left");
+
+		// Against the baseline that still had "a", the new element must replace it
+		Shape c = new Shape(ShapeType.CIRCLE, Color.BLUE, 5, 5, 0, 0, "c");
+		server.addGameElement(c);
+		server.applySceneChanges();
+		encoder.capture(server, 3);
+		equal(idOfA, encoder.getID(c), "the ID is reused");
+
+		receive(decoder, encode(encoder, 2), client);
+		checkSame(server, encoder, client, decoder);
+		check(decoder.getElement(idOfA) != oldCopy, "a new element");
+	}
+
+	private static void fewChanges() throws IOException {
+		Window server = window();
+		Shape[] shapes = new Shape[500];
+		for(int i = 0; i < shapes.length; i++) {
+			shapes[i] = new Shape(ShapeType.RECTANGLE, Color.RED, 1, 1, i, i, "shape " + i);
+			server.addGameElement(shapes[i]);
+		}
+		server.applySceneChanges();
+
+		SnapshotEncoder encoder = new SnapshotEncoder();
+		SnapshotDecoder decoder = new SnapshotDecoder();
+		Window client = window();
+		encoder.capture(server, 1);
+		receive(decoder, encode(encoder, -1), client);
+
+		shapes[7].setPosX(8);
+		shapes[400].setPosY(401);
+		encoder.capture(server, 2);
+		ByteBuffer few = encode(encoder, 1);
+		check(few.remaining() < 20, "only the changes are sent (" + few.remaining() + " bytes)");
+		receive(decoder, few, client);
+		checkSame(server, encoder, client, decoder);
+
+		for(int i = 0; i < shapes.length; i += 2) shapes[i].setPosX(shapes[i].getPosX() + 1);
+		encoder.capture(server, 3);
+		ByteBuffer many = encode(encoder, 2);
+		equal(250, encoder.getLastChangedCount(), "changed");
+		receive(decoder, many, client);
+		checkSame(server, encoder, client, decoder);
+	}
+
+	private static void outOfOrder() throws IOException {
+		Window server = window();
+		Shape box = new Shape(ShapeType.RECTANGLE, Color.RED, 10, 10, 0, 0, "box");
+		server.addGameElement(box);
+		server.applySceneChanges();
+
+		SnapshotEncoder encoder = new SnapshotEncoder();
+		SnapshotDecoder decoder = new SnapshotDecoder();
+		Window client = window();
+		encoder.capture(server, 1);
+		ByteBuffer first = encode(encoder, -1);
+		box.setPosX(10);
+		encoder.capture(server, 2);
+		ByteBuffer second = encode(encoder, -1);
+
+		Snapshot later = decoder.decode(second);
+		Snapshot earlier = decoder.decode(first);
+		check(decoder.apply(later, client), "the later snapshot is applied");
+		check(!decoder.apply(earlier, client), "the earlier snapshot is not");
+		client.applySceneChanges();
+		equal(10, client.getGameElementSnapshot()[0].getPosX(), "x");
+		equal(2L, decoder.getLatest().getTick(), "latest");
+
+		throwsException(IllegalArgumentException.class, () -> encoder.capture(server, 2), "capturing the same tick twice");
+	}
+
+	private static void missingBaseline() {
+		Window server = window();
+		server.addGameElement(new Shape(ShapeType.RECTANGLE, Color.RED, 10, 10, 0, 0, "box"));
+		server.applySceneChanges();
+
+		SnapshotEncoder encoder = new SnapshotEncoder(2);
+		for(int tick = 1; tick <= 3; tick++) encoder.capture(server, tick);
+		check(encoder.getSnapshot(1) == null, "the encoder forgot tick 1");
+
+		// A baseline the encoder no longer has is sent in full
+		SnapshotDecoder decoder = new SnapshotDecoder();
+		Window client = window();
+		throwsException(IOException.class, () -> decoder.decode(encode(encoder, 2)), "a baseline the decoder never had");
+		try {
+			receive(decoder, encode(encoder, 1), client);
+		} catch(IOException e) {
+			throw new AssertionError("a snapshot against a forgotten baseline should be sent in full", e);
+		}
+		equal(1, client.getGameElementSnapshot().length, "elements");
+	}
+
+	private static void damaged() throws IOException {
+		Window server = window();
+		server.addGameElement(new Shape(ShapeType.RECTANGLE, Color.RED, 10, 10, 3, 4, "box"));
+		server.addUIElement(new Text("Hello", Color.WHITE, 0, 0, "label"));
+		server.applySceneChanges();
+		SnapshotEncoder encoder = new SnapshotEncoder();
+		encoder.capture(server, 1);
+		ByteBuffer encoded = encode(encoder, -1);
+
+		for(int length = 0; length < encoded.remaining(); length++) {
+			ByteBuffer cut = encoded.duplicate();
+			cut.limit(length);
+			throwsException(IOException.class, () -> new SnapshotDecoder().decode(cut), "cut to " + length + " bytes");
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(64);
+		BitWriter writer = new BitWriter().reset(header);
+		writer.writeVarLong(5);
+		writer.writeVarLong(0);
+		writer.writeVarInt(1);
+		writer.writeVarInt(2);
+		writer.finish();
+		header.flip();
+		throwsException(IOException.class, () -> new SnapshotDecoder().decode(header), "more changes than IDs");
+
+		ByteBuffer update = ByteBuffer.allocate(64);
+		writer.reset(update);
+		writer.writeVarLong(5);
+		writer.writeVarLong(0);
+		writer.writeVarInt(1);
+		writer.writeVarInt(1);
+		writer.writeBoolean(false);
+		writer.writeBoolean(true);
+		writer.writeBits(SnapshotEncoder.UPDATE, 2);
+		writer.finish();
+		update.flip();
+		throwsException(IOException.class, () -> new SnapshotDecoder().decode(update), "an update of a missing element");
+	}
+
+}
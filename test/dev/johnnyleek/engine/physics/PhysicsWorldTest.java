@@ -0,0 +1,127 @@
+package dev.johnnyleek.engine.physics;
+
+import static dev.johnnyleek.engine.Check.check;
+import static dev.johnnyleek.engine.Check.equal;
+import static dev.johnnyleek.engine.Check.run;
+
+import java.awt.Color;
+
+import dev.johnnyleek.engine.sprite.Shape;
+import dev.johnnyleek.engine.sprite.ShapeType;
+
+/**
+ * Tests for PhysicsWorld and RigidBody
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class PhysicsWorldTest {
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("PhysicsWorldTest");
+		run("a falling box comes to rest on a platform", PhysicsWorldTest::settles);
+		run("resting bodies fall asleep", PhysicsWorldTest::sleeps);
+		run("lowering a platform wakes the bodies resting on it", PhysicsWorldTest::platformLowered);
+		run("moving a platform away wakes the bodies resting on it", PhysicsWorldTest::platformMovedAway);
+		run("raising a platform pushes the bodies resting on it", PhysicsWorldTest::platformRaised);
+	}
+
+	private static Shape box(int width, int height, int x, int y) {
+		return new Shape(ShapeType.RECTANGLE, Color.RED, width, height, x, y);
+	}
+
+	private static void step(PhysicsWorld world, int steps) {
+		for(int i = 0; i < steps; i++) world.step();
+	}
+
+	/**
+	 * Checks that a body rests (within a pixel) on top of the provided height
+	 */
+	private static void checkRestsOn(RigidBody body, int top, String message) {
+		int bottom = body.getSprite().getPosY() + body.getSprite().getHeight();
+		check(Math.abs(bottom - top) <= 1, message + ": expected the bottom at " + top + " but was " + bottom);
+	}
+
+	private static void settles() {
+		PhysicsWorld world = new PhysicsWorld();
+		world.addBody(box(200, 20, 0, 100), 0);
+		RigidBody falling = world.addBody(box(20, 20, 50, 0), 1);
+		step(world, 300);
+		checkRestsOn(falling, 100, "resting on the platform");
+		equal(50, falling.getSprite().getPosX(), "did not slide");
+	}
+
+	private static void sleeps() {
+		PhysicsWorld world = new PhysicsWorld();
+		world.addBody(box(200, 20, 0, 100), 0);
+		RigidBody bottom = world.addBody(box(20, 20, 50, 60), 1);
+		RigidBody top = world.addBody(box(20, 20, 50, 30), 1);
+		step(world, 5);
+		check(!bottom.isSleeping() && !top.isSleeping(), "awake while falling");
+		step(world, 300);
+		check(bottom.isSleeping() && top.isSleeping(), "asleep once at rest");
+		checkRestsOn(bottom, 100, "the bottom box");
+		checkRestsOn(top, bottom.getSprite().getPosY(), "the top box");
+		equal(0.0, top.getVelocityY(), "no velocity while asleep");
+
+		int y = top.getSprite().getPosY();
+		step(world, 60);
+		equal(y, top.getSprite().getPosY(), "asleep bodies do not move");
+
+		bottom.applyImpulse(0, -200);
+		check(!bottom.isSleeping(), "woken by an impulse");
+		step(world, 1);
+		check(!top.isSleeping(), "waking a body wakes the bodies it touches");
+	}
+
+	private static void platformLowered() {
+		PhysicsWorld world = new PhysicsWorld();
+		Shape platform = box(200, 20, 0, 100);
+		world.addBody(platform, 0);
+		RigidBody bottom = world.addBody(box(20, 20, 50, 60), 1);
+		RigidBody top = world.addBody(box(20, 20, 50, 30), 1);
+		// Far from the platform, so it should stay asleep
+		world.addBody(box(200, 20, 500, 100), 0);
+		RigidBody elsewhere = world.addBody(box(20, 20, 550, 60), 1);
+		step(world, 300);
+		check(bottom.isSleeping() && top.isSleeping() && elsewhere.isSleeping(), "asleep");
+
+		platform.setPosY(150);
+		step(world, 1);
+		check(!bottom.isSleeping() && !top.isSleeping(), "woken by the platform");
+		check(elsewhere.isSleeping(), "bodies away from the platform keep sleeping");
+		step(world, 300);
+		checkRestsOn(bottom, 150, "followed the platform down");
+		checkRestsOn(top, bottom.getSprite().getPosY(), "the stack followed the platform down");
+		check(bottom.isSleeping() && top.isSleeping(), "asleep again");
+	}
+
+	private static void platformMovedAway() {
+		PhysicsWorld world = new PhysicsWorld();
+		Shape platform = box(40, 20, 40, 100);
+		world.addBody(platform, 0);
+		world.addBody(box(200, 20, 0, 200), 0);
+		RigidBody body = world.addBody(box(20, 20, 50, 60), 1);
+		step(world, 300);
+		check(body.isSleeping(), "asleep");
+
+		platform.setPosX(300);
+		step(world, 300);
+		checkRestsOn(body, 200, "fell to the floor");
+	}
+
+	private static void platformRaised() {
+		PhysicsWorld world = new PhysicsWorld();
+		Shape platform = box(200, 20, 0, 100);
+		world.addBody(platform, 0);
+		RigidBody body = world.addBody(box(20, 20, 50, 60), 1);
+		step(world, 300);
+		check(body.isSleeping(), "asleep");
+
+		platform.setPosY(90);
+		step(world, 300);
+		checkRestsOn(body, 90, "pushed up by the platform");
+	}
+
+}
@@ -0,0 +1,104 @@
+package dev.johnnyleek.engine.scene;
+
+import static dev.johnnyleek.engine.Check.check;
+import static dev.johnnyleek.engine.Check.equal;
+import static dev.johnnyleek.engine.Check.run;
+import static dev.johnnyleek.engine.Check.throwsException;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import dev.johnnyleek.engine.sprite.Drawable;
+import dev.johnnyleek.engine.sprite.Image;
+import dev.johnnyleek.engine.sprite.Shape;
+import dev.johnnyleek.engine.sprite.ShapeType;
+import dev.johnnyleek.engine.sprite.Text;
+
+/**
+ * Tests for saving and loading scene files (Scene, SceneWriter and SceneReader)
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class SceneFileTest {
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("SceneFileTest");
+		Path directory = Files.createTempDirectory("scenes");
+		try {
+			run("round trip", () -> roundTrip(directory));
+			run("a failed save keeps the previous file", () -> failedSave(directory));
+			run("a bad string length is rejected", () -> badStringLength(directory));
+		} finally {
+			try(Stream<Path> files = Files.list(directory)) {
+				for(Path file : (Iterable<Path>) files::iterator) Files.delete(file);
+			}
+			Files.delete(directory);
+		}
+	}
+
+	private static Scene sample() {
+		Drawable[] game = {
+			new Shape(ShapeType.RECTANGLE, Color.RED, 10, 20, 1, 2, "box"),
+			new Shape(ShapeType.CIRCLE, Color.BLUE, 5, 5, -3, 4)
+		};
+		Drawable[] ui = { new Text("Score: 10", Color.WHITE, 8, 16, "score") };
+		return new Scene(game, ui);
+	}
+
+	private static void roundTrip(Path directory) throws IOException {
+		String path = directory.resolve("round.scene").toString();
+		sample().save(path);
+		Scene loaded = Scene.load(path);
+
+		equal(2, loaded.getGameElements().length, "game elements");
+		equal(1, loaded.getUIElements().length, "UI elements");
+		Shape box = (Shape) loaded.getGameElements()[0];
+		equal("box", box.getName(), "name");
+		equal(1, box.getPosX(), "x");
+		equal(2, box.getPosY(), "y");
+		equal(10, box.getWidth(), "width");
+		equal(20, box.getHeight(), "height");
+		equal(Color.RED, box.getColor(), "color");
+		equal(ShapeType.CIRCLE, ((Shape) loaded.getGameElements()[1]).getShape(), "shape");
+		Text score = (Text) loaded.getUIElements()[0];
+		equal("Score: 10", score.getText(), "text");
+		equal("score", score.getName(), "text name");
+	}
+
+	private static void failedSave(Path directory) throws IOException {
+		Path path = directory.resolve("kept.scene");
+		sample().save(path.toString());
+		byte[] saved = Files.readAllBytes(path);
+
+		// An image with no asset path cannot be saved
+		Image image = new Image(new BufferedImage(2, 2, BufferedImage.TYPE_INT_ARGB), 0, 0);
+		Scene unsavable = new Scene(new Drawable[] { new Shape(ShapeType.RECTANGLE, Color.GREEN, 1, 1, 0, 0), image }, new Drawable[0]);
+		throwsException(IOException.class, () -> unsavable.save(path.toString()), "saving an image without an asset path");
+
+		check(Arrays.equals(saved, Files.readAllBytes(path)), "the previous save is unchanged");
+		try(Stream<Path> files = Files.list(directory)) {
+			check(files.noneMatch(file -> file.toString().endsWith(".tmp")), "the temporary file is removed");
+		}
+	}
+
+	private static void badStringLength(Path directory) throws IOException {
+		Path path = directory.resolve("damaged.scene");
+		sample().save(path.toString());
+		byte[] bytes = Files.readAllBytes(path);
+
+		int first = SceneWriter.HEADER_SIZE;
+		equal(SceneWriter.STRING, bytes[first], "the first record is a string");
+		ByteBuffer.wrap(bytes).putInt(first + 1, Integer.MAX_VALUE - 8);
+		Files.write(path, bytes);
+		throwsException(IOException.class, () -> Scene.load(path.toString()), "loading a string longer than the file");
+	}
+
+}
@@ -0,0 +1,159 @@
+package dev.johnnyleek.engine.scene;
+
+import static dev.johnnyleek.engine.Check.check;
+import static dev.johnnyleek.engine.Check.equal;
+import static dev.johnnyleek.engine.Check.run;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+import dev.johnnyleek.engine.sprite.Drawable;
+import dev.johnnyleek.engine.sprite.Shape;
+import dev.johnnyleek.engine.sprite.ShapeType;
+import dev.johnnyleek.engine.sprite.Text;
+import dev.johnnyleek.engine.window.Window;
+
+/**
+ * Tests for SceneHistory
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class SceneHistoryTest {
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("SceneHistoryTest");
+		run("restoring a tick", SceneHistoryTest::restore);
+		run("changes since the last save are undone", SceneHistoryTest::unsavedChanges);
+		run("restoring forgets later ticks", SceneHistoryTest::forgetsLaterTicks);
+		run("added and removed elements", SceneHistoryTest::membership);
+		run("only the last few ticks are kept", SceneHistoryTest::capacity);
+	}
+
+	private static Window window() {
+		return new Window.CreateWindow(320, 240).headless().pack();
+	}
+
+	private static Shape box(int x) {
+		return new Shape(ShapeType.RECTANGLE, Color.RED, 10, 10, x, 0);
+	}
+
+	private static void restore() {
+		Window window = window();
+		Shape moving = box(0), still = box(50);
+		Text label = new Text("tick 0", Color.WHITE, 0, 0);
+		window.addGameElements(moving, still);
+		window.addUIElement(label);
+		window.applySceneChanges();
+		SceneHistory history = new SceneHistory(window, 10);
+
+		for(int tick = 0; tick < 5; tick++) {
+			moving.setPosX(tick * 10);
+			moving.setSize(10 + tick, 10);
+			label.setText("tick " + tick);
+			if(tick == 3) moving.setColor(Color.BLUE);
+			history.save(tick);
+		}
+		equal(2, history.getLastChangedCount(), "only the moving box and the label changed in the last tick");
+
+		check(history.restore(2), "restored");
+		equal(20, moving.getPosX(), "x");
+		equal(12, moving.getWidth(), "width");
+		equal(Color.RED, moving.getColor(), "color");
+		equal("tick 2", label.getText(), "text");
+		equal(50, still.getPosX(), "unchanged element");
+	}
+
+	private static void unsavedChanges() {
+		Window window = window();
+		Shape a = box(5), b = box(0);
+		window.addGameElements(a, b);
+		window.applySceneChanges();
+		SceneHistory history = new SceneHistory(window, 10);
+		for(int tick = 0; tick < 5; tick++) {
+			b.setPosX(tick);
+			history.save(tick);
+		}
+
+		// Changed during the current tick, before it was saved
+		a.setPosX(99);
+		a.setColor(Color.GREEN);
+		b.setPosX(77);
+		check(history.restore(2), "restored");
+		equal(5, a.getPosX(), "a's x");
+		equal(Color.RED, a.getColor(), "a's color");
+		equal(2, b.getPosX(), "b's x");
+
+		// Restoring the latest tick undoes only the unsaved changes
+		a.setPosX(42);
+		check(history.restore(2), "restored again");
+		equal(5, a.getPosX(), "a's x again");
+	}
+
+	private static void forgetsLaterTicks() {
+		Window window = window();
+		Shape box = box(0);
+		window.addGameElement(box);
+		window.applySceneChanges();
+		SceneHistory history = new SceneHistory(window, 10);
+		for(int tick = 0; tick < 5; tick++) {
+			box.setPosX(tick);
+			history.save(tick);
+		}
+		history.restore(1);
+		equal(1L, history.getLatestTick(), "latest tick");
+		check(!history.contains(3), "later ticks are forgotten");
+
+		// Resimulate from tick 1 differently, then go back again
+		box.setPosX(100);
+		history.save(2);
+		box.setPosX(200);
+		history.save(3);
+		history.restore(2);
+		equal(100, box.getPosX(), "resimulated tick");
+		history.restore(0);
+		equal(0, box.getPosX(), "first tick");
+	}
+
+	private static void membership() {
+		Window window = window();
+		Shape first = box(0), added = box(1);
+		window.addGameElement(first);
+		window.applySceneChanges();
+		SceneHistory history = new SceneHistory(window, 10);
+		history.save(0);
+
+		window.addGameElement(added);
+		window.applySceneChanges();
+		history.save(1);
+		window.removeGameElement(first);
+		window.applySceneChanges();
+		history.save(2);
+		equal(Arrays.asList(added), Arrays.asList(window.getGameElementSnapshot()), "elements at tick 2");
+
+		history.restore(1);
+		window.applySceneChanges();
+		equal(Arrays.asList(first, added), Arrays.asList(window.getGameElementSnapshot()), "elements at tick 1");
+		history.restore(0);
+		window.applySceneChanges();
+		equal(Arrays.<Drawable>asList(first), Arrays.asList(window.getGameElementSnapshot()), "elements at tick 0");
+	}
+
+	private static void capacity() {
+		Window window = window();
+		Shape box = box(0);
+		window.addGameElement(box);
+		window.applySceneChanges();
+		SceneHistory history = new SceneHistory(window, 3);
+		for(int tick = 0; tick < 10; tick++) {
+			box.setPosX(tick);
+			history.save(tick);
+		}
+		equal(7L, history.getOldestTick(), "oldest tick");
+		check(!history.restore(6), "too old");
+		check(history.restore(7), "oldest kept");
+		equal(7, box.getPosX(), "x");
+	}
+
+}
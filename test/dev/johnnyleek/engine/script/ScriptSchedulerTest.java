@@ -0,0 +1,205 @@
+package dev.johnnyleek.engine.script;
+
+import static dev.johnnyleek.engine.Check.check;
+import static dev.johnnyleek.engine.Check.equal;
+import static dev.johnnyleek.engine.Check.run;
+import static dev.johnnyleek.engine.Check.throwsException;
+
+/**
+ * Tests for ScriptScheduler and Script
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class ScriptSchedulerTest {
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("ScriptSchedulerTest");
+		run("Scripts run in the order they were started", ScriptSchedulerTest::order);
+		run("waiting for ticks", ScriptSchedulerTest::waitTicks);
+		run("waiting for a condition", ScriptSchedulerTest::waitUntil);
+		run("Scripts started by a Script run in the same tick", ScriptSchedulerTest::startedByScript);
+		run("cancelling a Script waiting for ticks", ScriptSchedulerTest::cancelWaitingTicks);
+		run("cancelling a Script waiting for a condition", ScriptSchedulerTest::cancelWaitingCondition);
+		run("cancelling a Script from another Script", ScriptSchedulerTest::cancelFromScript);
+		run("cancelling a Script before it starts", ScriptSchedulerTest::cancelUnstarted);
+		run("a failing Script ends", ScriptSchedulerTest::failure);
+	}
+
+	/**
+	 * A Script made from a lambda (so each test can write its Scripts inline)
+	 */
+	private interface Body {
+		void run(Script script);
+	}
+
+	private static Script script(Body body) {
+		return new Script() {
+			protected void run() {
+				body.run(this);
+			}
+		};
+	}
+
+	private static void order() {
+		ScriptScheduler scheduler = new ScriptScheduler();
+		StringBuilder log = new StringBuilder();
+		for(String name : new String[] { "a", "b", "c" }) {
+			scheduler.start(script(script -> {
+				for(int i = 0; i < 3; i++) {
+					log.append(name).append(script.getTick());
+					script.waitTicks(1);
+				}
+			}));
+		}
+		for(long tick = 0; tick < 5; tick++) scheduler.update(tick);
+		equal("a0b0c0a1b1c1a2b2c2", log.toString(), "order");
+		equal(0, scheduler.getScriptCount(), "every Script ended");
+	}
+
+	private static void waitTicks() {
+		ScriptScheduler scheduler = new ScriptScheduler();
+		StringBuilder log = new StringBuilder();
+		scheduler.start(script(script -> {
+			script.waitTicks(5);
+			log.append("slow").append(script.getTick()).append(' ');
+		}));
+		scheduler.start(script(script -> {
+			script.waitTicks(2);
+			log.append("fast").append(script.getTick()).append(' ');
+			script.waitTicks(0);
+			log.append("zero").append(script.getTick()).append(' ');
+		}));
+		for(long tick = 0; tick < 10; tick++) scheduler.update(tick);
+		equal("fast2 zero2 slow5 ", log.toString(), "resumed on");
+	}
+
+	private static void waitUntil() {
+		ScriptScheduler scheduler = new ScriptScheduler();
+		StringBuilder log = new StringBuilder();
+		boolean[] ready = { false };
+		scheduler.start(script(script -> {
+			script.waitUntil(() -> ready[0]);
+			log.append("condition").append(script.getTick()).append(' ');
+		}));
+		scheduler.start(script(script -> {
+			script.waitTicks(3);
+			log.append("ticks").append(script.getTick()).append(' ');
+		}));
+		for(long tick = 0; tick < 3; tick++) scheduler.update(tick);
+		equal("", log.toString(), "still waiting");
+		ready[0] = true;
+		for(long tick = 3; tick < 5; tick++) scheduler.update(tick);
+		equal("ticks3 condition3 ", log.toString(), "timed Scripts run before conditions");
+
+		throwsException(IllegalStateException.class, () -> script(script -> {}).waitTicks(1), "waiting from another thread");
+	}
+
+	private static void startedByScript() {
+		ScriptScheduler scheduler = new ScriptScheduler();
+		StringBuilder log = new StringBuilder();
+		scheduler.start(script(script -> {
+			log.append("parent ");
+			script.getScheduler().start(script(child -> log.append("child").append(child.getTick()).append(' ')));
+			script.waitTicks(1);
+			log.append("parent").append(script.getTick());
+		}));
+		scheduler.update(0);
+		equal("parent child0 ", log.toString(), "same tick");
+		scheduler.update(1);
+		equal("parent child0 parent1", log.toString(), "next tick");
+	}
+
+	private static void cancelWaitingTicks() {
+		ScriptScheduler scheduler = new ScriptScheduler();
+		StringBuilder log = new StringBuilder();
+		// Due before the cancelled Script, so the cancelled Script is not the next one due
+		scheduler.start(script(self -> self.waitTicks(500)));
+		Script script = scheduler.start(script(self -> {
+			try {
+				self.waitTicks(1000);
+				log.append("resumed ");
+			} finally {
+				log.append("unwound").append(self.getTick());
+			}
+		}));
+		scheduler.update(0);
+		scheduler.update(1);
+		script.cancel();
+		check(!script.isFinished(), "not finished until Scripts are resumed");
+		scheduler.update(2);
+		check(script.isFinished(), "finished on the next update");
+		equal("unwound2", log.toString(), "the wait never returned");
+		equal(1, scheduler.getScriptCount(), "only the other Script is left");
+	}
+
+	private static void cancelWaitingCondition() {
+		ScriptScheduler scheduler = new ScriptScheduler();
+		StringBuilder log = new StringBuilder();
+		Script script = scheduler.start(script(self -> {
+			try {
+				self.waitUntil(() -> false);
+				log.append("resumed ");
+			} finally {
+				log.append("unwound").append(self.getTick());
+			}
+		}));
+		scheduler.update(0);
+		script.cancel();
+		scheduler.update(1);
+		check(script.isFinished(), "finished");
+		equal("unwound1", log.toString(), "the wait never returned");
+		equal(0, scheduler.getScriptCount(), "no Scripts left");
+	}
+
+	private static void cancelFromScript() {
+		ScriptScheduler scheduler = new ScriptScheduler();
+		StringBuilder log = new StringBuilder();
+		Script sleeper = scheduler.start(script(self -> {
+			try {
+				self.waitTicks(1000);
+			} finally {
+				log.append("sleeper").append(self.getTick()).append(' ');
+			}
+		}));
+		scheduler.start(script(self -> self.waitTicks(500)));
+		Script[] target = { sleeper };
+		scheduler.start(script(self -> {
+			self.waitTicks(3);
+			log.append("cancel").append(self.getTick()).append(' ');
+			target[0].cancel();
+		}));
+		for(long tick = 0; tick < 4; tick++) scheduler.update(tick);
+		equal("cancel3 sleeper3 ", log.toString(), "the cancelled Script ends in the same tick");
+		check(sleeper.isFinished(), "finished");
+	}
+
+	private static void cancelUnstarted() {
+		ScriptScheduler scheduler = new ScriptScheduler();
+		boolean[] ran = { false };
+		Script script = scheduler.start(script(self -> ran[0] = true));
+		script.cancel();
+		scheduler.update(0);
+		check(!ran[0], "never ran");
+		check(script.isFinished(), "finished");
+		equal(0L, scheduler.getResumeCount(), "never resumed");
+	}
+
+	private static void failure() {
+		ScriptScheduler scheduler = new ScriptScheduler();
+		StringBuilder log = new StringBuilder();
+		Script failing = scheduler.start(script(self -> {
+			self.waitTicks(1);
+			throw new IllegalStateException("script failure (expected by the test)");
+		}));
+		scheduler.start(script(self -> {
+			self.waitTicks(2);
+			log.append("still running");
+		}));
+		for(long tick = 0; tick < 3; tick++) scheduler.update(tick);
+		check(failing.isFinished(), "the failing Script ended");
+		equal("still running", log.toString(), "other Scripts keep running");
+	}
+
+}
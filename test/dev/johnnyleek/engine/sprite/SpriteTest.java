@@ -0,0 +1,54 @@
+package dev.johnnyleek.engine.sprite;
+
+import static dev.johnnyleek.engine.Check.check;
+import static dev.johnnyleek.engine.Check.equal;
+import static dev.johnnyleek.engine.Check.run;
+
+import java.awt.Color;
+import java.awt.Dimension;
+
+import dev.johnnyleek.engine.tween.Easing;
+import dev.johnnyleek.engine.tween.Tweener;
+
+/**
+ * Tests for Sprite
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class SpriteTest {
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("SpriteTest");
+		run("sizes are not shared", SpriteTest::notShared);
+		run("tweening a size does not change a shared Dimension", SpriteTest::tweenedSize);
+	}
+
+	private static void notShared() {
+		Shape a = new Shape(ShapeType.RECTANGLE, Color.RED, 10, 20, 0, 0);
+		Shape b = new Shape(ShapeType.RECTANGLE, Color.RED, 1, 1, 0, 0);
+		b.setSize(a.getSize());
+		a.setSize(30, 40);
+		equal(new Dimension(10, 20), b.getSize(), "b keeps the size it was given");
+		equal(new Dimension(30, 40), a.getSize(), "a is resized");
+		check(a.getSize() != null, "a has a size");
+	}
+
+	private static void tweenedSize() {
+		Shape a = new Shape(ShapeType.RECTANGLE, Color.RED, 10, 20, 0, 0);
+		Shape b = new Shape(ShapeType.RECTANGLE, Color.RED, 1, 1, 0, 0);
+		b.setSize(a.getSize());
+		Dimension before = a.getSize();
+
+		Tweener tweens = new Tweener(2);
+		tweens.to(a, Tweener.WIDTH, 50, 2, Easing.LINEAR);
+		tweens.to(a, Tweener.HEIGHT, 60, 2, Easing.LINEAR);
+		tweens.update();
+		tweens.update();
+		equal(new Dimension(50, 60), a.getSize(), "a is resized");
+		equal(new Dimension(10, 20), b.getSize(), "b keeps the size it was given");
+		equal(new Dimension(10, 20), before, "an earlier Dimension is not changed");
+	}
+
+}
@@ -0,0 +1,220 @@
+package dev.johnnyleek.engine.timer;
+
+import static dev.johnnyleek.engine.Check.check;
+import static dev.johnnyleek.engine.Check.equal;
+import static dev.johnnyleek.engine.Check.run;
+import static dev.johnnyleek.engine.Check.throwsException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for TimerService
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class TimerServiceTest {
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("TimerServiceTest");
+		run("timers fire on the tick they are due", TimerServiceTest::exactTicks);
+		run("long delays cascade through every level", TimerServiceTest::cascade);
+		run("timers due on the same tick fire in the order they were scheduled", TimerServiceTest::sameTick);
+		run("cancelling and stale handles", TimerServiceTest::cancel);
+		run("repeating timers", TimerServiceTest::repeating);
+		run("scheduling from a callback", TimerServiceTest::scheduleFromCallback);
+		run("invalid timers", TimerServiceTest::invalid);
+		run("many random timers", TimerServiceTest::random);
+	}
+
+	private static void advance(TimerService timers, long ticks) {
+		for(long i = 0; i < ticks; i++) timers.advance();
+	}
+
+	/**
+	 * Schedules a timer that records the tick it fires on
+	 */
+	private static long[] fireTick(TimerService timers, int delay) {
+		long[] fired = { -1 };
+		timers.schedule(delay, handle -> {
+			check(fired[0] == -1, "a timer fires once");
+			fired[0] = timers.getTick();
+		});
+		return fired;
+	}
+
+	private static void exactTicks() {
+		TimerService timers = new TimerService();
+		long[] one = fireTick(timers, 1);
+		long[] five = fireTick(timers, 5);
+		long[] slot = fireTick(timers, 255);
+		advance(timers, 4);
+		equal(1L, one[0], "delay 1");
+		equal(-1L, five[0], "not yet");
+		advance(timers, 1);
+		equal(5L, five[0], "delay 5");
+		advance(timers, 250);
+		equal(255L, slot[0], "delay 255");
+		equal(3L, timers.getFiredCount(), "fired count");
+		equal(0, timers.getPendingCount(), "pending count");
+	}
+
+	private static void cascade() {
+		int[] delays = { 256, 257, 511, 512, 65535, 65536, 65537, 70000, (1 << 24) - 1, 1 << 24, (1 << 24) + 300 };
+		for(int start : new int[] { 0, 100, 255 }) {
+			TimerService timers = new TimerService();
+			advance(timers, start);
+			long[][] fired = new long[delays.length][];
+			for(int i = 0; i < delays.length; i++) {
+				fired[i] = fireTick(timers, delays[i]);
+			}
+			advance(timers, (1 << 24) + 301);
+			for(int i = 0; i < delays.length; i++) {
+				equal(start + (long) delays[i], fired[i][0], "delay " + delays[i] + " from tick " + start);
+			}
+		}
+	}
+
+	private static void sameTick() {
+		TimerService timers = new TimerService();
+		StringBuilder order = new StringBuilder();
+		timers.schedule(300, handle -> order.append('A'));
+		advance(timers, 200);
+		timers.schedule(100, handle -> order.append('B'));
+		advance(timers, 90);
+		timers.schedule(10, handle -> order.append('C'));
+		timers.scheduleRepeating(5, 5, handle -> order.append('R'));
+		advance(timers, 10);
+		equal("RABCR", order.toString(), "order");
+		advance(timers, 5);
+		equal("RABCRR", order.toString(), "repeating timer");
+	}
+
+	private static void cancel() {
+		TimerService timers = new TimerService(1);
+		long[] fired = { 0 };
+		long first = timers.schedule(10, handle -> fired[0]++);
+		check(timers.isPending(first), "pending");
+		equal(10L, timers.getRemainingTicks(first), "remaining ticks");
+		advance(timers, 4);
+		equal(6L, timers.getRemainingTicks(first), "remaining ticks after advancing");
+
+		check(timers.cancel(first), "cancelled");
+		check(!timers.cancel(first), "already cancelled");
+		check(!timers.isPending(first), "no longer pending");
+		equal(-1L, timers.getRemainingTicks(first), "no remaining ticks");
+		equal(0, timers.getPendingCount(), "pending count");
+
+		long second = timers.schedule(3, handle -> fired[0] += 10);
+		equal((int) first, (int) second, "the index is reused");
+		check(first != second, "with a new handle");
+		check(!timers.cancel(first), "a stale handle does not cancel the new timer");
+		advance(timers, 10);
+		equal(10L, fired[0], "only the new timer fired");
+		check(!timers.isPending(second), "fired timers are not pending");
+		check(!timers.cancel(second), "fired timers cannot be cancelled");
+		check(!timers.cancel(-1), "an unknown handle");
+	}
+
+	private static void repeating() {
+		TimerService timers = new TimerService();
+		List<Long> ticks = new ArrayList<Long>();
+		timers.scheduleRepeating(2, 3, handle -> {
+			ticks.add(timers.getTick());
+			if(ticks.size() == 4) check(timers.cancel(handle), "cancelled from its own callback");
+		});
+		advance(timers, 30);
+		equal(Arrays.asList(2L, 5L, 8L, 11L), ticks, "fired on");
+		equal(0, timers.getPendingCount(), "pending count");
+
+		long[] count = { 0 };
+		long slow = timers.scheduleRepeating(1, 1000, handle -> count[0]++);
+		advance(timers, 100001);
+		equal(101L, count[0], "fired across levels");
+		check(timers.isPending(slow), "still repeating");
+	}
+
+	private static void scheduleFromCallback() {
+		TimerService timers = new TimerService();
+		long[] later = { -1 };
+		timers.schedule(5, handle -> timers.schedule(1, inner -> later[0] = timers.getTick()));
+		advance(timers, 5);
+		equal(-1L, later[0], "not on the same tick");
+		advance(timers, 1);
+		equal(6L, later[0], "on the next tick");
+	}
+
+	private static void invalid() {
+		TimerService timers = new TimerService();
+		throwsException(IllegalArgumentException.class, () -> timers.schedule(0, handle -> {}), "no delay");
+		throwsException(IllegalArgumentException.class, () -> timers.scheduleRepeating(1, 0, handle -> {}), "no period");
+		throwsException(NullPointerException.class, () -> timers.schedule(1, null), "no callback");
+		equal(0, timers.getPendingCount(), "nothing scheduled");
+	}
+
+	/**
+	 * Schedules (and cancels) thousands of timers with random delays, checking that they fire
+	 * exactly when a simple list of timers says they should, and in the same order
+	 */
+	private static void random() {
+		Random random = new Random(46);
+		int count = 4000;
+		int[] scheduleTicks = new int[count];
+		int[] delays = new int[count];
+		int[] cancelTicks = new int[count];
+		for(int i = 0; i < count; i++) {
+			scheduleTicks[i] = random.nextInt(50000);
+		}
+		// Scheduling in the order of the timers makes the order they were scheduled in the order of their index
+		Arrays.sort(scheduleTicks);
+		List<Integer> cancels = new ArrayList<Integer>();
+		for(int i = 0; i < count; i++) {
+			delays[i] = 1 + random.nextInt(1 << random.nextInt(21));
+			cancelTicks[i] = random.nextInt(4) == 0 ? scheduleTicks[i] + random.nextInt(delays[i]) : -1;
+			if(cancelTicks[i] >= 0) cancels.add(i);
+		}
+		cancels.sort((a, b) -> Integer.compare(cancelTicks[a], cancelTicks[b]));
+
+		TimerService timers = new TimerService(4);
+		long[] handles = new long[count];
+		long[] fired = new long[count];
+		Arrays.fill(fired, -1);
+		List<Integer> order = new ArrayList<Integer>();
+		int nextSchedule = 0, nextCancel = 0;
+		long end = 50000 + (1 << 20) + 1;
+		for(long tick = 0; tick < end; tick++) {
+			while(nextSchedule < count && scheduleTicks[nextSchedule] == tick) {
+				int timer = nextSchedule++;
+				handles[timer] = timers.schedule(delays[timer], handle -> {
+					equal(handles[timer], handle, "handle of timer " + timer);
+					fired[timer] = timers.getTick();
+					order.add(timer);
+				});
+			}
+			while(nextCancel < cancels.size() && cancelTicks[cancels.get(nextCancel)] == tick) {
+				int timer = cancels.get(nextCancel++);
+				check(timers.cancel(handles[timer]), "cancel timer " + timer);
+			}
+			timers.advance();
+		}
+
+		List<Integer> expected = new ArrayList<Integer>();
+		for(int i = 0; i < count; i++) {
+			long due = scheduleTicks[i] + (long) delays[i];
+			if(cancelTicks[i] >= 0) {
+				equal(-1L, fired[i], "cancelled timer " + i + " fired on");
+			} else {
+				equal(due, fired[i], "timer " + i + " fired on");
+				expected.add(i);
+			}
+		}
+		expected.sort((a, b) -> fired[a] != fired[b] ? Long.compare(fired[a], fired[b]) : Integer.compare(a, b));
+		equal(expected, order, "fire order");
+		equal(0, timers.getPendingCount(), "pending count");
+	}
+
+}
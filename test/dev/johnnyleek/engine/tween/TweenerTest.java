@@ -0,0 +1,187 @@
+package dev.johnnyleek.engine.tween;
+
+import static dev.johnnyleek.engine.Check.check;
+import static dev.johnnyleek.engine.Check.equal;
+import static dev.johnnyleek.engine.Check.run;
+
+import java.awt.Color;
+
+import dev.johnnyleek.engine.sprite.Shape;
+import dev.johnnyleek.engine.sprite.ShapeType;
+
+/**
+ * Tests for Tweener
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class TweenerTest {
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("TweenerTest");
+		run("a tween reaches its end", TweenerTest::reachesEnd);
+		run("sequences carry on from the last value", TweenerTest::sequence);
+		run("delays", TweenerTest::delay);
+		run("cancelling a running tween cancels its queue", TweenerTest::cancelRunning);
+		run("cancelling a queued tween", TweenerTest::cancelQueued);
+		run("cancelling a queued tween from a callback", TweenerTest::cancelFromCallback);
+		run("handles of ended tweens are not reused", TweenerTest::staleHandles);
+		run("size and color", TweenerTest::sizeAndColor);
+	}
+
+	private static Shape box() {
+		return new Shape(ShapeType.RECTANGLE, Color.BLACK, 10, 10, 0, 0);
+	}
+
+	private static void update(Tweener tweens, int ticks) {
+		for(int i = 0; i < ticks; i++) tweens.update();
+	}
+
+	private static void reachesEnd() {
+		Tweener tweens = new Tweener(4);
+		Shape box = box();
+		boolean[] completed = new boolean[1];
+		long tween = tweens.to(box, Tweener.X, 100, 4, Easing.LINEAR);
+		tweens.setCallback(tween, (handle, done) -> completed[0] = done);
+
+		update(tweens, 2);
+		equal(50, box.getPosX(), "halfway");
+		check(tweens.isActive(tween), "still running");
+		update(tweens, 2);
+		equal(100, box.getPosX(), "end");
+		check(!tweens.isActive(tween), "ended");
+		check(completed[0], "completed");
+		equal(1L, tweens.getCompletedCount(), "completed count");
+		equal(0, tweens.getRunningCount(), "running count");
+	}
+
+	private static void sequence() {
+		Tweener tweens = new Tweener(2);
+		Shape box = box();
+		long first = tweens.to(box, Tweener.X, 10, 2, Easing.LINEAR);
+		long second = tweens.after(first, box, Tweener.X, 30, 2, Easing.LINEAR);
+		tweens.after(second, box, Tweener.Y, 5, 1, Easing.LINEAR);
+		equal(1, tweens.getRunningCount(), "only the first tween runs");
+
+		update(tweens, 2);
+		equal(10, box.getPosX(), "first done");
+		update(tweens, 1);
+		equal(20, box.getPosX(), "second starts from where the first ended");
+		update(tweens, 1);
+		equal(30, box.getPosX(), "second done");
+		equal(0, box.getPosY(), "third not started");
+		update(tweens, 1);
+		equal(5, box.getPosY(), "third done");
+		equal(0, tweens.getRunningCount(), "nothing running");
+	}
+
+	private static void delay() {
+		Tweener tweens = new Tweener();
+		Shape box = box();
+		long tween = tweens.to(box, Tweener.X, 10, 1, Easing.LINEAR);
+		tweens.setDelay(tween, 2);
+		update(tweens, 2);
+		equal(0, box.getPosX(), "still delayed");
+		update(tweens, 1);
+		equal(10, box.getPosX(), "done");
+	}
+
+	private static void cancelRunning() {
+		Tweener tweens = new Tweener();
+		Shape box = box();
+		int[] cancelled = new int[1];
+		TweenCallback count = (handle, done) -> {
+			if(!done) cancelled[0]++;
+		};
+		long first = tweens.to(box, Tweener.X, 100, 10, Easing.LINEAR);
+		long second = tweens.after(first, box, Tweener.Y, 100, 10, Easing.LINEAR);
+		long third = tweens.after(second, box, Tweener.Y, 0, 10, Easing.LINEAR);
+		tweens.setCallback(first, count);
+		tweens.setCallback(second, count);
+		tweens.setCallback(third, count);
+
+		update(tweens, 1);
+		check(tweens.cancel(first), "cancelled");
+		equal(3, cancelled[0], "every callback called");
+		check(!tweens.isActive(second) && !tweens.isActive(third), "queued tweens cancelled");
+		update(tweens, 20);
+		equal(10, box.getPosX(), "left where it was");
+		equal(0, box.getPosY(), "queued tweens never ran");
+		equal(0, tweens.getRunningCount(), "nothing running");
+	}
+
+	private static void cancelQueued() {
+		Tweener tweens = new Tweener(2);
+		Shape box = box();
+		long first = tweens.to(box, Tweener.X, 30, 3, Easing.LINEAR);
+		long queued = tweens.after(first, box, Tweener.Y, 30, 3, Easing.LINEAR);
+		long next = tweens.after(first, box, Tweener.X, 0, 3, Easing.LINEAR);
+		check(tweens.cancel(queued), "cancelled");
+		check(!tweens.cancel(queued), "cancelling twice does nothing");
+
+		update(tweens, 3);
+		equal(30, box.getPosX(), "first done");
+		check(tweens.isActive(next), "the tween after the cancelled one still starts");
+		update(tweens, 3);
+		equal(0, box.getPosX(), "next done");
+		equal(0, box.getPosY(), "the cancelled tween never ran");
+
+		// The cancelled tween's slot is free again, and reusing it does not disturb anything
+		Shape other = box();
+		for(int i = 0; i < 8; i++) tweens.to(other, Tweener.Y, i, 1, Easing.LINEAR);
+		update(tweens, 1);
+		equal(7, other.getPosY(), "new tweens run");
+		equal(0, tweens.getRunningCount(), "nothing running");
+	}
+
+	private static void cancelFromCallback() {
+		Tweener tweens = new Tweener(2);
+		Shape box = box();
+		long first = tweens.to(box, Tweener.X, 10, 1, Easing.LINEAR);
+		long a = tweens.after(first, box, Tweener.Y, 10, 1, Easing.LINEAR);
+		long b = tweens.after(first, box, Tweener.Y, 20, 1, Easing.LINEAR);
+		long c = tweens.after(first, box, Tweener.X, 20, 1, Easing.LINEAR);
+		// Cancelling "first" cancels "a", whose callback cancels "b" before "first" reaches it
+		tweens.setCallback(a, (handle, done) -> tweens.cancel(b));
+		tweens.cancel(first);
+		check(!tweens.isActive(a) && !tweens.isActive(b) && !tweens.isActive(c), "every queued tween cancelled");
+
+		long d = tweens.to(box, Tweener.X, 5, 1, Easing.LINEAR);
+		long e = tweens.after(d, box, Tweener.Y, 5, 1, Easing.LINEAR);
+		long f = tweens.after(d, box, Tweener.Y, 7, 1, Easing.LINEAR);
+		// "d"'s callback runs once "e" and "f" have been started, and cancels "f" while it runs
+		tweens.setCallback(d, (handle, done) -> tweens.cancel(f));
+		update(tweens, 1);
+		check(tweens.isActive(e), "e started");
+		check(!tweens.isActive(f), "f cancelled");
+		update(tweens, 5);
+		equal(5, box.getPosX(), "x");
+		equal(5, box.getPosY(), "y (f never ran)");
+		equal(0, tweens.getRunningCount(), "nothing running");
+	}
+
+	private static void staleHandles() {
+		Tweener tweens = new Tweener(1);
+		Shape box = box();
+		long old = tweens.to(box, Tweener.X, 10, 1, Easing.LINEAR);
+		update(tweens, 1);
+		long reused = tweens.to(box, Tweener.X, 20, 5, Easing.LINEAR);
+		equal((int) old, (int) reused, "the slot is reused");
+		check(!tweens.cancel(old), "the old handle does nothing");
+		check(tweens.isActive(reused), "the new tween still runs");
+	}
+
+	private static void sizeAndColor() {
+		Tweener tweens = new Tweener();
+		Shape box = box();
+		tweens.to(box, Tweener.WIDTH, 30, 2, Easing.LINEAR);
+		tweens.to(box, Tweener.HEIGHT, 50, 2, Easing.LINEAR);
+		tweens.toColor(box, Color.WHITE, 2, Easing.LINEAR);
+		update(tweens, 2);
+		equal(30, box.getWidth(), "width");
+		equal(50, box.getHeight(), "height");
+		equal(Color.WHITE.getRGB(), box.getColor().getRGB(), "color");
+	}
+
+}
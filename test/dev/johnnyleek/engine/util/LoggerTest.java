@@ -0,0 +1,130 @@
+package dev.johnnyleek.engine.util;
+
+import static dev.johnnyleek.engine.Check.check;
+import static dev.johnnyleek.engine.Check.equal;
+import static dev.johnnyleek.engine.Check.run;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for Logger (and its ring buffer)
+ *
+ * @author Johnny Leek
+ * @version 1.0
+ *
+ */
+public class LoggerTest {
+
+	private static final int THREADS = 4;
+	private static final int MESSAGES = 2000;
+
+	public static void main(String[] args) throws Exception {
+		System.out.println("LoggerTest");
+		Verbosity previous = Logger.verbosity;
+		Logger.verbosity = Verbosity.DEBUG;
+		try {
+			run("placeholders", LoggerTest::placeholders);
+			run("arguments are frozen when logged", LoggerTest::frozen);
+			run("a throwing toString() does not stall the ring", LoggerTest::throwingToString);
+			run("null arguments", LoggerTest::nullArguments);
+			run("many threads", LoggerTest::manyThreads);
+		} finally {
+			Logger.verbosity = previous;
+			Logger.flush();
+			Logger.setOutput(System.out, true);
+		}
+	}
+
+	/**
+	 * Runs some logging, and returns everything it wrote
+	 */
+	private static String capture(Runnable logging) throws InterruptedException {
+		Logger.flush();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Logger.setOutput(new PrintStream(bytes, true, StandardCharsets.UTF_8), false);
+		Thread.sleep(20); // Let the writer switch streams
+		logging.run();
+		Logger.flush();
+		return bytes.toString(StandardCharsets.UTF_8).replace(System.lineSeparator(), "\n");
+	}
+
+	private static void placeholders() throws Exception {
+		String written = capture(() -> {
+			Logger.info("one {}", 1);
+			Logger.warn("{} and {}", "a", 'b');
+			Logger.debug("{}{}{}{}", 1, 2, 3, 4);
+			Logger.error("not enough {} {}", "x");
+			Logger.critical((Object) "plain {}");
+		});
+		equal("[INFO]: one 1\n[WARN]: a and b\n[DEBUG]: 1234\n[ERROR]: not enough x {}\n[CRITICAL]: plain {}\n", written, "output");
+	}
+
+	private static void frozen() throws Exception {
+		StringBuilder changing = new StringBuilder("before");
+		String written = capture(() -> {
+			Logger.info("value {}", changing);
+			changing.setLength(0);
+			changing.append("after");
+		});
+		equal("[INFO]: value before\n", written, "output");
+	}
+
+	private static void throwingToString() throws Exception {
+		Object broken = new Object() {
+			@Override
+			public String toString() {
+				throw new IllegalStateException("broken");
+			}
+		};
+		String written = capture(() -> {
+			Logger.info("first {}", broken);
+			Logger.info("second");
+		});
+		check(written.startsWith("[INFO]: first ["), "the broken argument is described: " + written);
+		check(written.contains("IllegalStateException"), "the exception is named: " + written);
+		check(written.endsWith("[INFO]: second\n"), "later messages are still written: " + written);
+	}
+
+	private static void nullArguments() throws Exception {
+		String written = capture(() -> {
+			Logger.info("array {}", (Object[]) null);
+			Logger.info("value {}", (Object) null);
+			Logger.info((Object) null);
+		});
+		equal("[INFO]: array {}\n[INFO]: value null\n[INFO]: null\n", written, "output");
+	}
+
+	private static void manyThreads() throws Exception {
+		long droppedBefore = Logger.getDroppedCount();
+		String written = capture(() -> {
+			Thread[] threads = new Thread[THREADS];
+			for(int t = 0; t < THREADS; t++) {
+				int thread = t;
+				threads[t] = new Thread(() -> {
+					for(int i = 0; i < MESSAGES; i++) {
+						Logger.debug("{} {}", thread, i);
+						if(i % 256 == 0) Logger.flush(); // Stay well below the capacity of the ring
+					}
+				});
+				threads[t].start();
+			}
+			try {
+				for(Thread thread : threads) thread.join();
+			} catch(InterruptedException e) {
+				throw new AssertionError(e);
+			}
+		});
+		equal(droppedBefore, Logger.getDroppedCount(), "dropped messages");
+
+		int[] next = new int[THREADS];
+		for(String line : written.split("\n")) {
+			String[] parts = line.substring("[DEBUG]: ".length()).split(" ");
+			int thread = Integer.parseInt(parts[0]);
+			equal(next[thread]++, Integer.parseInt(parts[1]), "message from thread " + thread);
+		}
+		for(int t = 0; t < THREADS; t++) equal(MESSAGES, next[t], "messages from thread " + t);
+	}
+
+}